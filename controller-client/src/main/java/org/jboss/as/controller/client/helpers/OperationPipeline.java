@@ -0,0 +1,217 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.client.helpers;
+
+import static org.jboss.as.controller.client.helpers.ClientConstants.HOST;
+import static org.jboss.as.controller.client.helpers.ClientConstants.OP;
+import static org.jboss.as.controller.client.helpers.ClientConstants.OP_ADDR;
+import static org.jboss.as.controller.client.logging.ControllerClientLogger.ROOT_LOGGER;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.impl.AbstractModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
+import org.jboss.threads.AsyncFuture;
+
+/**
+ * Executes many independent operations without waiting for the response to one operation before sending the next.
+ * <p>
+ * With a client connected to a remote process, the operations are sent in batches, each of which is a single request
+ * answered with a single response, and several batches are sent before waiting for the first response. The remote
+ * process executes the read-only operations of a batch concurrently. Whether the remote process supports batches is
+ * known from the protocol version of its responses, so if the client did not receive one yet the first operation is
+ * sent on its own. With other clients, or a remote process that does not support batches, the operations are sent one
+ * at a time, keeping up to a batch of them in flight.
+ * <p>
+ * Operations that reload the remote process are answered before they complete, which a batch cannot do. They are sent
+ * on their own, one at a time, once the other operations completed.
+ * <p>
+ * As the operations can be executed in any order and concurrently, they must not depend on each other. They cannot
+ * have attachments, and do not report progress.
+ */
+public final class OperationPipeline {
+
+    /** Default number of operations sent in a single request */
+    public static final int DEFAULT_BATCH_SIZE = 128;
+    /** Default number of batches sent before waiting for a response */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    private static final String RELOAD = "reload";
+
+    private OperationPipeline() {
+    }
+
+    /**
+     * Executes operations using the {@link #DEFAULT_BATCH_SIZE default batch size} and
+     * {@link #DEFAULT_MAX_IN_FLIGHT default number of batches in flight}.
+     *
+     * @param client the client
+     * @param operations the operations
+     * @return the responses to the operations, in the same order as the operations
+     * @throws IOException if an I/O error occurs while executing the operations
+     */
+    public static List<ModelNode> execute(final ModelControllerClient client, final List<ModelNode> operations) throws IOException {
+        return execute(client, operations, DEFAULT_BATCH_SIZE, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Executes operations.
+     *
+     * @param client the client
+     * @param operations the operations
+     * @param batchSize the max number of operations sent in a single request
+     * @param maxInFlight the max number of batches sent before waiting for a response
+     * @return the responses to the operations, in the same order as the operations
+     * @throws IOException if an I/O error occurs while executing the operations
+     */
+    public static List<ModelNode> execute(final ModelControllerClient client, final List<ModelNode> operations,
+                                          final int batchSize, final int maxInFlight) throws IOException {
+        if (client == null) {
+            throw ROOT_LOGGER.nullVar("client");
+        }
+        if (operations == null) {
+            throw ROOT_LOGGER.nullVar("operations");
+        }
+        if (batchSize < 1) {
+            throw ROOT_LOGGER.notPositive("batchSize", batchSize);
+        }
+        if (maxInFlight < 1) {
+            throw ROOT_LOGGER.notPositive("maxInFlight", maxInFlight);
+        }
+        final ModelNode[] responses = new ModelNode[operations.size()];
+        final List<Integer> indexes = new ArrayList<Integer>(operations.size());
+        final List<Integer> reloads = new ArrayList<Integer>();
+        for (int i = 0; i < operations.size(); i++) {
+            if (isReload(operations.get(i))) {
+                reloads.add(i);
+            } else {
+                indexes.add(i);
+            }
+        }
+        if (client instanceof AbstractModelControllerClient) {
+            executeBatches((AbstractModelControllerClient) client, operations, indexes, responses, batchSize, maxInFlight);
+        } else {
+            executeSingly(client, operations, indexes, responses, batchSize);
+        }
+        executeSingly(client, operations, reloads, responses, 1);
+        return Arrays.asList(responses);
+    }
+
+    private static void executeBatches(final AbstractModelControllerClient client, final List<ModelNode> operations,
+                                       final List<Integer> indexes, final ModelNode[] responses,
+                                       final int batchSize, final int maxInFlight) throws IOException {
+        int next = 0;
+        if (!client.isBatchSupported() && !indexes.isEmpty()) {
+            // The response tells whether the remote process supports batches
+            executeSingly(client, operations, indexes.subList(0, 1), responses, 1);
+            next = 1;
+        }
+        if (!client.isBatchSupported()) {
+            executeSingly(client, operations, indexes.subList(next, indexes.size()), responses, batchSize);
+            return;
+        }
+        final Deque<Batch> inFlight = new ArrayDeque<Batch>();
+        while (!inFlight.isEmpty() || next < indexes.size()) {
+            if (next < indexes.size() && inFlight.size() < maxInFlight) {
+                final List<Integer> batchIndexes = indexes.subList(next, Math.min(next + batchSize, indexes.size()));
+                final List<ModelNode> batchOperations = new ArrayList<ModelNode>(batchIndexes.size());
+                for (final Integer index : batchIndexes) {
+                    batchOperations.add(operations.get(index));
+                }
+                inFlight.add(new Batch(batchIndexes, client.executeBatch(batchOperations)));
+                next += batchIndexes.size();
+            } else {
+                final Batch batch = inFlight.poll();
+                final List<ModelNode> batchResponses = get(batch.future);
+                for (int i = 0; i < batchResponses.size(); i++) {
+                    responses[batch.indexes.get(i)] = batchResponses.get(i);
+                }
+            }
+        }
+    }
+
+    private static void executeSingly(final ModelControllerClient client, final List<ModelNode> operations,
+                                      final List<Integer> indexes, final ModelNode[] responses,
+                                      final int maxInFlight) throws IOException {
+        final Deque<AsyncFuture<ModelNode>> inFlight = new ArrayDeque<AsyncFuture<ModelNode>>();
+        int completed = 0;
+        for (final Integer index : indexes) {
+            if (inFlight.size() == maxInFlight) {
+                responses[indexes.get(completed++)] = get(inFlight.poll());
+            }
+            inFlight.add(client.executeAsync(operations.get(index), null));
+        }
+        while (!inFlight.isEmpty()) {
+            responses[indexes.get(completed++)] = get(inFlight.poll());
+        }
+    }
+
+    /**
+     * Whether the remote process answers the operation before it completes, as it reloads the process. Keep in sync with
+     * {@code ModelControllerClientOperationHandler.sendPreparedResponse}.
+     */
+    private static boolean isReload(final ModelNode operation) {
+        if (!operation.hasDefined(OP) || !RELOAD.equals(operation.get(OP).asString())) {
+            return false;
+        }
+        if (!operation.hasDefined(OP_ADDR)) {
+            return true;
+        }
+        final List<Property> address = operation.get(OP_ADDR).asPropertyList();
+        return address.isEmpty() || (address.size() == 1 && HOST.equals(address.get(0).getName()));
+    }
+
+    private static <T> T get(final AsyncFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ROOT_LOGGER.pipelineInterrupted();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static final class Batch {
+
+        private final List<Integer> indexes;
+        private final AsyncFuture<List<ModelNode>> future;
+
+        private Batch(final List<Integer> indexes, final AsyncFuture<List<ModelNode>> future) {
+            this.indexes = indexes;
+            this.future = future;
+        }
+    }
+}
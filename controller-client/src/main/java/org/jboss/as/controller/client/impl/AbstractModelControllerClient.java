@@ -35,6 +35,7 @@ import org.jboss.as.controller.client.Operation;
 import org.jboss.as.controller.client.OperationBuilder;
 import org.jboss.as.controller.client.OperationMessageHandler;
 import org.jboss.as.controller.client.OperationResponse;
+import org.jboss.as.controller.client.logging.ControllerClientLogger;
 import org.jboss.as.protocol.StreamUtils;
 import org.jboss.as.protocol.mgmt.AbstractManagementRequest;
 import org.jboss.as.protocol.mgmt.ActiveOperation;
@@ -62,6 +63,9 @@ public abstract class AbstractModelControllerClient implements ModelControllerCl
 
     private static final OperationMessageHandler NO_OP_HANDLER = OperationMessageHandler.DISCARD;
 
+    /** The protocol version of the last response received from the remote side, {@code 0} until one is received */
+    private volatile int remoteProtocolVersion;
+
     /**
      * Get the mgmt channel association.
      *
@@ -191,6 +195,7 @@ public abstract class AbstractModelControllerClient implements ModelControllerCl
 
             @Override
             public void handleRequest(final DataInput input, final ActiveOperation.ResultHandler<OperationResponse> resultHandler, final ManagementRequestContext<OperationExecutionContext> context) throws IOException {
+                remoteProtocolVersion = context.getRequestHeader().getVersion();
                 expectHeader(input, ModelControllerProtocol.PARAM_RESPONSE);
                 final ModelNode node = new ModelNode();
                 node.readExternal(input);
@@ -200,6 +205,77 @@ public abstract class AbstractModelControllerClient implements ModelControllerCl
         }, executionContext);
     }
 
+    /**
+     * Whether the remote side can execute batches of operations, see {@link #executeBatch(List)}. This is only known
+     * once the response to an operation has been received, until then it returns {@code false}.
+     *
+     * @return {@code true} if batches can be executed, {@code false} otherwise
+     */
+    public boolean isBatchSupported() {
+        return remoteProtocolVersion >= ManagementProtocol.VERSION_BATCH;
+    }
+
+    /**
+     * Execute independent operations with a single request, see
+     * {@link org.jboss.as.controller.client.helpers.OperationPipeline}. The operations cannot have attachments,
+     * do not report progress and must not need their response to be sent before they complete, as reloading the
+     * remote process does. This can only be used if {@link #isBatchSupported() batches are supported}.
+     *
+     * @param operations the operations
+     * @return the future responses to the operations, in the same order
+     * @throws IOException
+     */
+    public AsyncFuture<List<ModelNode>> executeBatch(final List<ModelNode> operations) throws IOException {
+        if (!isBatchSupported()) {
+            throw ControllerClientLogger.ROOT_LOGGER.batchNotSupported();
+        }
+        final ActiveOperation<List<ModelNode>, OperationExecutionContext> support = getChannelAssociation().executeRequest(new ExecuteBatchRequest(operations), null);
+        return support.getResult();
+    }
+
+    private class ExecuteBatchRequest extends AbstractManagementRequest<List<ModelNode>, OperationExecutionContext> {
+
+        private final List<ModelNode> operations;
+
+        private ExecuteBatchRequest(final List<ModelNode> operations) {
+            this.operations = operations;
+        }
+
+        @Override
+        public byte getOperationType() {
+            return ModelControllerProtocol.EXECUTE_BATCH_REQUEST;
+        }
+
+        @Override
+        protected void sendRequest(final ActiveOperation.ResultHandler<List<ModelNode>> resultHandler,
+                                   final ManagementRequestContext<OperationExecutionContext> context,
+                                   final FlushableDataOutput output) throws IOException {
+            output.write(ModelControllerProtocol.PARAM_OPERATION_COUNT);
+            output.writeInt(operations.size());
+            for (final ModelNode operation : operations) {
+                output.write(ModelControllerProtocol.PARAM_OPERATION);
+                operation.writeExternal(output);
+            }
+        }
+
+        @Override
+        public void handleRequest(final DataInput input, final ActiveOperation.ResultHandler<List<ModelNode>> resultHandler,
+                                  final ManagementRequestContext<OperationExecutionContext> context) throws IOException {
+            remoteProtocolVersion = context.getRequestHeader().getVersion();
+            expectHeader(input, ModelControllerProtocol.PARAM_OPERATION_COUNT);
+            final int count = input.readInt();
+            final List<ModelNode> responses = new ArrayList<ModelNode>(count);
+            for (int i = 0; i < count; i++) {
+                expectHeader(input, ModelControllerProtocol.PARAM_RESPONSE);
+                final ModelNode node = new ModelNode();
+                node.readExternal(input);
+                responses.add(node);
+            }
+            expectHeader(input, ManagementProtocol.RESPONSE_END);
+            resultHandler.done(responses);
+        }
+    }
+
     private static class ReadAttachmentInputStreamRequestHandler implements ManagementRequestHandler<ModelNode, OperationExecutionContext> {
 
         @Override
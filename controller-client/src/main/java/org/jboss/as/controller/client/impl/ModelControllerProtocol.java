@@ -28,6 +28,7 @@ package org.jboss.as.controller.client.impl;
  */
 public interface ModelControllerProtocol {
 
+    byte EXECUTE_BATCH_REQUEST = 0x43;
     byte CLOSE_INPUTSTREAM_REQUEST = 0x44;
     byte EXECUTE_ASYNC_CLIENT_REQUEST = 0x45;
     byte EXECUTE_CLIENT_REQUEST = 0x46;
@@ -50,6 +51,7 @@ public interface ModelControllerProtocol {
     byte PARAM_INPUTSTREAM_INDEX = 0x66;
     byte PARAM_INPUTSTREAM_LENGTH = 0x67;
     byte PARAM_INPUTSTREAM_CONTENTS = 0x68;
+    byte PARAM_OPERATION_COUNT = 0x6A;
     // This was never used in a .Final release, so byte can be re-used
     //byte PARAM_PREPARED = 0x69;
     byte PARAM_COMMIT = 0x70;
@@ -34,6 +34,7 @@ import org.jboss.logging.annotations.Message;
 import org.jboss.logging.annotations.MessageLogger;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URL;
 
 /**
@@ -376,6 +377,34 @@ public interface ControllerClientLogger extends BasicLogger {
     @Message(id = 36, value = "Stream was closed")
     IOException streamWasClosed();
 
+    /**
+     * Creates an exception indicating the value must be greater than zero.
+     *
+     * @param name  the name of the parameter
+     * @param value the invalid value
+     *
+     * @return an {@link IllegalArgumentException} for the error
+     */
+    @Message(id = 37, value = "%s must be greater than 0, was %d")
+    IllegalArgumentException notPositive(String name, int value);
+
+    /**
+     * Creates an exception indicating the thread was interrupted while waiting for the results of pipelined
+     * operations.
+     *
+     * @return an {@link InterruptedIOException} for the error
+     */
+    @Message(id = 38, value = "Interrupted while waiting for the results of pipelined operations")
+    InterruptedIOException pipelineInterrupted();
+
+    /**
+     * Creates an exception indicating the remote process is not known to support batches of operations.
+     *
+     * @return an {@link IllegalStateException} for the error
+     */
+    @Message(id = 39, value = "The remote process is not known to support batches of operations")
+    IllegalStateException batchNotSupported();
+
     class LeakDescription extends Throwable {
         private static final long serialVersionUID = -7193498784746897578L;
 
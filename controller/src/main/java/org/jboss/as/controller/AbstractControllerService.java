@@ -437,6 +437,8 @@ public abstract class AbstractControllerService implements Service<ModelControll
             @Override
             public void run() {
                 try {
+                    // Changes may still be waiting to be written in the background
+                    shutdownConfigurationPersister();
                     stopAsynchronous(context);
                 } finally {
                     try {
@@ -464,6 +466,17 @@ public abstract class AbstractControllerService implements Service<ModelControll
         }
     }
 
+    private void shutdownConfigurationPersister() {
+        final ConfigurationPersister persister = configurationPersister;
+        if (persister != null) {
+            try {
+                persister.shutdown();
+            } catch (ConfigurationPersistenceException e) {
+                ControllerLogger.MGMT_OP_LOGGER.failedToPersistConfigurationChange(e);
+            }
+        }
+    }
+
     /**
      * Hook for subclasses to perform work during the asynchronous task started by
      * {@link #stop(org.jboss.msc.service.StopContext)}. This base method does nothing.
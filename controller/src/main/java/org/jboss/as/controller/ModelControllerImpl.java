@@ -32,8 +32,11 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CAN
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DOMAIN_UUID;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILED;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILURE_DESCRIPTION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.LOCK_QUEUE_LENGTH;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.LOCK_STATISTICS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.MANAGEMENT_OPERATIONS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.MIME_TYPE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NOTIFICATION_STATISTICS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OPERATION_HEADERS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
@@ -93,6 +96,7 @@ import org.jboss.as.controller.logging.ControllerLogger;
 import org.jboss.as.controller.notification.NotificationSupport;
 import org.jboss.as.controller.persistence.ConfigurationPersistenceException;
 import org.jboss.as.controller.persistence.ConfigurationPersister;
+import org.jboss.as.controller.registry.CopyOnWriteResource;
 import org.jboss.as.controller.registry.DelegatingResource;
 import org.jboss.as.controller.registry.ImmutableManagementResourceRegistration;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
@@ -383,7 +387,7 @@ class ModelControllerImpl implements ModelController {
                 boolean shouldUnlock = false;
                 try {
                     if (attemptLock) {
-                        if (!controllerLock.detectDeadlockAndGetLock(operationID)) {
+                        if (!controllerLock.detectDeadlockAndGetLock(operationID, operation.get(OP).asString())) {
                             responseNode.get(OUTCOME).set(FAILED);
                             responseNode.get(FAILURE_DESCRIPTION).set(ControllerLogger.ROOT_LOGGER.cannotGetControllerLock());
                             return OperationResponse.Factory.createSimple(responseNode);
@@ -768,6 +772,8 @@ class ModelControllerImpl implements ModelController {
 
     ConfigurationPersister.PersistenceResource writeModel(final ManagementModelImpl model, Set<PathAddress> affectedAddresses) throws ConfigurationPersistenceException {
         ControllerLogger.MGMT_OP_LOGGER.tracef("persisting %s from %s", model.rootResource, model);
+        // The model is either published or discarded from here on, so it must not change anymore
+        CopyOnWriteResource.seal(model.rootResource);
         final ModelNode newModel = Resource.Tools.readModel(model.rootResource);
         final ConfigurationPersister.PersistenceResource delegate = persister.store(newModel, affectedAddresses);
         return new ConfigurationPersister.PersistenceResource() {
@@ -795,23 +801,23 @@ class ModelControllerImpl implements ModelController {
         model.discard();
     }
 
-    void acquireLock(Integer permit, final boolean interruptibly) throws InterruptedException {
+    void acquireLock(Integer permit, final boolean interruptibly, final String operationName) throws InterruptedException {
         if (interruptibly) {
             //noinspection LockAcquiredButNotSafelyReleased
-            controllerLock.lockInterruptibly(permit);
+            controllerLock.lockInterruptibly(permit, operationName);
         } else {
             //noinspection LockAcquiredButNotSafelyReleased
-            controllerLock.lock(permit);
+            controllerLock.lock(permit, operationName);
         }
     }
 
-    boolean acquireLock(Integer permit, final boolean interruptibly, long timeout) throws InterruptedException {
+    boolean acquireLock(Integer permit, final boolean interruptibly, long timeout, final String operationName) throws InterruptedException {
         if (interruptibly) {
             //noinspection LockAcquiredButNotSafelyReleased
-            return controllerLock.lockInterruptibly(permit, timeout, TimeUnit.SECONDS);
+            return controllerLock.lockInterruptibly(permit, operationName, timeout, TimeUnit.SECONDS);
         } else {
             //noinspection LockAcquiredButNotSafelyReleased
-            return controllerLock.lock(permit, timeout, TimeUnit.SECONDS);
+            return controllerLock.lock(permit, operationName, timeout, TimeUnit.SECONDS);
         }
     }
 
@@ -819,6 +825,19 @@ class ModelControllerImpl implements ModelController {
         controllerLock.unlock(permit);
     }
 
+    /**
+     * Acquires the controller lock in shared mode, which only excludes operations holding or waiting for the
+     * exclusive lock. Meant for contexts that cannot modify the model or the runtime.
+     */
+    void acquireSharedLock(Integer permit, final String operationName) throws InterruptedException {
+        //noinspection LockAcquiredButNotSafelyReleased
+        controllerLock.lockSharedInterruptibly(permit, operationName);
+    }
+
+    void releaseSharedLock(Integer permit) {
+        controllerLock.unlockShared(permit);
+    }
+
     /**
      * Log a report of any problematic container state changes and reset container state change history
      * so another run of this method or of {@link #awaitContainerStateChangeReport(long, java.util.concurrent.TimeUnit)}
@@ -992,6 +1011,26 @@ class ModelControllerImpl implements ModelController {
             super(SERVICE, MANAGEMENT_OPERATIONS);
         }
 
+        @Override
+        public boolean isModelDefined() {
+            return true;
+        }
+
+        @Override
+        public ModelNode getModel() {
+            final ModelNode model = new ModelNode();
+            model.get(LOCK_QUEUE_LENGTH).set(controllerLock.getQueueLength());
+            model.get(LOCK_STATISTICS).set(controllerLock.getStatistics());
+            final ModelNode notifications = model.get(NOTIFICATION_STATISTICS);
+            final long delivered = notificationSupport.getDeliveredNotificationCount();
+            notifications.get("delivered").set(delivered);
+            notifications.get("dropped").set(notificationSupport.getDroppedNotificationCount());
+            notifications.get("pending").set(notificationSupport.getPendingNotificationCount());
+            notifications.get("max-lag").set(notificationSupport.getMaxNotificationLag());
+            notifications.get("average-lag").set(delivered == 0 ? 0 : notificationSupport.getTotalNotificationLag() / delivered);
+            return model;
+        }
+
         @Override
         public boolean hasChild(PathElement element) {
             try {
@@ -1205,7 +1244,8 @@ class ModelControllerImpl implements ModelController {
                 currentResource = rootResource;
                 currentCaps = capabilityRegistry;
             }
-            Resource clone = currentResource.clone();
+            // A published resource tree is never modified, so we can share whatever we don't modify with it
+            Resource clone = published ? CopyOnWriteResource.fork(currentResource) : currentResource.clone();
             ManagementModelImpl result = new ManagementModelImpl(mrr, clone, currentCaps);
             ControllerLogger.MGMT_OP_LOGGER.tracef("cloned to %s to create %s and %s", currentResource, clone, result);
             return result;
@@ -1256,6 +1296,7 @@ class ModelControllerImpl implements ModelController {
         }
 
         private void publish() {
+            CopyOnWriteResource.seal(rootResource);
             ModelControllerImpl.this.managementModel.set(this);
             ControllerLogger.MGMT_OP_LOGGER.tracef("published %s", this);
             published = true;
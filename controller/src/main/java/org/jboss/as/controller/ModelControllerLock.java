@@ -22,108 +22,362 @@
 
 package org.jboss.as.controller;
 
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+
+import org.jboss.dmr.ModelNode;
 
 /**
  * Basic lock implementation using a permit object to allow reentrancy. The lock will only be released when all
  * participants which previously acquired the lock have called {@linkplain #unlock}.
+ * <p>
+ * Besides the exclusive mode used by operations that modify the model or the runtime, the lock can be held in a
+ * shared mode by any number of permits, which is sufficient for operations that only need a stable view of
+ * the model. A permit holding the exclusive lock can also acquire it in shared mode, and a permit that is the
+ * only holder of the shared lock can upgrade to the exclusive one. To prevent writers from being starved by a
+ * steady stream of readers, a permit that does not already hold the lock cannot acquire it in shared mode while
+ * another permit is waiting for the exclusive lock.
+ * </p>
+ * <p>
+ * The lock keeps track of the time spent waiting for and holding the lock, and of the number of waiters seen on
+ * arrival, per operation name.
+ * </p>
  *
  * @author Emanuel Muckenhuber
  */
 class ModelControllerLock {
-    private final Sync sync = new Sync();
 
-    void lock(Integer permit) {
-        if (permit == null) {
-            throw new IllegalArgumentException();
+    private static final String EXCLUSIVE_ACQUISITIONS = "exclusive-acquisitions";
+    private static final String SHARED_ACQUISITIONS = "shared-acquisitions";
+    private static final String TOTAL_WAIT_TIME = "total-wait-time";
+    private static final String MAX_WAIT_TIME = "max-wait-time";
+    private static final String TOTAL_HOLD_TIME = "total-hold-time";
+    private static final String MAX_HOLD_TIME = "max-hold-time";
+    private static final String MAX_QUEUE_LENGTH = "max-queue-length";
+
+    /** Guarded by this */
+    private Holder exclusiveHolder;
+    /** Guarded by this */
+    private final Map<Integer, Holder> sharedHolders = new HashMap<>();
+    /** Guarded by this */
+    private int exclusiveWaiters;
+    /** Guarded by this */
+    private int sharedWaiters;
+
+    private final ConcurrentMap<String, OperationStatistics> statistics = new ConcurrentHashMap<>();
+
+    void lock(Integer permit, String operationName) {
+        try {
+            acquire(permit, operationName, true, false, -1);
+        } catch (InterruptedException e) {
+            // not thrown by uninterruptible acquisitions
+            throw new IllegalStateException(e);
         }
-        sync.acquire(permit);
     }
 
-    boolean lock(Integer permit, long timeout, TimeUnit unit) throws InterruptedException {
+    boolean lock(Integer permit, String operationName, long timeout, TimeUnit unit) throws InterruptedException {
         boolean result = false;
         try {
-            result = lockInterruptibly(permit, timeout, unit);
+            result = lockInterruptibly(permit, operationName, timeout, unit);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
         return result;
     }
 
-    void lockInterruptibly(Integer permit) throws InterruptedException {
-        if (permit == null) {
-            throw new IllegalArgumentException();
-        }
-        sync.acquireInterruptibly(permit);
+    void lockInterruptibly(Integer permit, String operationName) throws InterruptedException {
+        acquire(permit, operationName, true, true, -1);
+    }
+
+    boolean lockInterruptibly(Integer permit, String operationName, long timeout, TimeUnit unit) throws InterruptedException {
+        return acquire(permit, operationName, true, true, Math.max(0, unit.toNanos(timeout)));
+    }
+
+    void lockSharedInterruptibly(Integer permit, String operationName) throws InterruptedException {
+        acquire(permit, operationName, false, true, -1);
     }
 
-    boolean lockInterruptibly(Integer permit, long timeout, TimeUnit unit) throws InterruptedException {
+    void unlock(Integer permit) {
         if (permit == null) {
             throw new IllegalArgumentException();
         }
-        return sync.tryAcquireNanos(permit, unit.toNanos(timeout));
+        final Holder released;
+        synchronized (this) {
+            if (exclusiveHolder == null) {
+                throw new IllegalStateException();
+            }
+            if (!exclusiveHolder.permit.equals(permit) || --exclusiveHolder.count > 0) {
+                return;
+            }
+            released = exclusiveHolder;
+            exclusiveHolder = null;
+            if (exclusiveWaiters + sharedWaiters > 0) {
+                notifyAll();
+            }
+        }
+        released.release();
     }
 
-    void unlock(Integer permit) {
+    void unlockShared(Integer permit) {
         if (permit == null) {
             throw new IllegalArgumentException();
         }
-        sync.release(permit);
+        final Holder released;
+        synchronized (this) {
+            final Holder holder = sharedHolders.get(permit);
+            if (holder == null) {
+                throw new IllegalStateException();
+            }
+            if (--holder.count > 0) {
+                return;
+            }
+            released = sharedHolders.remove(permit);
+            if (exclusiveWaiters > 0) {
+                notifyAll();
+            }
+        }
+        released.release();
     }
 
-    boolean detectDeadlockAndGetLock(int permit) {
-        return sync.tryAcquire(permit);
+    boolean detectDeadlockAndGetLock(int permit, String operationName) {
+        try {
+            return acquire(permit, operationName, true, false, 0);
+        } catch (InterruptedException e) {
+            // not thrown by uninterruptible acquisitions
+            throw new IllegalStateException(e);
+        }
     }
 
-    private class Sync extends AbstractQueuedSynchronizer {
-        private static final long serialVersionUID = 1L;
+    /**
+     * Gets the number of permits currently waiting for the lock.
+     *
+     * @return the number of waiting permits
+     */
+    synchronized int getQueueLength() {
+        return exclusiveWaiters + sharedWaiters;
+    }
 
-        private final AtomicReference<Object> permitHolder = new AtomicReference<>(null);
+    /**
+     * Gets the statistics of the lock usage, as a list with one entry per operation name.
+     *
+     * @return the statistics. Will not be {@code null}
+     */
+    ModelNode getStatistics() {
+        final ModelNode result = new ModelNode().setEmptyList();
+        for (Map.Entry<String, OperationStatistics> entry : statistics.entrySet()) {
+            result.add(entry.getValue().toModelNode(entry.getKey()));
+        }
+        return result;
+    }
 
-        @Override
-        protected synchronized boolean tryAcquire(int permit) {
-            if (compareAndSetState(0, 1)) {
-                permitHolder.set(permit);
+    /**
+     * Acquires the lock.
+     *
+     * @param permit the permit
+     * @param operationName the name of the operation acquiring the lock, used to record statistics
+     * @param exclusive {@code true} to acquire the exclusive lock, {@code false} for the shared one
+     * @param interruptibly {@code true} if the acquisition should be aborted if the thread is interrupted
+     * @param timeout max time to wait in ns; {@code -1} to wait as long as needed
+     * @return {@code true} if the lock was acquired, {@code false} if the timeout elapsed
+     * @throws InterruptedException if {@code interruptibly} is {@code true} and the thread is interrupted
+     */
+    private boolean acquire(final Integer permit, final String operationName, final boolean exclusive,
+                            final boolean interruptibly, final long timeout) throws InterruptedException {
+        if (permit == null) {
+            throw new IllegalArgumentException();
+        }
+        if (interruptibly && Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        final long start = System.nanoTime();
+        final OperationStatistics operationStatistics;
+        final int queueLength;
+        final long acquired;
+        synchronized (this) {
+            if (exclusive ? reenterExclusive(permit) : reenterShared(permit)) {
                 return true;
-            } else if (permitHolder.get().equals(permit)) {
-                for (;;) {
-                    int current = getState();
-                    int next = current + 1; // increase by one
-                    if (next < 0) // overflow
-                        throw new Error("Maximum lock count exceeded");
-                    if (compareAndSetState(current, next)) {
-                        return true;
-                    }
+            }
+            queueLength = exclusiveWaiters + sharedWaiters;
+            if (!canAcquire(permit, exclusive)) {
+                if (timeout == 0) {
+                    return false;
+                }
+                if (!await(permit, exclusive, interruptibly, start, timeout)) {
+                    return false;
                 }
             }
-            return false;
+            acquired = System.nanoTime();
+            operationStatistics = getOperationStatistics(operationName);
+            final Holder holder = new Holder(permit, operationStatistics, acquired);
+            if (exclusive) {
+                exclusiveHolder = holder;
+            } else {
+                sharedHolders.put(permit, holder);
+            }
         }
+        operationStatistics.acquired(exclusive, acquired - start, queueLength);
+        return true;
+    }
 
-        @Override
-        protected synchronized boolean tryRelease(int permit) {
-            final Object value = permitHolder.get();
-            if (value == null) {
-                throw new IllegalStateException();
-            }
-            if (value.equals(permit)) {
-                for (;;) {
-                    int current = getState();
-                    int next = current - 1; // count down one
-                    if(next < 0)
-                        throw new IllegalStateException();
-                    if (compareAndSetState(current, next)) {
-                        if (next == 0) {
-                            permitHolder.compareAndSet(value, null);
-                            return true;
-                        } else {
+    /** Must be called while holding the monitor. */
+    private boolean await(final Integer permit, final boolean exclusive, final boolean interruptibly,
+                          final long start, final long timeout) throws InterruptedException {
+        boolean interrupted = false;
+        if (exclusive) {
+            exclusiveWaiters++;
+        } else {
+            sharedWaiters++;
+        }
+        try {
+            while (!canAcquire(permit, exclusive)) {
+                try {
+                    if (timeout < 0) {
+                        wait();
+                    } else {
+                        final long remaining = start + timeout - System.nanoTime();
+                        if (remaining <= 0) {
                             return false;
                         }
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
                     }
+                } catch (InterruptedException e) {
+                    if (interruptibly) {
+                        throw e;
+                    }
+                    interrupted = true;
                 }
             }
-            return false;
+            return true;
+        } finally {
+            if (exclusive) {
+                exclusiveWaiters--;
+                // Readers held back in favour of this writer may be able to proceed now
+                notifyAll();
+            } else {
+                sharedWaiters--;
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Must be called while holding the monitor. */
+    private boolean canAcquire(final Integer permit, final boolean exclusive) {
+        if (exclusive) {
+            return exclusiveHolder == null
+                    && (sharedHolders.isEmpty() || (sharedHolders.size() == 1 && sharedHolders.containsKey(permit)));
+        } else if (exclusiveHolder != null) {
+            return exclusiveHolder.permit.equals(permit);
+        } else {
+            return exclusiveWaiters == 0;
+        }
+    }
+
+    /** Must be called while holding the monitor. */
+    private boolean reenterExclusive(final Integer permit) {
+        if (exclusiveHolder != null && exclusiveHolder.permit.equals(permit)) {
+            exclusiveHolder.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /** Must be called while holding the monitor. */
+    private boolean reenterShared(final Integer permit) {
+        final Holder holder = sharedHolders.get(permit);
+        if (holder != null) {
+            holder.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private OperationStatistics getOperationStatistics(final String operationName) {
+        final String key = String.valueOf(operationName);
+        OperationStatistics result = statistics.get(key);
+        if (result == null) {
+            result = new OperationStatistics();
+            final OperationStatistics existing = statistics.putIfAbsent(key, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A permit holding the lock in one of the modes.
+     */
+    private static final class Holder {
+        private final Integer permit;
+        private final OperationStatistics statistics;
+        private final long acquired;
+        /** Guarded by the lock's monitor */
+        private int count = 1;
+
+        private Holder(final Integer permit, final OperationStatistics statistics, final long acquired) {
+            this.permit = permit;
+            this.statistics = statistics;
+            this.acquired = acquired;
+        }
+
+        private void increment() {
+            if (count == Integer.MAX_VALUE) {
+                throw new Error("Maximum lock count exceeded");
+            }
+            count++;
+        }
+
+        private void release() {
+            statistics.released(System.nanoTime() - acquired);
+        }
+    }
+
+    /**
+     * Lock usage of all operations with a given name.
+     */
+    private static final class OperationStatistics {
+        private long exclusiveAcquisitions;
+        private long sharedAcquisitions;
+        private long totalWaitTime;
+        private long maxWaitTime;
+        private long totalHoldTime;
+        private long maxHoldTime;
+        private int maxQueueLength;
+
+        private synchronized void acquired(final boolean exclusive, final long waitTime, final int queueLength) {
+            if (exclusive) {
+                exclusiveAcquisitions++;
+            } else {
+                sharedAcquisitions++;
+            }
+            totalWaitTime += waitTime;
+            maxWaitTime = Math.max(maxWaitTime, waitTime);
+            maxQueueLength = Math.max(maxQueueLength, queueLength);
+        }
+
+        private synchronized void released(final long holdTime) {
+            totalHoldTime += holdTime;
+            maxHoldTime = Math.max(maxHoldTime, holdTime);
+        }
+
+        private synchronized ModelNode toModelNode(final String operationName) {
+            final ModelNode result = new ModelNode();
+            result.get(OP).set(operationName);
+            result.get(EXCLUSIVE_ACQUISITIONS).set(exclusiveAcquisitions);
+            result.get(SHARED_ACQUISITIONS).set(sharedAcquisitions);
+            result.get(TOTAL_WAIT_TIME).set(totalWaitTime);
+            result.get(MAX_WAIT_TIME).set(maxWaitTime);
+            result.get(TOTAL_HOLD_TIME).set(totalHoldTime);
+            result.get(MAX_HOLD_TIME).set(maxHoldTime);
+            result.get(MAX_QUEUE_LENGTH).set(maxQueueLength);
+            return result;
         }
     }
 }
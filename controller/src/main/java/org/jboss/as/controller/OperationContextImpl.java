@@ -723,12 +723,12 @@ final class OperationContextImpl extends AbstractOperationContext {
                 // let op 3 block for the time needed for both 1 and 2
 //                int timeout = blockingTimeout.getBlockingTimeout();
 //                if (timeout < 1) {
-                    modelController.acquireLock(operationId, respectInterruption);
+                    modelController.acquireLock(operationId, respectInterruption, activeStep.operationId.name);
 //                } else {
 //                    // Wait longer than the standard amount to get a chance to execute
 //                    // after whatever was holding the lock times out
 //                    timeout += 10;
-//                    if (!modelController.acquireLock(operationId, respectInterruption, timeout)) {
+//                    if (!modelController.acquireLock(operationId, respectInterruption, timeout, activeStep.operationId.name)) {
 //                        throw MESSAGES.operationTimeoutAwaitingControllerLock(timeout);
 //                    }
 //                }
@@ -200,7 +200,7 @@ class ParallelBootOperationContext extends AbstractOperationContext {
     public void acquireControllerLock() {
         if(lockStep == null) {
             try {
-                controller.acquireLock(operationId, true);
+                controller.acquireLock(operationId, true, activeStep.operationId.name);
                 lockStep = activeStep;
             } catch (InterruptedException e) {
                 cancelled = true;
@@ -183,7 +183,7 @@ class ReadOnlyContext extends AbstractOperationContext {
     public void acquireControllerLock() {
         if (lockStep == null) {
             try {
-                controller.acquireLock(operationId, true);
+                controller.acquireSharedLock(operationId, activeStep.operationId.name);
                 lockStep = activeStep;
             } catch (InterruptedException e) {
                 cancelled = true;
@@ -197,7 +197,7 @@ class ReadOnlyContext extends AbstractOperationContext {
     void releaseStepLocks(Step step) {
         if (step == lockStep) {
             lockStep = null;
-            controller.releaseLock(operationId);
+            controller.releaseSharedLock(operationId);
         }
     }
 
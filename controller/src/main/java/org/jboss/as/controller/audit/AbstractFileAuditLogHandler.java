@@ -94,11 +94,18 @@ public abstract class AbstractFileAuditLogHandler extends AuditLogHandler {
 
     @Override
     void writeLogItem(String formattedItem) throws IOException {
+        writeLogItems(new String[] {formattedItem});
+    }
+
+    @Override
+    void writeLogItems(String[] formattedItems) throws IOException {
         final FileOutputStream fos = new FileOutputStream(file, true);
         final BufferedOutputStream output = new BufferedOutputStream(fos);
         try {
-            output.write(formattedItem.getBytes());
-            output.write(LINE_TERMINATOR);
+            for (String formattedItem : formattedItems) {
+                output.write(formattedItem.getBytes());
+                output.write(LINE_TERMINATOR);
+            }
 
             //Flush and force the file to sync
             output.flush();
@@ -22,6 +22,7 @@
 package org.jboss.as.controller.audit;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -88,6 +89,28 @@ abstract class AuditLogHandler {
         }
     }
 
+    /**
+     * Writes several items in one go, in order.
+     *
+     * @param items the items
+     */
+    void writeLogItems(List<AuditLogItem> items) {
+        FailureCountHandler fch = getFailureCountHandler();
+        try {
+            initialize();
+            List<String> formattedItems = new ArrayList<String>(items.size());
+            for (AuditLogItem item : items) {
+                formattedItems.add(item.format(formatter));
+                // The formatter caches the last item it formatted
+                formatter.clear();
+            }
+            writeLogItems(formattedItems.toArray(new String[formattedItems.size()]));
+            fch.success();
+        } catch (Throwable t) {
+            fch.failure(t);
+        }
+    }
+
     void recycle() {
         this.failureCount = 0;
         stop();
@@ -133,6 +156,19 @@ abstract class AuditLogHandler {
     abstract void stop();
     abstract void writeLogItem(String formattedItem) throws IOException;
 
+    /**
+     * Writes several formatted items. Handlers that can write them more cheaply together than one by one should
+     * override this.
+     *
+     * @param formattedItems the formatted items
+     * @throws IOException if an item could not be written
+     */
+    void writeLogItems(String[] formattedItems) throws IOException {
+        for (String formattedItem : formattedItems) {
+            writeLogItem(formattedItem);
+        }
+    }
+
     List<ModelNode> listLastEntries() {
         return Collections.emptyList();
     }
@@ -0,0 +1,130 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded queue of the audit log items waiting to be written by the background writer of a
+ * {@link ManagedAuditLoggerImpl}. Any number of threads may offer and poll items without locking; each slot carries
+ * a sequence number telling whether it is free for the producer of a given position or filled for its consumer.
+ */
+final class AuditLogRingBuffer {
+
+    private final AtomicReferenceArray<AuditLogItem> items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    /** The position of the next item to poll */
+    private final AtomicLong head = new AtomicLong();
+    /** The position of the next item to offer */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity the minimum number of items the queue can hold, rounded up to a power of two
+     */
+    AuditLogRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(String.valueOf(capacity));
+        }
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        items = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Adds an item at the end of the queue.
+     *
+     * @param item the item
+     * @return {@code false} if the queue is full
+     */
+    boolean offer(AuditLogItem item) {
+        long position = tail.get();
+        for (;;) {
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items.lazySet(index, item);
+                    // publishes the item to the consumer of this position
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // the slot still holds the item offered one lap ago
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the item at the head of the queue.
+     *
+     * @return the item, or {@code null} if the queue is empty
+     */
+    AuditLogItem poll() {
+        long position = head.get();
+        for (;;) {
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    final AuditLogItem item = items.get(index);
+                    items.lazySet(index, null);
+                    // frees the slot for the producer of the next lap
+                    sequences.set(index, position + mask + 1);
+                    return item;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * @return the approximate number of items in the queue
+     */
+    int size() {
+        final long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -200,6 +200,24 @@ public interface ManagedAuditLogger extends AuditLogger {
         return Collections.emptyList();
     }
 
+    /**
+     * Gets the number of log items waiting to be written by the background writer
+     *
+     * @return the number of waiting items, {@code 0} if the items are written synchronously
+     */
+    default int getQueuedItemCount() {
+        return 0;
+    }
+
+    /**
+     * Gets the number of log items discarded because the queue of the background writer was full
+     *
+     * @return the number of discarded items
+     */
+    default long getDroppedItemCount() {
+        return 0;
+    }
+
     /**
      * Callback for the controller to call before the controller is booted
      */
@@ -31,10 +31,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.jboss.as.controller.OperationContext.ResultAction;
@@ -44,6 +48,7 @@ import org.jboss.as.controller.logging.ControllerLogger;
 import org.jboss.as.controller.registry.Resource;
 import org.jboss.as.core.security.AccessMechanism;
 import org.jboss.dmr.ModelNode;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * Audit logger wrapper
@@ -52,16 +57,44 @@ import org.jboss.dmr.ModelNode;
  * @author Kabir Khan
  */
 public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditLogger.AuditLogHandlerUpdater {
+
+    /**
+     * System property that sets how many audit log items can wait to be written by a background thread. With the
+     * default of {@code 0} the items are written on the thread that executed the audited operation.
+     */
+    public static final String ASYNC_QUEUE_SIZE_PROPERTY = "jboss.as.management.audit-log.async.queue-size";
+
+    /**
+     * System property that sets what happens to an audit log item when the queue of the background thread is full;
+     * {@code block} (the default) waits for room, {@code drop} discards the item. Discarded items are counted.
+     */
+    public static final String ASYNC_OVERFLOW_POLICY_PROPERTY = "jboss.as.management.audit-log.async.overflow-policy";
+
     /** Maximum number of consecutive logging failures before we stop logging */
     private static final short MAX_FAILURE_COUNT = 10;
 
+    /** Maximum number of queued items handed to the handlers in one go */
+    private static final int MAX_BATCH_SIZE = 256;
+
+    /** How often discarded items are reported in the log */
+    private static final long DROPPED_REPORT_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    /** How long the writer thread waits for items before it exits, it is started again by the next item */
+    private static final long WRITER_IDLE_TIMEOUT = TimeUnit.MINUTES.toNanos(1);
+
+    enum OverflowPolicy {
+        BLOCK,
+        DROP
+    }
+
     private final List<ManagedAuditLoggerImpl> childImpls;
 
     /** If we are the core audit logger, list the children */
     private final ManagedAuditLogConfiguration config;
 
-    /** Guarded by config's auditLock - updates to the handlers */
-    private HandlerUpdateTask handlerUpdateTask;
+    /** Guarded by config's auditLock - updates to the handlers. Volatile as it is checked without the lock
+      * to decide whether an item can be handed to the writer thread */
+    private volatile HandlerUpdateTask handlerUpdateTask;
 
     /** Guarded by config's auditLock - the messages logged while in the QUEUEING state */
     private final List<AuditLogItem> queuedItems = new ArrayList<AuditLogItem>();
@@ -75,15 +108,53 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
       * Must be reset to false when handler updates need to be performed */
     private final AtomicBoolean runDisabledFastPath = new AtomicBoolean(false);
 
+    /** The items waiting to be written by the writer thread, or {@code null} if items are written synchronously.
+      * Items are only taken from it with config's auditLock held, so that they are written in order */
+    private final AuditLogRingBuffer asyncQueue;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicLong droppedItemCount = new AtomicLong();
+    /** Guarded by config's auditLock */
+    private long reportedDroppedItemCount;
+    /** Guarded by config's auditLock */
+    private long lastDroppedReport;
+    /** Started on the first item handed to it, {@code null} once it has been stopped or has exited while idle.
+      * A writer exits when it is no longer the one referenced here */
+    private volatile AsyncWriter writer;
+
     public ManagedAuditLoggerImpl(String asVersion, boolean server) {
+        this(asVersion, server, getAsyncQueueSize(), getOverflowPolicy());
+    }
+
+    ManagedAuditLoggerImpl(String asVersion, boolean server, int asyncQueueSize, OverflowPolicy overflowPolicy) {
         config = new CoreAuditLogConfiguration(asVersion, server);
         childImpls = new ArrayList<ManagedAuditLoggerImpl>();
+        this.asyncQueue = asyncQueueSize > 0 ? new AuditLogRingBuffer(asyncQueueSize) : null;
+        this.overflowPolicy = overflowPolicy;
     }
 
     private ManagedAuditLoggerImpl(ManagedAuditLoggerImpl src, boolean manualCommit) {
         assert src.config instanceof CoreAuditLogConfiguration : "Not an instance of CoreAuditLogConfiguration";
         config = new NewAuditLogConfiguration((CoreAuditLogConfiguration)src.config, manualCommit);
         childImpls = null;
+        this.asyncQueue = src.asyncQueue != null ? new AuditLogRingBuffer(src.asyncQueue.capacity()) : null;
+        this.overflowPolicy = src.overflowPolicy;
+    }
+
+    private static int getAsyncQueueSize() {
+        try {
+            return Integer.parseInt(WildFlySecurityManager.getPropertyPrivileged(ASYNC_QUEUE_SIZE_PROPERTY, "0"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static OverflowPolicy getOverflowPolicy() {
+        final String policy = WildFlySecurityManager.getPropertyPrivileged(ASYNC_OVERFLOW_POLICY_PROPERTY, OverflowPolicy.BLOCK.name());
+        try {
+            return OverflowPolicy.valueOf(policy.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            return OverflowPolicy.BLOCK;
+        }
     }
 
     @Override
@@ -92,11 +163,18 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
         if (runDisabledFastPath.get())
             return;
 
+        if (canLogAsync(readOnly)) {
+            enqueue(AuditLogItem.createModelControllerItem(config.getAsVersion(), readOnly, config.isBooting(), resultAction, userId, domainUUID,
+                    accessMechanism, remoteAddress, resultantModel, copyOperations(operations)));
+            return;
+        }
+
         config.lock();
         try {
             if (skipLogging(readOnly)) {
                 return;
             }
+            drainQueue();
             storeLogItem(
                     AuditLogItem.createModelControllerItem(config.getAsVersion(), readOnly, config.isBooting(), resultAction, userId, domainUUID,
                             accessMechanism, remoteAddress, resultantModel, operations));
@@ -114,11 +192,18 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
         if (runDisabledFastPath.get())
             return;
 
+        if (canLogAsync(readOnly)) {
+            enqueue(AuditLogItem.createMethodAccessItem(config.getAsVersion(), readOnly, config.isBooting(), userId, domainUUID, accessMechanism,
+                    remoteAddress, methodName, methodSignature, methodParams, error));
+            return;
+        }
+
         config.lock();
         try {
             if (skipLogging(readOnly)) {
                 return;
             }
+            drainQueue();
             storeLogItem(
                     AuditLogItem.createMethodAccessItem(config.getAsVersion(), readOnly, config.isBooting(), userId, domainUUID, accessMechanism,
                             remoteAddress, methodName, methodSignature, methodParams, error));
@@ -141,6 +226,146 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
         return false;
     }
 
+    /**
+     * Whether an item can be handed to the writer thread without taking the lock. This is only the case while logging
+     * normally; items that need to be queued for boot, that disable the logger or that must be written before handler
+     * updates are applied go through the lock, after the items already handed to the writer thread.
+     */
+    private boolean canLogAsync(boolean readOnly) {
+        return asyncQueue != null
+                && handlerUpdateTask == null
+                && config.getLoggerStatus() == Status.LOGGING
+                && !(config.isBooting() && !config.isLogBoot() || readOnly && !config.isLogReadOnly());
+    }
+
+    /** The item is formatted later on, by when the caller may have modified the operations */
+    private static List<ModelNode> copyOperations(List<ModelNode> operations) {
+        if (operations == null) {
+            return null;
+        }
+        final List<ModelNode> copy = new ArrayList<ModelNode>(operations.size());
+        for (ModelNode operation : operations) {
+            copy.add(operation.clone());
+        }
+        return copy;
+    }
+
+    private void enqueue(AuditLogItem item) {
+        if (!asyncQueue.offer(item)) {
+            if (overflowPolicy == OverflowPolicy.DROP) {
+                droppedItemCount.incrementAndGet();
+                return;
+            }
+            do {
+                wakeWriter();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            } while (!asyncQueue.offer(item));
+        }
+        wakeWriter();
+    }
+
+    private void wakeWriter() {
+        AsyncWriter writer = this.writer;
+        if (writer == null) {
+            synchronized (this) {
+                writer = this.writer;
+                if (writer == null) {
+                    writer = new AsyncWriter();
+                    this.writer = writer;
+                    writer.thread.start();
+                    return;
+                }
+            }
+        }
+        if (writer.waiting.get() && writer.waiting.compareAndSet(true, false)) {
+            LockSupport.unpark(writer.thread);
+        }
+    }
+
+    /** Tells the writer thread to exit, the items it has not written yet are left in the queue */
+    private void stopWriter() {
+        final AsyncWriter writer;
+        synchronized (this) {
+            writer = this.writer;
+            this.writer = null;
+        }
+        if (writer != null) {
+            LockSupport.unpark(writer.thread);
+        }
+    }
+
+    /** Called by an idle writer, returns whether it may exit */
+    private boolean idleWriterExit(AsyncWriter writer) {
+        synchronized (this) {
+            if (this.writer != writer) {
+                return true;
+            }
+            this.writer = null;
+        }
+        // an item offered before the writer was cleared would not have started another one
+        if (asyncQueue.isEmpty()) {
+            return true;
+        }
+        synchronized (this) {
+            if (this.writer == null) {
+                this.writer = writer;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** For tests */
+    Thread getWriterThread() {
+        final AsyncWriter writer = this.writer;
+        return writer == null ? null : writer.thread;
+    }
+
+    /** protected by config's audit lock - writes the items handed to the writer thread that it has not written yet */
+    private void drainQueue() {
+        if (asyncQueue != null) {
+            while (writeQueuedItems() > 0) {
+                // keep going
+            }
+        }
+    }
+
+    /** protected by config's audit lock */
+    private int writeQueuedItems() {
+        final List<AuditLogItem> batch = new ArrayList<AuditLogItem>();
+        AuditLogItem item;
+        while (batch.size() < MAX_BATCH_SIZE && (item = asyncQueue.poll()) != null) {
+            batch.add(item);
+        }
+        if (batch.size() > 0) {
+            try {
+                writeLogItems(batch);
+            } catch (Exception e) {
+                handleLoggingException(e);
+            }
+        }
+        final long dropped = droppedItemCount.get();
+        if (dropped > reportedDroppedItemCount) {
+            final long now = System.nanoTime();
+            if (reportedDroppedItemCount == 0 || now - lastDroppedReport >= DROPPED_REPORT_INTERVAL) {
+                ControllerLogger.MGMT_OP_LOGGER.auditLogItemsDropped(dropped);
+                reportedDroppedItemCount = dropped;
+                lastDroppedReport = now;
+            }
+        }
+        return batch.size();
+    }
+
+    @Override
+    public int getQueuedItemCount() {
+        return asyncQueue == null ? 0 : asyncQueue.size();
+    }
+
+    @Override
+    public long getDroppedItemCount() {
+        return droppedItemCount.get();
+    }
+
     public ManagedAuditLoggerImpl createNewConfiguration(boolean manualCommit) {
         if (childImpls == null) {
             throw ControllerLogger.ROOT_LOGGER.canOnlyCreateChildAuditLoggerForMainAuditLogger();
@@ -218,6 +443,7 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
             if (newStatus == Status.DISABLE_NEXT && config.getLoggerStatus() == Status.DISABLED) {
                 return;
             }
+            drainQueue();
             config.setLoggerStatus(newStatus);
             if (newStatus == Status.LOGGING){
                 for (AuditLogItem record : queuedItems) {
@@ -271,6 +497,21 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
         }
     }
 
+    /** protected by config's audit lock */
+    private void writeLogItems(List<AuditLogItem> items) {
+        Set<String> formatterNames = new HashSet<String>();
+        try {
+            for (AuditLogHandler handler : config.getHandlersForLogging()) {
+                formatterNames.add(handler.getFormatterName());
+                handler.writeLogItems(items);
+            }
+        } finally {
+            for (String formatterName : formatterNames) {
+                config.getFormatter(formatterName).clear();
+            }
+        }
+    }
+
     /** protected by config's audit lock */
     private void handleLoggingException(final Exception e) {
         ControllerLogger.MGMT_OP_LOGGER.failedToUpdateAuditLog(e);
@@ -388,6 +629,8 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
     /** Call with lock taken */
     private void applyHandlerUpdates() {
         if (handlerUpdateTask != null) {
+            // items handed to the writer thread before the updates are written with the old handlers
+            drainQueue();
             handlerUpdateTask.applyChanges();
             handlerUpdateTask = null;
         }
@@ -747,8 +990,9 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
         /** Guarded by auditLock - the handlers configured in the global file-handlers and syslog-handlers section */
         private final Map<String, AuditLogHandler> configuredHandlers = new HashMap<String, AuditLogHandler>();
 
-        /** Guarded by auditLock - whether we are boothing or not */
-        private boolean booting = true;
+        /** Guarded by auditLock - whether we are boothing or not. Volatile as it is also read without the lock
+          * to decide whether an item can be handed to the writer thread */
+        private volatile boolean booting = true;
 
 
         SharedConfiguration(String asVersion, boolean server) {
@@ -816,6 +1060,56 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
     }
 
 
+    /**
+     * Writes the items handed to it by the threads executing the audited operations, a batch at a time.
+     */
+    private class AsyncWriter implements Runnable {
+
+        private final Thread thread;
+        /** Whether the thread is parked, or about to park, waiting for items */
+        private final AtomicBoolean waiting = new AtomicBoolean();
+
+        AsyncWriter() {
+            thread = new Thread(this, "Management audit log writer");
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long idleSince = System.nanoTime();
+            while (writer == this) {
+                final int written;
+                config.lock();
+                try {
+                    written = writeQueuedItems();
+                } finally {
+                    config.unlock();
+                }
+                if (written > 0) {
+                    idleSince = System.nanoTime();
+                } else if (asyncQueue.isEmpty()) {
+                    final long idle = System.nanoTime() - idleSince;
+                    if (idle >= WRITER_IDLE_TIMEOUT) {
+                        if (idleWriterExit(this)) {
+                            return;
+                        }
+                        idleSince = System.nanoTime();
+                        continue;
+                    }
+                    waiting.set(true);
+                    // check again so that an item offered before the flag was set is not missed
+                    if (asyncQueue.isEmpty() && writer == this) {
+                        LockSupport.parkNanos(this, WRITER_IDLE_TIMEOUT - idle);
+                    }
+                    waiting.set(false);
+                } else {
+                    // an item is being offered but is not published yet
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
     /**
      * When we add a handler(reference) we want that to be part of the current write.
      * If we remove/change and handler, and or reference, we don't want that to take effect until the next write.
@@ -996,8 +1290,15 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
     public void startBoot() {
         config.lock();
         try {
+            drainQueue();
+            stopWriter();
             config.setBooting(true);
             if (childImpls != null) {
+                // the children share our lock
+                for (ManagedAuditLoggerImpl child : childImpls) {
+                    child.drainQueue();
+                    child.stopWriter();
+                }
                 childImpls.clear();
             }
             config.setLoggerStatus(Status.QUEUEING);
@@ -88,10 +88,12 @@ public class SizeRotatingFileAuditLogHandler extends AbstractFileAuditLogHandler
     }
 
     @Override
-    void writeLogItem(String formattedItem) throws IOException {
-        super.writeLogItem(formattedItem);
-        currentSize += formattedItem.getBytes().length;
-        currentSize += LINE_TERMINATOR.length;
+    void writeLogItems(String[] formattedItems) throws IOException {
+        super.writeLogItems(formattedItems);
+        for (String formattedItem : formattedItems) {
+            currentSize += formattedItem.getBytes().length;
+            currentSize += LINE_TERMINATOR.length;
+        }
     }
 
     @Override
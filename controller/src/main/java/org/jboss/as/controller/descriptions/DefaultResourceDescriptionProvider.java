@@ -37,6 +37,8 @@ import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.DeprecationData;
@@ -50,6 +52,11 @@ import org.jboss.dmr.ModelNode;
 
 /**
  * Provides a default description of a resource by analyzing the registry metadata.
+ * <p>
+ * Descriptions are cached per locale for as long as the {@link ImmutableManagementResourceRegistration#getModificationCount()
+ * modification count} of the registry does not change, so that resolving the text of a resource and all its attributes
+ * is only done again after something is registered or unregistered. Callers get a copy of the cached description they
+ * are free to modify.
  *
  * @author Brian Stansberry (c) 2011 Red Hat Inc.
  */
@@ -58,6 +65,10 @@ public class DefaultResourceDescriptionProvider implements DescriptionProvider {
     private final ImmutableManagementResourceRegistration registration;
     private final ResourceDescriptionResolver descriptionResolver;
     private final DeprecationData deprecationData;
+    /** Descriptions resolved for a specific locale */
+    private final ConcurrentMap<Locale, CachedDescription> cache = new ConcurrentHashMap<>();
+    /** Description resolved for the default locale, i.e. when no locale is requested */
+    private volatile CachedDescription defaultCached;
 
     public DefaultResourceDescriptionProvider(final ImmutableManagementResourceRegistration registration,
                                               final ResourceDescriptionResolver descriptionResolver) {
@@ -74,6 +85,25 @@ public class DefaultResourceDescriptionProvider implements DescriptionProvider {
 
     @Override
     public ModelNode getModelDescription(Locale locale) {
+        final long modificationCount = registration.getModificationCount();
+        if (modificationCount < 0) {
+            // changes are not tracked, so nothing can be cached
+            return createModelDescription(locale);
+        }
+        CachedDescription cached = locale == null ? defaultCached : cache.get(locale);
+        if (cached == null || cached.modificationCount != modificationCount) {
+            // Read the count before resolving, so a registration made meanwhile makes this entry stale
+            cached = new CachedDescription(modificationCount, createModelDescription(locale));
+            if (locale == null) {
+                defaultCached = cached;
+            } else {
+                cache.put(locale, cached);
+            }
+        }
+        return cached.description.clone();
+    }
+
+    private ModelNode createModelDescription(Locale locale) {
         ModelNode result = new ModelNode();
 
         final ResourceBundle bundle = descriptionResolver.getResourceBundle(locale);
@@ -148,4 +178,15 @@ public class DefaultResourceDescriptionProvider implements DescriptionProvider {
         return deprecated;
     }
 
+    private static final class CachedDescription {
+
+        private final long modificationCount;
+        private final ModelNode description;
+
+        private CachedDescription(final long modificationCount, final ModelNode description) {
+            this.modificationCount = modificationCount;
+            description.protect();
+            this.description = description;
+        }
+    }
 }
@@ -51,6 +51,7 @@ public class ModelDescriptionConstants {
     public static final String ALLOWED_ORIGINS = "allowed-origins";
     public static final String ALL_ROLE_NAMES = "all-role-names";
     public static final String ALTERNATIVES = "alternatives";
+    public static final String ANNOTATION_INDEXING_TIMES = "annotation-indexing-times";
     public static final String ANY = "any";
     public static final String ANY_ADDRESS = "any-address";
     public static final String ANY_IPV4_ADDRESS = "any-ipv4-address";
@@ -143,6 +144,7 @@ public class ModelDescriptionConstants {
     public static final String DOMAIN_MODEL = "domain-model";
     public static final String DOMAIN_RESULTS = "domain-results";
     public static final String DOMAIN_UUID = "domain-uuid";
+    public static final String DROPPED_ITEMS = "dropped-items";
     public static final String DYNAMIC = "dynamic";
     public static final String DUMP_SERVICES = "dump-services";
     public static final String ENABLE = "enable";
@@ -237,6 +239,8 @@ public class ModelDescriptionConstants {
     public static final String LOCAL_DESTINATION_OUTBOUND_SOCKET_BINDING = "local-destination-outbound-socket-binding";
     public static final String LOCAL_HOST_NAME = "local-host-name";
     public static final String LOCALE = "locale";
+    public static final String LOCK_QUEUE_LENGTH = "lock-queue-length";
+    public static final String LOCK_STATISTICS = "lock-statistics";
     public static final String LOGGER = "logger";
     public static final String LOG_BOOT = "log-boot";
     public static final String LOG_READ_ONLY = "log-read-only";
@@ -284,6 +288,7 @@ public class ModelDescriptionConstants {
     public static final String NOT = "not";
     public static final String NOTIFICATION = "notification";
     public static final String NOTIFICATION_DATA_TYPE = "data-type";
+    public static final String NOTIFICATION_STATISTICS = "notification-statistics";
     public static final String NOTIFICATION_TYPE = "notification-type";
     public static final String NOTIFICATIONS = "notifications";
     /** Use this as the standard operation name field in the operation *request* ModelNode */
@@ -329,6 +334,7 @@ public class ModelDescriptionConstants {
     public static final String PROVIDER = "provider";
     public static final String PROXIES = "proxies";
     public static final String QUERY = "query";
+    public static final String QUEUED_ITEMS = "queued-items";
     public static final String READ = "read";
     public static final String READ_ATTRIBUTE_OPERATION = "read-attribute";
     public static final String READ_ATTRIBUTE_GROUP_OPERATION = "read-attribute-group";
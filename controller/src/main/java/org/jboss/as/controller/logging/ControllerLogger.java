@@ -55,6 +55,7 @@ import org.jboss.as.controller._private.OperationFailedRuntimeException;
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.as.controller.interfaces.InterfaceCriteria;
 import org.jboss.as.controller.notification.Notification;
+import org.jboss.as.controller.notification.NotificationHandler;
 import org.jboss.as.controller.parsing.Element;
 import org.jboss.as.controller.persistence.ConfigurationPersistenceException;
 import org.jboss.as.controller.registry.AttributeAccess;
@@ -3351,4 +3352,24 @@ public interface ControllerLogger extends BasicLogger {
             "Both the subsystem and the extension must be removed or migrated before the server will function.")
     @LogMessage(level = ERROR)
     void removeUnsupportedLegacyExtension(List<String> subsystemNames, String extensionName);
+
+    /**
+     * Logs a warning message indicating that audit log items were discarded because the asynchronous audit log queue
+     * was full.
+     *
+     * @param droppedCount the total number of items discarded so far
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 403, value = "The management operation audit log queue is full; %d audit log items have been discarded so far")
+    void auditLogItemsDropped(long droppedCount);
+
+    @LogMessage(level = WARN)
+    @Message(id = 404, value = "Notification handler %s is not keeping up with the emitted notifications; notifications are dropped while %d are waiting to be delivered to it")
+    void notificationHandlerQueueFull(NotificationHandler handler, int queueSize);
+
+    @Message(id = 405, value = "Operation '%s' cannot be executed in a batch, it must be executed on its own")
+    String operationCannotBeBatched(String operation);
+
+    @Message(id = 406, value = "Invalid number of operations in a batch: %d")
+    IOException invalidBatchOperationCount(int count);
 }
@@ -45,6 +45,43 @@ public interface NotificationSupport {
      */
     void emit(final Notification... notifications);
 
+    /**
+     * Get the number of notifications delivered to handlers since this support was created. A notification delivered to
+     * several handlers is counted once per handler.
+     */
+    default long getDeliveredNotificationCount() {
+        return 0;
+    }
+
+    /**
+     * Get the number of notifications not delivered to a handler because too many notifications were waiting to be
+     * delivered to it.
+     */
+    default long getDroppedNotificationCount() {
+        return 0;
+    }
+
+    /**
+     * Get the number of notifications currently waiting to be delivered to handlers.
+     */
+    default int getPendingNotificationCount() {
+        return 0;
+    }
+
+    /**
+     * Get the longest time in milliseconds between the creation of a notification and its delivery to a handler.
+     */
+    default long getMaxNotificationLag() {
+        return 0;
+    }
+
+    /**
+     * Get the total time in milliseconds between the creation of the delivered notifications and their delivery.
+     */
+    default long getTotalNotificationLag() {
+        return 0;
+    }
+
     class Factory {
         private Factory() {
         }
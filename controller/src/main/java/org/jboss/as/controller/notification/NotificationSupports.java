@@ -22,15 +22,20 @@
 
 package org.jboss.as.controller.notification;
 
-import java.util.Arrays;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.as.controller.logging.ControllerLogger;
 import org.jboss.as.controller.registry.NotificationHandlerRegistration;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * Provides implementation of the {@code NotificationSupport}.
@@ -38,9 +43,10 @@ import org.jboss.as.controller.registry.NotificationHandlerRegistration;
  * The {@code BlockingNotificationSupport} will fire the notifications and deliver them to the handlers on the current thread.
  * Its {@code emit()} method will return after the notifications have all been delivered (and blocks the code execution until it is done).
  *
- * The {@code NonBlockingNotificationSupport} will fire the notifications in a separate thread (provided by its {@code
+ * The {@code NonBlockingNotificationSupport} will fire the notifications in separate threads (provided by its {@code
  *  executorService}.
- * Its {@code emit()} method will return immediately and will not block the code execution.
+ * Its {@code emit()} method will return immediately and will not block the code execution. Each handler receives its
+ * notifications in the order they were emitted, independently of the other handlers.
  *
  * @author <a href="http://jmesnil.net/">Jeff Mesnil</a> (c) 2014 Red Hat inc.
  */
@@ -67,56 +73,273 @@ class NotificationSupports {
 
     static class NonBlockingNotificationSupport implements  NotificationSupport {
 
+        /**
+         * System property that sets how many notifications can wait to be delivered to a single handler. When a handler
+         * does not keep up, further notifications for it are dropped until it catches up.
+         */
+        static final String HANDLER_QUEUE_SIZE_PROPERTY = "jboss.as.management.notification.handler-queue-size";
+
+        private static final int DEFAULT_HANDLER_QUEUE_SIZE = 10000;
+
+        /**
+         * Maximum number of tasks delivering notifications at the same time.
+         */
+        private static final int MAX_WORKERS = 4;
+
+        /**
+         * Maximum number of notifications delivered to a handler before a worker moves on to the next handler.
+         */
+        private static final int MAX_BATCH_SIZE = 64;
+
         private final NotificationHandlerRegistration registry;
         private final ExecutorService executor;
+        private final int handlerQueueSize;
 
         /**
-         * Use a concurrent queue to put the notifications in it when {@code emit()} is called.
-         * The queue will be drained in a separate thread and the notifications effectively delivered to the handlers.
-         *
-         * This ensures that the notifications will be delivered in the same order they were emitted.
+         * The notifications waiting to be delivered, one queue per handler. A handler's notifications are delivered in the
+         * order they were emitted and one at a time, so a slow handler only delays its own notifications.
          */
-        private final Queue<Notification> queue = new ConcurrentLinkedQueue<Notification>();
+        private final ConcurrentMap<NotificationHandler, HandlerQueue> handlerQueues = new ConcurrentHashMap<>();
 
         /**
-         * use the lock's exclusive writeLock to ensure only one thread can drain the queue at a given time.
+         * The handler queues that have notifications and are waiting for a worker.
          */
-        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Queue<HandlerQueue> readyQueues = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger workers = new AtomicInteger();
+        private final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                deliverReadyQueues();
+            }
+        };
+
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong maxLag = new AtomicLong();
+        private final AtomicLong totalLag = new AtomicLong();
 
         public NonBlockingNotificationSupport(NotificationHandlerRegistration registry, ExecutorService executor) {
+            this(registry, executor, getHandlerQueueSize());
+        }
+
+        NonBlockingNotificationSupport(NotificationHandlerRegistration registry, ExecutorService executor, int handlerQueueSize) {
             this.registry = registry;
             this.executor = executor;
+            this.handlerQueueSize = handlerQueueSize;
         }
 
-        @Override
-        public synchronized void emit(Notification... notifications) {
-            queue.addAll(Arrays.asList(notifications));
+        private static int getHandlerQueueSize() {
+            try {
+                return Integer.parseInt(WildFlySecurityManager.getPropertyPrivileged(HANDLER_QUEUE_SIZE_PROPERTY,
+                        String.valueOf(DEFAULT_HANDLER_QUEUE_SIZE)));
+            } catch (NumberFormatException e) {
+                return DEFAULT_HANDLER_QUEUE_SIZE;
+            }
+        }
 
-            executor.execute(new Runnable() {
-                @Override
-                public void run() {
-                    lock.writeLock().lock();
-                    try {
-                        while (true) {
-                            Notification notification = queue.poll();
-                            if (notification == null) {
-                                break;
-                            }
-                            fireNotifications(registry, notification);
-                        }
-                    } finally {
-                        lock.writeLock().unlock();
+        @Override
+        public void emit(Notification... notifications) {
+            for (Notification notification : notifications) {
+                try {
+                    // each notification may have a different subset of handlers depending on their filters
+                    for (NotificationHandler handler : registry.findMatchingNotificationHandlers(notification)) {
+                        enqueue(handler, notification);
                     }
+                } catch (Throwable t) {
+                    ControllerLogger.ROOT_LOGGER.failedToEmitNotification(notification, t);
                 }
-            });
+            }
         }
 
         @Override
         public NotificationHandlerRegistration getNotificationRegistry() {
             return registry;
         }
-    }
 
+        @Override
+        public long getDeliveredNotificationCount() {
+            return delivered.get();
+        }
+
+        @Override
+        public long getDroppedNotificationCount() {
+            return dropped.get();
+        }
+
+        @Override
+        public int getPendingNotificationCount() {
+            return pending.get();
+        }
+
+        @Override
+        public long getMaxNotificationLag() {
+            return maxLag.get();
+        }
+
+        @Override
+        public long getTotalNotificationLag() {
+            return totalLag.get();
+        }
+
+        private void enqueue(NotificationHandler handler, Notification notification) {
+            for (;;) {
+                HandlerQueue queue = handlerQueues.get(handler);
+                if (queue == null) {
+                    final HandlerQueue newQueue = new HandlerQueue(handler);
+                    queue = handlerQueues.putIfAbsent(handler, newQueue);
+                    if (queue == null) {
+                        queue = newQueue;
+                    }
+                }
+                final Boolean schedule = queue.offer(notification);
+                if (schedule != null) {
+                    if (schedule) {
+                        readyQueues.add(queue);
+                        startWorker();
+                    }
+                    return;
+                }
+                // the queue was emptied and discarded in the meantime, use a new one
+            }
+        }
+
+        private void startWorker() {
+            for (;;) {
+                final int current = workers.get();
+                if (current >= MAX_WORKERS) {
+                    return;
+                }
+                if (workers.compareAndSet(current, current + 1)) {
+                    try {
+                        executor.execute(worker);
+                    } catch (RejectedExecutionException e) {
+                        // e.g. the executor is shutting down, do not leave the notifications behind
+                        worker.run();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void deliverReadyQueues() {
+            for (;;) {
+                final HandlerQueue queue = readyQueues.poll();
+                if (queue == null) {
+                    workers.decrementAndGet();
+                    // a queue may have become ready after the poll and before the decrement
+                    if (readyQueues.isEmpty()) {
+                        return;
+                    }
+                    final int current = workers.get();
+                    if (current >= MAX_WORKERS || !workers.compareAndSet(current, current + 1)) {
+                        return;
+                    }
+                    continue;
+                }
+                if (queue.deliver()) {
+                    readyQueues.add(queue);
+                }
+            }
+        }
+
+        private void delivered(Notification notification) {
+            delivered.incrementAndGet();
+            final long lag = Math.max(0, System.currentTimeMillis() - notification.getTimestamp());
+            totalLag.addAndGet(lag);
+            long max = maxLag.get();
+            while (lag > max && !maxLag.compareAndSet(max, lag)) {
+                max = maxLag.get();
+            }
+        }
+
+        /**
+         * The notifications waiting to be delivered to a handler. It is in {@code readyQueues}, or being delivered by a
+         * worker, as long as it has notifications. Once it is found empty it is discarded, so that the queues of
+         * unregistered handlers do not accumulate.
+         */
+        private final class HandlerQueue {
+
+            private final NotificationHandler handler;
+            /** Guarded by this */
+            private final Deque<Notification> notifications = new ArrayDeque<>();
+            /** Guarded by this */
+            private boolean scheduled;
+            /** Guarded by this */
+            private boolean discarded;
+            /** Guarded by this */
+            private boolean full;
+
+            private HandlerQueue(NotificationHandler handler) {
+                this.handler = handler;
+            }
+
+            /**
+             * @return {@code null} if the queue has been discarded, otherwise whether it must be scheduled for delivery
+             */
+            synchronized Boolean offer(Notification notification) {
+                if (discarded) {
+                    return null;
+                }
+                if (notifications.size() >= handlerQueueSize) {
+                    dropped.incrementAndGet();
+                    if (!full) {
+                        full = true;
+                        ControllerLogger.ROOT_LOGGER.notificationHandlerQueueFull(handler, handlerQueueSize);
+                    }
+                    return Boolean.FALSE;
+                }
+                notifications.add(notification);
+                pending.incrementAndGet();
+                if (scheduled) {
+                    return Boolean.FALSE;
+                }
+                scheduled = true;
+                return Boolean.TRUE;
+            }
+
+            /**
+             * Delivers a batch of notifications.
+             *
+             * @return {@code true} if notifications are left and the queue must be scheduled again
+             */
+            boolean deliver() {
+                for (int i = 0; i < MAX_BATCH_SIZE; i++) {
+                    final Notification notification;
+                    synchronized (this) {
+                        notification = notifications.poll();
+                        if (notification == null) {
+                            discard();
+                            return false;
+                        }
+                    }
+                    pending.decrementAndGet();
+                    try {
+                        handler.handleNotification(notification);
+                    } catch (Throwable t) {
+                        ControllerLogger.ROOT_LOGGER.failedToEmitNotification(notification, t);
+                    }
+                    delivered(notification);
+                }
+                synchronized (this) {
+                    full = false;
+                    if (notifications.isEmpty()) {
+                        discard();
+                        return false;
+                    }
+                    return true;
+                }
+            }
+
+            /** Call with the monitor held */
+            private void discard() {
+                scheduled = false;
+                discarded = true;
+                handlerQueues.remove(handler, this);
+            }
+        }
+    }
 
     private static void fireNotifications(NotificationHandlerRegistration registry, final Notification... notifications) {
         for (Notification notification : notifications) {
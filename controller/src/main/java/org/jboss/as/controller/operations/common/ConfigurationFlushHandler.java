@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.operations.common;
+
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationDefinition;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.OperationStepHandler;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleOperationDefinitionBuilder;
+import org.jboss.as.controller.descriptions.common.ControllerResolver;
+import org.jboss.as.controller.persistence.ConfigurationPersistenceException;
+import org.jboss.as.controller.persistence.ConfigurationPersister;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+
+/**
+ * An operation that blocks until all committed configuration changes have been written to the configuration file,
+ * for persisters that write them in the background.
+ */
+public class ConfigurationFlushHandler implements OperationStepHandler {
+
+    private static final String OPERATION_NAME = "flush-configuration";
+
+    public static final OperationDefinition DEFINITION = new SimpleOperationDefinitionBuilder(OPERATION_NAME, ControllerResolver.getResolver("persistence"))
+            .setReplyType(ModelType.LONG)
+            .setRuntimeOnly()
+            .build();
+
+    /** Metric exposing {@link ConfigurationPersister#getUnflushedChangeCount()} */
+    public static final SimpleAttributeDefinition UNFLUSHED_CHANGES = SimpleAttributeDefinitionBuilder.create("unflushed-configuration-changes", ModelType.LONG)
+            .setStorageRuntime()
+            .build();
+
+    private final ConfigurationPersister persister;
+
+    public ConfigurationFlushHandler(ConfigurationPersister persister) {
+        this.persister = persister;
+    }
+
+    @Override
+    public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+        try {
+            context.getResult().set(persister.flush());
+        } catch (ConfigurationPersistenceException e) {
+            throw new OperationFailedException(e);
+        }
+        context.completeStep(OperationContext.RollbackHandler.NOOP_ROLLBACK_HANDLER);
+    }
+
+    /**
+     * Creates the handler reading the {@link #UNFLUSHED_CHANGES} metric.
+     *
+     * @param persister the persister
+     * @return the handler
+     */
+    public static OperationStepHandler createUnflushedChangesHandler(final ConfigurationPersister persister) {
+        return new OperationStepHandler() {
+            @Override
+            public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+                context.getResult().set(persister.getUnflushedChangeCount());
+                context.completeStep(OperationContext.RollbackHandler.NOOP_ROLLBACK_HANDLER);
+            }
+        };
+    }
+}
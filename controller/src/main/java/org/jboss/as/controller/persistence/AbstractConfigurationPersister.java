@@ -25,14 +25,17 @@ package org.jboss.as.controller.persistence;
 import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamWriter;
 
+import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.logging.ControllerLogger;
 import org.jboss.dmr.ModelNode;
 import org.jboss.staxmapper.XMLElementWriter;
 import org.jboss.staxmapper.XMLMapper;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 import static org.jboss.as.controller.logging.ControllerLogger.ROOT_LOGGER;
 
@@ -43,8 +46,15 @@ import static org.jboss.as.controller.logging.ControllerLogger.ROOT_LOGGER;
  */
 public abstract class AbstractConfigurationPersister implements ExtensibleConfigurationPersister {
 
+    /**
+     * System property that, if set to {@code true}, makes persisters only re-marshal the subsystems affected by a
+     * change, reusing the previously marshalled XML of the other subsystems.
+     */
+    public static final String INCREMENTAL_PERSISTENCE_PROPERTY = "jboss.as.management.persistence.incremental";
+
     private final XMLElementWriter<ModelMarshallingContext> rootDeparser;
     private final Map<String, XMLElementWriter<SubsystemMarshallingContext>> subsystemWriters = new HashMap<String, XMLElementWriter<SubsystemMarshallingContext>>();
+    private final SubsystemXmlCache subsystemXmlCache;
 
     /**
      * Construct a new instance.
@@ -52,7 +62,12 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
      * @param rootDeparser the root model deparser
      */
     public AbstractConfigurationPersister(final XMLElementWriter<ModelMarshallingContext> rootDeparser) {
+        this(rootDeparser, Boolean.parseBoolean(WildFlySecurityManager.getPropertyPrivileged(INCREMENTAL_PERSISTENCE_PROPERTY, "false")));
+    }
+
+    AbstractConfigurationPersister(final XMLElementWriter<ModelMarshallingContext> rootDeparser, final boolean incremental) {
         this.rootDeparser = rootDeparser;
+        this.subsystemXmlCache = incremental ? new SubsystemXmlCache() : null;
     }
 
     @Override
@@ -60,6 +75,9 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
         synchronized (subsystemWriters) {
             subsystemWriters.put(name, deparser);
         }
+        if (subsystemXmlCache != null) {
+            subsystemXmlCache.invalidate(name);
+        }
     }
 
     @Override
@@ -67,11 +85,48 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
         synchronized (subsystemWriters) {
             subsystemWriters.remove(name);
         }
+        if (subsystemXmlCache != null) {
+            subsystemXmlCache.invalidate(name);
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public void marshallAsXml(final ModelNode model, final OutputStream output) throws ConfigurationPersistenceException {
+        marshallAsXml(model, output, null);
+    }
+
+    /**
+     * Marshals the given model as part of storing a change to it. If incremental persistence is enabled, the writers of
+     * subsystems that are not affected by the change are not invoked; what they wrote the last time is written again.
+     *
+     * @param model the model to marshal
+     * @param affectedAddresses the addresses of the resources affected by the change
+     * @param output the stream to write to
+     * @return the session to {@link SubsystemXmlCache.Session#commit() commit} once the marshalled model is stored, or
+     *         {@code null} if incremental persistence is not used
+     * @throws ConfigurationPersistenceException if marshalling fails
+     */
+    SubsystemXmlCache.Session marshallAsXml(final ModelNode model, final Set<PathAddress> affectedAddresses, final OutputStream output) throws ConfigurationPersistenceException {
+        if (subsystemXmlCache == null || affectedAddresses == null) {
+            marshallAsXml(model, output);
+            return null;
+        }
+        final SubsystemXmlCache.Session session = subsystemXmlCache.startSession(affectedAddresses);
+        marshallAsXml(model, output, session);
+        return session;
+    }
+
+    /**
+     * Drops what the subsystem writers wrote so far, so that they are all invoked the next time the model is stored.
+     */
+    void invalidateSubsystemXml() {
+        if (subsystemXmlCache != null) {
+            subsystemXmlCache.invalidate();
+        }
+    }
+
+    private void marshallAsXml(final ModelNode model, final OutputStream output, final SubsystemXmlCache.Session session) throws ConfigurationPersistenceException {
         final XMLMapper mapper = XMLMapper.Factory.create();
         try {
             XMLStreamWriter streamWriter = null;
@@ -86,9 +141,11 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
 
                     @Override
                     public XMLElementWriter<SubsystemMarshallingContext> getSubsystemWriter(String extensionName) {
+                        final XMLElementWriter<SubsystemMarshallingContext> writer;
                         synchronized (subsystemWriters) {
-                            return subsystemWriters.get(extensionName);
+                            writer = subsystemWriters.get(extensionName);
                         }
+                        return session == null ? writer : session.wrap(extensionName, writer);
                     }
                 };
                 mapper.deparseDocument(rootDeparser, extensibleModel, streamWriter);
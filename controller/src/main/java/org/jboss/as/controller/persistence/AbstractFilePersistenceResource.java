@@ -22,6 +22,9 @@
 package org.jboss.as.controller.persistence;
 
 import java.io.BufferedOutputStream;
+import java.util.Set;
+
+import org.jboss.as.controller.PathAddress;
 
 import org.jboss.as.controller.logging.ControllerLogger;
 import org.jboss.dmr.ModelNode;
@@ -33,13 +36,19 @@ import org.xnio.IoUtils;
  */
 public abstract class AbstractFilePersistenceResource implements ConfigurationPersister.PersistenceResource {
     private volatile ExposedByteArrayOutputStream marshalled;
+    private final SubsystemXmlCache.Session subsystemXmlSession;
 
     protected AbstractFilePersistenceResource(final ModelNode model, final AbstractConfigurationPersister persister) throws ConfigurationPersistenceException {
+        this(model, null, persister);
+    }
+
+    protected AbstractFilePersistenceResource(final ModelNode model, final Set<PathAddress> affectedAddresses,
+                                              final AbstractConfigurationPersister persister) throws ConfigurationPersistenceException {
         marshalled = new ExposedByteArrayOutputStream(1024 * 8);
         try {
             try {
                 BufferedOutputStream output = new BufferedOutputStream(marshalled);
-                persister.marshallAsXml(model, output);
+                subsystemXmlSession = persister.marshallAsXml(model, affectedAddresses, output);
                 output.close();
                 marshalled.close();
             } finally {
@@ -56,6 +65,9 @@ public abstract class AbstractFilePersistenceResource implements ConfigurationPe
             throw ControllerLogger.ROOT_LOGGER.rollbackAlreadyInvoked();
         }
         doCommit(marshalled);
+        if (subsystemXmlSession != null) {
+            subsystemXmlSession.commit();
+        }
     }
 
     @Override
@@ -42,6 +42,7 @@ public class BackupXmlConfigurationPersister extends XmlConfigurationPersister {
 
     ConfigurationFile configurationFile;
     private final AtomicBoolean successfulBoot = new AtomicBoolean();
+    private final ConfigurationFileWriteBehind writeBehind;
 
     /**
      * Construct a new instance.
@@ -54,6 +55,7 @@ public class BackupXmlConfigurationPersister extends XmlConfigurationPersister {
     public BackupXmlConfigurationPersister(final ConfigurationFile file, final QName rootElement, final XMLElementReader<List<ModelNode>> rootParser, final XMLElementWriter<ModelMarshallingContext> rootDeparser) {
         super(file.getBootFile(), rootElement, rootParser, rootDeparser, false);
         this.configurationFile = file;
+        this.writeBehind = ConfigurationFileWriteBehind.create(file);
     }
 
     /**
@@ -69,6 +71,7 @@ public class BackupXmlConfigurationPersister extends XmlConfigurationPersister {
                                            final XMLElementWriter<ModelMarshallingContext> rootDeparser, boolean reload, boolean allowEmpty) {
         super(file.getBootFile(), rootElement, rootParser, rootDeparser, isSuppressLoad(file, reload, allowEmpty));
         this.configurationFile = file;
+        this.writeBehind = ConfigurationFileWriteBehind.create(file);
     }
 
     private static boolean isSuppressLoad(ConfigurationFile configurationFile, boolean reload, boolean allowEmpty) {
@@ -106,14 +109,46 @@ public class BackupXmlConfigurationPersister extends XmlConfigurationPersister {
                 }
             };
         }
-        return new ConfigurationFilePersistenceResource(model, configurationFile, this);
+        return new ConfigurationFilePersistenceResource(model, affectedAddresses, configurationFile, this, writeBehind);
     }
 
     @Override
     public String snapshot() throws ConfigurationPersistenceException {
+        // The snapshot is a copy of the main file, so it must be up to date
+        flush();
         return configurationFile.snapshot();
     }
 
+    @Override
+    public long flush() throws ConfigurationPersistenceException {
+        if (writeBehind == null) {
+            return 0;
+        }
+        try {
+            return writeBehind.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConfigurationPersistenceException(e);
+        }
+    }
+
+    @Override
+    public void shutdown() throws ConfigurationPersistenceException {
+        if (writeBehind != null) {
+            try {
+                writeBehind.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConfigurationPersistenceException(e);
+            }
+        }
+    }
+
+    @Override
+    public long getUnflushedChangeCount() {
+        return writeBehind == null ? 0 : writeBehind.getUnflushedGenerations();
+    }
+
     @Override
     public SnapshotInfo listSnapshots() {
         return configurationFile.listSnapshots();
@@ -563,7 +563,7 @@ public class ConfigurationFile {
         FilePersistenceUtils.rename(file, backup);
     }
 
-    String snapshot() throws ConfigurationPersistenceException {
+    synchronized String snapshot() throws ConfigurationPersistenceException {
         String name = getTimeStamp(new Date()) + mainFile.getName();
         File snapshot = new File(snapshotsDirectory, name);
         File source = interactionPolicy.isReadOnly() ? lastFile : mainFile;
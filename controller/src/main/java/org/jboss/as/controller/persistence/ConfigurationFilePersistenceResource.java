@@ -25,7 +25,9 @@ package org.jboss.as.controller.persistence;
 import static org.jboss.as.controller.logging.ControllerLogger.MGMT_OP_LOGGER;
 
 import java.io.File;
+import java.util.Set;
 
+import org.jboss.as.controller.PathAddress;
 import org.jboss.dmr.ModelNode;
 
 /**
@@ -38,33 +40,68 @@ public class ConfigurationFilePersistenceResource extends AbstractFilePersistenc
 
     private final ConfigurationFile configurationFile;
     protected final File fileName;
+    private final ConfigurationFileWriteBehind writeBehind;
 
 
     ConfigurationFilePersistenceResource(final ModelNode model, final ConfigurationFile configurationFile,
                                          final AbstractConfigurationPersister persister) throws ConfigurationPersistenceException {
-        super(model, persister);
+        this(model, null, configurationFile, persister);
+    }
+
+    ConfigurationFilePersistenceResource(final ModelNode model, final Set<PathAddress> affectedAddresses, final ConfigurationFile configurationFile,
+                                         final AbstractConfigurationPersister persister) throws ConfigurationPersistenceException {
+        this(model, affectedAddresses, configurationFile, persister, null);
+    }
+
+    ConfigurationFilePersistenceResource(final ModelNode model, final Set<PathAddress> affectedAddresses, final ConfigurationFile configurationFile,
+                                         final AbstractConfigurationPersister persister, final ConfigurationFileWriteBehind writeBehind) throws ConfigurationPersistenceException {
+        super(model, affectedAddresses, persister);
         this.configurationFile = configurationFile;
         this.fileName = configurationFile.getMainFile();
+        this.writeBehind = writeBehind;
     }
 
     @Override
     public void doCommit(ExposedByteArrayOutputStream marshalled) {
+        if (writeBehind != null) {
+            writeBehind.submit(marshalled);
+        } else {
+            try {
+                writeConfigurationFile(configurationFile, marshalled);
+            } catch (ConfigurationPersistenceException ignored) {
+                // already logged
+            }
+        }
+    }
+
+    /**
+     * Writes a configuration to the file, keeping the previous one in the configuration history. Failures are
+     * logged before they are thrown.
+     */
+    static void writeConfigurationFile(final ConfigurationFile configurationFile, final ExposedByteArrayOutputStream marshalled) throws ConfigurationPersistenceException {
+        final File fileName = configurationFile.getMainFile();
         final File tempFileName = FilePersistenceUtils.createTempFile(fileName);
         try {
             try {
                 FilePersistenceUtils.writeToTempFile(marshalled, tempFileName, fileName);
             } catch (Exception e) {
                 MGMT_OP_LOGGER.failedToStoreConfiguration(e, fileName.getName());
-                return;
+                throw MGMT_OP_LOGGER.failedToStoreConfiguration(e);
             }
             try {
-                configurationFile.backup();
-            } finally {
-                configurationFile.commitTempFile(tempFileName);
+                // The file may be written in the background, while a snapshot is taken of it
+                synchronized (configurationFile) {
+                    try {
+                        configurationFile.backup();
+                    } finally {
+                        configurationFile.commitTempFile(tempFileName);
+                    }
+                    configurationFile.fileWritten();
+                }
+            } catch (ConfigurationPersistenceException e) {
+                MGMT_OP_LOGGER.errorf(e, e.toString());
+                throw e;
             }
-            configurationFile.fileWritten();
-        } catch (ConfigurationPersistenceException e) {
-           MGMT_OP_LOGGER.errorf(e, e.toString());
         } finally {
             if (tempFileName.exists() && !tempFileName.delete()) {
                 MGMT_OP_LOGGER.cannotDeleteTempFile(tempFileName.getName());
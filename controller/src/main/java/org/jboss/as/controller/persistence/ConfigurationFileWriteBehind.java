@@ -0,0 +1,252 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.persistence;
+
+import static org.jboss.as.controller.logging.ControllerLogger.MGMT_OP_LOGGER;
+
+import java.util.concurrent.TimeUnit;
+
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Writes committed configurations to a {@link ConfigurationFile} on a background thread. A commit only hands
+ * the marshalled configuration over; commits that arrive while an earlier one is still waiting to be written
+ * replace it, so a burst of changes results in a single file write. A configuration is written at most
+ * {@code delay} ms after it was committed.
+ * <p>
+ * A configuration that could not be written is kept, and written again by the next {@link #flush()} unless a newer
+ * one has been committed in the meantime; {@code flush()} reports the failure if that write fails too. The writer
+ * thread is started when needed and stopped by {@link #shutdown()}.
+ */
+final class ConfigurationFileWriteBehind {
+
+    /**
+     * System property that, if set to a value of zero or greater, makes the configuration file be written in the
+     * background, at most the given number of ms after a change was committed.
+     */
+    static final String WRITE_BEHIND_DELAY_PROPERTY = "jboss.as.management.persistence.write-behind.delay";
+
+    private final ConfigurationFile configurationFile;
+    private final long delay;
+    /** Guarded by this */
+    private ExposedByteArrayOutputStream pending;
+    /** Guarded by this. The generation of the most recent commit */
+    private long committed;
+    /** Guarded by this. The generation of the most recent successful file write */
+    private long written;
+    /** Guarded by this */
+    private boolean flushRequested;
+    /** Guarded by this. The configuration of the most recent failed write, if nothing newer has been committed since */
+    private ExposedByteArrayOutputStream failed;
+    /** Guarded by this. Why the most recent write failed, cleared by the next successful write */
+    private ConfigurationPersistenceException failure;
+    /** Guarded by this. The generation of the most recent failed write */
+    private long failedGeneration;
+    /** Guarded by this */
+    private boolean stopRequested;
+    /** Guarded by this */
+    private Thread writerThread;
+
+    ConfigurationFileWriteBehind(final ConfigurationFile configurationFile, final long delay) {
+        this.configurationFile = configurationFile;
+        this.delay = delay;
+    }
+
+    /**
+     * Creates a write-behind for the given file if enabled via {@link #WRITE_BEHIND_DELAY_PROPERTY}.
+     *
+     * @param configurationFile the file
+     * @return the write-behind, or {@code null} if configuration changes should be written synchronously
+     */
+    static ConfigurationFileWriteBehind create(final ConfigurationFile configurationFile) {
+        final String value = WildFlySecurityManager.getPropertyPrivileged(WRITE_BEHIND_DELAY_PROPERTY, null);
+        if (value != null) {
+            try {
+                final long delay = Long.parseLong(value.trim());
+                if (delay >= 0) {
+                    return new ConfigurationFileWriteBehind(configurationFile, delay);
+                }
+            } catch (NumberFormatException ignored) {
+                // fall through to synchronous writes
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Schedules a committed configuration to be written.
+     *
+     * @param marshalled the marshalled configuration
+     */
+    synchronized void submit(final ExposedByteArrayOutputStream marshalled) {
+        pending = marshalled;
+        failed = null;
+        committed++;
+        startWriter();
+        notifyAll();
+    }
+
+    /**
+     * Blocks until every configuration committed before this call has been written to the file.
+     *
+     * @return the number of committed configurations that had not been written when this method was called
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ConfigurationPersistenceException if the most recent configuration could not be written
+     */
+    synchronized long flush() throws InterruptedException, ConfigurationPersistenceException {
+        final long target = committed;
+        final long unflushed = target - written;
+        if (unflushed > 0) {
+            if (pending == null && failed != null) {
+                // Nothing newer is going to replace the configuration that could not be written, so try again
+                pending = failed;
+                failed = null;
+                failure = null;
+                startWriter();
+            }
+            flushRequested = true;
+            notifyAll();
+            while (written < target) {
+                if (failure != null && failedGeneration >= target) {
+                    throw failure;
+                }
+                wait();
+            }
+        }
+        return unflushed;
+    }
+
+    /**
+     * Writes every configuration committed before this call, and stops the writer thread. Configurations committed
+     * afterwards start a new one.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ConfigurationPersistenceException if the most recent configuration could not be written
+     */
+    void shutdown() throws InterruptedException, ConfigurationPersistenceException {
+        try {
+            flush();
+        } finally {
+            final Thread thread;
+            synchronized (this) {
+                thread = writerThread;
+                stopRequested = true;
+                notifyAll();
+            }
+            try {
+                if (thread != null) {
+                    thread.join();
+                }
+            } finally {
+                synchronized (this) {
+                    stopRequested = false;
+                    if (writerThread == thread) {
+                        writerThread = null;
+                    }
+                    if (pending != null) {
+                        // Committed after the thread saw there was nothing left to write
+                        startWriter();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of committed configurations that have not been written yet.
+     *
+     * @return the number of unflushed configuration generations
+     */
+    synchronized long getUnflushedGenerations() {
+        return committed - written;
+    }
+
+    /** Must be called while holding the lock on this */
+    private void startWriter() {
+        if (writerThread == null) {
+            writerThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    writeLoop();
+                }
+            }, "Configuration write-behind " + configurationFile.getMainFile().getName());
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+    }
+
+    private void writeLoop() {
+        for (;;) {
+            final ExposedByteArrayOutputStream toWrite;
+            final long generation;
+            synchronized (this) {
+                try {
+                    while (pending == null) {
+                        if (stopRequested) {
+                            return;
+                        }
+                        wait();
+                    }
+                    // Give further commits the chance to replace this one, unless someone is waiting for it
+                    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+                    long remaining = deadline - System.nanoTime();
+                    while (!flushRequested && !stopRequested && remaining > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                        remaining = deadline - System.nanoTime();
+                    }
+                } catch (InterruptedException e) {
+                    // We are a daemon thread nobody interrupts on purpose; just write what we have, if anything
+                    if (pending == null) {
+                        continue;
+                    }
+                }
+                toWrite = pending;
+                generation = committed;
+                pending = null;
+                flushRequested = false;
+            }
+            ConfigurationPersistenceException error = null;
+            try {
+                ConfigurationFilePersistenceResource.writeConfigurationFile(configurationFile, toWrite);
+            } catch (ConfigurationPersistenceException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                MGMT_OP_LOGGER.failedToPersistConfigurationChange(e);
+                error = MGMT_OP_LOGGER.failedToStoreConfiguration(e);
+            }
+            synchronized (this) {
+                if (error == null) {
+                    written = generation;
+                    failure = null;
+                } else {
+                    failure = error;
+                    failedGeneration = generation;
+                    if (pending == null) {
+                        failed = toWrite;
+                    }
+                }
+                notifyAll();
+            }
+        }
+    }
+}
@@ -110,6 +110,37 @@ public interface ConfigurationPersister {
      */
     void deleteSnapshot(String name);
 
+    /**
+     * Blocks until all configuration changes committed so far have been written to permanent storage. Persisters
+     * that write a change when it is committed have nothing to do.
+     *
+     * @return the number of committed changes that had not been written to permanent storage when this was called
+     * @throws ConfigurationPersistenceException if the changes could not be flushed
+     */
+    default long flush() throws ConfigurationPersistenceException {
+        return 0;
+    }
+
+    /**
+     * Gets the number of committed configuration changes that have not been written to permanent storage yet.
+     *
+     * @return the number of unflushed changes
+     */
+    default long getUnflushedChangeCount() {
+        return 0;
+    }
+
+    /**
+     * Writes all committed configuration changes to permanent storage and stops any threads used to write them in
+     * the background. Called when the controller using this persister stops; the persister starts them again
+     * if it is used afterwards.
+     *
+     * @throws ConfigurationPersistenceException if the changes could not be written
+     */
+    default void shutdown() throws ConfigurationPersistenceException {
+        flush();
+    }
+
     /**
      * Contains the info about the configuration snapshots
      */
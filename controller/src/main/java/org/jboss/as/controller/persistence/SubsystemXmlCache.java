@@ -0,0 +1,274 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.persistence;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HOST;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PROFILE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBSYSTEM;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.staxmapper.XMLElementWriter;
+import org.jboss.staxmapper.XMLExtendedStreamWriter;
+
+/**
+ * Cache of what the writer of each subsystem in a configuration document wrote, allowing an
+ * {@link AbstractConfigurationPersister} to only invoke the writers of the subsystems affected by a change.
+ * <p>
+ * The calls a subsystem writer makes on the {@link XMLExtendedStreamWriter} are recorded while they are passed on to the
+ * document's writer. For an unaffected subsystem the recorded calls are replayed on the writer of the next document,
+ * which formats them exactly as if the subsystem writer had made them again.
+ * </p>
+ * <p>
+ * A subsystem is affected if one of the affected addresses of a store is within it, or if one is the address of a
+ * resource the subsystem is a child of. What a {@link Session} records only replaces the cached content once the
+ * store is committed; the cache must be {@link #invalidate() invalidated} when the configuration is loaded again, as
+ * the file may have been edited meanwhile.
+ * </p>
+ */
+final class SubsystemXmlCache {
+
+    private volatile Map<String, Entry> entries = Collections.emptyMap();
+
+    /**
+     * Drops any cached content of the given subsystem, e.g. because its writer changed.
+     *
+     * @param subsystemName the name of the subsystem
+     */
+    void invalidate(String subsystemName) {
+        final Map<String, Entry> current = entries;
+        final Map<String, Entry> updated = new HashMap<String, Entry>(current);
+        for (Map.Entry<String, Entry> entry : current.entrySet()) {
+            if (entry.getValue().subsystemName.equals(subsystemName)) {
+                updated.remove(entry.getKey());
+            }
+        }
+        entries = updated;
+    }
+
+    /**
+     * Drops all cached content.
+     */
+    void invalidate() {
+        entries = Collections.emptyMap();
+    }
+
+    /**
+     * Starts marshalling a document.
+     *
+     * @param affectedAddresses the addresses affected by the change being stored, or {@code null} if not known
+     * @return the session to use for the document. Will not be {@code null}
+     */
+    Session startSession(final Set<PathAddress> affectedAddresses) {
+        return new Session(affectedAddresses);
+    }
+
+    /**
+     * State of the marshalling of a single document.
+     */
+    final class Session {
+
+        private final Map<String, Entry> cached = entries;
+        private final Set<String> affectedSubsystems = new HashSet<String>();
+        private final boolean allAffected;
+        private final Map<String, Integer> occurrences = new HashMap<String, Integer>();
+        private final Map<String, Entry> current = new HashMap<String, Entry>();
+
+        private Session(final Set<PathAddress> affectedAddresses) {
+            boolean all = affectedAddresses == null;
+            if (affectedAddresses != null) {
+                for (PathAddress address : affectedAddresses) {
+                    final String subsystemName = getSubsystemName(address);
+                    if (subsystemName != null) {
+                        affectedSubsystems.add(subsystemName);
+                    } else if (address.size() == 0
+                            || (address.size() == 1 && (PROFILE.equals(address.getElement(0).getKey()) || HOST.equals(address.getElement(0).getKey())))) {
+                        // A resource subsystems are children of; they may have been added or removed along with it
+                        all = true;
+                    }
+                }
+            }
+            this.allAffected = all;
+        }
+
+        /**
+         * Wraps the writer of a subsystem so what it writes is recorded, or replayed from the cache.
+         *
+         * @param subsystemName the name of the subsystem
+         * @param writer the subsystem's writer. May be {@code null}
+         * @return the writer to use, or {@code null} if {@code writer} was {@code null}
+         */
+        XMLElementWriter<SubsystemMarshallingContext> wrap(final String subsystemName, final XMLElementWriter<SubsystemMarshallingContext> writer) {
+            if (writer == null) {
+                return null;
+            }
+            return new XMLElementWriter<SubsystemMarshallingContext>() {
+                @Override
+                public void writeContent(XMLExtendedStreamWriter streamWriter, SubsystemMarshallingContext context) throws XMLStreamException {
+                    // The same subsystem can appear more than once in a document, e.g. in different domain profiles
+                    final Integer previous = occurrences.get(subsystemName);
+                    final int occurrence = previous == null ? 0 : previous + 1;
+                    occurrences.put(subsystemName, occurrence);
+                    final String key = subsystemName + '#' + occurrence;
+
+                    final Entry entry = cached.get(key);
+                    if (entry != null && entry.writer == writer && !allAffected && !affectedSubsystems.contains(subsystemName)) {
+                        entry.replay(streamWriter);
+                        current.put(key, entry);
+                    } else {
+                        final Recorder recorder = new Recorder(streamWriter);
+                        final XMLExtendedStreamWriter recording = recorder.createProxy();
+                        writer.writeContent(recording, new SubsystemMarshallingContext(context.getModelNode(), recording));
+                        current.put(key, new Entry(subsystemName, writer, recorder.events));
+                    }
+                }
+            };
+        }
+
+        /**
+         * Makes what was written in this session the cached content, once the document has been stored. Subsystems
+         * the document no longer contains are dropped.
+         */
+        void commit() {
+            entries = current;
+        }
+    }
+
+    private static String getSubsystemName(final PathAddress address) {
+        for (PathElement element : address) {
+            if (SUBSYSTEM.equals(element.getKey())) {
+                return element.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records the calls of the methods of an {@link XMLExtendedStreamWriter} that do not return anything, passing all
+     * calls on to the actual writer.
+     */
+    private static final class Recorder implements InvocationHandler {
+
+        private final XMLExtendedStreamWriter delegate;
+        private final List<Event> events = new ArrayList<Event>();
+
+        private Recorder(final XMLExtendedStreamWriter delegate) {
+            this.delegate = delegate;
+        }
+
+        XMLExtendedStreamWriter createProxy() {
+            return (XMLExtendedStreamWriter) Proxy.newProxyInstance(XMLExtendedStreamWriter.class.getClassLoader(),
+                    new Class<?>[] {XMLExtendedStreamWriter.class}, this);
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if (method.getDeclaringClass() != Object.class && method.getReturnType() == void.class) {
+                events.add(new Event(method, copy(args)));
+            }
+            return invokeMethod(method, delegate, args);
+        }
+
+        private static Object[] copy(final Object[] args) {
+            if (args == null) {
+                return null;
+            }
+            // Writers may reuse their arrays and collections once a call returns
+            final Object[] copy = args.clone();
+            for (int i = 0; i < copy.length; i++) {
+                if (copy[i] instanceof String[]) {
+                    copy[i] = ((String[]) copy[i]).clone();
+                } else if (copy[i] instanceof char[]) {
+                    copy[i] = ((char[]) copy[i]).clone();
+                } else if (copy[i] instanceof Iterable) {
+                    final List<Object> values = new ArrayList<Object>();
+                    for (Object value : (Iterable<?>) copy[i]) {
+                        values.add(value);
+                    }
+                    copy[i] = values;
+                }
+            }
+            return copy;
+        }
+    }
+
+    private static Object invokeMethod(final Method method, final Object target, final Object[] args) throws XMLStreamException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof XMLStreamException) {
+                throw (XMLStreamException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new XMLStreamException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Event {
+        private final Method method;
+        private final Object[] args;
+
+        private Event(final Method method, final Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+
+    private static final class Entry {
+        private final String subsystemName;
+        private final XMLElementWriter<SubsystemMarshallingContext> writer;
+        private final List<Event> events;
+
+        private Entry(final String subsystemName, final XMLElementWriter<SubsystemMarshallingContext> writer, final List<Event> events) {
+            this.subsystemName = subsystemName;
+            this.writer = writer;
+            this.events = events;
+        }
+
+        void replay(final XMLExtendedStreamWriter streamWriter) throws XMLStreamException {
+            for (Event event : events) {
+                invokeMethod(event.method, streamWriter, event.args);
+            }
+        }
+    }
+}
@@ -97,12 +97,14 @@ public class XmlConfigurationPersister extends AbstractConfigurationPersister {
     /** {@inheritDoc} */
     @Override
     public PersistenceResource store(final ModelNode model, Set<PathAddress> affectedAddresses) throws ConfigurationPersistenceException {
-        return new FilePersistenceResource(model, fileName, this);
+        return new FilePersistenceResource(model, affectedAddresses, fileName, this);
     }
 
     /** {@inheritDoc} */
     @Override
     public List<ModelNode> load() throws ConfigurationPersistenceException {
+        // The file may have been edited since the subsystems were last written
+        invalidateSubsystemXml();
         if (suppressLoad) {
             return new ArrayList<>();
         }
@@ -239,6 +239,24 @@ public abstract class AbstractModelResource extends ResourceProvider.ResourcePro
         }
     }
 
+    /**
+     * Gets the providers registered through {@link #registerResourceProvider(String, ResourceProvider)}, i.e. those of the
+     * child types whose children are not held by this resource itself.
+     *
+     * @return the custom providers by child type. Will not be {@code null}
+     */
+    Map<String, ResourceProvider> getCustomProviders() {
+        final Map<String, ResourceProvider> result = new LinkedHashMap<String, ResourceProvider>();
+        synchronized (children) {
+            for (final Map.Entry<String, ResourceProvider> entry : children.entrySet()) {
+                if (!(entry.getValue() instanceof DefaultResourceProvider)) {
+                    result.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public abstract Resource clone();
 
@@ -31,6 +31,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.as.controller.OperationDefinition;
 import org.jboss.as.controller.OperationStepHandler;
@@ -59,6 +60,8 @@ abstract class AbstractResourceRegistration implements ManagementResourceRegistr
     private final String valueString;
     private final NodeSubregistry parent;
     private final PathAddress pathAddress;
+    /** Shared by all the registrations of the tree */
+    private final AtomicLong modificationCount;
     private RootInvocation rootInvocation;
 
     AbstractResourceRegistration(final String valueString, final NodeSubregistry parent) {
@@ -66,6 +69,7 @@ abstract class AbstractResourceRegistration implements ManagementResourceRegistr
         this.valueString = valueString;
         this.parent = parent;
         this.pathAddress = parent == null ? PathAddress.EMPTY_ADDRESS : parent.getPathAddress(valueString);
+        this.modificationCount = parent == null ? new AtomicLong() : parent.getParent().modificationCount;
     }
 
     static void checkPermission() {
@@ -79,6 +83,18 @@ abstract class AbstractResourceRegistration implements ManagementResourceRegistr
         return parent;
     }
 
+    @Override
+    public long getModificationCount() {
+        return modificationCount.get();
+    }
+
+    /**
+     * Records a change to the registrations of the tree, see {@link #getModificationCount()}.
+     */
+    void registrationChanged() {
+        modificationCount.incrementAndGet();
+    }
+
     void addAccessConstraints(List<AccessConstraintDefinition> list) {
         // no-op in the base class
     }
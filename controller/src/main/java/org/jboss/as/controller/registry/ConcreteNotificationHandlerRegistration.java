@@ -22,11 +22,16 @@
 
 package org.jboss.as.controller.registry;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.PathElement;
@@ -52,6 +57,21 @@ class ConcreteNotificationHandlerRegistration implements NotificationHandlerRegi
      */
     Set<NotificationHandlerEntry> anyAddressEntries = new CopyOnWriteArraySet<NotificationHandlerEntry>();
 
+    /**
+     * Maximum number of source addresses whose entries are cached.
+     */
+    private static final int MAX_CACHED_SOURCES = 1024;
+
+    /**
+     * The entries registered for the source addresses of recent notifications, before filtering.
+     */
+    private final ConcurrentMap<PathAddress, CachedEntries> entriesBySource = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every (un)registration, which makes all the cached entries stale.
+     */
+    private final AtomicLong version = new AtomicLong();
+
     @Override
     public void registerNotificationHandler(PathAddress source, NotificationHandler handler, NotificationFilter filter) {
         NotificationHandlerEntry entry = new NotificationHandlerEntry(handler, filter);
@@ -62,6 +82,7 @@ class ConcreteNotificationHandlerRegistration implements NotificationHandlerRegi
 
         ListIterator<PathElement> iterator = source.iterator();
         rootRegistry.registerEntry(iterator, entry);
+        version.incrementAndGet();
     }
 
     @Override
@@ -74,14 +95,18 @@ class ConcreteNotificationHandlerRegistration implements NotificationHandlerRegi
 
         ListIterator<PathElement> iterator = source.iterator();
         rootRegistry.unregisterEntry(iterator, entry);
+        version.incrementAndGet();
     }
 
     @Override
     public Collection<NotificationHandler> findMatchingNotificationHandlers(Notification notification) {
         Collection<NotificationHandler> handlers = new HashSet<>();
         // collect all the handlers that match the notifications for the registry tree...
-        ListIterator<PathElement> iterator = notification.getSource().iterator();
-        rootRegistry.findEntries(iterator, handlers, notification);
+        for (NotificationHandlerEntry entry : getEntries(notification.getSource())) {
+            if (entry.getFilter().isNotificationEnabled(notification)) {
+                handlers.add(entry.getHandler());
+            }
+        }
 
         // ... and also the filtered handlers registered against ANY_ADRESS
         for (NotificationHandlerEntry anyAddressEntry : anyAddressEntries) {
@@ -92,6 +117,32 @@ class ConcreteNotificationHandlerRegistration implements NotificationHandlerRegi
         return handlers;
     }
 
+    private List<NotificationHandlerEntry> getEntries(PathAddress source) {
+        // read the version first so that entries found while a registration changes are stale for the next lookup
+        final long currentVersion = version.get();
+        final CachedEntries cached = entriesBySource.get(source);
+        if (cached != null && cached.version == currentVersion) {
+            return cached.entries;
+        }
+        final List<NotificationHandlerEntry> entries = new ArrayList<>();
+        rootRegistry.findEntries(source.iterator(), entries);
+        if (entriesBySource.size() >= MAX_CACHED_SOURCES) {
+            entriesBySource.clear();
+        }
+        entriesBySource.put(source, new CachedEntries(currentVersion, entries));
+        return entries;
+    }
+
+    private static final class CachedEntries {
+        private final long version;
+        private final List<NotificationHandlerEntry> entries;
+
+        private CachedEntries(long version, List<NotificationHandlerEntry> entries) {
+            this.version = version;
+            this.entries = entries;
+        }
+    }
+
     /**
      * A class to represent a single entry for both a notification handler and filter.
      */
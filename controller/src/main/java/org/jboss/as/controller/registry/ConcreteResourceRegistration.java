@@ -112,6 +112,7 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
     public void setRuntimeOnly(final boolean runtimeOnly) {
         checkPermission();
         this.runtimeOnly.set(runtimeOnly);
+        registrationChanged();
     }
 
     @Override
@@ -194,6 +195,7 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
                 constraintUtilizationRegistry.registerAccessConstraintResourceUtilization(acd.getKey(), childAddress);
             }
         }
+        registrationChanged();
         return resourceRegistration;
     }
 
@@ -205,6 +207,7 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
             throw alreadyRegistered("operation handler", definition.getName());
         }
         registerOperationAccessConstraints(definition);
+        registrationChanged();
     }
 
     public void unregisterSubModel(final PathElement address) throws IllegalArgumentException {
@@ -214,6 +217,7 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
             subregistry.unregisterSubModel(address.getValue());
         }
         unregisterAccessConstraints(address);
+        registrationChanged();
     }
 
     @Override
@@ -284,6 +288,7 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
         if (operationsUpdater.putIfAbsent(this, operationName, new OperationEntry(handler, descriptionProvider, inherited, entryType)) != null) {
             throw alreadyRegistered("operation handler", operationName);
         }
+        registrationChanged();
     }
 
     @Override
@@ -292,6 +297,7 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
         if (operationsUpdater.putIfAbsent(this, operationName, new OperationEntry(handler, descriptionProvider, inherited, entryType, flags, null)) != null) {
             throw alreadyRegistered("operation handler", operationName);
         }
+        registrationChanged();
     }
 
     @Override
@@ -300,6 +306,7 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
         if (operationsUpdater.remove(this, operationName) == null) {
             throw operationNotRegisteredException(operationName, resourceDefinition.getPathElement());
         }
+        registrationChanged();
     }
 
     @Override
@@ -313,6 +320,7 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
             throw alreadyRegistered("attribute", attributeName);
         }
         registerAttributeAccessConstraints(definition);
+        registrationChanged();
     }
 
     @Override
@@ -326,12 +334,14 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
             throw alreadyRegistered("attribute", attributeName);
         }
         registerAttributeAccessConstraints(definition);
+        registrationChanged();
     }
 
     @Override
     public void unregisterAttribute(String attributeName) {
         checkPermission();
         attributesUpdater.remove(this, attributeName);
+        registrationChanged();
     }
 
     @Override
@@ -341,6 +351,7 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
         if (notificationsUpdater.putIfAbsent(this, notification.getType(), entry) != null) {
             throw alreadyRegistered(NOTIFICATION, notification.getType());
         }
+        registrationChanged();
     }
 
     @Override
@@ -352,6 +363,7 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
          public void unregisterNotification(String notificationType) {
         checkPermission();
         notificationsUpdater.remove(this, notificationType);
+        registrationChanged();
     }
 
 
@@ -363,6 +375,7 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
             throw alreadyRegistered("attribute", definition.getName());
         }
         registerAttributeAccessConstraints(definition);
+        registrationChanged();
     }
 
     private void registerAttributeAccessConstraints(AttributeDefinition ad) {
@@ -429,6 +442,7 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
             throw ControllerLogger.ROOT_LOGGER.nodeAlreadyRegistered(existing.getPathAddress().toCLIStyleString());
         }
         getOrCreateSubregistry(address.getKey()).registerProxyController(address.getValue(), controller);
+        registrationChanged();
     }
 
     @Override
@@ -438,11 +452,13 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
         if (subregistry != null) {
             subregistry.unregisterProxyController(address.getValue());
         }
+        registrationChanged();
     }
 
     @Override
     public void registerAlias(PathElement address, AliasEntry alias, AbstractResourceRegistration target) {
         getOrCreateSubregistry(address.getKey()).registerAlias(address.getValue(), alias, target);
+        registrationChanged();
     }
 
     @Override
@@ -452,11 +468,13 @@ final class ConcreteResourceRegistration extends AbstractResourceRegistration {
         if (subregistry != null) {
             subregistry.unregisterAlias(address.getValue());
         }
+        registrationChanged();
     }
 
     @Override
     public void registerCapability(Capability capability){
         capabilities.add(capability);
+        registrationChanged();
     }
 
     NodeSubregistry getOrCreateSubregistry(final String key) {
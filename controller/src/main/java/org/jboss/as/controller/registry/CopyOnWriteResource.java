@@ -0,0 +1,458 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.logging.ControllerLogger;
+import org.jboss.dmr.ModelNode;
+
+/**
+ * {@link Resource} implementation that shares its model and its children with the resource it was
+ * {@link #fork(Resource) forked} from, copying them only when they are first accessed in a way that may
+ * lead to a modification. Forking a tree is therefore a constant time operation, and a write to a
+ * single resource only copies the resources along the path to it, rather than the entire tree as
+ * {@link BasicResource#clone()} does.
+ * <p>
+ * The resource a fork is created from must not be modified afterwards. The management model guarantees
+ * this for a published root resource; once an in-flight fork is about to be published it is {@link #seal(Resource) sealed},
+ * after which it no longer copies anything on read access and can itself be forked.
+ * </p>
+ *
+ * <p>
+ * Child types served by a custom {@link ResourceProvider} are not shared; their providers are
+ * {@link ResourceProvider#clone() cloned} into the fork, as {@link BasicResource#clone()} does.
+ * </p>
+ *
+ * <p>Concurrency note: as an unsealed instance copies its state on read access, all access to it is synchronized, so
+ * that the threads of a parallel boot can share an in-flight tree, as they do with {@link BasicResource}.</p>
+ */
+public final class CopyOnWriteResource extends ResourceProvider.ResourceProviderRegistry implements Resource {
+
+    private final boolean runtimeOnly;
+    private final Set<String> orderedChildTypes;
+    /** The local model; shared with the resource we were forked from if {@code modelShared} is {@code true}. The
+     *  model and children state below is guarded by this */
+    private ModelNode model;
+    private boolean modelShared;
+    /** The children by type; shared with the resource we were forked from if {@code childrenShared} is {@code true} */
+    private Map<String, Map<String, Resource>> children;
+    private boolean childrenShared;
+    /** The children that are private to this resource. Only valid if {@code childrenShared} is {@code false} */
+    private Set<Resource> owned;
+    /** The child types served by custom providers, which are private to this resource. Guarded by itself */
+    private final Map<String, ResourceProvider> providers = new LinkedHashMap<String, ResourceProvider>();
+    private volatile boolean sealed;
+
+    private CopyOnWriteResource(final boolean runtimeOnly, final Set<String> orderedChildTypes, final ModelNode model,
+                                final Map<String, Map<String, Resource>> children, final Map<String, ResourceProvider> providers) {
+        this.runtimeOnly = runtimeOnly;
+        this.orderedChildTypes = orderedChildTypes;
+        this.model = model;
+        this.modelShared = true;
+        this.children = children;
+        this.childrenShared = true;
+        for (final Map.Entry<String, ResourceProvider> entry : providers.entrySet()) {
+            this.providers.put(entry.getKey(), entry.getValue().clone());
+        }
+    }
+
+    /**
+     * Creates a resource that is a logical copy of the given {@code source} resource, sharing any unmodified
+     * state with it. Resources whose structure cannot be shared are {@link Resource#clone() cloned}.
+     *
+     * @param source the resource to fork. Must not be modified after this call. Cannot be {@code null}
+     * @return the forked resource. Will not be {@code null}
+     */
+    public static Resource fork(final Resource source) {
+        if (source instanceof CopyOnWriteResource) {
+            final CopyOnWriteResource cow = (CopyOnWriteResource) source;
+            synchronized (cow) {
+                return new CopyOnWriteResource(cow.runtimeOnly, cow.orderedChildTypes, cow.model, cow.children, cow.getProviders());
+            }
+        } else if (source.getClass() == BasicResource.class) {
+            final Map<String, ResourceProvider> providers = ((BasicResource) source).getCustomProviders();
+            final Map<String, Map<String, Resource>> children = new LinkedHashMap<String, Map<String, Resource>>();
+            for (final String childType : source.getChildTypes()) {
+                if (providers.containsKey(childType)) {
+                    continue;
+                }
+                final Map<String, Resource> typeChildren = new LinkedHashMap<String, Resource>();
+                for (final String name : source.getChildrenNames(childType)) {
+                    final Resource child = source.getChild(PathElement.pathElement(childType, name));
+                    if (child != null) {
+                        typeChildren.put(name, child);
+                    }
+                }
+                children.put(childType, typeChildren);
+            }
+            return new CopyOnWriteResource(source.isRuntime(), source.getOrderedChildTypes(), source.getModel(), children, providers);
+        }
+        return source.clone();
+    }
+
+    /**
+     * Marks the given resource tree as complete. After this call any further changes to the tree must go through a new
+     * {@link #fork(Resource) fork}; read access to a sealed resource no longer copies anything. Only the parts of the
+     * tree that were created since it was forked are visited.
+     *
+     * @param resource the root of the tree. Cannot be {@code null}
+     */
+    public static void seal(final Resource resource) {
+        if (resource instanceof CopyOnWriteResource) {
+            final CopyOnWriteResource cow = (CopyOnWriteResource) resource;
+            final List<Resource> owned;
+            synchronized (cow) {
+                if (cow.sealed) {
+                    return;
+                }
+                cow.sealed = true;
+                if (cow.childrenShared) {
+                    return;
+                }
+                owned = new ArrayList<Resource>(cow.owned);
+            }
+            // Not holding our lock while sealing the children, the same as when accessing them
+            for (final Resource child : owned) {
+                seal(child);
+            }
+        } else if (resource.getClass() == BasicResource.class) {
+            // A newly created subtree may contain forks, e.g. from a clone of an in-flight resource
+            final Set<String> providedTypes = ((BasicResource) resource).getCustomProviders().keySet();
+            for (final String childType : resource.getChildTypes()) {
+                if (providedTypes.contains(childType)) {
+                    continue;
+                }
+                for (final String name : resource.getChildrenNames(childType)) {
+                    final Resource child = resource.getChild(PathElement.pathElement(childType, name));
+                    if (child != null) {
+                        seal(child);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized ModelNode getModel() {
+        if (modelShared && !sealed) {
+            // Our caller may modify the model
+            model = model.clone();
+            modelShared = false;
+        }
+        return model;
+    }
+
+    @Override
+    public synchronized void writeModel(final ModelNode newModel) {
+        if (sealed) {
+            // Don't touch the instance forks may share
+            model = newModel.clone();
+        } else {
+            getModel().set(newModel);
+        }
+    }
+
+    @Override
+    public synchronized boolean isModelDefined() {
+        return model.isDefined();
+    }
+
+    @Override
+    public synchronized boolean hasChild(final PathElement element) {
+        final ResourceProvider provider = getProvider(element.getKey());
+        if (provider != null) {
+            return element.isWildcard() ? provider.hasChildren() : provider.has(element.getValue());
+        }
+        final Map<String, Resource> typeChildren = children.get(element.getKey());
+        if (typeChildren == null) {
+            return false;
+        }
+        if (element.isWildcard()) {
+            return !typeChildren.isEmpty();
+        }
+        return typeChildren.get(element.getValue()) != null;
+    }
+
+    @Override
+    public synchronized Resource getChild(final PathElement element) {
+        final ResourceProvider provider = getProvider(element.getKey());
+        if (provider != null) {
+            return provider.get(element.getValue());
+        }
+        final Map<String, Resource> typeChildren = children.get(element.getKey());
+        if (typeChildren == null) {
+            return null;
+        }
+        final Resource child = typeChildren.get(element.getValue());
+        if (child == null || sealed) {
+            return child;
+        }
+        return own(element.getKey(), element.getValue(), child);
+    }
+
+    @Override
+    public Resource requireChild(final PathElement element) {
+        final Resource child = getChild(element);
+        if (child == null) {
+            throw new NoSuchResourceException(element);
+        }
+        return child;
+    }
+
+    @Override
+    public synchronized boolean hasChildren(final String childType) {
+        final ResourceProvider provider = getProvider(childType);
+        if (provider != null) {
+            return provider.hasChildren();
+        }
+        final Map<String, Resource> typeChildren = children.get(childType);
+        return typeChildren != null && !typeChildren.isEmpty();
+    }
+
+    @Override
+    public Resource navigate(final PathAddress address) {
+        return Tools.navigate(this, address);
+    }
+
+    @Override
+    public synchronized Set<String> getChildTypes() {
+        final Set<String> result = new LinkedHashSet<String>(children.keySet());
+        synchronized (providers) {
+            result.addAll(providers.keySet());
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Set<String> getChildrenNames(final String childType) {
+        final ResourceProvider provider = getProvider(childType);
+        if (provider != null) {
+            return provider.children();
+        }
+        final Map<String, Resource> typeChildren = children.get(childType);
+        if (typeChildren == null) {
+            return Collections.emptySet();
+        }
+        return new LinkedHashSet<String>(typeChildren.keySet());
+    }
+
+    @Override
+    public synchronized Set<ResourceEntry> getChildren(final String childType) {
+        final Set<String> names = getChildrenNames(childType);
+        if (names.isEmpty()) {
+            return Collections.emptySet();
+        }
+        final Set<ResourceEntry> result = new LinkedHashSet<ResourceEntry>();
+        for (final String name : names) {
+            final Resource child = getChild(PathElement.pathElement(childType, name));
+            result.add(new AbstractModelResource.DelegateResource(child) {
+                @Override
+                public String getName() {
+                    return name;
+                }
+
+                @Override
+                public PathElement getPathElement() {
+                    return PathElement.pathElement(childType, name);
+                }
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void registerChild(final PathElement address, final Resource resource) {
+        final ResourceProvider provider = address.isMultiTarget() ? null : getProvider(address.getKey());
+        if (provider != null) {
+            provider.register(address.getValue(), resource);
+        } else {
+            registerChild(address, -1, resource);
+        }
+    }
+
+    @Override
+    public synchronized void registerChild(final PathElement address, final int index, final Resource resource) {
+        if (address.isMultiTarget()) {
+            throw new IllegalArgumentException();
+        }
+        if (index >= 0 && !orderedChildTypes.contains(address.getKey())) {
+            throw ControllerLogger.ROOT_LOGGER.indexedChildResourceRegistrationNotAvailable(address);
+        }
+        final ResourceProvider provider = getProvider(address.getKey());
+        if (provider != null) {
+            provider.register(address.getValue(), index, resource);
+            return;
+        }
+        final Map<String, Resource> existing = children.get(address.getKey());
+        if (existing != null && existing.containsKey(address.getValue())) {
+            throw ControllerLogger.ROOT_LOGGER.duplicateResource(address.getValue());
+        }
+        ensureOwnChildren();
+        Map<String, Resource> typeChildren = children.get(address.getKey());
+        if (typeChildren == null) {
+            typeChildren = new LinkedHashMap<String, Resource>();
+            children.put(address.getKey(), typeChildren);
+        }
+        if (index < 0 || index >= typeChildren.size()) {
+            typeChildren.put(address.getValue(), resource);
+        } else {
+            final Map<String, Resource> reordered = new LinkedHashMap<String, Resource>();
+            int i = 0;
+            for (final Map.Entry<String, Resource> entry : typeChildren.entrySet()) {
+                if (i++ == index) {
+                    reordered.put(address.getValue(), resource);
+                }
+                reordered.put(entry.getKey(), entry.getValue());
+            }
+            children.put(address.getKey(), reordered);
+        }
+        owned.add(resource);
+    }
+
+    @Override
+    public synchronized Resource removeChild(final PathElement address) {
+        final ResourceProvider provider = getProvider(address.getKey());
+        if (provider != null) {
+            return provider.remove(address.getValue());
+        }
+        final Map<String, Resource> existing = children.get(address.getKey());
+        if (existing == null || !existing.containsKey(address.getValue())) {
+            return null;
+        }
+        ensureOwnChildren();
+        final Map<String, Resource> typeChildren = children.get(address.getKey());
+        final Resource removed = typeChildren.remove(address.getValue());
+        owned.remove(removed);
+        if (typeChildren.isEmpty()) {
+            children.remove(address.getKey());
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean isRuntime() {
+        return runtimeOnly;
+    }
+
+    @Override
+    public boolean isProxy() {
+        return false;
+    }
+
+    @Override
+    public Set<String> getOrderedChildTypes() {
+        return orderedChildTypes.size() == 0 ? orderedChildTypes : Collections.unmodifiableSet(orderedChildTypes);
+    }
+
+    @Override
+    protected synchronized void registerResourceProvider(final String type, final ResourceProvider provider) {
+        synchronized (providers) {
+            if (providers.containsKey(type) || children.containsKey(type)) {
+                throw ControllerLogger.ROOT_LOGGER.duplicateResourceType(type);
+            }
+            providers.put(type, provider);
+        }
+    }
+
+    @SuppressWarnings({"CloneDoesntCallSuperClone"})
+    @Override
+    public synchronized Resource clone() {
+        if (sealed) {
+            return fork(this);
+        }
+        // Only the parts created since we were forked need copying; the rest is immutable and can be shared
+        final CopyOnWriteResource clone = new CopyOnWriteResource(runtimeOnly, orderedChildTypes,
+                modelShared ? model : model.clone(), children, getProviders());
+        clone.modelShared = modelShared;
+        if (!childrenShared) {
+            clone.ensureOwnChildren();
+            for (final Map.Entry<String, Map<String, Resource>> typeEntry : clone.children.entrySet()) {
+                for (final Map.Entry<String, Resource> entry : typeEntry.getValue().entrySet()) {
+                    if (owned.contains(entry.getValue())) {
+                        final Resource childClone = entry.getValue().clone();
+                        entry.setValue(childClone);
+                        clone.owned.add(childClone);
+                    }
+                }
+            }
+        }
+        return clone;
+    }
+
+    private ResourceProvider getProvider(final String type) {
+        synchronized (providers) {
+            return providers.get(type);
+        }
+    }
+
+    private Map<String, ResourceProvider> getProviders() {
+        synchronized (providers) {
+            return new LinkedHashMap<String, ResourceProvider>(providers);
+        }
+    }
+
+    /**
+     * Makes sure {@code child} is private to this resource, forking it if necessary.
+     */
+    private Resource own(final String childType, final String name, final Resource child) {
+        if (!childrenShared && owned.contains(child)) {
+            return child;
+        }
+        ensureOwnChildren();
+        final Resource fork = fork(child);
+        children.get(childType).put(name, fork);
+        owned.add(fork);
+        return fork;
+    }
+
+    private void ensureOwnChildren() {
+        if (sealed) {
+            // Our current maps may be shared by forks; start with a fresh copy
+            childrenShared = true;
+        }
+        if (childrenShared) {
+            final Map<String, Map<String, Resource>> copy = new LinkedHashMap<String, Map<String, Resource>>();
+            for (final Map.Entry<String, Map<String, Resource>> entry : children.entrySet()) {
+                copy.put(entry.getKey(), new LinkedHashMap<String, Resource>(entry.getValue()));
+            }
+            children = copy;
+            if (owned == null) {
+                owned = Collections.newSetFromMap(new IdentityHashMap<Resource, Boolean>());
+            } else {
+                // Nothing we created so far is private anymore once sealed
+                owned.clear();
+            }
+            childrenShared = false;
+        }
+    }
+}
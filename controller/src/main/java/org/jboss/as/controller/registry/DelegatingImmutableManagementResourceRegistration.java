@@ -169,4 +169,9 @@ public class DelegatingImmutableManagementResourceRegistration implements Immuta
     public Set<Capability> getCapabilities() {
         return delegate.getCapabilities();
     }
+
+    @Override
+    public long getModificationCount() {
+        return delegate.getModificationCount();
+    }
 }
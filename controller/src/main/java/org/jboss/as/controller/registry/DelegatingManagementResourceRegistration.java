@@ -341,6 +341,11 @@ public class DelegatingManagementResourceRegistration implements ManagementResou
         return getDelegate().getCapabilities();
     }
 
+    @Override
+    public long getModificationCount() {
+        return getDelegate().getModificationCount();
+    }
+
     private ManagementResourceRegistration getDelegate() {
         return delegateProvider.getDelegateRegistration();
     }
@@ -260,4 +260,15 @@ public interface ImmutableManagementResourceRegistration {
      * @return Set of capabilities if any registered otherwise empty set
      */
     Set<Capability> getCapabilities();
+
+    /**
+     * Gets a count that changes each time a resource, attribute, operation, notification or capability is registered or
+     * unregistered anywhere in the registry this registration belongs to. Information derived from the registry, such
+     * as cached descriptions, is current as long as the count does not change.
+     *
+     * @return the modification count, or {@code -1} if changes are not tracked
+     */
+    default long getModificationCount() {
+        return -1;
+    }
 }
@@ -29,8 +29,6 @@ import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.jboss.as.controller.PathElement;
-import org.jboss.as.controller.notification.Notification;
-import org.jboss.as.controller.notification.NotificationHandler;
 
 /**
  * A registry of {@code NotificationHandlerEntry} (in a tree) corresponding to a {@link PathElement#getValue()}.
@@ -99,16 +97,13 @@ class NotificationHandlerNodeRegistry {
     }
 
     /**
-     * Collect all the entries in the {@code handler} notifications (if the registry is the leaf node) or continue to traverse the tree
-     * Only entries that are not filtered out after calling {@link org.jboss.as.controller.notification.NotificationFilter#isNotificationEnabled(org.jboss.as.controller.notification.Notification)} for the given {@code notification} are collected
+     * Collect all the entries registered for the source address (if the registry is the leaf node) or continue to traverse the tree.
+     * The entries are collected before their filters are applied, so that the result can be reused for any notification emitted
+     * by the same source.
      */
-    void findEntries(ListIterator<PathElement> iterator, Collection<NotificationHandler> handlers, Notification notification) {
+    void findEntries(ListIterator<PathElement> iterator, Collection<ConcreteNotificationHandlerRegistration.NotificationHandlerEntry> foundEntries) {
         if (!iterator.hasNext()) {
-            for (ConcreteNotificationHandlerRegistration.NotificationHandlerEntry entry : entries) {
-                if (entry.getFilter().isNotificationEnabled(notification)) {
-                    handlers.add(entry.getHandler());
-                }
-            }
+            foundEntries.addAll(entries);
             return;
         }
 
@@ -118,7 +113,7 @@ class NotificationHandlerNodeRegistry {
             if (subregistry == null) {
                 return;
             }
-            subregistry.findHandlers(iterator, next.getValue(), notification, handlers);
+            subregistry.findEntries(iterator, next.getValue(), foundEntries);
         } finally {
             iterator.previous();
         }
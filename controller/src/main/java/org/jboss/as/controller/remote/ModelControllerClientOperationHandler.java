@@ -33,6 +33,17 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OPERATION_HEADERS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.QUERY;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_ATTRIBUTE_GROUP_NAMES_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_ATTRIBUTE_GROUP_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_ATTRIBUTE_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_CHILDREN_NAMES_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_CHILDREN_RESOURCES_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_CHILDREN_TYPES_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_OPERATION_DESCRIPTION_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_OPERATION_NAMES_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_RESOURCE_DESCRIPTION_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_RESOURCE_OPERATION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SYNC_REMOVED_FOR_READD;
@@ -42,17 +53,27 @@ import static org.jboss.as.controller.logging.ControllerLogger.ROOT_LOGGER;
 
 import java.io.DataInput;
 import java.io.IOException;
+import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.security.auth.Subject;
 
 import org.jboss.as.controller.AccessAuditContext;
 import org.jboss.as.controller.ModelController;
 import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.client.OperationBuilder;
+import org.jboss.as.controller.client.OperationMessageHandler;
 import org.jboss.as.controller.client.OperationResponse;
 import org.jboss.as.controller.client.impl.ModelControllerProtocol;
 import org.jboss.as.controller.logging.ControllerLogger;
@@ -78,6 +99,15 @@ import org.jboss.dmr.ModelNode;
  */
 public class ModelControllerClientOperationHandler implements ManagementRequestHandlerFactory {
 
+    /** The operations of a batch that can be executed concurrently with each other */
+    private static final Set<String> READ_ONLY_OPERATIONS = new HashSet<>(Arrays.asList(QUERY,
+            READ_ATTRIBUTE_OPERATION, READ_ATTRIBUTE_GROUP_OPERATION, READ_ATTRIBUTE_GROUP_NAMES_OPERATION,
+            READ_CHILDREN_NAMES_OPERATION, READ_CHILDREN_RESOURCES_OPERATION, READ_CHILDREN_TYPES_OPERATION,
+            READ_OPERATION_DESCRIPTION_OPERATION, READ_OPERATION_NAMES_OPERATION,
+            READ_RESOURCE_DESCRIPTION_OPERATION, READ_RESOURCE_OPERATION));
+    /** Max number of additional threads executing the read-only operations of a batch */
+    private static final int MAX_BATCH_HELPERS = 3;
+
     private final ModelController controller;
 
     private final ManagementChannelAssociation channelAssociation;
@@ -112,6 +142,10 @@ public class ModelControllerClientOperationHandler implements ManagementRequestH
                 // initialize the operation ctx before executing the request handler
                 handlers.registerActiveOperation(header.getBatchId(), null);
                 return new ExecuteRequestHandler();
+            case ModelControllerProtocol.EXECUTE_BATCH_REQUEST:
+                // initialize the operation ctx before executing the request handler
+                handlers.registerActiveOperation(header.getBatchId(), null);
+                return new ExecuteBatchRequestHandler();
             case ModelControllerProtocol.CANCEL_ASYNC_REQUEST:
                 return new CancelAsyncRequestHandler();
             case ModelControllerProtocol.GET_CHUNKED_INPUTSTREAM_REQUEST:
@@ -163,25 +197,7 @@ public class ModelControllerClientOperationHandler implements ManagementRequestH
                                final ManagementRequestContext<Void> context, final CompletedCallback callback) {
 
             ControllerLogger.MGMT_OP_LOGGER.tracef("Executing ExecuteRequest for %d", context.getOperationId());
-            // Header manipulation
-            final ModelNode headers = operation.get(OPERATION_HEADERS);
-            //Add a header to show that this operation comes from a user. If this is a host controller and the operation needs propagating to the
-            //servers it will be removed by the domain ops responsible for propagation to the servers.
-            //If more headers are removed here, they must also be removed from the http interface (DomainApiHandler)
-            headers.get(CALLER_TYPE).set(USER);
-            headers.get(ACCESS_MECHANISM).set(AccessMechanism.NATIVE.toString());
-            // Don't allow a domain-uuid operation header from a user call
-            if (headers.hasDefined(DOMAIN_UUID)) {
-                headers.remove(DOMAIN_UUID);
-            }
-            // Don't allow a execute-for-coordinator operation header from a user call
-            if (headers.hasDefined(EXECUTE_FOR_COORDINATOR)) {
-                headers.remove(EXECUTE_FOR_COORDINATOR);
-            }
-            // Only used internally on a slave when syncing the model
-            if (headers.hasDefined(SYNC_REMOVED_FOR_READD)) {
-                headers.remove(SYNC_REMOVED_FOR_READD);
-            }
+            prepareHeaders(operation);
 
             final ManagementRequestHeader header = ManagementRequestHeader.class.cast(context.getRequestHeader());
             final int batchId = header.getBatchId();
@@ -224,6 +240,187 @@ public class ModelControllerClientOperationHandler implements ManagementRequestH
 
     }
 
+    /**
+     * Executes the operations of a batch, and sends all their responses in a single response once they completed.
+     * Read-only operations are executed concurrently by additional threads if the executor has some available, the
+     * others one after another by the thread that handles the request. Operations that need their prepared response to
+     * be sent are rejected, as that is only done for single requests.
+     */
+    class ExecuteBatchRequestHandler implements ManagementRequestHandler<ModelNode, Void> {
+
+        @Override
+        public void handleRequest(final DataInput input, final ActiveOperation.ResultHandler<ModelNode> resultHandler,
+                                  final ManagementRequestContext<Void> context) throws IOException {
+            ControllerLogger.MGMT_OP_LOGGER.tracef("Handling ExecuteBatchRequest for %d", context.getOperationId());
+            ProtocolUtils.expectHeader(input, ModelControllerProtocol.PARAM_OPERATION_COUNT);
+            final int count = input.readInt();
+            if (count < 0) {
+                throw ControllerLogger.ROOT_LOGGER.invalidBatchOperationCount(count);
+            }
+            // Not sized by the count, which is only trusted once the operations are read
+            final List<ModelNode> read = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                ProtocolUtils.expectHeader(input, ModelControllerProtocol.PARAM_OPERATION);
+                final ModelNode operation = new ModelNode();
+                operation.readExternal(input);
+                read.add(operation);
+            }
+            final ModelNode[] operations = read.toArray(new ModelNode[read.size()]);
+            context.executeAsync(new ManagementRequestContext.AsyncTask<Void>() {
+                @Override
+                public void execute(final ManagementRequestContext<Void> context) throws Exception {
+                    final ModelNode[] results = new ModelNode[count];
+                    try {
+                        AccessAuditContext.doAs(subject, new PrivilegedExceptionAction<Void>() {
+                            @Override
+                            public Void run() throws Exception {
+                                executeBatch(operations, results);
+                                return null;
+                            }
+                        });
+                    } catch (PrivilegedActionException e) {
+                        throw e.getException();
+                    }
+                    MGMT_OP_LOGGER.tracef("Transmitting batch response for %d", context.getOperationId());
+                    final FlushableDataOutput output = context.writeMessage(ManagementResponseHeader.create(context.getRequestHeader()));
+                    try {
+                        output.write(ModelControllerProtocol.PARAM_OPERATION_COUNT);
+                        output.writeInt(count);
+                        for (ModelNode result : results) {
+                            output.write(ModelControllerProtocol.PARAM_RESPONSE);
+                            result.writeExternal(output);
+                        }
+                        output.writeByte(ManagementProtocol.RESPONSE_END);
+                        output.close();
+                    } finally {
+                        StreamUtils.safeClose(output);
+                    }
+                    resultHandler.done(null);
+                }
+            }, clientRequestExecutor);
+        }
+
+        private void executeBatch(final ModelNode[] operations, final ModelNode[] results) throws InterruptedException {
+            final List<Integer> reads = new ArrayList<>();
+            final List<Integer> others = new ArrayList<>();
+            for (int i = 0; i < operations.length; i++) {
+                if (sendPreparedResponse(operations[i])) {
+                    // The batch response would only be sent once the operation completed, the client sends these on their own
+                    results[i] = new ModelNode();
+                    results[i].get(OUTCOME).set(FAILED);
+                    results[i].get(FAILURE_DESCRIPTION).set(ControllerLogger.ROOT_LOGGER.operationCannotBeBatched(operations[i].get(OP).asString()));
+                    continue;
+                }
+                prepareHeaders(operations[i]);
+                if (READ_ONLY_OPERATIONS.contains(operations[i].get(OP).asString())) {
+                    reads.add(i);
+                } else {
+                    others.add(i);
+                }
+            }
+            final BatchReads batchReads = new BatchReads(operations, results, reads);
+            final int helpers = Math.min(MAX_BATCH_HELPERS, reads.size() - 1);
+            for (int i = 0; i < helpers; i++) {
+                try {
+                    clientRequestExecutor.execute(batchReads);
+                } catch (RejectedExecutionException e) {
+                    // this thread can execute them all
+                    break;
+                }
+            }
+            for (Integer index : others) {
+                results[index] = executeBatchOperation(operations[index]);
+            }
+            batchReads.executeReads();
+            batchReads.awaitCompletion();
+        }
+
+        private ModelNode executeBatchOperation(final ModelNode operation) {
+            try {
+                final OperationResponse response = controller.execute(OperationBuilder.create(operation).build(),
+                        OperationMessageHandler.DISCARD, ModelController.OperationTransactionControl.COMMIT);
+                final ModelNode result = response.getResponseNode();
+                // Attached streams are not supported for batches
+                StreamUtils.safeClose(response);
+                return result;
+            } catch (Exception e) {
+                final ModelNode failure = new ModelNode();
+                failure.get(OUTCOME).set(FAILED);
+                failure.get(FAILURE_DESCRIPTION).set(e.getClass().getName() + ":" + e.getMessage());
+                return failure;
+            }
+        }
+
+        /**
+         * The read-only operations of a batch, executed by whichever thread takes each one first.
+         */
+        private final class BatchReads implements Runnable {
+
+            private final ModelNode[] operations;
+            private final ModelNode[] results;
+            private final List<Integer> indexes;
+            private final AtomicInteger next = new AtomicInteger();
+            private final CountDownLatch completed;
+
+            private BatchReads(final ModelNode[] operations, final ModelNode[] results, final List<Integer> indexes) {
+                this.operations = operations;
+                this.results = results;
+                this.indexes = indexes;
+                this.completed = new CountDownLatch(indexes.size());
+            }
+
+            @Override
+            public void run() {
+                AccessAuditContext.doAs(subject, new PrivilegedAction<Void>() {
+                    @Override
+                    public Void run() {
+                        executeReads();
+                        return null;
+                    }
+                });
+            }
+
+            void executeReads() {
+                int i;
+                while ((i = next.getAndIncrement()) < indexes.size()) {
+                    final int index = indexes.get(i);
+                    try {
+                        results[index] = executeBatchOperation(operations[index]);
+                    } finally {
+                        completed.countDown();
+                    }
+                }
+            }
+
+            void awaitCompletion() throws InterruptedException {
+                // Only waits for operations another thread already started
+                completed.await();
+            }
+        }
+    }
+
+    private static void prepareHeaders(final ModelNode operation) {
+        // Header manipulation
+        final ModelNode headers = operation.get(OPERATION_HEADERS);
+        //Add a header to show that this operation comes from a user. If this is a host controller and the operation needs propagating to the
+        //servers it will be removed by the domain ops responsible for propagation to the servers.
+        //If more headers are removed here, they must also be removed from the http interface (DomainApiHandler)
+        headers.get(CALLER_TYPE).set(USER);
+        headers.get(ACCESS_MECHANISM).set(AccessMechanism.NATIVE.toString());
+        // Don't allow a domain-uuid operation header from a user call
+        if (headers.hasDefined(DOMAIN_UUID)) {
+            headers.remove(DOMAIN_UUID);
+        }
+        // Don't allow a execute-for-coordinator operation header from a user call
+        if (headers.hasDefined(EXECUTE_FOR_COORDINATOR)) {
+            headers.remove(EXECUTE_FOR_COORDINATOR);
+        }
+        // Only used internally on a slave when syncing the model
+        if (headers.hasDefined(SYNC_REMOVED_FOR_READD)) {
+            headers.remove(SYNC_REMOVED_FOR_READD);
+        }
+    }
+
     /**
      * Determine whether the prepared response should be sent, before the operation completed. This is needed in order
      * that operations like :reload() can be executed without causing communication failures.
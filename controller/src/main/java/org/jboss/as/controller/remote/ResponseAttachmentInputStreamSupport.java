@@ -211,7 +211,7 @@ public class ResponseAttachmentInputStreamSupport {
             }
             Map.Entry<InputStreamKey, TimedStreamEntry> entry = iter.next();
             TimedStreamEntry timedStreamEntry = entry.getValue();
-            if (timedStreamEntry.timestamp.get() <= expirationTime) {
+            if (timedStreamEntry.timestamp.get() <= expirationTime && !timedStreamEntry.reading) {
                 iter.remove();
                 InputStreamKey key = entry.getKey();
                 //noinspection SynchronizationOnLocalVariableOrMethodParameter
@@ -322,32 +322,52 @@ public class ResponseAttachmentInputStreamSupport {
 
             //noinspection SynchronizationOnLocalVariableOrMethodParameter
             synchronized (entry) {
-                InputStream input = entry.streamEntry.getStream();
-                int read = 0;
-                byte[] buffer = new byte[BUFFER_SIZE];
-                do {
-                    // Set the timestamp on each loop so if there are blocking delays reading or writing
-                    // they don't accumulate
+                entry.reading = true;
+                try {
+                    writeStream(entry, output);
+                } finally {
+                    entry.reading = false;
                     entry.timestamp.set(System.currentTimeMillis());
+                }
+            }
+        }
 
-                    int totalRead = 0;
-                    int remaining = BUFFER_SIZE;
-                    // Read a full buffer if possible before sending
-                    while (remaining > 0 && (read = input.read(buffer, totalRead, remaining)) != -1) {
-                        totalRead += read;
-                        remaining -= read;
+        private void writeStream(TimedStreamEntry entry, FlushableDataOutput output) throws IOException {
+            InputStream input = entry.streamEntry.getStream();
+            int read = 0;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            do {
+                // Set the timestamp on each loop so if there are blocking delays reading or writing
+                // they don't accumulate
+                entry.timestamp.set(System.currentTimeMillis());
+
+                int totalRead = 0;
+                int remaining = BUFFER_SIZE;
+                // Read a full buffer if possible before sending, unless the stream has to wait for more
+                // content, e.g. a followed log file, in which case what has been read is sent right away
+                boolean waiting = false;
+                while (remaining > 0 && (read = input.read(buffer, totalRead, remaining)) != -1) {
+                    boolean shortRead = read < remaining;
+                    totalRead += read;
+                    remaining -= read;
+                    if (shortRead && input.available() == 0) {
+                        waiting = true;
+                        break;
                     }
-                    if (totalRead > 0) {
-                        output.writeByte(ModelControllerProtocol.PARAM_INPUTSTREAM_LENGTH);
-                        output.writeInt(totalRead);
-                        output.writeByte(ModelControllerProtocol.PARAM_INPUTSTREAM_CONTENTS);
-                        output.write(buffer, 0, totalRead);
+                }
+                if (totalRead > 0) {
+                    output.writeByte(ModelControllerProtocol.PARAM_INPUTSTREAM_LENGTH);
+                    output.writeInt(totalRead);
+                    output.writeByte(ModelControllerProtocol.PARAM_INPUTSTREAM_CONTENTS);
+                    output.write(buffer, 0, totalRead);
+                    if (waiting) {
+                        output.flush();
                     }
+                }
 
-                } while (read > -1);
+            } while (read > -1);
 
-                output.writeByte(ModelControllerProtocol.PARAM_END);
-            }
+            output.writeByte(ModelControllerProtocol.PARAM_END);
         }
 
         @Override
@@ -362,6 +382,8 @@ public class ResponseAttachmentInputStreamSupport {
         private final OperationResponse.StreamEntry streamEntry;
         private final AtomicLong timestamp;
         private boolean closed;
+        /** Whether the stream is being written to a client, which can block for as long as the stream waits for content */
+        private volatile boolean reading;
 
         private TimedStreamEntry(OperationResponse.StreamEntry streamEntry, AtomicLong timestamp) {
             this.streamEntry = streamEntry;
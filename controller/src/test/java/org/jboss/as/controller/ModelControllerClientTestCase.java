@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -47,6 +48,7 @@ import org.jboss.as.controller.client.Operation;
 import org.jboss.as.controller.client.OperationAttachments;
 import org.jboss.as.controller.client.OperationBuilder;
 import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.client.helpers.OperationPipeline;
 import org.jboss.as.controller.client.impl.ExistingChannelModelControllerClient;
 import org.jboss.as.controller.client.impl.InputStreamEntry;
 import org.jboss.as.controller.registry.NotificationHandlerRegistration;
@@ -360,6 +362,45 @@ public class ModelControllerClientTestCase {
         }
     }
 
+    @Test
+    public void testPipelinedBatches() throws Exception {
+        final AtomicInteger committedOnPrepare = new AtomicInteger();
+        final MockModelController controller = new MockModelController() {
+            @Override
+            public ModelNode execute(ModelNode operation, OperationMessageHandler handler, OperationTransactionControl control, OperationAttachments attachments) {
+                if (control != OperationTransactionControl.COMMIT) {
+                    committedOnPrepare.incrementAndGet();
+                }
+                ModelNode result = new ModelNode();
+                result.get("testing").set(operation.get("test"));
+                result.get("caller-type").set(operation.get("operation-headers", "caller-type"));
+                return result;
+            }
+        };
+        final ModelControllerClient client = setupTestClient(controller);
+        try {
+            Assert.assertFalse(((ExistingChannelModelControllerClient) client).isBatchSupported());
+            final List<ModelNode> operations = new ArrayList<ModelNode>();
+            for (int i = 0; i < 100; i++) {
+                final ModelNode op = new ModelNode();
+                op.get("operation").set(i == 50 ? "reload" : i % 10 == 0 ? "fake" : "read-resource");
+                op.get("test").set(i);
+                operations.add(op);
+            }
+            final List<ModelNode> results = OperationPipeline.execute(client, operations, 16, 3);
+            assertEquals(100, results.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, results.get(i).get("testing").asInt());
+                assertEquals("user", results.get(i).get("caller-type").asString());
+            }
+            Assert.assertTrue(((ExistingChannelModelControllerClient) client).isBatchSupported());
+            // Only the reload was executed as a single request sending its prepared response
+            assertEquals(1, committedOnPrepare.get());
+        } finally {
+            IoUtils.safeClose(client);
+        }
+    }
+
     private void assertArrays(byte[] expected, byte[] actual) {
         assertEquals(expected.length, actual.length);
         for (int i = 0 ; i < expected.length ; i++) {
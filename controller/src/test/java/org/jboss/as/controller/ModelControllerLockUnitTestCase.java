@@ -0,0 +1,145 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link ModelControllerLock}.
+ */
+public class ModelControllerLockUnitTestCase {
+
+    private final ModelControllerLock lock = new ModelControllerLock();
+
+    @Test
+    public void testExclusiveIsReentrantPerPermit() throws Exception {
+        lock.lock(1, "write");
+        lock.lock(1, "write");
+        assertFalse(lock.detectDeadlockAndGetLock(2, "other"));
+        lock.unlock(1);
+        assertFalse(lock.detectDeadlockAndGetLock(2, "other"));
+        lock.unlock(1);
+        assertTrue(lock.detectDeadlockAndGetLock(2, "other"));
+        lock.unlock(2);
+    }
+
+    @Test
+    public void testSharedHoldersDoNotExcludeEachOther() throws Exception {
+        lock.lockSharedInterruptibly(1, "read");
+        lock.lockSharedInterruptibly(2, "read");
+        assertFalse(lock.lockInterruptibly(3, "write", 10, TimeUnit.MILLISECONDS));
+        lock.unlockShared(1);
+        lock.unlockShared(2);
+        assertTrue(lock.lockInterruptibly(3, "write", 10, TimeUnit.MILLISECONDS));
+        lock.unlock(3);
+    }
+
+    @Test
+    public void testExclusiveHolderMayReadAndSoleReaderMayUpgrade() throws Exception {
+        lock.lock(1, "write");
+        lock.lockSharedInterruptibly(1, "read");
+        lock.unlockShared(1);
+        lock.unlock(1);
+
+        lock.lockSharedInterruptibly(2, "read");
+        assertTrue(lock.detectDeadlockAndGetLock(2, "write"));
+        lock.unlock(2);
+        lock.unlockShared(2);
+    }
+
+    @Test
+    public void testWaitingWriterBlocksNewReaders() throws Exception {
+        lock.lockSharedInterruptibly(1, "read");
+        final CountDownLatch writerAcquired = new CountDownLatch(1);
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock.lock(2, "write");
+                writerAcquired.countDown();
+                lock.unlock(2);
+            }
+        });
+        writer.start();
+        while (lock.getQueueLength() == 0) {
+            Thread.sleep(1);
+        }
+
+        final CountDownLatch readerAcquired = new CountDownLatch(1);
+        final Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    lock.lockSharedInterruptibly(3, "read");
+                    readerAcquired.countDown();
+                    lock.unlockShared(3);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        reader.start();
+        assertFalse(readerAcquired.await(50, TimeUnit.MILLISECONDS));
+
+        lock.unlockShared(1);
+        assertTrue(writerAcquired.await(5, TimeUnit.SECONDS));
+        assertTrue(readerAcquired.await(5, TimeUnit.SECONDS));
+        writer.join();
+        reader.join();
+        assertEquals(0, lock.getQueueLength());
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        lock.lock(1, "write");
+        lock.lock(1, "write");
+        lock.unlock(1);
+        lock.unlock(1);
+        lock.lockSharedInterruptibly(2, "read");
+        lock.unlockShared(2);
+
+        ModelNode write = null;
+        ModelNode read = null;
+        for (ModelNode entry : lock.getStatistics().asList()) {
+            if ("write".equals(entry.get(OP).asString())) {
+                write = entry;
+            } else if ("read".equals(entry.get(OP).asString())) {
+                read = entry;
+            }
+        }
+        assertEquals(1, write.get("exclusive-acquisitions").asLong());
+        assertEquals(0, write.get("shared-acquisitions").asLong());
+        assertTrue(write.get("total-hold-time").asLong() >= write.get("max-hold-time").asLong());
+        assertEquals(0, read.get("exclusive-acquisitions").asLong());
+        assertEquals(1, read.get("shared-acquisitions").asLong());
+        assertEquals(0, read.get("max-queue-length").asInt());
+    }
+}
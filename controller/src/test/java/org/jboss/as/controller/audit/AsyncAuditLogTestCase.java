@@ -0,0 +1,246 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.audit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.controller.OperationContext.ResultAction;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.dmr.ModelNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests writing audit log items on the background writer of {@link ManagedAuditLoggerImpl}.
+ */
+public class AsyncAuditLogTestCase {
+
+    @Test
+    public void testRingBuffer() {
+        AuditLogRingBuffer queue = new AuditLogRingBuffer(3);
+        Assert.assertEquals(4, queue.capacity());
+        List<AuditLogItem> items = new ArrayList<>();
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                AuditLogItem item = createItem(i);
+                items.add(item);
+                Assert.assertTrue(queue.offer(item));
+            }
+            Assert.assertFalse(queue.offer(createItem(4)));
+            Assert.assertEquals(4, queue.size());
+            for (int i = 0; i < 4; i++) {
+                Assert.assertSame(items.get(i), queue.poll());
+            }
+            Assert.assertNull(queue.poll());
+            Assert.assertTrue(queue.isEmpty());
+            items.clear();
+        }
+    }
+
+    @Test
+    public void testSynchronous() throws Exception {
+        TestHandler handler = new TestHandler();
+        ManagedAuditLoggerImpl logger = createLogger(0, ManagedAuditLoggerImpl.OverflowPolicy.BLOCK, handler);
+        for (int i = 1; i < 10; i++) {
+            log(logger, i);
+            Assert.assertEquals(i + 1, handler.getItems().size());
+        }
+        Assert.assertEquals(0, logger.getQueuedItemCount());
+    }
+
+    @Test
+    public void testItemsAreWrittenInOrder() throws Exception {
+        TestHandler handler = new TestHandler();
+        ManagedAuditLoggerImpl logger = createLogger(8, ManagedAuditLoggerImpl.OverflowPolicy.BLOCK, handler);
+        for (int i = 1; i < 1000; i++) {
+            log(logger, i);
+        }
+        handler.awaitItems(1000);
+        List<String> items = handler.getItems();
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(String.valueOf(i), items.get(i));
+        }
+        Assert.assertEquals(0, logger.getDroppedItemCount());
+    }
+
+    @Test
+    public void testItemsAreDroppedWhenFull() throws Exception {
+        TestHandler handler = new TestHandler();
+        ManagedAuditLoggerImpl logger = createLogger(4, ManagedAuditLoggerImpl.OverflowPolicy.DROP, handler);
+
+        handler.block();
+        log(logger, 1);
+        //The writer is now stuck writing item 1
+        handler.awaitBlocked();
+        for (int i = 2; i < 12; i++) {
+            log(logger, i);
+        }
+        Assert.assertEquals(4, logger.getQueuedItemCount());
+        Assert.assertEquals(6, logger.getDroppedItemCount());
+
+        //Items that are not handed to the writer are written after the ones it has not written yet
+        handler.unblock();
+        logger.setLoggerStatus(AuditLogger.Status.DISABLE_NEXT);
+        log(logger, 12);
+        Assert.assertEquals(Arrays.asList("0", "1", "2", "3", "4", "5", "12"), handler.getItems());
+        Assert.assertEquals(0, logger.getQueuedItemCount());
+    }
+
+    @Test
+    public void testWriterIsStoppedOnBoot() throws Exception {
+        TestHandler handler = new TestHandler();
+        ManagedAuditLoggerImpl logger = createLogger(8, ManagedAuditLoggerImpl.OverflowPolicy.BLOCK, handler);
+        for (int i = 1; i < 10; i++) {
+            log(logger, i);
+        }
+        Thread writer = logger.getWriterThread();
+        Assert.assertNotNull(writer);
+
+        logger.startBoot();
+        Assert.assertEquals(10, handler.getItems().size());
+        Assert.assertNull(logger.getWriterThread());
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        Assert.assertFalse(writer.isAlive());
+
+        //A new writer is started by the next item
+        logger.setLoggerStatus(AuditLogger.Status.LOGGING);
+        logger.bootDone();
+        log(logger, 10);
+        log(logger, 11);
+        handler.awaitItems(12);
+        Assert.assertNotNull(logger.getWriterThread());
+        Assert.assertNotSame(writer, logger.getWriterThread());
+    }
+
+    private static ManagedAuditLoggerImpl createLogger(int queueSize, ManagedAuditLoggerImpl.OverflowPolicy policy, TestHandler handler) throws Exception {
+        ManagedAuditLoggerImpl logger = new ManagedAuditLoggerImpl("8.0.0", true, queueSize, policy);
+        logger.addFormatter(new TestFormatter());
+        logger.getUpdater().addHandler(handler);
+        logger.getUpdater().addHandlerReference(PathAddress.pathAddress(PathElement.pathElement("handler", handler.getName())));
+        logger.setLoggerStatus(AuditLogger.Status.LOGGING);
+        logger.bootDone();
+        //The handler updates are applied with the first item, which is always written synchronously
+        log(logger, 0);
+        Assert.assertEquals(Collections.singletonList("0"), handler.getItems());
+        return logger;
+    }
+
+    private static void log(ManagedAuditLoggerImpl logger, int index) {
+        logger.log(false, ResultAction.KEEP, "test", null, null, null, null, Collections.singletonList(new ModelNode(index)));
+    }
+
+    private static AuditLogItem createItem(int index) {
+        return AuditLogItem.createModelControllerItem("8.0.0", false, false, ResultAction.KEEP, "test", null, null, null, null,
+                Collections.singletonList(new ModelNode(index)));
+    }
+
+    private static class TestFormatter extends AuditLogItemFormatter {
+
+        TestFormatter() {
+            super("test-formatter", false, "", "yyyy-MM-dd");
+        }
+
+        @Override
+        String formatAuditLogItem(AuditLogItem.ModelControllerAuditLogItem item) {
+            return item.getOperations().get(0).asString();
+        }
+
+        @Override
+        String formatAuditLogItem(AuditLogItem.JmxAccessAuditLogItem item) {
+            return item.getMethodName();
+        }
+    }
+
+    private static class TestHandler extends AuditLogHandler {
+
+        private final List<String> items = new ArrayList<>();
+        private volatile CountDownLatch blocked;
+        private volatile CountDownLatch release;
+
+        TestHandler() {
+            super("test-handler", "test-formatter", 0);
+        }
+
+        void block() {
+            blocked = new CountDownLatch(1);
+            release = new CountDownLatch(1);
+        }
+
+        void awaitBlocked() throws InterruptedException {
+            Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        }
+
+        void unblock() {
+            release.countDown();
+        }
+
+        synchronized List<String> getItems() {
+            return new ArrayList<>(items);
+        }
+
+        synchronized void awaitItems(int count) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (items.size() < count) {
+                final long remaining = deadline - System.currentTimeMillis();
+                Assert.assertTrue("Timed out waiting for " + count + " items, got " + items, remaining > 0);
+                wait(remaining);
+            }
+        }
+
+        @Override
+        boolean isDifferent(AuditLogHandler other) {
+            return other != this;
+        }
+
+        @Override
+        void initialize() {
+        }
+
+        @Override
+        void stop() {
+        }
+
+        @Override
+        void writeLogItem(String formattedItem) throws IOException {
+            if (blocked != null && release.getCount() > 0) {
+                blocked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (this) {
+                items.add(formattedItem);
+                notifyAll();
+            }
+        }
+    }
+}
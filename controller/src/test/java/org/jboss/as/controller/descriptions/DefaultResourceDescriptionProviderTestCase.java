@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.descriptions;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ATTRIBUTES;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CHILDREN;
+
+import java.util.Locale;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests caching of descriptions by {@link DefaultResourceDescriptionProvider}.
+ */
+public class DefaultResourceDescriptionProviderTestCase {
+
+    private static final SimpleAttributeDefinition FOO = SimpleAttributeDefinitionBuilder.create("foo", ModelType.STRING, true).build();
+    private static final SimpleAttributeDefinition BAR = SimpleAttributeDefinitionBuilder.create("bar", ModelType.INT, true).build();
+
+    private ManagementResourceRegistration rootRegistration;
+    private DescriptionProvider provider;
+
+    @Before
+    public void setup() {
+        rootRegistration = ManagementResourceRegistration.Factory.create(new SimpleResourceDefinition(null, new NonResolvingResourceDescriptionResolver()));
+        rootRegistration.registerReadOnlyAttribute(FOO, null);
+        provider = rootRegistration.getModelDescription(PathAddress.EMPTY_ADDRESS);
+    }
+
+    @Test
+    public void testCallersGetIndependentCopies() {
+        ModelNode first = provider.getModelDescription(Locale.ENGLISH);
+        Assert.assertTrue(first.get(ATTRIBUTES).has("foo"));
+        first.get(ATTRIBUTES).remove("foo");
+        first.get(ATTRIBUTES, "foo", "access-type").set("read-only");
+
+        ModelNode second = provider.getModelDescription(Locale.ENGLISH);
+        Assert.assertNotSame(first, second);
+        Assert.assertFalse(second.get(ATTRIBUTES, "foo").has("access-type"));
+        Assert.assertEquals(second, provider.getModelDescription(null));
+    }
+
+    @Test
+    public void testRegistrationChangesInvalidate() {
+        ModelNode before = provider.getModelDescription(Locale.ENGLISH);
+        Assert.assertFalse(before.get(ATTRIBUTES).has("bar"));
+        Assert.assertFalse(before.get(CHILDREN).has("child"));
+
+        rootRegistration.registerReadOnlyAttribute(BAR, null);
+        Assert.assertTrue(provider.getModelDescription(Locale.ENGLISH).get(ATTRIBUTES).has("bar"));
+        Assert.assertTrue(provider.getModelDescription(null).get(ATTRIBUTES).has("bar"));
+
+        // a change anywhere in the tree is seen
+        ManagementResourceRegistration child = rootRegistration.registerSubModel(
+                new SimpleResourceDefinition(PathElement.pathElement("child"), new NonResolvingResourceDescriptionResolver()));
+        Assert.assertTrue(provider.getModelDescription(Locale.ENGLISH).get(CHILDREN).has("child"));
+        DescriptionProvider childProvider = child.getModelDescription(PathAddress.EMPTY_ADDRESS);
+        Assert.assertFalse(childProvider.getModelDescription(Locale.ENGLISH).get(ATTRIBUTES).has("foo"));
+        child.registerReadOnlyAttribute(FOO, null);
+        Assert.assertTrue(childProvider.getModelDescription(Locale.ENGLISH).get(ATTRIBUTES).has("foo"));
+
+        rootRegistration.unregisterAttribute("bar");
+        rootRegistration.unregisterSubModel(PathElement.pathElement("child"));
+        ModelNode after = provider.getModelDescription(Locale.ENGLISH);
+        Assert.assertFalse(after.get(ATTRIBUTES).has("bar"));
+        Assert.assertFalse(after.get(CHILDREN).has("child"));
+    }
+}
@@ -228,6 +228,37 @@ public class NotificationRegistryTestCase {
         assertTrue(handlers.contains(handler3));
     }
 
+    @Test
+    public void testHandlersFoundForSourceFollowRegistrations() {
+        NotificationHandlerRegistration registry = NotificationHandlerRegistration.Factory.create();
+
+        NotificationHandler handler1 = new SimpleNotificationHandler();
+        NotificationHandler handler2 = new SimpleNotificationHandler();
+        NotificationFilter fooOnly = new NotificationFilter() {
+            @Override
+            public boolean isNotificationEnabled(Notification notification) {
+                return "foo".equals(notification.getType());
+            }
+        };
+
+        PathAddress source = PathAddress.pathAddress("subsystem", "messaging");
+        registry.registerNotificationHandler(source, handler1, fooOnly);
+
+        assertEquals(1, registry.findMatchingNotificationHandlers(new Notification("foo", source, "bar")).size());
+        // the same source with another type is still filtered
+        assertEquals(0, registry.findMatchingNotificationHandlers(new Notification("bar", source, "bar")).size());
+
+        registry.registerNotificationHandler(PathAddress.pathAddress("subsystem", "*"), handler2, ALL);
+        Collection<NotificationHandler> handlers = registry.findMatchingNotificationHandlers(new Notification("foo", source, "bar"));
+        assertEquals(2, handlers.size());
+        assertTrue(handlers.contains(handler2));
+
+        registry.unregisterNotificationHandler(source, handler1, fooOnly);
+        handlers = registry.findMatchingNotificationHandlers(new Notification("foo", source, "bar"));
+        assertEquals(1, handlers.size());
+        assertTrue(handlers.contains(handler2));
+    }
+
     private static class SimpleNotificationHandler implements NotificationHandler {
 
         @Override
@@ -31,6 +31,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -68,6 +69,68 @@ public class NotificationSupportImplTestCase {
         }
     }
 
+    @Test
+    public void testSlowHandlerDoesNotDelayOtherHandlers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            NotificationSupport notificationSupport = NotificationSupport.Factory.create(executor);
+            BlockingNotificationHandler slowHandler = new BlockingNotificationHandler();
+            CountDownLatch latch = new CountDownLatch(3);
+            CountdownListBackedNotificationHandler fastHandler = new CountdownListBackedNotificationHandler(latch);
+            notificationSupport.getNotificationRegistry().registerNotificationHandler(NotificationHandlerRegistration.ANY_ADDRESS, slowHandler, ALL);
+            notificationSupport.getNotificationRegistry().registerNotificationHandler(NotificationHandlerRegistration.ANY_ADDRESS, fastHandler, ALL);
+
+            List<Notification> notifications = new ArrayList<Notification>();
+            for (int i = 0; i < 3; i++) {
+                notifications.add(new Notification("foo", pathAddress("resource", "foo"), String.valueOf(i)));
+                notificationSupport.emit(notifications.get(i));
+            }
+
+            assertTrue(latch.await(5, SECONDS));
+            assertEquals(notifications, fastHandler.getNotifications());
+            assertTrue(slowHandler.blocked.await(5, SECONDS));
+            assertEquals(2, notificationSupport.getPendingNotificationCount());
+
+            slowHandler.release.countDown();
+            assertTrue(slowHandler.handled.await(5, SECONDS));
+            assertEquals(notifications, slowHandler.notifications);
+            // the last delivery is only counted once the handler returns
+            assertTrue(notificationSupport.getDeliveredNotificationCount() >= 5);
+            assertEquals(0, notificationSupport.getPendingNotificationCount());
+            assertEquals(0, notificationSupport.getDroppedNotificationCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testNotificationsAreDroppedWhenHandlerDoesNotKeepUp() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            NotificationSupport notificationSupport = new NotificationSupports.NonBlockingNotificationSupport(
+                    NotificationHandlerRegistration.Factory.create(), executor, 2);
+            BlockingNotificationHandler handler = new BlockingNotificationHandler();
+            notificationSupport.getNotificationRegistry().registerNotificationHandler(NotificationHandlerRegistration.ANY_ADDRESS, handler, ALL);
+
+            List<Notification> notifications = new ArrayList<Notification>();
+            for (int i = 0; i < 5; i++) {
+                notifications.add(new Notification("foo", pathAddress("resource", "foo"), String.valueOf(i)));
+            }
+            notificationSupport.emit(notifications.get(0));
+            // the 1st notification is being delivered, 2 more can wait
+            assertTrue(handler.blocked.await(5, SECONDS));
+            notificationSupport.emit(notifications.subList(1, 5).toArray(new Notification[4]));
+            assertEquals(2, notificationSupport.getPendingNotificationCount());
+            assertEquals(2, notificationSupport.getDroppedNotificationCount());
+
+            handler.release.countDown();
+            assertTrue(handler.handled.await(5, SECONDS));
+            assertEquals(notifications.subList(0, 3), handler.notifications);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private void  doNotificationOrdering(ExecutorService executor) throws Exception {
         int numberOfNotificationsEmitted = 12;
         final CountDownLatch latch = new CountDownLatch(numberOfNotificationsEmitted);
@@ -117,4 +180,27 @@ public class NotificationSupportImplTestCase {
         // handled the 2nd notifications2 that were emitted
         assertEquals(notifications2, handler.getNotifications().subList(9, 12));
     }
+
+    /**
+     * Blocks on the 1st notification until released, then expects 3 notifications in total.
+     */
+    private static class BlockingNotificationHandler implements NotificationHandler {
+
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch handled = new CountDownLatch(3);
+        final List<Notification> notifications = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void handleNotification(Notification notification) {
+            blocked.countDown();
+            try {
+                release.await(5, SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            notifications.add(notification);
+            handled.countDown();
+        }
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.jboss.as.controller.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link ConfigurationFileWriteBehind}.
+ */
+public class ConfigurationFileWriteBehindTestCase {
+
+    /** Long enough for nothing to be written unless flushed */
+    private static final long DELAY = TimeUnit.HOURS.toMillis(1);
+
+    private File configDir;
+    private File mainFile;
+    private ConfigurationFile configurationFile;
+    private ConfigurationFileWriteBehind writeBehind;
+
+    @Before
+    public void setUp() throws Exception {
+        File tgt = new File("target");
+        if (!tgt.exists()) {
+            Assert.fail("target/ does not exist");
+        }
+        configDir = new File(tgt, "write-behind-test-configs");
+        delete(configDir);
+        Assert.assertTrue(configDir.mkdirs());
+        mainFile = new File(configDir, "standalone.xml");
+        write(mainFile, "boot");
+        configurationFile = new ConfigurationFile(configDir, "standalone.xml", null, true);
+        Assert.assertEquals(mainFile.getCanonicalFile(), configurationFile.getBootFile());
+        configurationFile.successfulBoot();
+        writeBehind = new ConfigurationFileWriteBehind(configurationFile, DELAY);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        writeBehind.shutdown();
+        delete(configDir);
+    }
+
+    @Test
+    public void testCommitsAreWrittenOnFlush() throws Exception {
+        writeBehind.submit(marshalled("first"));
+        writeBehind.submit(marshalled("second"));
+        Assert.assertEquals(2, writeBehind.getUnflushedGenerations());
+        Assert.assertEquals("boot", read(mainFile));
+
+        Assert.assertEquals(2, writeBehind.flush());
+        Assert.assertEquals("second", read(mainFile));
+        Assert.assertEquals(0, writeBehind.getUnflushedGenerations());
+        Assert.assertEquals(0, writeBehind.flush());
+    }
+
+    @Test
+    public void testFailedWriteIsReportedAndRetriedByFlush() throws Exception {
+        // A non-empty directory where the temp file should go makes the write fail
+        final File obstacle = new File(configDir, "standalone.xml.tmp");
+        Assert.assertTrue(obstacle.mkdir());
+        write(new File(obstacle, "content"), "content");
+
+        writeBehind.submit(marshalled("changed"));
+        try {
+            writeBehind.flush();
+            Assert.fail("the failed write was not reported");
+        } catch (ConfigurationPersistenceException expected) {
+            // ok
+        }
+        Assert.assertEquals(1, writeBehind.getUnflushedGenerations());
+        Assert.assertEquals("boot", read(mainFile));
+
+        delete(obstacle);
+        Assert.assertEquals(1, writeBehind.flush());
+        Assert.assertEquals("changed", read(mainFile));
+        Assert.assertEquals(0, writeBehind.getUnflushedGenerations());
+    }
+
+    @Test
+    public void testShutdownWritesAndStopsTheWriter() throws Exception {
+        writeBehind.submit(marshalled("first"));
+        Assert.assertNotNull(findWriterThread());
+
+        writeBehind.shutdown();
+        Assert.assertEquals("first", read(mainFile));
+        Assert.assertEquals(0, writeBehind.getUnflushedGenerations());
+        Assert.assertNull(findWriterThread());
+
+        // Still usable afterwards
+        writeBehind.submit(marshalled("second"));
+        Assert.assertEquals(1, writeBehind.flush());
+        Assert.assertEquals("second", read(mainFile));
+    }
+
+    private static Thread findWriterThread() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("Configuration write-behind standalone.xml") && thread.isAlive()) {
+                return thread;
+            }
+        }
+        return null;
+    }
+
+    private static ExposedByteArrayOutputStream marshalled(String content) throws IOException {
+        final ExposedByteArrayOutputStream marshalled = new ExposedByteArrayOutputStream(64);
+        marshalled.write(content.getBytes(StandardCharsets.UTF_8));
+        return marshalled;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void delete(File file) {
+        if (file.isDirectory()) {
+            for (File child : file.listFiles()) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
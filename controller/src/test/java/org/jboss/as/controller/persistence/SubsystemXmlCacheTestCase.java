@@ -0,0 +1,263 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.persistence;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBSYSTEM;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
+import org.jboss.staxmapper.XMLElementWriter;
+import org.jboss.staxmapper.XMLExtendedStreamWriter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that incremental persistence writes the same document as marshalling the whole model.
+ */
+public class SubsystemXmlCacheTestCase {
+
+    private TestSubsystemWriter writerA;
+    private TestSubsystemWriter writerB;
+    private TestPersister persister;
+    private ModelNode model;
+
+    @Before
+    public void setup() {
+        writerA = new TestSubsystemWriter("urn:test:a");
+        writerB = new TestSubsystemWriter("urn:test:b");
+        persister = new TestPersister();
+        persister.registerSubsystemWriter("a", writerA);
+        persister.registerSubsystemWriter("b", writerB);
+        model = new ModelNode();
+        model.get("name").set("test");
+        model.get(SUBSYSTEM, "a", "value").set("a1");
+        model.get(SUBSYSTEM, "a", "item", "x", "value").set("ax");
+        model.get(SUBSYSTEM, "b", "value").set("b1");
+        model.get(SUBSYSTEM, "b", "item", "x", "value").set("bx");
+        model.get(SUBSYSTEM, "b", "item", "y", "value").set("by");
+    }
+
+    @Test
+    public void testUnaffectedSubsystemsAreReplayed() throws Exception {
+        storeAndCompare(affected(subsystem("a")));
+        Assert.assertEquals(1, writerA.invocations);
+        Assert.assertEquals(1, writerB.invocations);
+
+        model.get(SUBSYSTEM, "a", "value").set("a2");
+        storeAndCompare(affected(subsystem("a").append(PathElement.pathElement("item", "x"))));
+        Assert.assertEquals(2, writerA.invocations);
+        Assert.assertEquals(1, writerB.invocations);
+
+        model.get("name").set("changed");
+        storeAndCompare(affected(PathAddress.pathAddress(PathElement.pathElement("interface", "public"))));
+        Assert.assertEquals(2, writerA.invocations);
+        Assert.assertEquals(1, writerB.invocations);
+    }
+
+    @Test
+    public void testAddedAndRemovedSubsystems() throws Exception {
+        storeAndCompare(affected(subsystem("a")));
+
+        final TestSubsystemWriter writerC = new TestSubsystemWriter("urn:test:c");
+        persister.registerSubsystemWriter("c", writerC);
+        model.get(SUBSYSTEM, "c", "value").set("c1");
+        storeAndCompare(affected(subsystem("c")));
+        Assert.assertEquals(1, writerA.invocations);
+        Assert.assertEquals(1, writerB.invocations);
+        Assert.assertEquals(1, writerC.invocations);
+
+        model.get(SUBSYSTEM).remove("a");
+        storeAndCompare(affected(subsystem("a")));
+        Assert.assertEquals(1, writerB.invocations);
+        Assert.assertEquals(1, writerC.invocations);
+    }
+
+    @Test
+    public void testRootChangeRewritesAll() throws Exception {
+        storeAndCompare(affected(subsystem("a")));
+        storeAndCompare(affected(PathAddress.EMPTY_ADDRESS));
+        Assert.assertEquals(2, writerA.invocations);
+        Assert.assertEquals(2, writerB.invocations);
+
+        storeAndCompare(null);
+        Assert.assertEquals(3, writerA.invocations);
+        Assert.assertEquals(3, writerB.invocations);
+    }
+
+    @Test
+    public void testRolledBackStoreIsNotReplayed() throws Exception {
+        storeAndCompare(affected(subsystem("a")));
+
+        final ModelNode original = model.clone();
+        model.get(SUBSYSTEM, "b", "value").set("b2");
+        persister.store(model, affected(subsystem("b"))).rollback();
+        Assert.assertEquals(2, writerB.invocations);
+
+        model = original;
+        storeAndCompare(affected(subsystem("a")));
+        Assert.assertEquals(2, writerB.invocations);
+    }
+
+    @Test
+    public void testNewWriterIsInvoked() throws Exception {
+        storeAndCompare(affected(subsystem("a")));
+
+        final TestSubsystemWriter newWriterB = new TestSubsystemWriter("urn:test:b");
+        persister.registerSubsystemWriter("b", newWriterB);
+        storeAndCompare(affected(subsystem("a")));
+        Assert.assertEquals(1, writerB.invocations);
+        Assert.assertEquals(1, newWriterB.invocations);
+
+        persister.invalidateSubsystemXml();
+        storeAndCompare(affected(subsystem("a")));
+        Assert.assertEquals(2, newWriterB.invocations);
+    }
+
+    /**
+     * Stores the model and checks the stored document is the one that is written without the cache.
+     */
+    private void storeAndCompare(Set<PathAddress> affectedAddresses) throws Exception {
+        persister.store(model, affectedAddresses).commit();
+        final Map<TestSubsystemWriter, Integer> invocations = new HashMap<TestSubsystemWriter, Integer>();
+        for (XMLElementWriter<SubsystemMarshallingContext> writer : persister.writers.values()) {
+            invocations.put((TestSubsystemWriter) writer, ((TestSubsystemWriter) writer).invocations);
+        }
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new TestPersister(persister).marshallAsXml(model, expected);
+        Assert.assertEquals(new String(expected.toByteArray(), StandardCharsets.UTF_8), persister.stored);
+        // the comparison must not count
+        for (Map.Entry<TestSubsystemWriter, Integer> entry : invocations.entrySet()) {
+            entry.getKey().invocations = entry.getValue();
+        }
+    }
+
+    private static PathAddress subsystem(String name) {
+        return PathAddress.pathAddress(PathElement.pathElement(SUBSYSTEM, name));
+    }
+
+    private static Set<PathAddress> affected(PathAddress address) {
+        return Collections.singleton(address);
+    }
+
+    private static final class TestPersister extends AbstractConfigurationPersister {
+
+        private final Map<String, XMLElementWriter<SubsystemMarshallingContext>> writers = new HashMap<String, XMLElementWriter<SubsystemMarshallingContext>>();
+        private String stored;
+
+        TestPersister() {
+            super(ROOT_WRITER, true);
+        }
+
+        /** A persister without cache using the same writers */
+        TestPersister(TestPersister other) {
+            super(ROOT_WRITER, false);
+            for (Map.Entry<String, XMLElementWriter<SubsystemMarshallingContext>> entry : other.writers.entrySet()) {
+                registerSubsystemWriter(entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public void registerSubsystemWriter(String name, XMLElementWriter<SubsystemMarshallingContext> deparser) {
+            super.registerSubsystemWriter(name, deparser);
+            writers.put(name, deparser);
+        }
+
+        @Override
+        public PersistenceResource store(ModelNode model, Set<PathAddress> affectedAddresses) throws ConfigurationPersistenceException {
+            return new AbstractFilePersistenceResource(model, affectedAddresses, this) {
+                @Override
+                protected void doCommit(ExposedByteArrayOutputStream marshalled) {
+                    stored = new String(marshalled.toByteArray(), StandardCharsets.UTF_8);
+                }
+            };
+        }
+
+        @Override
+        public List<ModelNode> load() throws ConfigurationPersistenceException {
+            return Collections.emptyList();
+        }
+    }
+
+    private static final XMLElementWriter<ModelMarshallingContext> ROOT_WRITER = new XMLElementWriter<ModelMarshallingContext>() {
+        @Override
+        public void writeContent(XMLExtendedStreamWriter writer, ModelMarshallingContext context) throws XMLStreamException {
+            final ModelNode model = context.getModelNode();
+            writer.writeStartDocument();
+            writer.writeStartElement("server");
+            writer.writeDefaultNamespace("urn:test:root");
+            writer.writeAttribute("name", model.get("name").asString());
+            writer.writeStartElement("profile");
+            if (model.hasDefined(SUBSYSTEM)) {
+                for (Property subsystem : model.get(SUBSYSTEM).asPropertyList()) {
+                    final XMLElementWriter<SubsystemMarshallingContext> subsystemWriter = context.getSubsystemWriter(subsystem.getName());
+                    subsystemWriter.writeContent(writer, new SubsystemMarshallingContext(subsystem.getValue(), writer));
+                }
+            }
+            writer.writeEndElement();
+            writer.writeEmptyElement("interfaces");
+            writer.writeEndElement();
+            writer.writeEndDocument();
+        }
+    };
+
+    private static final class TestSubsystemWriter implements XMLElementWriter<SubsystemMarshallingContext> {
+
+        private final String namespace;
+        private int invocations;
+
+        private TestSubsystemWriter(String namespace) {
+            this.namespace = namespace;
+        }
+
+        @Override
+        public void writeContent(XMLExtendedStreamWriter writer, SubsystemMarshallingContext context) throws XMLStreamException {
+            invocations++;
+            final ModelNode model = context.getModelNode();
+            context.startSubsystemElement(namespace, false);
+            writer.writeAttribute("value", model.get("value").asString());
+            if (model.hasDefined("item")) {
+                for (Property item : model.get("item").asPropertyList()) {
+                    writer.writeStartElement("item");
+                    writer.writeAttribute("name", item.getName());
+                    writer.writeComment(" item ");
+                    writer.writeCharacters(item.getValue().get("value").asString());
+                    writer.writeEndElement();
+                }
+            }
+            writer.writeEndElement();
+        }
+    }
+}
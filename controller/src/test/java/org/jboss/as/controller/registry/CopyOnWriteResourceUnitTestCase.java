@@ -0,0 +1,319 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link CopyOnWriteResource}.
+ */
+public class CopyOnWriteResourceUnitTestCase {
+
+    private static final PathElement SUBSYSTEM_A = PathElement.pathElement("subsystem", "a");
+    private static final PathElement SUBSYSTEM_B = PathElement.pathElement("subsystem", "b");
+    private static final PathElement CHILD = PathElement.pathElement("child", "one");
+
+    private Resource root;
+
+    @Before
+    public void setup() {
+        root = Resource.Factory.create();
+        root.getModel().get("name").set("root");
+        Resource a = Resource.Factory.create();
+        a.getModel().get("attr").set("a");
+        Resource child = Resource.Factory.create();
+        child.getModel().get("attr").set("child");
+        a.registerChild(CHILD, child);
+        root.registerChild(SUBSYSTEM_A, a);
+        Resource b = Resource.Factory.create();
+        b.getModel().get("attr").set("b");
+        root.registerChild(SUBSYSTEM_B, b);
+    }
+
+    @Test
+    public void testForkIsIsolatedFromSource() {
+        Resource fork = CopyOnWriteResource.fork(root);
+        fork.navigate(PathAddress.pathAddress(SUBSYSTEM_A, CHILD)).getModel().get("attr").set("changed");
+        fork.getModel().get("name").set("fork");
+        fork.removeChild(SUBSYSTEM_B);
+
+        assertEquals("child", root.navigate(PathAddress.pathAddress(SUBSYSTEM_A, CHILD)).getModel().get("attr").asString());
+        assertEquals("root", root.getModel().get("name").asString());
+        assertTrue(root.hasChild(SUBSYSTEM_B));
+
+        assertEquals("changed", fork.navigate(PathAddress.pathAddress(SUBSYSTEM_A, CHILD)).getModel().get("attr").asString());
+        assertEquals("fork", fork.getModel().get("name").asString());
+        assertFalse(fork.hasChild(SUBSYSTEM_B));
+    }
+
+    @Test
+    public void testUnmodifiedSubtreesAreShared() {
+        Resource published = CopyOnWriteResource.fork(root);
+        published.requireChild(SUBSYSTEM_A).getModel().get("attr").set("a2");
+        CopyOnWriteResource.seal(published);
+
+        Resource fork = CopyOnWriteResource.fork(published);
+        fork.requireChild(SUBSYSTEM_A).getModel().get("attr").set("a3");
+        CopyOnWriteResource.seal(fork);
+
+        // b was never touched, so all generations share the original instance
+        assertSame(root.getChild(SUBSYSTEM_B), published.getChild(SUBSYSTEM_B));
+        assertSame(root.getChild(SUBSYSTEM_B), fork.getChild(SUBSYSTEM_B));
+        assertNotSame(published.getChild(SUBSYSTEM_A), fork.getChild(SUBSYSTEM_A));
+        assertEquals("a2", published.getChild(SUBSYSTEM_A).getModel().get("attr").asString());
+        assertEquals("a3", fork.getChild(SUBSYSTEM_A).getModel().get("attr").asString());
+        assertEquals(Resource.Tools.readModel(root).get("subsystem", "b"), Resource.Tools.readModel(fork).get("subsystem", "b"));
+    }
+
+    @Test
+    public void testRepeatedAccessReturnsSameChild() {
+        Resource fork = CopyOnWriteResource.fork(root);
+        Resource first = fork.requireChild(SUBSYSTEM_A);
+        first.getModel().get("attr").set("changed");
+        assertSame(first, fork.requireChild(SUBSYSTEM_A));
+        assertEquals("changed", fork.getChildren("subsystem").iterator().next().getModel().get("attr").asString());
+    }
+
+    @Test
+    public void testRegisterAndRemove() {
+        Resource fork = CopyOnWriteResource.fork(root);
+        PathElement c = PathElement.pathElement("subsystem", "c");
+        Resource added = Resource.Factory.create();
+        fork.registerChild(c, added);
+        assertSame(added, fork.getChild(c));
+        assertFalse(root.hasChild(c));
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), fork.getChildrenNames("subsystem"));
+
+        fork.removeChild(SUBSYSTEM_A);
+        fork.removeChild(SUBSYSTEM_B);
+        fork.removeChild(c);
+        assertFalse(fork.hasChildren("subsystem"));
+        assertEquals(Collections.emptySet(), fork.getChildTypes());
+        assertNull(fork.removeChild(c));
+        assertTrue(root.hasChild(SUBSYSTEM_A));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDuplicateRegistration() {
+        Resource fork = CopyOnWriteResource.fork(root);
+        fork.registerChild(SUBSYSTEM_A, Resource.Factory.create());
+    }
+
+    @Test
+    public void testOrderedChildren() {
+        Resource ordered = Resource.Factory.create(false, Collections.singleton("handler"));
+        ordered.registerChild(PathElement.pathElement("handler", "x"), Resource.Factory.create());
+        ordered.registerChild(PathElement.pathElement("handler", "z"), Resource.Factory.create());
+        Resource fork = CopyOnWriteResource.fork(ordered);
+        fork.registerChild(PathElement.pathElement("handler", "y"), 1, Resource.Factory.create());
+
+        Iterator<String> names = fork.getChildrenNames("handler").iterator();
+        assertEquals("x", names.next());
+        assertEquals("y", names.next());
+        assertEquals("z", names.next());
+        assertEquals(2, ordered.getChildrenNames("handler").size());
+    }
+
+    @Test
+    public void testCloneOfInFlightResource() {
+        Resource fork = CopyOnWriteResource.fork(root);
+        fork.requireChild(SUBSYSTEM_A).getModel().get("attr").set("before");
+        Resource clone = fork.clone();
+        fork.requireChild(SUBSYSTEM_A).getModel().get("attr").set("after");
+        fork.getModel().get("name").set("after");
+
+        assertEquals("before", clone.requireChild(SUBSYSTEM_A).getModel().get("attr").asString());
+        assertEquals("root", clone.getModel().get("name").asString());
+    }
+
+    @Test
+    public void testSealedReadsDoNotCopy() {
+        Resource fork = CopyOnWriteResource.fork(root);
+        CopyOnWriteResource.seal(fork);
+        ModelNode model = fork.getModel();
+        assertSame(model, fork.getModel());
+        assertSame(root.getChild(SUBSYSTEM_A), fork.getChild(SUBSYSTEM_A));
+    }
+
+    @Test
+    public void testCustomProviderSurvivesWrites() {
+        final Set<String> connections = new LinkedHashSet<String>();
+        connections.add("slave1");
+        ResourceProvider.Tool.addResourceProvider("connection", new LiveResourceProvider(connections), root.requireChild(SUBSYSTEM_A));
+
+        // a write to the subtree holding the provider, as a management operation would do it
+        Resource fork = CopyOnWriteResource.fork(root);
+        fork.requireChild(SUBSYSTEM_A).getModel().get("attr").set("changed");
+        CopyOnWriteResource.seal(fork);
+
+        connections.add("slave2");
+        Resource a = fork.requireChild(SUBSYSTEM_A);
+        assertEquals(new HashSet<String>(Arrays.asList("child", "connection")), a.getChildTypes());
+        assertEquals(connections, a.getChildrenNames("connection"));
+        assertTrue(a.hasChild(PathElement.pathElement("connection", "slave2")));
+        assertEquals(2, a.getChildren("connection").size());
+        assertEquals(connections, Resource.Tools.readModel(fork).get(SUBSYSTEM_A.getKey(), SUBSYSTEM_A.getValue(), "connection").keys());
+
+        // and once more from the published fork
+        Resource next = CopyOnWriteResource.fork(fork);
+        connections.remove("slave1");
+        assertEquals(connections, next.requireChild(SUBSYSTEM_A).getChildrenNames("connection"));
+    }
+
+    @Test
+    public void testProviderCanBeAddedToFork() {
+        final Set<String> connections = Collections.singleton("slave1");
+        Resource fork = CopyOnWriteResource.fork(root);
+        ResourceProvider.Tool.addResourceProvider("connection", new LiveResourceProvider(connections), fork);
+        assertEquals(connections, fork.getChildrenNames("connection"));
+        assertFalse(root.hasChildren("connection"));
+        try {
+            ResourceProvider.Tool.addResourceProvider("subsystem", new LiveResourceProvider(connections), fork);
+            fail();
+        } catch (IllegalStateException expected) {
+            // duplicate child type
+        }
+    }
+
+    /**
+     * Subsystem threads of a parallel boot share the in-flight root; their reads fork the children they go through.
+     */
+    @Test
+    public void testConcurrentAccessToFork() throws Exception {
+        final int subsystems = 20;
+        final int threads = 4;
+        for (int i = 0; i < subsystems; i++) {
+            root.registerChild(PathElement.pathElement("subsystem", "s" + i), Resource.Factory.create());
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                final Resource fork = CopyOnWriteResource.fork(root);
+                final CyclicBarrier start = new CyclicBarrier(threads);
+                final List<Future<?>> results = new ArrayList<Future<?>>();
+                for (int t = 0; t < threads; t++) {
+                    final PathElement element = PathElement.pathElement("thread", String.valueOf(t));
+                    results.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            start.await();
+                            for (int i = 0; i < subsystems; i++) {
+                                fork.requireChild(PathElement.pathElement("subsystem", "s" + i)).registerChild(element, Resource.Factory.create());
+                            }
+                            return null;
+                        }
+                    }));
+                }
+                for (Future<?> result : results) {
+                    result.get(30, TimeUnit.SECONDS);
+                }
+                for (int i = 0; i < subsystems; i++) {
+                    // no registration went to a fork that got replaced by another thread's one
+                    assertEquals(threads, fork.requireChild(PathElement.pathElement("subsystem", "s" + i)).getChildrenNames("thread").size());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertFalse(root.requireChild(SUBSYSTEM_A).hasChildren("thread"));
+    }
+
+    /**
+     * Provider whose children are not part of the model, e.g. like the host connections of a host controller.
+     */
+    private static final class LiveResourceProvider implements ResourceProvider {
+
+        private final Set<String> names;
+
+        private LiveResourceProvider(Set<String> names) {
+            this.names = names;
+        }
+
+        @Override
+        public boolean has(String name) {
+            return names.contains(name);
+        }
+
+        @Override
+        public Resource get(String name) {
+            return PlaceholderResource.INSTANCE;
+        }
+
+        @Override
+        public boolean hasChildren() {
+            return !names.isEmpty();
+        }
+
+        @Override
+        public Set<String> children() {
+            return new LinkedHashSet<String>(names);
+        }
+
+        @Override
+        public void register(String name, Resource resource) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void register(String value, int index, Resource resource) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Resource remove(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ResourceProvider clone() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.server.deployment.scanner;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static org.jboss.as.server.deployment.scanner.logging.DeploymentScannerLogger.ROOT_LOGGER;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watches a deployment directory and all of its subdirectories, including the content of exploded deployments, for
+ * changes, and records the paths that changed so that a scan does not need to inspect what did not.
+ * <p/>
+ * Events are received on a dedicated daemon thread, which runs a callback after each batch of events. If events are
+ * lost, or a directory can no longer be watched, the watcher reports that all paths must be considered changed.
+ */
+final class DeploymentDirectoryWatcher implements Runnable, Closeable {
+
+    private final Path root;
+    private final WatchService watchService;
+    private final Runnable changeListener;
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<WatchKey, Path>();
+    /** Guarded by this */
+    private Set<Path> changed = new HashSet<Path>();
+    /** Guarded by this */
+    private boolean overflow;
+    private volatile Thread thread;
+
+    private DeploymentDirectoryWatcher(final Path root, final WatchService watchService, final Runnable changeListener) {
+        this.root = root;
+        this.watchService = watchService;
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Starts watching a directory.
+     *
+     * @param directory the directory
+     * @param changeListener callback run on the watcher thread each time changes are recorded
+     * @return the watcher, or {@code null} if the directory cannot be watched
+     */
+    static DeploymentDirectoryWatcher start(final File directory, final Runnable changeListener) {
+        final Path root = directory.toPath().toAbsolutePath();
+        WatchService watchService = null;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            final DeploymentDirectoryWatcher watcher = new DeploymentDirectoryWatcher(root, watchService, changeListener);
+            watcher.registerAll(root);
+            final Thread thread = new Thread(watcher, "DeploymentScanner-watcher - " + root);
+            thread.setDaemon(true);
+            watcher.thread = thread;
+            thread.start();
+            return watcher;
+        } catch (IOException | UnsupportedOperationException e) {
+            ROOT_LOGGER.cannotWatchDirectory(e, root.toString());
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException ignored) {
+                    // ignore
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Gets and forgets the paths that changed since the last call.
+     *
+     * @return the changed paths, or {@code null} if changes were lost and every path must be considered changed
+     */
+    synchronized Set<Path> drainChanges() {
+        final Set<Path> result = overflow ? null : changed;
+        changed = new HashSet<Path>();
+        overflow = false;
+        return result;
+    }
+
+    /**
+     * @return {@code true} if changes were recorded since the last call to {@link #drainChanges()}
+     */
+    synchronized boolean hasChanges() {
+        return overflow || !changed.isEmpty();
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (;;) {
+                final WatchKey key = watchService.take();
+                final Path directory = directories.get(key);
+                processEvents(key, directory);
+                if (!key.reset()) {
+                    directories.remove(key);
+                    if (root.equals(directory)) {
+                        synchronized (this) {
+                            overflow = true;
+                        }
+                    }
+                }
+                changeListener.run();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // ignore
+        }
+        final Thread thread = this.thread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void processEvents(final WatchKey key, final Path directory) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+                synchronized (this) {
+                    overflow = true;
+                }
+                continue;
+            }
+            final Path path = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                // also watch new directories, e.g. an exploded deployment being copied in
+                try {
+                    registerAll(path);
+                } catch (IOException e) {
+                    synchronized (this) {
+                        overflow = true;
+                    }
+                }
+            }
+            synchronized (this) {
+                changed.add(path);
+            }
+        }
+    }
+
+    private void registerAll(final Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                directories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
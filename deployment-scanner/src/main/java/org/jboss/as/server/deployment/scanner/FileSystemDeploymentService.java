@@ -52,9 +52,11 @@ import java.io.FileFilter;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -85,6 +87,7 @@ import org.jboss.as.server.deployment.scanner.api.DeploymentScanner;
 import org.jboss.as.server.deployment.scanner.logging.DeploymentScannerLogger;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.Property;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * Service that monitors the filesystem for deployment content and if found deploys it.
@@ -117,6 +120,25 @@ class FileSystemDeploymentService implements DeploymentScanner {
      */
     static final long DEFAULT_DEPLOYMENT_TIMEOUT = 600;
 
+    /**
+     * System property that enables watching the deployment directory for changes, so that a scan is run as soon as
+     * something changes and scheduled scans are skipped while nothing does. Defaults to {@code false}.
+     */
+    static final String WATCH_PROPERTY = "org.jboss.as.server.deployment.scanner.watch";
+
+    /**
+     * System property that sets the interval in milliseconds between full scans when the deployment directory is
+     * watched, which catch any change the watcher missed.
+     */
+    static final String RECONCILE_INTERVAL_PROPERTY = "org.jboss.as.server.deployment.scanner.watch.reconcile-interval";
+
+    static final long DEFAULT_RECONCILE_INTERVAL = 60000;
+
+    /**
+     * Delay before scanning after a change is noticed, so a burst of changes results in a single scan
+     */
+    private static final long WATCH_SCAN_DELAY = 100;
+
     private File deploymentDir;
     private long scanInterval = 0;
     private volatile boolean scanEnabled = false;
@@ -125,6 +147,15 @@ class FileSystemDeploymentService implements DeploymentScanner {
     private ScheduledFuture<?> rescanIncompleteTask;
     private ScheduledFuture<?> rescanUndeployTask;
     private final Lock scanLock = new ReentrantLock();
+    private final boolean watchEnabled;
+    private final long reconcileInterval;
+    private volatile DeploymentDirectoryWatcher watcher;
+    private ScheduledFuture<?> watchScanTask;
+    private volatile long lastFullScan;
+    /** Timestamps of exploded deployments that have not changed since they were computed. Guarded by scanLock */
+    private final Map<File, Long> explodedTimestamps = new HashMap<File, Long>();
+    /** The deployments in the model, and whether they were enabled, when the last scan ended. Guarded by scanLock */
+    private Map<String, Boolean> scannedDeploymentsStatus;
 
     private final Map<String, DeploymentMarker> deployed = new HashMap<String, DeploymentMarker>();
     private final HashSet<String> ignoredMissingDeployments = new HashSet<String>();
@@ -169,6 +200,21 @@ class FileSystemDeploymentService implements DeploymentScanner {
 
     private final DeploymentScanRunnable scanRunnable = new DeploymentScanRunnable();
 
+    private final Runnable changeListener = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (FileSystemDeploymentService.this) {
+                if (scanEnabled && (watchScanTask == null || watchScanTask.isDone())) {
+                    try {
+                        watchScanTask = scheduledExecutor.schedule(scanRunnable, WATCH_SCAN_DELAY, TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException e) {
+                        //Do nothing as this happens if a change occurs during a reload of shutdown of a server.
+                    }
+                }
+            }
+        }
+    };
+
     FileSystemDeploymentService(final PathAddress resourceAddress, final String relativeTo, final File deploymentDir, final File relativeToDir,
                                 final DeploymentOperations.Factory deploymentOperationsFactory,
                                 final ScheduledExecutorService scheduledExecutor,
@@ -230,6 +276,14 @@ class FileSystemDeploymentService implements DeploymentScanner {
         } else {
             relativePath = null;
         }
+        this.watchEnabled = Boolean.parseBoolean(WildFlySecurityManager.getPropertyPrivileged(WATCH_PROPERTY, "false"));
+        long reconcileInterval = DEFAULT_RECONCILE_INTERVAL;
+        try {
+            reconcileInterval = Long.parseLong(WildFlySecurityManager.getPropertyPrivileged(RECONCILE_INTERVAL_PROPERTY, String.valueOf(DEFAULT_RECONCILE_INTERVAL)));
+        } catch (NumberFormatException ignored) {
+            // use the default
+        }
+        this.reconcileInterval = reconcileInterval;
     }
 
     @Override
@@ -397,6 +451,10 @@ class FileSystemDeploymentService implements DeploymentScanner {
         if (acquireScanLock()) {
             ScanResult scanResult = null;
             try {
+                if (!isScanNeeded()) {
+                    ROOT_LOGGER.tracef("Skipping scan of unchanged directory %s", deploymentDir.getAbsolutePath());
+                    return;
+                }
                 scanResult = scan(false, deploymentOperations);
             } finally {
                 try {
@@ -455,6 +513,56 @@ class FileSystemDeploymentService implements DeploymentScanner {
         }
     }
 
+    /**
+     * Whether a scheduled scan can find anything new. Always true unless the deployment directory is watched.
+     * Invoke with the scan lock held.
+     */
+    private boolean isScanNeeded() {
+        final DeploymentDirectoryWatcher watcher = this.watcher;
+        if (watcher == null || firstScan || watcher.hasChanges() || !incompleteDeployments.isEmpty()
+                || System.currentTimeMillis() - lastFullScan >= reconcileInterval) {
+            return true;
+        }
+        // Deployments added, removed, deployed or undeployed by other management clients need their markers updated
+        return !deploymentOperations.getDeploymentsStatus().equals(scannedDeploymentsStatus);
+    }
+
+    /**
+     * Forget the timestamps of exploded deployments that changed since the last scan, or all of them if the directory
+     * is not watched, changes were lost or a full scan is due. Invoke with the scan lock held.
+     */
+    private void invalidateExplodedTimestamps(final boolean fullScan) {
+        final DeploymentDirectoryWatcher watcher = this.watcher;
+        final Set<Path> changes = watcher == null ? null : watcher.drainChanges();
+        final long now = System.currentTimeMillis();
+        if (changes == null || fullScan || now - lastFullScan >= reconcileInterval) {
+            explodedTimestamps.clear();
+            lastFullScan = now;
+        } else if (!changes.isEmpty()) {
+            final Iterator<File> it = explodedTimestamps.keySet().iterator();
+            while (it.hasNext()) {
+                final Path exploded = it.next().toPath().toAbsolutePath();
+                for (Path changed : changes) {
+                    if (changed.startsWith(exploded)) {
+                        it.remove();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Use the given watcher rather than the one started when {@link #WATCH_PROPERTY} is set.
+     * This method isn't private solely to allow a unit test in the same package to call it.
+     */
+    synchronized void setWatcher(final DeploymentDirectoryWatcher watcher) {
+        if (this.watcher != null) {
+            this.watcher.close();
+        }
+        this.watcher = watcher;
+    }
+
     private boolean acquireScanLock() {
         try {
             scanLock.lockInterruptibly();
@@ -478,6 +586,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
 
             ScanContext scanContext = new ScanContext(deploymentOperations);
 
+            invalidateExplodedTimestamps(oneOffScan);
             scanDirectory(deploymentDir, relativePath, scanContext);
 
             // WARN about markers with no associated content. Do this first in case any auto-deploy issue
@@ -538,6 +647,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                 ROOT_LOGGER.tracef("Scan complete");
                 firstScan = false;
             }
+            scannedDeploymentsStatus = watcher == null ? null : deploymentOperations.getDeploymentsStatus();
         }
 
         return scanResult;
@@ -956,11 +1066,25 @@ class FileSystemDeploymentService implements DeploymentScanner {
     }
 
     private long getDeploymentTimestamp(File deploymentFile) {
+        if (watcher != null && deploymentFile.isDirectory()) {
+            // Unless the watcher saw a change below it, the exploded content does not need to be walked again
+            final Long cached = explodedTimestamps.get(deploymentFile);
+            if (cached != null) {
+                return cached;
+            }
+            final long latest = getLatestTimestamp(deploymentFile);
+            explodedTimestamps.put(deploymentFile, latest);
+            return latest;
+        }
+        return getLatestTimestamp(deploymentFile);
+    }
+
+    private long getLatestTimestamp(File deploymentFile) {
         if (deploymentFile.isDirectory()) {
             // Scan for most recent file
             long latest = deploymentFile.lastModified();
             for (File child : listDirectoryChildren(deploymentFile)) {
-                long childTimestamp = getDeploymentTimestamp(child);
+                long childTimestamp = getLatestTimestamp(child);
                 if (childTimestamp > latest) {
                     latest = childTimestamp;
                 }
@@ -1094,6 +1218,9 @@ class FileSystemDeploymentService implements DeploymentScanner {
     private synchronized void startScan() {
         if (scanEnabled) {
             if (scanInterval > 0) {
+                if (watchEnabled && watcher == null) {
+                    watcher = DeploymentDirectoryWatcher.start(deploymentDir, changeListener);
+                }
                 scanTask = scheduledExecutor.scheduleWithFixedDelay(scanRunnable, 0, scanInterval, TimeUnit.MILLISECONDS);
             } else {
                 scanTask = scheduledExecutor.schedule(scanRunnable, scanInterval, TimeUnit.MILLISECONDS);
@@ -1117,6 +1244,14 @@ class FileSystemDeploymentService implements DeploymentScanner {
             scanTask.cancel(true);
             scanTask = null;
         }
+        if (watchScanTask != null) {
+            watchScanTask.cancel(true);
+            watchScanTask = null;
+        }
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
     }
 
     private ModelNode getCompositeUpdate(final List<ModelNode> updates) {
@@ -396,4 +396,14 @@ public interface DeploymentScannerLogger extends BasicLogger {
     @LogMessage(level = INFO)
     @Message(id = 35, value = "Scan found %s which is not well-formed at lineNumber: %s, columnNumber: %s. Either the file was incompletely copied at the time of the scanning or it is just wrong.")
     void invalidXmlFileFound(String name, int lineNumber, int columnNumber);
+
+    /**
+     * Logs a warning message indicating the deployment directory cannot be watched for changes.
+     *
+     * @param cause     the cause of the error.
+     * @param directory the deployment directory.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 36, value = "Cannot watch directory %s for changes; it will be scanned periodically instead")
+    void cannotWatchDirectory(@Cause Throwable cause, String directory);
 }
@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.server.deployment.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link DeploymentDirectoryWatcher}.
+ */
+public class DeploymentDirectoryWatcherTestCase {
+
+    private File directory;
+    private DeploymentDirectoryWatcher watcher;
+    private final Semaphore notifications = new Semaphore(0);
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("deployments").toFile();
+        watcher = DeploymentDirectoryWatcher.start(directory, new Runnable() {
+            @Override
+            public void run() {
+                notifications.release();
+            }
+        });
+        Assert.assertNotNull(watcher);
+    }
+
+    @After
+    public void tearDown() {
+        watcher.close();
+        delete(directory);
+    }
+
+    @Test
+    public void testChangedFileIsReported() throws Exception {
+        Assert.assertFalse(watcher.hasChanges());
+        File file = new File(directory, "app.war");
+        Assert.assertTrue(file.createNewFile());
+
+        Path expected = file.toPath().toAbsolutePath();
+        Assert.assertTrue(awaitChange(expected));
+        Assert.assertTrue(watcher.hasChanges());
+        watcher.drainChanges();
+        Assert.assertFalse(watcher.hasChanges());
+    }
+
+    @Test
+    public void testChangesInNewDirectoriesAreReported() throws Exception {
+        File exploded = new File(directory, "app.war");
+        Assert.assertTrue(exploded.mkdir());
+        Assert.assertTrue(awaitChange(exploded.toPath().toAbsolutePath()));
+
+        File webInf = new File(exploded, "WEB-INF");
+        Assert.assertTrue(webInf.mkdir());
+        Assert.assertTrue(awaitChange(webInf.toPath().toAbsolutePath()));
+
+        File descriptor = new File(webInf, "web.xml");
+        Assert.assertTrue(descriptor.createNewFile());
+        Assert.assertTrue(awaitChange(descriptor.toPath().toAbsolutePath()));
+    }
+
+    private boolean awaitChange(Path expected) throws InterruptedException {
+        Set<Path> seen = new HashSet<>();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (System.currentTimeMillis() < deadline) {
+            notifications.tryAcquire(100, TimeUnit.MILLISECONDS);
+            Set<Path> changes = watcher.drainChanges();
+            if (changes == null) {
+                // events were lost, which is reported as everything having changed
+                return true;
+            }
+            seen.addAll(changes);
+            if (seen.contains(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -1843,6 +1843,88 @@ public class FileSystemDeploymentServiceUnitTestCase {
         testIgnoreExternalDeployment(new ExternalDeployment(externalScanner, false));
     }
 
+    @Test
+    public void testWatchedScanSkippedUntilModelChanges() throws Exception {
+        File index = createFile(new File(tmpDir, "foo.war"), "index.html");
+        File fooDeployed = new File(tmpDir, "foo.war" + FileSystemDeploymentService.DEPLOYED);
+        File bar = createFile("bar.war");
+        File barDeployed = new File(tmpDir, "bar.war" + FileSystemDeploymentService.DEPLOYED);
+        TesteeSet ts = createTestee();
+        ts.testee.setAutoDeployExplodedContent(true);
+        // A watcher of another directory never reports a change to this one
+        File unchanged = new File(tmpDir.getParentFile(), tmpDir.getName() + "-unchanged");
+        assertTrue(unchanged.mkdirs());
+        ts.testee.setWatcher(DeploymentDirectoryWatcher.start(unchanged, new Runnable() {
+            @Override
+            public void run() {
+            }
+        }));
+        try {
+            ts.controller.addCompositeSuccessResponse(1);
+            ts.testee.scan();
+            assertTrue(fooDeployed.exists());
+
+            // Nothing the watcher saw, so the scan is skipped
+            File barDoDeploy = createFile("bar.war" + FileSystemDeploymentService.DO_DEPLOY);
+            ts.testee.scan();
+            assertTrue(barDoDeploy.exists());
+            assertFalse(barDeployed.exists());
+
+            // Another management client deploys something, so the scan runs
+            byte[] bytes = randomHash();
+            ts.controller.added.put("external.war", bytes);
+            ts.controller.deployed.put("external.war", bytes);
+            ts.controller.externallyDeployed.put("external.war", null);
+            assertTrue(index.setLastModified(index.lastModified() + 10000));
+            int requests = ts.controller.requests.size();
+            ts.controller.addCompositeSuccessResponse(1);
+            ts.testee.scan();
+            assertTrue(bar.exists());
+            assertFalse(barDoDeploy.exists());
+            assertTrue(barDeployed.exists());
+            // ... and uses the cached timestamp of the exploded deployment, which the watcher saw no change below
+            for (ModelNode request : ts.controller.requests.subList(requests, ts.controller.requests.size())) {
+                if (COMPOSITE.equals(request.get(OP).asString())) {
+                    assertFalse(request.toString(), request.toString().contains("foo.war"));
+                }
+            }
+            assertTrue(ts.controller.responses.isEmpty());
+        } finally {
+            ts.testee.setWatcher(null);
+        }
+    }
+
+    @Test
+    public void testWatchedExplodedChangeIsRedeployed() throws Exception {
+        File index = createFile(new File(tmpDir, "foo.war"), "index.html");
+        File deployed = new File(tmpDir, "foo.war" + FileSystemDeploymentService.DEPLOYED);
+        TesteeSet ts = createTestee();
+        ts.testee.setAutoDeployExplodedContent(true);
+        ts.testee.setWatcher(DeploymentDirectoryWatcher.start(tmpDir, new Runnable() {
+            @Override
+            public void run() {
+            }
+        }));
+        try {
+            ts.controller.addCompositeSuccessResponse(1);
+            ts.testee.scan();
+            assertTrue(deployed.exists());
+
+            assertTrue(index.setLastModified(index.lastModified() + 10000));
+            ts.controller.addCompositeSuccessResponse(1);
+            // Scans are skipped until the watcher reports the change, which drops the cached timestamp
+            long deadline = System.currentTimeMillis() + 10000;
+            while (!ts.controller.responses.isEmpty() && System.currentTimeMillis() < deadline) {
+                ts.testee.scan();
+                Thread.sleep(50);
+            }
+            assertTrue(ts.controller.responses.isEmpty());
+            assertTrue(deployed.exists());
+        } finally {
+            ts.testee.setWatcher(null);
+        }
+    }
+
     private void testIgnoreExternalDeployment(ExternalDeployment externalDeployment) throws Exception {
         File war = createFile("foo.war");
         File dodeploy = createFile("foo.war" + FileSystemDeploymentService.DO_DEPLOY);
@@ -25,9 +25,13 @@ import static io.undertow.util.Headers.HOST;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
 
 import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
@@ -65,9 +69,25 @@ public class DomainUtil {
             response = response.get(RESULT);
         }
         try {
-            byte[] data = getResponseBytes(response, operationParameter);
-            responseHeaders.put(Headers.CONTENT_LENGTH, data.length);
-            exchange.getResponseSender().send(ByteBuffer.wrap(data));
+            if (exchange.isInIoThread()) {
+                // Handlers in front of the BlockingHandler, such as the realm readiness check, must not block the IO
+                // thread. What they send is small, so send it in one go.
+                ByteArrayOutputStream data = new ByteArrayOutputStream();
+                writeModelNode(data, response, operationParameter);
+                responseHeaders.put(Headers.CONTENT_LENGTH, data.size());
+                exchange.getResponseSender().send(ByteBuffer.wrap(data.toByteArray()));
+                return;
+            }
+            // Serialize the response straight to the connection instead of building it in memory first. The output
+            // stream buffers what is written; a response that fits in the buffer is sent with a Content-Length, a
+            // larger one is sent in chunks as it is written, compressed if the EncodingHandler negotiated a content
+            // encoding.
+            if (!exchange.isBlocking()) {
+                exchange.startBlocking();
+            }
+            try (OutputStream out = exchange.getOutputStream()) {
+                writeModelNode(out, response, operationParameter);
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -155,16 +175,28 @@ public class DomainUtil {
         return "application/octet-stream";
     }
 
-    private static byte[] getResponseBytes(final ModelNode modelNode, final OperationParameter operationParameter) throws IOException {
+    /**
+     * Writes a model node as base64 encoded DMR or as JSON, as requested by the operation parameter. The stream is
+     * flushed but not closed.
+     *
+     * @param out the stream to write to
+     * @param modelNode the model node
+     * @param operationParameter the operation parameter
+     * @throws IOException if writing fails
+     */
+    static void writeModelNode(final OutputStream out, final ModelNode modelNode, final OperationParameter operationParameter) throws IOException {
         if (operationParameter.isEncode()) {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            BufferedOutputStream out = new BufferedOutputStream(baos);
-            modelNode.writeBase64(out);
-            out.flush();
-            return baos.toByteArray();
+            BufferedOutputStream buffered = new BufferedOutputStream(out);
+            modelNode.writeBase64(buffered);
+            buffered.flush();
         } else {
-            String json = modelNode.toJSONString(!operationParameter.isPretty());
-            return json.getBytes(StandardCharsets.UTF_8);
+            PrintWriter print = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+            modelNode.writeJSONString(print, !operationParameter.isPretty());
+            print.flush();
+            // PrintWriter swallows the IOExceptions of the underlying stream
+            if (print.checkError()) {
+                throw new IOException();
+            }
         }
     }
 
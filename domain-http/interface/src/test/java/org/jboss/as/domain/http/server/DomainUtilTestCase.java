@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.domain.http.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.BlockingHandler;
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+
+/**
+ * Tests of the serialization of management responses by {@link DomainUtil}.
+ */
+public class DomainUtilTestCase {
+
+    @Test
+    public void testJson() throws Exception {
+        ModelNode node = createNode();
+        assertEquals(node.toJSONString(true), write(node, new OperationParameter.Builder(false).build()));
+        assertEquals(node.toJSONString(false), write(node, new OperationParameter.Builder(false).pretty(true).build()));
+    }
+
+    @Test
+    public void testEncoded() throws Exception {
+        ModelNode node = createNode();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DomainUtil.writeModelNode(out, node, new OperationParameter.Builder(true).encode(true).build());
+        assertEquals(node, ModelNode.fromBase64(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    public void testWriteResponseOnIoThread() throws Exception {
+        // e.g. a request rejected by the realm readiness check, which runs before the BlockingHandler
+        AtomicBoolean inIoThread = new AtomicBoolean();
+        ModelNode node = createNode();
+        assertEquals(node.toJSONString(false), serve(node, false, inIoThread));
+        assertTrue(inIoThread.get());
+    }
+
+    @Test
+    public void testWriteResponseOnWorkerThread() throws Exception {
+        AtomicBoolean inIoThread = new AtomicBoolean();
+        ModelNode node = createNode();
+        assertEquals(node.toJSONString(false), serve(node, true, inIoThread));
+        assertFalse(inIoThread.get());
+    }
+
+    /**
+     * Sends a node with {@link DomainUtil#writeResponse(HttpServerExchange, int, ModelNode, OperationParameter)} from a
+     * real server, and returns what the client received.
+     */
+    private static String serve(final ModelNode node, final boolean blocking, final AtomicBoolean inIoThread) throws Exception {
+        HttpHandler handler = new HttpHandler() {
+            @Override
+            public void handleRequest(HttpServerExchange exchange) throws Exception {
+                inIoThread.set(exchange.isInIoThread());
+                DomainUtil.writeResponse(exchange, 403, node, new OperationParameter.Builder(false).pretty(true).build());
+            }
+        };
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Undertow server = Undertow.builder()
+                .addHttpListener(port, "localhost")
+                .setHandler(blocking ? new BlockingHandler(handler) : handler)
+                .build();
+        server.start();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http", "localhost", port, "/management").openConnection();
+            assertEquals(403, connection.getResponseCode());
+            try (InputStream in = connection.getErrorStream()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return new String(out.toByteArray(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static String write(ModelNode node, OperationParameter operationParameter) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DomainUtil.writeModelNode(out, node, operationParameter);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static ModelNode createNode() {
+        ModelNode node = new ModelNode();
+        node.get("outcome").set("success");
+        for (int i = 0; i < 1000; i++) {
+            ModelNode child = node.get("result", "child", "child-" + i);
+            child.get("name").set("élément " + i);
+            child.get("value").set(i);
+            child.get("list").add(true).add(i * 2L);
+        }
+        return node;
+    }
+}
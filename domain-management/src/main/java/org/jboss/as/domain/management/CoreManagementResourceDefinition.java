@@ -30,13 +30,20 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.BootErrorCollector;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.PathElement;
 import org.jboss.as.controller.ResourceDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.access.management.AccessConstraintUtilizationRegistry;
 import org.jboss.as.controller.access.management.DelegatingConfigurableAuthorizer;
 import org.jboss.as.controller.audit.ManagedAuditLogger;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.Resource;
 import org.jboss.as.controller.services.path.PathManagerService;
@@ -47,6 +54,9 @@ import org.jboss.as.domain.management.audit.EnvironmentNameReader;
 import org.jboss.as.domain.management.connections.ldap.LdapConnectionResourceDefinition;
 import org.jboss.as.domain.management.controller.ManagementControllerResourceDefinition;
 import org.jboss.as.domain.management.security.SecurityRealmResourceDefinition;
+import org.jboss.as.protocol.mgmt.MessageCompression;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
 
 /**
  * A {@link org.jboss.as.controller.ResourceDefinition} for the the core management resource.
@@ -60,6 +70,20 @@ public class CoreManagementResourceDefinition extends SimpleResourceDefinition {
 
     public static final PathElement PATH_ELEMENT = PathElement.pathElement(CORE_SERVICE, MANAGEMENT);
 
+    public static final SimpleAttributeDefinition COMPRESSED_RESPONSE_COUNT = new SimpleAttributeDefinitionBuilder("compressed-response-count", ModelType.LONG)
+            .setStorageRuntime()
+            .build();
+
+    public static final SimpleAttributeDefinition UNCOMPRESSED_RESPONSE_BYTES = new SimpleAttributeDefinitionBuilder("uncompressed-response-bytes", ModelType.LONG)
+            .setStorageRuntime()
+            .setMeasurementUnit(MeasurementUnit.BYTES)
+            .build();
+
+    public static final SimpleAttributeDefinition COMPRESSED_RESPONSE_BYTES = new SimpleAttributeDefinitionBuilder("compressed-response-bytes", ModelType.LONG)
+            .setStorageRuntime()
+            .setMeasurementUnit(MeasurementUnit.BYTES)
+            .build();
+
     public static void registerDomainResource(Resource parent, AccessConstraintUtilizationRegistry registry) {
         Resource coreManagement = Resource.Factory.create();
         coreManagement.registerChild(AccessAuthorizationResourceDefinition.PATH_ELEMENT,
@@ -88,6 +112,17 @@ public class CoreManagementResourceDefinition extends SimpleResourceDefinition {
         this.bootErrorCollector = bootErrorCollector;
     }
 
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        super.registerAttributes(resourceRegistration);
+        // The management protocol responses sent by this process, the domain wide resource has none
+        if (environment != Environment.DOMAIN) {
+            resourceRegistration.registerMetric(COMPRESSED_RESPONSE_COUNT, MessageCompressionMetricHandler.INSTANCE);
+            resourceRegistration.registerMetric(UNCOMPRESSED_RESPONSE_BYTES, MessageCompressionMetricHandler.INSTANCE);
+            resourceRegistration.registerMetric(COMPRESSED_RESPONSE_BYTES, MessageCompressionMetricHandler.INSTANCE);
+        }
+    }
+
     @Override
     public void registerChildren(ManagementResourceRegistration resourceRegistration) {
         if (environment != Environment.DOMAIN) {
@@ -156,4 +191,22 @@ public class CoreManagementResourceDefinition extends SimpleResourceDefinition {
         return new CoreManagementResourceDefinition(Environment.STANDALONE_SERVER, authorizer, auditLogger, pathManager, environmentReader, Arrays.asList(interfaces), bootErrorCollector);
     }
 
+    private static class MessageCompressionMetricHandler extends AbstractRuntimeOnlyHandler {
+
+        private static final MessageCompressionMetricHandler INSTANCE = new MessageCompressionMetricHandler();
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            final MessageCompression compression = MessageCompression.getInstance();
+            final String attr = operation.require(ModelDescriptionConstants.NAME).asString();
+            if (attr.equals(COMPRESSED_RESPONSE_COUNT.getName())) {
+                context.getResult().set(compression.getCompressedMessageCount());
+            } else if (attr.equals(UNCOMPRESSED_RESPONSE_BYTES.getName())) {
+                context.getResult().set(compression.getUncompressedBytes());
+            } else if (attr.equals(COMPRESSED_RESPONSE_BYTES.getName())) {
+                context.getResult().set(compression.getCompressedBytes());
+            }
+        }
+    }
+
 }
@@ -34,6 +34,7 @@ public class ModelDescriptionConstants {
     public static final String ASSIGN_GROUPS = "assign-groups";
     public static final String AUTHENTICATION = "authentication";
     public static final String AUTHORIZATION = "authorization";
+    public static final String AVERAGE_LOAD_TIME = "average-load-time";
     public static final String BY_ACCESS_TIME = "by-access-time";
     public static final String BY_SEARCH_TIME = "by-search-time";
     public static final String CACHE = "cache";
@@ -50,6 +51,7 @@ public class ModelDescriptionConstants {
     public static final String FOR_HOSTS = "for-hosts";
     public static final String GROUPS = "groups";
     public static final String HANDLES_REFERRALS_FOR = "handles-referrals-for";
+    public static final String HIT_COUNT = "hit-count";
     public static final String IDENTITY = "identity";
     public static final String IGNORE = "ignore";
     public static final String INITIAL_CONTEXT_FACTORY = "initial-context-factory";
@@ -68,6 +70,7 @@ public class ModelDescriptionConstants {
     public static final String MAPPED_ROLES = "mapped-roles";
     public static final String MAX_CACHE_SIZE = "max-cache-size";
     public static final String MECHANISM = "mechanism";
+    public static final String MISS_COUNT = "miss-count";
     public static final String NAME = "name";
     public static final String PASSWORD = "password";
     public static final String PATH = "path";
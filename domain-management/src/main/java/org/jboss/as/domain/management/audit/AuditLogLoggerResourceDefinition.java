@@ -25,6 +25,7 @@ package org.jboss.as.domain.management.audit;
 import java.util.Arrays;
 import java.util.List;
 
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.AbstractWriteAttributeHandler;
 import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.ModelOnlyWriteAttributeHandler;
@@ -72,6 +73,14 @@ public class AuditLogLoggerResourceDefinition extends SimpleResourceDefinition {
             .setAllowExpression(true)
             .setDefaultValue(new ModelNode(true)).build();
 
+    public static final SimpleAttributeDefinition QUEUED_ITEMS = new SimpleAttributeDefinitionBuilder(ModelDescriptionConstants.QUEUED_ITEMS, ModelType.INT)
+            .setStorageRuntime()
+            .build();
+
+    public static final SimpleAttributeDefinition DROPPED_ITEMS = new SimpleAttributeDefinitionBuilder(ModelDescriptionConstants.DROPPED_ITEMS, ModelType.LONG)
+            .setStorageRuntime()
+            .build();
+
     static final List<SimpleAttributeDefinition> ATTRIBUTE_DEFINITIONS = Arrays.asList(LOG_BOOT, LOG_READ_ONLY, ENABLED);
 
     private final boolean executeRuntime;
@@ -101,6 +110,12 @@ public class AuditLogLoggerResourceDefinition extends SimpleResourceDefinition {
 
         resourceRegistration.registerReadWriteAttribute(LOG_READ_ONLY, null, new AuditLogReadOnlyWriteAttributeHandler(auditLogger));
         resourceRegistration.registerReadWriteAttribute(ENABLED, null, new AuditLogEnabledWriteAttributeHandler(auditLogger, executeRuntime));
+
+        if (executeRuntime) {
+            final AuditLogQueueMetricHandler metricHandler = new AuditLogQueueMetricHandler(auditLogger);
+            resourceRegistration.registerMetric(QUEUED_ITEMS, metricHandler);
+            resourceRegistration.registerMetric(DROPPED_ITEMS, metricHandler);
+        }
     }
 
     @Override
@@ -256,6 +271,25 @@ public class AuditLogLoggerResourceDefinition extends SimpleResourceDefinition {
         }
     }
 
+    private static class AuditLogQueueMetricHandler extends AbstractRuntimeOnlyHandler {
+
+        private final ManagedAuditLogger auditLogger;
+
+        AuditLogQueueMetricHandler(ManagedAuditLogger auditLogger) {
+            this.auditLogger = auditLogger;
+        }
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            final String attr = operation.require(ModelDescriptionConstants.NAME).asString();
+            if (attr.equals(QUEUED_ITEMS.getName())) {
+                context.getResult().set(auditLogger.getQueuedItemCount());
+            } else if (attr.equals(DROPPED_ITEMS.getName())) {
+                context.getResult().set(auditLogger.getDroppedItemCount());
+            }
+        }
+    }
+
     class AuditLogReadOnlyWriteAttributeHandler extends AbstractWriteAttributeHandler<Boolean> {
 
         private final ManagedAuditLogger auditLogger;
@@ -23,14 +23,24 @@
 package org.jboss.as.domain.management.controller;
 
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CORE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.LOCK_QUEUE_LENGTH;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.LOCK_STATISTICS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.MANAGEMENT_OPERATIONS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NOTIFICATION_STATISTICS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SERVICE;
 
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.ObjectListAttributeDefinition;
+import org.jboss.as.controller.ObjectTypeAttributeDefinition;
 import org.jboss.as.controller.PathElement;
 import org.jboss.as.controller.ResourceDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.domain.management._private.DomainManagementResolver;
+import org.jboss.dmr.ModelType;
 
 /**
  * {@code ResourceDefinition} for the management of operation execution.
@@ -43,12 +53,59 @@ public class ManagementControllerResourceDefinition extends SimpleResourceDefini
 
     public static final ResourceDefinition INSTANCE = new ManagementControllerResourceDefinition();
 
+    private static final AttributeDefinition LOCK_QUEUE_LENGTH_ATTRIBUTE =
+            SimpleAttributeDefinitionBuilder.create(LOCK_QUEUE_LENGTH, ModelType.INT)
+                    .setStorageRuntime()
+                    .build();
+    private static final ObjectTypeAttributeDefinition OPERATION_LOCK_STATISTICS =
+            ObjectTypeAttributeDefinition.Builder.of(LOCK_STATISTICS,
+                    SimpleAttributeDefinitionBuilder.create(OP, ModelType.STRING).build(),
+                    SimpleAttributeDefinitionBuilder.create("exclusive-acquisitions", ModelType.LONG).build(),
+                    SimpleAttributeDefinitionBuilder.create("shared-acquisitions", ModelType.LONG).build(),
+                    SimpleAttributeDefinitionBuilder.create("total-wait-time", ModelType.LONG)
+                            .setMeasurementUnit(MeasurementUnit.NANOSECONDS).build(),
+                    SimpleAttributeDefinitionBuilder.create("max-wait-time", ModelType.LONG)
+                            .setMeasurementUnit(MeasurementUnit.NANOSECONDS).build(),
+                    SimpleAttributeDefinitionBuilder.create("total-hold-time", ModelType.LONG)
+                            .setMeasurementUnit(MeasurementUnit.NANOSECONDS).build(),
+                    SimpleAttributeDefinitionBuilder.create("max-hold-time", ModelType.LONG)
+                            .setMeasurementUnit(MeasurementUnit.NANOSECONDS).build(),
+                    SimpleAttributeDefinitionBuilder.create("max-queue-length", ModelType.INT).build()
+            )
+                    .setStorageRuntime()
+                    .build();
+    private static final AttributeDefinition LOCK_STATISTICS_ATTRIBUTE =
+            ObjectListAttributeDefinition.Builder.of(LOCK_STATISTICS, OPERATION_LOCK_STATISTICS)
+                    .setStorageRuntime()
+                    .build();
+
+    private static final AttributeDefinition NOTIFICATION_STATISTICS_ATTRIBUTE =
+            ObjectTypeAttributeDefinition.Builder.of(NOTIFICATION_STATISTICS,
+                    SimpleAttributeDefinitionBuilder.create("delivered", ModelType.LONG).build(),
+                    SimpleAttributeDefinitionBuilder.create("dropped", ModelType.LONG).build(),
+                    SimpleAttributeDefinitionBuilder.create("pending", ModelType.INT).build(),
+                    SimpleAttributeDefinitionBuilder.create("max-lag", ModelType.LONG)
+                            .setMeasurementUnit(MeasurementUnit.MILLISECONDS).build(),
+                    SimpleAttributeDefinitionBuilder.create("average-lag", ModelType.LONG)
+                            .setMeasurementUnit(MeasurementUnit.MILLISECONDS).build()
+            )
+                    .setStorageRuntime()
+                    .build();
+
     private ManagementControllerResourceDefinition() {
         super(new Parameters(PATH_ELEMENT, DomainManagementResolver.getResolver(CORE, MANAGEMENT_OPERATIONS))
                         .setRuntime()
         );
     }
 
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        super.registerAttributes(resourceRegistration);
+        resourceRegistration.registerReadOnlyAttribute(LOCK_QUEUE_LENGTH_ATTRIBUTE, null);
+        resourceRegistration.registerReadOnlyAttribute(LOCK_STATISTICS_ATTRIBUTE, null);
+        resourceRegistration.registerReadOnlyAttribute(NOTIFICATION_STATISTICS_ATTRIBUTE, null);
+    }
+
     @Override
     public void registerOperations(ManagementResourceRegistration resourceRegistration) {
         super.registerOperations(resourceRegistration);
@@ -24,18 +24,21 @@ package org.jboss.as.domain.management.security;
 import static org.jboss.as.domain.management.logging.DomainManagementLogger.SECURITY_LOGGER;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.naming.NamingException;
 
@@ -55,6 +58,16 @@ class LdapCacheService<R, K> implements Service<LdapSearcherCache<R, K>> {
 
     private static volatile int THREAD_COUNT = 1;
 
+    /**
+     * When a cache is above its max size, entries are evicted until it is this fraction of the max size below it.
+     */
+    private static final int EVICTION_BATCH_DIVISOR = 32;
+
+    /**
+     * The most seconds between two runs of the eviction of expired entries.
+     */
+    private static final int MAX_EVICTION_PERIOD = 60;
+
     private final LdapSearcher<R, K> searcher;
     private volatile CacheMode mode;
     private volatile int evictionTime;
@@ -117,10 +130,10 @@ class LdapCacheService<R, K> implements Service<LdapSearcherCache<R, K>> {
                 throw new IllegalStateException(String.format("Unknown cache mode '%s'", mode));
         }
         /*
-         * This is only used to trigger evictions, if one eviction is stuck waiting for the lock on the table there is no point
-         * having many threads concurrently waiting on the same lock.
+         * This is only used to periodically remove the expired entries in one pass, expired entries are never returned by
+         * a search in the meantime.
          */
-        if (evictionTime > 0) {
+        if (evictionTime > 0 && mode != CacheMode.OFF) {
             executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
 
                 @Override
@@ -128,6 +141,15 @@ class LdapCacheService<R, K> implements Service<LdapSearcherCache<R, K>> {
                     return new Thread(r, String.format("LDAP Cache Eviction Thread (%d)", THREAD_COUNT++));
                 }
             });
+            final ExtendedLdapSearcherCache<R, K> cache = cacheImplementation;
+            final long period = Math.max(1, Math.min(evictionTime, MAX_EVICTION_PERIOD));
+            executorService.scheduleWithFixedDelay(new Runnable() {
+
+                @Override
+                public void run() {
+                    cache.evictExpired();
+                }
+            }, period, period, TimeUnit.SECONDS);
         }
     }
 
@@ -215,6 +237,11 @@ class LdapCacheService<R, K> implements Service<LdapSearcherCache<R, K>> {
         int count(Predicate<K> predicate);
 
         Set<K> currentKeys();
+
+        /**
+         * Remove all the entries that have expired.
+         */
+        void evictExpired();
     }
 
     private class NoCacheCache implements ExtendedLdapSearcherCache<R, K> {
@@ -232,6 +259,25 @@ class LdapCacheService<R, K> implements Service<LdapSearcherCache<R, K>> {
             return 0;
         }
 
+        @Override
+        public long getHitCount() {
+            return 0;
+        }
+
+        @Override
+        public long getMissCount() {
+            return 0;
+        }
+
+        @Override
+        public long getAverageLoadTime() {
+            return 0;
+        }
+
+        @Override
+        public void evictExpired() {
+        }
+
         @Override
         public void clearAll() {
         }
@@ -261,84 +307,175 @@ class LdapCacheService<R, K> implements Service<LdapSearcherCache<R, K>> {
 
     }
 
+    /**
+     * Base of the caches, which keep the entries in a {@link ConcurrentHashMap} so that searches for different keys do not
+     * contend on a single lock.
+     *
+     * Each entry keeps a timestamp, which is either the time it was added or the time it was last accessed depending on the
+     * cache. Expired entries are never returned, and are removed in batches by {@link #evictExpired()}, which runs
+     * periodically, rather than by a task scheduled per entry. When the cache grows above its max size the entries with the
+     * oldest timestamps are removed, a few at a time for larger caches so that the cost of sorting the entries is shared by
+     * several searches.
+     */
     private abstract class BaseSearchCache implements ExtendedLdapSearcherCache<R, K> {
 
-        protected final int evictionTime;
+        protected final long evictionTime;
         protected final boolean cacheFailures;
         protected final int maxSize;
 
-        protected final LinkedHashMap<K, CacheEntry> theCache = new LinkedHashMap<K, CacheEntry>();
+        protected final ConcurrentMap<K, CacheEntry> theCache = new ConcurrentHashMap<K, CacheEntry>();
+        /** Held while evicting entries because of the max size, so that only one thread does it at a time */
+        private final Lock sizeEvictionLock = new ReentrantLock();
+
+        private final LongAdder hitCount = new LongAdder();
+        private final LongAdder missCount = new LongAdder();
+        private final LongAdder loadCount = new LongAdder();
+        private final LongAdder loadTime = new LongAdder();
 
         private BaseSearchCache(final int evictionTime, final boolean cacheFailures, final int maxSize) {
-            this.evictionTime = evictionTime;
+            this.evictionTime = TimeUnit.SECONDS.toNanos(evictionTime);
             this.cacheFailures = cacheFailures;
             this.maxSize = maxSize;
         }
 
+        /**
+         * Called on each search that finds an entry in the cache.
+         *
+         * @param entry - The entry found.
+         * @param now - The current {@link System#nanoTime()}.
+         */
+        protected abstract void accessed(CacheEntry entry, long now);
+
         @Override
-        public int getCurrentSize() {
-            synchronized (theCache) {
-                return theCache.size();
+        public SearchResult<R> search(LdapConnectionHandler connectionHandler, final K key) throws IOException, NamingException {
+            final long now = System.nanoTime();
+            CacheEntry entry = theCache.get(key);
+            if (entry != null && entry.isExpired(now)) {
+                SECURITY_LOGGER.tracef("Evicted entry with key '%s' due to eviction timeout.", key);
+                theCache.remove(key, entry);
+                entry = null;
             }
+            if (entry == null) {
+                SECURITY_LOGGER.tracef("Entry for '%s' not found in cache.", key);
+                final CacheEntry newEntry = new CacheEntry(now);
+                entry = theCache.putIfAbsent(key, newEntry);
+                if (entry == null) {
+                    entry = newEntry;
+                    if (maxSize > 0 && theCache.size() > maxSize) {
+                        evictOldest();
+                    }
+                } else {
+                    accessed(entry, now);
+                }
+            } else {
+                SECURITY_LOGGER.tracef("Cached entry for '%s' found in cache.", key);
+                accessed(entry, now);
+            }
+            // The individual entry will handle it's own synchronization now.
+            return entry.getSearchResult(connectionHandler, key);
         }
 
         @Override
-        public void clearAll() {
-            synchronized (theCache) {
-                Iterator<CacheEntry> it = theCache.values().iterator();
-                while (it.hasNext()) {
-                    CacheEntry current = it.next();
-                    current.cancelFuture();
-                    it.remove();
+        public void evictExpired() {
+            if (evictionTime <= 0) {
+                return;
+            }
+            final long now = System.nanoTime();
+            for (Entry<K, CacheEntry> current : theCache.entrySet()) {
+                if (current.getValue().isExpired(now) && theCache.remove(current.getKey(), current.getValue())) {
+                    SECURITY_LOGGER.tracef("Evicted entry with key '%s' due to eviction timeout.", current.getKey());
+                }
+            }
+        }
+
+        private void evictOldest() {
+            if (!sizeEvictionLock.tryLock()) {
+                // Another search is already making room
+                return;
+            }
+            try {
+                final int target = maxSize - maxSize / EVICTION_BATCH_DIVISOR;
+                if (theCache.size() <= target) {
+                    return;
+                }
+                // Take the timestamps once as they can change while sorting
+                final List<EvictionCandidate> candidates = new ArrayList<EvictionCandidate>(theCache.size());
+                for (Entry<K, CacheEntry> current : theCache.entrySet()) {
+                    candidates.add(new EvictionCandidate(current.getKey(), current.getValue()));
+                }
+                Collections.sort(candidates);
+                final boolean trace = SECURITY_LOGGER.isTraceEnabled();
+                final Iterator<EvictionCandidate> it = candidates.iterator();
+                while (theCache.size() > target && it.hasNext()) {
+                    EvictionCandidate current = it.next();
+                    if (theCache.remove(current.key, current.entry) && trace) {
+                        SECURITY_LOGGER.tracef("Entry with key '%s' evicted from cache due to cache being above maximum size.",
+                                current.key);
+                    }
                 }
+            } finally {
+                sizeEvictionLock.unlock();
             }
+        }
+
+        @Override
+        public int getCurrentSize() {
+            return theCache.size();
+        }
+
+        @Override
+        public long getHitCount() {
+            return hitCount.sum();
+        }
+
+        @Override
+        public long getMissCount() {
+            return missCount.sum();
+        }
+
+        @Override
+        public long getAverageLoadTime() {
+            final long count = loadCount.sum();
+            return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(loadTime.sum() / count);
+        }
+
+        @Override
+        public void clearAll() {
+            theCache.clear();
             SECURITY_LOGGER.trace("Cleared whole cache.");
         }
 
         @Override
         public void clear(K key) {
-            synchronized (theCache) {
-                CacheEntry entry = theCache.remove(key);
-                if (entry != null) {
-                    entry.cancelFuture();
-                }
-            }
+            theCache.remove(key);
             SECURITY_LOGGER.tracef("Cleared entry from cache with key '%s'", key);
         }
 
         @Override
         public void clear(Predicate<K> predicate) {
-            synchronized (theCache) {
-                Iterator<Entry<K, CacheEntry>> it = theCache.entrySet().iterator();
-                while (it.hasNext()) {
-                    Entry<K, CacheEntry> current = it.next();
-                    K key = current.getKey();
-                    if (predicate.matches(key)) {
-                        it.remove();
-                        current.getValue().cancelFuture();
-                        SECURITY_LOGGER.tracef("Cleared entry from cache with key '%s' based on predicate match.", key);
-                    }
+            Iterator<K> it = theCache.keySet().iterator();
+            while (it.hasNext()) {
+                K key = it.next();
+                if (predicate.matches(key)) {
+                    it.remove();
+                    SECURITY_LOGGER.tracef("Cleared entry from cache with key '%s' based on predicate match.", key);
                 }
             }
         }
 
         @Override
         public boolean contains(K key) {
-            synchronized (theCache) {
-                return theCache.containsKey(key);
-            }
+            CacheEntry entry = theCache.get(key);
+            return entry != null && !entry.isExpired(System.nanoTime());
         }
 
         @Override
         public int count(Predicate<K> predicate) {
+            final long now = System.nanoTime();
             int count = 0;
-            synchronized (theCache) {
-                Iterator<K> it = theCache.keySet().iterator();
-                while (it.hasNext()) {
-                    K current = it.next();
-                    if (predicate.matches(current)) {
-                        count++;
-                    }
+            for (Entry<K, CacheEntry> current : theCache.entrySet()) {
+                if (predicate.matches(current.getKey()) && !current.getValue().isExpired(now)) {
+                    count++;
                 }
             }
             return count;
@@ -349,30 +486,71 @@ class LdapCacheService<R, K> implements Service<LdapSearcherCache<R, K>> {
             return Collections.unmodifiableSet(theCache.keySet());
         }
 
+        private final class EvictionCandidate implements Comparable<EvictionCandidate> {
+
+            private final K key;
+            private final CacheEntry entry;
+            private final long timestamp;
+
+            private EvictionCandidate(final K key, final CacheEntry entry) {
+                this.key = key;
+                this.entry = entry;
+                this.timestamp = entry.timestamp;
+            }
+
+            @Override
+            public int compareTo(EvictionCandidate o) {
+                // nanoTime values must be compared by their difference
+                return Long.signum(timestamp - o.timestamp);
+            }
+        }
+
         protected class CacheEntry {
 
             private volatile NamingException failure;
             private volatile SearchResult<R> result;
-            private ScheduledFuture<?> future;
+            /*
+             * The System.nanoTime() the entry was added or last accessed, racing updates on access are harmless as they are
+             * all close to the current time.
+             */
+            volatile long timestamp;
+
+            CacheEntry(final long timestamp) {
+                this.timestamp = timestamp;
+            }
 
+            boolean isExpired(final long now) {
+                return evictionTime > 0 && now - timestamp >= evictionTime;
+            }
+
+            /**
+             * Get the result of the search for this entry, concurrent callers for an entry that has no result yet wait for a
+             * single search to complete.
+             */
             public SearchResult<R> getSearchResult(LdapConnectionHandler connectionHandler, K key) throws IOException, NamingException {
                 if (failure != null) {
                     SECURITY_LOGGER.tracef("Using cached failure for search with key '%s'", key);
+                    hitCount.increment();
                     throw failure;
                 } else if (result != null) {
                     SECURITY_LOGGER.tracef("Using cached result for search with key '%s'", key);
+                    hitCount.increment();
                     return result;
                 }
 
                 synchronized (this) {
                     if (failure != null) {
                         SECURITY_LOGGER.tracef("Using cached failure for search with key '%s'", key);
+                        hitCount.increment();
                         throw failure;
                     } else if (result != null) {
                         SECURITY_LOGGER.tracef("Using cached result for search with key '%s'", key);
+                        hitCount.increment();
                         return result;
                     }
 
+                    missCount.increment();
+                    final long start = System.nanoTime();
                     try {
                         R result = internalSearch(connectionHandler, key);
                         SECURITY_LOGGER.tracef("New search for entry with key '%s'", key);
@@ -383,34 +561,12 @@ class LdapCacheService<R, K> implements Service<LdapSearcherCache<R, K>> {
                             failure = e;
                         }
                         throw e;
+                    } finally {
+                        loadCount.increment();
+                        loadTime.add(System.nanoTime() - start);
                     }
                 }
             }
-
-            /**
-             * Set the {@link ScheduledFuture} for the eviction of this entry.
-             *
-             * Note: This method should only be called by a {@link Thread} that has already obtained a lock to the cache.
-             *
-             * @param future - The {@link ScheduledFuture} for the eviction of this entry.
-             */
-            public void setFuture(ScheduledFuture<?> future) {
-                this.future = future;
-            }
-
-            /**
-             * Cancel the {@link ScheduledFuture} for the eviction of this entry.
-             *
-             * This could be called either because the entry is being manually evicted from the cache or because eviction is
-             * being rescheduled.
-             *
-             * Note: This method should only be called by a {@link Thread} that has already obtained a lock to the cache.
-             */
-            public void cancelFuture() {
-                if (future != null) {
-                    future.cancel(true);
-                }
-            }
         }
 
     }
@@ -422,52 +578,8 @@ class LdapCacheService<R, K> implements Service<LdapSearcherCache<R, K>> {
         }
 
         @Override
-        public SearchResult<R> search(LdapConnectionHandler connectionHandler, final K key) throws IOException, NamingException {
-            CacheEntry entry = null;
-            synchronized (theCache) {
-                entry = theCache.get(key);
-                if (entry == null) {
-                    SECURITY_LOGGER.tracef("Entry for '%s' not found in cache.", key);
-                    entry = new CacheEntry();
-                    theCache.put(key, entry);
-                    if (maxSize > 0 && theCache.size() > maxSize) {
-                        boolean trace = SECURITY_LOGGER.isTraceEnabled();
-                        Iterator<Entry<K, CacheEntry>> it = theCache.entrySet().iterator();
-                        while (theCache.size() > maxSize) {
-                            Entry<K, CacheEntry> current = it.next();
-                            current.getValue().cancelFuture();
-                            it.remove();
-                            if (trace) {
-                                SECURITY_LOGGER.tracef(
-                                        "Entry with key '%s' evicted from cache due to cache being above maximum size.",
-                                        current.getKey());
-                            }
-                        }
-                    }
-                    if (evictionTime > 0) {
-                        entry.setFuture(executorService.schedule(new Runnable() {
-
-                            @Override
-                            public void run() {
-                                synchronized (theCache) {
-                                    CacheEntry entry = theCache.remove(key);
-                                    if (entry == null) {
-                                        SECURITY_LOGGER.tracef("Entry with key '%s' not in cache at time of timeout.", key);
-                                    } else {
-                                        SECURITY_LOGGER.tracef("Evicted entry with key '%s' due to eviction timeout.", key);
-                                    }
-                                }
-
-                            }
-                        }, evictionTime, TimeUnit.SECONDS));
-                    }
-                } else {
-                    SECURITY_LOGGER.tracef("Cached entry for '%s' found in cache.", key);
-                }
-
-            }
-            // The individual entry will handle it's own synchronization now.
-            return entry.getSearchResult(connectionHandler, key);
+        protected void accessed(CacheEntry entry, long now) {
+            // Entries expire and are evicted based on the time of the search.
         }
 
     }
@@ -479,53 +591,8 @@ class LdapCacheService<R, K> implements Service<LdapSearcherCache<R, K>> {
         }
 
         @Override
-        public SearchResult<R> search(LdapConnectionHandler connectionHandler, final K key) throws IOException, NamingException {
-            CacheEntry entry = null;
-            synchronized (theCache) {
-                // Always remove the cached entry so it can be re-added and moved to the end of the list.
-                entry = theCache.remove(key);
-                if (entry == null) {
-                    SECURITY_LOGGER.tracef("Entry for '%s' not found in cache.", key);
-                    entry = new CacheEntry();
-                    if (maxSize > 0 && theCache.size() + 1 > maxSize) {
-                        boolean trace = SECURITY_LOGGER.isTraceEnabled();
-                        Iterator<Entry<K, CacheEntry>> it = theCache.entrySet().iterator();
-                        while (theCache.size() + 1 > maxSize) {
-                            Entry<K, CacheEntry> current = it.next();
-                            current.getValue().cancelFuture();
-                            it.remove();
-                            if (trace) {
-                                SECURITY_LOGGER.tracef(
-                                        "Entry with key '%s' evicted from cache due to cache being above maximum size.",
-                                        current.getKey());
-                            }
-                        }
-                    }
-                } else {
-                    SECURITY_LOGGER.tracef("Cached entry for '%s' found in cache.", key);
-                }
-                theCache.put(key, entry);
-                if (evictionTime > 0) {
-                    entry.cancelFuture();
-                    entry.setFuture(executorService.schedule(new Runnable() {
-
-                        @Override
-                        public void run() {
-                            synchronized (theCache) {
-                                CacheEntry entry = theCache.remove(key);
-                                if (entry == null) {
-                                    SECURITY_LOGGER.tracef("Entry with key '%s' not in cache at time of timeout.", key);
-                                } else {
-                                    SECURITY_LOGGER.tracef("Evicted entry with key '%s' due to eviction timeout.", key);
-                                }
-                            }
-
-                        }
-                    }, evictionTime, TimeUnit.SECONDS));
-                }
-            }
-            // The individual entry will handle it's own synchronization now.
-            return entry.getSearchResult(connectionHandler, key);
+        protected void accessed(CacheEntry entry, long now) {
+            entry.timestamp = now;
         }
 
     }
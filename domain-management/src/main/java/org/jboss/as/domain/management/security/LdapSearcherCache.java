@@ -52,6 +52,22 @@ interface LdapSearcherCache<R, K> {
 
     int getCurrentSize();
 
+    /**
+     * @return the number of searches answered from the cache, including those that waited for a concurrent search for the
+     *         same key.
+     */
+    long getHitCount();
+
+    /**
+     * @return the number of searches that were sent to the LDAP server.
+     */
+    long getMissCount();
+
+    /**
+     * @return the average time in milliseconds of the searches sent to the LDAP server.
+     */
+    long getAverageLoadTime();
+
     void clearAll();
 
     void clear(K key);
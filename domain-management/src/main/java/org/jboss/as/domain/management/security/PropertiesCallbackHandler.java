@@ -28,6 +28,7 @@ import static org.jboss.as.domain.management.RealmConfigurationConstants.DIGEST_
 import static org.jboss.as.domain.management.RealmConfigurationConstants.VERIFY_PASSWORD_CALLBACK_SUPPORTED;
 
 import java.io.IOException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.HashMap;
@@ -45,6 +46,7 @@ import javax.security.auth.callback.UnsupportedCallbackException;
 import javax.security.sasl.AuthorizeCallback;
 import javax.security.sasl.RealmCallback;
 
+import org.jboss.as.controller.HashUtil;
 import org.jboss.as.domain.management.AuthMechanism;
 import org.jboss.as.domain.management.logging.DomainManagementLogger;
 import org.jboss.as.domain.management.SecurityRealm;
@@ -66,10 +68,26 @@ public class PropertiesCallbackHandler extends UserPropertiesFileLoader implemen
 
     private static final String SERVICE_SUFFIX = "properties_authentication";
 
-    private static UsernamePasswordHashUtil hashUtil = null;
+    /*
+     * UsernamePasswordHashUtil is not thread safe, one per thread saves authentications from waiting on each other.
+     */
+    private static final ThreadLocal<UsernamePasswordHashUtil> HASH_UTIL = new ThreadLocal<UsernamePasswordHashUtil>() {
+        @Override
+        protected UsernamePasswordHashUtil initialValue() {
+            try {
+                return new UsernamePasswordHashUtil();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
 
     private final String realm;
     private final boolean plainText;
+    /*
+     * The users of the last loaded properties, replaced as a whole on each load.
+     */
+    private volatile Map<String, User> users = Collections.emptyMap();
 
     public PropertiesCallbackHandler(String realm, String path, String relativeTo, boolean plainText) {
         super(path, relativeTo);
@@ -123,6 +141,16 @@ public class PropertiesCallbackHandler extends UserPropertiesFileLoader implemen
         }
     }
 
+    @Override
+    protected void propertiesLoaded(Properties properties) throws IOException {
+        final Map<String, User> users = new HashMap<String, User>(properties.size() * 4 / 3 + 1);
+        for (String userName : properties.stringPropertyNames()) {
+            final String value = properties.getProperty(userName);
+            users.put(userName, new User(value, plainText ? null : decodeHash(value)));
+        }
+        this.users = Collections.unmodifiableMap(users);
+    }
+
     @Override
     public void start(StartContext context) throws StartException {
         super.start(context);
@@ -148,9 +176,10 @@ public class PropertiesCallbackHandler extends UserPropertiesFileLoader implemen
         List<Callback> toRespondTo = new LinkedList<Callback>();
 
         String userName = null;
-        boolean userFound = false;
+        User user = null;
 
-        Properties users = getProperties();
+        loadAsRequired();
+        final Map<String, User> users = this.users;
 
         // A single pass may be sufficient but by using a two pass approach the Callbackhandler will not
         // fail if an unexpected order is encountered.
@@ -164,7 +193,7 @@ public class PropertiesCallbackHandler extends UserPropertiesFileLoader implemen
             } else if (current instanceof NameCallback) {
                 NameCallback nameCallback = (NameCallback) current;
                 userName = nameCallback.getDefaultName();
-                userFound = users.containsKey(userName);
+                user = userName == null ? null : users.get(userName);
             } else if (current instanceof PasswordCallback && plainText) {
                 toRespondTo.add(current);
             } else if (current instanceof DigestHashCallback && plainText == false) {
@@ -193,40 +222,32 @@ public class PropertiesCallbackHandler extends UserPropertiesFileLoader implemen
                 }
                 acb.setAuthorized(authorized);
             } else if (current instanceof PasswordCallback) {
-                if (userFound == false) {
+                if (user == null) {
                     SECURITY_LOGGER.tracef("User '%s' not found in properties file.", userName);
                     throw new UserNotFoundException(userName);
                 }
-                String password = users.get(userName).toString();
-                ((PasswordCallback) current).setPassword(password.toCharArray());
+                ((PasswordCallback) current).setPassword(user.value.toCharArray());
             } else if (current instanceof DigestHashCallback) {
-                if (userFound == false) {
+                if (user == null) {
                     SECURITY_LOGGER.tracef("User '%s' not found in properties file.", userName);
                     throw new UserNotFoundException(userName);
                 }
-                String hash = users.get(userName).toString();
-                ((DigestHashCallback) current).setHexHash(hash);
+                ((DigestHashCallback) current).setHexHash(user.value);
             } else if (current instanceof VerifyPasswordCallback) {
-                if (userFound == false) {
+                if (user == null) {
                     SECURITY_LOGGER.tracef("User '%s' not found in properties file.", userName);
                     throw new UserNotFoundException(userName);
                 }
                 VerifyPasswordCallback vpc = (VerifyPasswordCallback) current;
                 if (plainText) {
-                    String password = users.get(userName).toString();
-                    boolean verified = password.equals(vpc.getPassword());
+                    boolean verified = user.value.equals(vpc.getPassword());
                     if (verified == false) {
                         SECURITY_LOGGER.tracef("Password verification failed for user '%s'", userName);
                     }
                     vpc.setVerified(verified);
                 } else {
-                    UsernamePasswordHashUtil hashUtil = getHashUtil();
-                    String hash;
-                    synchronized (hashUtil) {
-                        hash = hashUtil.generateHashedHexURP(userName, realm, vpc.getPassword().toCharArray());
-                    }
-                    String expected = users.get(userName).toString();
-                    boolean verified = expected.equals(hash);
+                    byte[] hash = HASH_UTIL.get().generateHashedURP(userName, realm, vpc.getPassword().toCharArray());
+                    boolean verified = user.hash != null && MessageDigest.isEqual(user.hash, hash);
                     if (verified == false) {
                         SECURITY_LOGGER.tracef("Digest verification failed for user '%s'", userName);
                     }
@@ -237,15 +258,40 @@ public class PropertiesCallbackHandler extends UserPropertiesFileLoader implemen
 
     }
 
-    private static UsernamePasswordHashUtil getHashUtil() {
-        if (hashUtil == null) {
-            try {
-                hashUtil = new UsernamePasswordHashUtil();
-            } catch (NoSuchAlgorithmException e) {
-                throw new IllegalStateException(e);
+    /**
+     * Decode the hex encoded hash of a user's password.
+     *
+     * @param value - The value of the user in the properties file.
+     * @return The hash, or {@code null} if the value is not hex encoded, in which case no password can match it.
+     */
+    static byte[] decodeHash(final String value) {
+        if (value.length() == 0 || value.length() % 2 != 0) {
+            return null;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return null;
             }
         }
-        return hashUtil;
+        return HashUtil.hexStringToByteArray(value);
+    }
+
+    private static final class User {
+
+        /*
+         * The value from the properties file, either the password or the hex encoded hash of the user name, realm and
+         * password.
+         */
+        private final String value;
+        /*
+         * The decoded hash, if the value is a hash.
+         */
+        private final byte[] hash;
+
+        private User(final String value, final byte[] hash) {
+            this.value = value;
+            this.hash = hash;
+        }
     }
 
     public static final class ServiceUtil {
@@ -39,6 +39,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -53,6 +54,7 @@ import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * The base class for services depending on loading a properties file, loads the properties on
@@ -78,6 +80,25 @@ public class PropertiesFileLoader {
     public static final Pattern PROPERTY_PATTERN = Pattern.compile("#??([^#]*)=([^=]*)");
     public static final String DISABLE_SUFFIX_KEY = "!disable";
 
+    /**
+     * System property that sets the min time in milliseconds between two checks of whether the properties file has been
+     * updated. A value of {@code 0} checks the file on each access.
+     */
+    public static final String CHECK_INTERVAL_PROPERTY = "org.jboss.as.domain.management.security.properties-check-interval";
+
+    private static final long DEFAULT_CHECK_INTERVAL = 1000;
+    private static final long CHECK_INTERVAL;
+
+    static {
+        long checkInterval = DEFAULT_CHECK_INTERVAL;
+        try {
+            checkInterval = Long.parseLong(WildFlySecurityManager.getPropertyPrivileged(CHECK_INTERVAL_PROPERTY, String.valueOf(DEFAULT_CHECK_INTERVAL)));
+        } catch (NumberFormatException ignored) {
+            // use the default
+        }
+        CHECK_INTERVAL = TimeUnit.MILLISECONDS.toNanos(Math.max(0, checkInterval));
+    }
+
     private final InjectedValue<PathManager> pathManager = new InjectedValue<PathManager>();
 
     private final String path;
@@ -85,6 +106,9 @@ public class PropertiesFileLoader {
 
     protected File propertiesFile;
     private volatile long fileUpdated = -1;
+    private volatile long fileLength = -1;
+    /** The System.nanoTime() of the last check of the file */
+    private volatile long lastCheck;
     private volatile Properties properties = null;
 
     /*
@@ -151,23 +175,33 @@ public class PropertiesFileLoader {
          * This method does attempt to minimise the effect of race conditions, however this is not overly critical as if you
          * have users attempting to authenticate at the exact point their details are added to the file there is also a chance
          * of a race.
+         *
+         * The file is checked at most once per CHECK_INTERVAL, so that authentications do not each need to access the file
+         * system, and the loaded properties are replaced as a whole so that they can be read without locking.
          */
+        final long now = System.nanoTime();
+        if (properties != null && now - lastCheck < CHECK_INTERVAL) {
+            return;
+        }
 
-        boolean loadRequired = properties == null || fileUpdated != propertiesFile.lastModified();
+        boolean loadRequired = properties == null || fileUpdated != propertiesFile.lastModified() || fileLength != propertiesFile.length();
 
         if (loadRequired) {
             synchronized (this) {
                 // Cache the value as there is still a chance of further modification.
                 long fileLastModified = propertiesFile.lastModified();
-                boolean loadReallyRequired = properties == null || fileUpdated != fileLastModified;
+                long length = propertiesFile.length();
+                boolean loadReallyRequired = properties == null || fileUpdated != fileLastModified || fileLength != length;
                 if (loadReallyRequired) {
                     load();
                     // Update this last otherwise the check outside the synchronized block could return true before the file is
                     // set.
+                    fileLength = length;
                     fileUpdated = fileLastModified;
                 }
             }
         }
+        lastCheck = now;
     }
 
     protected void load() throws IOException {
@@ -180,6 +214,7 @@ public class PropertiesFileLoader {
             is.close();
         }
         verifyProperties(props);
+        propertiesLoaded(props);
         properties = props;
     }
 
@@ -222,6 +257,8 @@ public class PropertiesFileLoader {
             endPersistence(bw);
         } finally {
             safeClose(bw);
+            // Check the file on the next access, whatever the time since the last check
+            lastCheck = System.nanoTime() - CHECK_INTERVAL;
         }
     }
 
@@ -354,4 +391,13 @@ public class PropertiesFileLoader {
     protected void verifyProperties(Properties properties) throws IOException {
     };
 
+    /**
+     * Provides the base class with an opportunity to prepare its own view of the properties, once they are verified and
+     * before they are used.
+     *
+     * @param properties - The Properties instance that has been loaded.
+     */
+    protected void propertiesLoaded(Properties properties) throws IOException {
+    }
+
 }
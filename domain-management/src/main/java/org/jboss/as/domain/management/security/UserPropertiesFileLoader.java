@@ -27,6 +27,7 @@ import java.io.BufferedWriter;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
 
@@ -41,9 +42,12 @@ public class UserPropertiesFileLoader extends PropertiesFileLoader {
     private static final String REALM_COMMENT_SUFFIX = "$";
     private static final String REALM_COMMENT_COMMENT = " This line is used by the add-user utility to identify the realm name already used in this file.";
 
-    private String realmName;
-    private List<String> enabledUserNames = new ArrayList<String>();
-    private List<String> disabledUserNames = new ArrayList<String>();
+    private volatile String realmName;
+    /*
+     * Replaced as a whole on each load so that they can be read while the file is reloaded.
+     */
+    private volatile List<String> enabledUserNames = Collections.emptyList();
+    private volatile List<String> disabledUserNames = Collections.emptyList();
 
     /*
      * State maintained during persistence.
@@ -95,8 +99,8 @@ public class UserPropertiesFileLoader extends PropertiesFileLoader {
 
         String realmName = null;
         BufferedReader br = new BufferedReader(new FileReader(propertiesFile));
-        disabledUserNames.clear();
-        enabledUserNames.clear();
+        final List<String> disabledUserNames = new ArrayList<String>();
+        final List<String> enabledUserNames = new ArrayList<String>();
         try {
             String currentLine;
             while (realmName == null && (currentLine = br.readLine()) != null) {
@@ -121,6 +125,8 @@ public class UserPropertiesFileLoader extends PropertiesFileLoader {
         } finally {
             safeClose(br);
         }
+        this.disabledUserNames = Collections.unmodifiableList(disabledUserNames);
+        this.enabledUserNames = Collections.unmodifiableList(enabledUserNames);
         this.realmName = realmName;
     }
 
@@ -0,0 +1,185 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.domain.management.security;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.naming.NamingException;
+
+import org.jboss.msc.service.StopContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of the caches provided by {@link LdapCacheService}.
+ */
+public class LdapCacheServiceTestCase {
+
+    @Test
+    public void testConcurrentMissesSearchOnce() throws Exception {
+        final CountDownLatch searching = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingSearcher searcher = new CountingSearcher() {
+            @Override
+            public String search(LdapConnectionHandler connectionHandler, String key) throws IOException, NamingException {
+                searching.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.search(connectionHandler, key);
+            }
+        };
+        final LdapCacheService<String, String> service = LdapCacheService.createBySearchCacheService(searcher, 0, false, 0);
+        service.start(null);
+        final LdapSearcherCache<String, String> cache = service.getValue();
+
+        final int threads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return cache.search(null, "user").getResult();
+                    }
+                }));
+            }
+            Assert.assertTrue(searching.await(10, TimeUnit.SECONDS));
+            release.countDown();
+            for (Future<String> result : results) {
+                Assert.assertEquals("user-1", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, searcher.count.get());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(threads - 1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getCurrentSize());
+    }
+
+    @Test
+    public void testByAccessEvictsLeastRecentlyUsed() throws Exception {
+        final CountingSearcher searcher = new CountingSearcher();
+        final LdapCacheService<String, String> service = LdapCacheService.createByAccessCacheService(searcher, 0, false, 3);
+        service.start(null);
+        final LdapSearcherCache<String, String> cache = service.getValue();
+
+        cache.search(null, "a");
+        Thread.sleep(1);
+        cache.search(null, "b");
+        Thread.sleep(1);
+        cache.search(null, "c");
+        Thread.sleep(1);
+        cache.search(null, "a");
+        Thread.sleep(1);
+        cache.search(null, "d");
+
+        Assert.assertEquals(3, cache.getCurrentSize());
+        Assert.assertTrue(cache.contains("a"));
+        Assert.assertFalse(cache.contains("b"));
+        Assert.assertTrue(cache.contains("c"));
+        Assert.assertTrue(cache.contains("d"));
+        Assert.assertEquals(4, cache.getMissCount());
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testBySearchEvictsOldest() throws Exception {
+        final CountingSearcher searcher = new CountingSearcher();
+        final LdapCacheService<String, String> service = LdapCacheService.createBySearchCacheService(searcher, 0, false, 3);
+        service.start(null);
+        final LdapSearcherCache<String, String> cache = service.getValue();
+
+        cache.search(null, "a");
+        Thread.sleep(1);
+        cache.search(null, "b");
+        Thread.sleep(1);
+        cache.search(null, "c");
+        Thread.sleep(1);
+        cache.search(null, "a");
+        Thread.sleep(1);
+        cache.search(null, "d");
+
+        Assert.assertEquals(3, cache.getCurrentSize());
+        Assert.assertFalse(cache.contains("a"));
+        Assert.assertTrue(cache.contains("b"));
+    }
+
+    @Test
+    public void testExpiredEntriesAreSearchedAgain() throws Exception {
+        final CountingSearcher searcher = new CountingSearcher();
+        final LdapCacheService<String, String> service = LdapCacheService.createBySearchCacheService(searcher, 1, false, 0);
+        service.start(null);
+        try {
+            final LdapSearcherCache<String, String> cache = service.getValue();
+            Assert.assertEquals("a-1", cache.search(null, "a").getResult());
+            Assert.assertEquals("a-1", cache.search(null, "a").getResult());
+            Thread.sleep(1100);
+            Assert.assertFalse(cache.contains("a"));
+            Assert.assertEquals("a-2", cache.search(null, "a").getResult());
+            Assert.assertEquals(2, cache.getMissCount());
+            Assert.assertEquals(1, cache.getHitCount());
+        } finally {
+            service.stop(stopContext());
+        }
+    }
+
+    private static StopContext stopContext() {
+        return (StopContext) Proxy.newProxyInstance(StopContext.class.getClassLoader(), new Class<?>[] { StopContext.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("execute".equals(method.getName())) {
+                            ((Runnable) args[0]).run();
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private static class CountingSearcher implements LdapSearcher<String, String> {
+
+        final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public String search(LdapConnectionHandler connectionHandler, String key) throws IOException, NamingException {
+            return key + "-" + count.incrementAndGet();
+        }
+    }
+}
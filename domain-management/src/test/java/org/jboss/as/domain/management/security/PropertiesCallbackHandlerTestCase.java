@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.domain.management.security;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import javax.security.auth.callback.Callback;
+import javax.security.auth.callback.NameCallback;
+
+import org.jboss.sasl.callback.DigestHashCallback;
+import org.jboss.sasl.callback.VerifyPasswordCallback;
+import org.jboss.sasl.util.UsernamePasswordHashUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link PropertiesCallbackHandler}.
+ */
+public class PropertiesCallbackHandlerTestCase {
+
+    private static final String REALM = "TestRealm";
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("users", ".properties");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void testVerifyHashedPassword() throws Exception {
+        write("#$REALM_NAME=" + REALM + "$", "alice=" + hash("alice", "secret"), "bob=not-a-hash");
+        PropertiesCallbackHandler handler = new PropertiesCallbackHandler(REALM, file.getAbsolutePath(), null, false);
+        handler.start(null);
+        try {
+            Assert.assertTrue(verify(handler, "alice", "secret"));
+            Assert.assertFalse(verify(handler, "alice", "wrong"));
+            Assert.assertFalse(verify(handler, "bob", "secret"));
+
+            DigestHashCallback digest = new DigestHashCallback("Password Digest");
+            handler.handle(new Callback[] { new NameCallback("Username", "alice"), digest });
+            Assert.assertEquals(hash("alice", "secret"), digest.getHexHash());
+        } finally {
+            handler.stop(null);
+        }
+    }
+
+    @Test
+    public void testVerifyPlainTextPassword() throws Exception {
+        write("alice=secret");
+        PropertiesCallbackHandler handler = new PropertiesCallbackHandler(REALM, file.getAbsolutePath(), null, true);
+        handler.start(null);
+        try {
+            Assert.assertTrue(verify(handler, "alice", "secret"));
+            Assert.assertFalse(verify(handler, "alice", "wrong"));
+        } finally {
+            handler.stop(null);
+        }
+    }
+
+    @Test
+    public void testUpdatedFileIsReloaded() throws Exception {
+        write("alice=secret");
+        PropertiesCallbackHandler handler = new PropertiesCallbackHandler(REALM, file.getAbsolutePath(), null, true);
+        handler.start(null);
+        try {
+            try {
+                verify(handler, "bob", "secret");
+                Assert.fail("bob should not be found");
+            } catch (UserNotFoundException expected) {
+            }
+            write("alice=secret", "bob=other");
+            Thread.sleep(1100);
+            Assert.assertTrue(verify(handler, "bob", "other"));
+            Assert.assertEquals(Arrays.asList("alice", "bob"), handler.getEnabledUserNames());
+        } finally {
+            handler.stop(null);
+        }
+    }
+
+    @Test
+    public void testDecodeHash() {
+        Assert.assertArrayEquals(new byte[] { 0x0a, (byte) 0xff }, PropertiesCallbackHandler.decodeHash("0aFF"));
+        Assert.assertNull(PropertiesCallbackHandler.decodeHash(""));
+        Assert.assertNull(PropertiesCallbackHandler.decodeHash("0a0"));
+        Assert.assertNull(PropertiesCallbackHandler.decodeHash("0g"));
+    }
+
+    private static boolean verify(PropertiesCallbackHandler handler, String userName, String password) throws Exception {
+        VerifyPasswordCallback verify = new VerifyPasswordCallback(password);
+        handler.handle(new Callback[] { new NameCallback("Username", userName), verify });
+        return verify.isVerified();
+    }
+
+    private static String hash(String userName, String password) throws Exception {
+        return new UsernamePasswordHashUtil().generateHashedHexURP(userName, REALM, password.toCharArray());
+    }
+
+    private void write(String... lines) throws IOException {
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.domain.controller.operations;
+
+import static org.jboss.as.domain.controller.operations.ReadMasterDomainModelUtil.DOMAIN_RESOURCE_ADDRESS;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.as.controller.HashUtil;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.registry.Resource;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
+
+/**
+ * Digests of the subtrees of the domain model a slave host controller has, which allow the master to only send the
+ * subtrees that changed when the slave registers again.
+ * <p>
+ * The model is split in subtrees of the resources at most {@value #SUBTREE_DEPTH} levels below the root, e.g. each
+ * subsystem of a profile, and each subtree is digested in the form {@link ReadMasterDomainModelUtil} describes it.
+ * The slave sends the digests of its model with its host info. The master describes the model transformed for the
+ * slave as usual, and replaces the resources of a subtree whose digest is the same with a marker, which the slave
+ * then replaces with the resources it digested. A slave that does not send digests gets the full model.
+ */
+public final class DomainModelDigests {
+
+    /** Key of the subtree digests in the host info sent by a slave when registering */
+    public static final String DOMAIN_MODEL_DIGESTS = "domain-model-digests";
+
+    /** Set on the entry that replaces the resources of a subtree the slave already has */
+    public static final String DOMAIN_RESOURCE_UNCHANGED = "domain-resource-unchanged";
+
+    static final int SUBTREE_DEPTH = 2;
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private final Map<String, List<ModelNode>> subtrees;
+
+    private DomainModelDigests(final Map<String, List<ModelNode>> subtrees) {
+        this.subtrees = subtrees;
+    }
+
+    /**
+     * Digests the domain model of a slave.
+     *
+     * @param domainRoot the root resource of the local model
+     * @return the digests, which keep the described resources until the master's model is applied
+     */
+    public static DomainModelDigests create(final Resource domainRoot) {
+        return new DomainModelDigests(groupBySubtree(ReadMasterDomainModelUtil.describeDomainResources(domainRoot)));
+    }
+
+    /**
+     * Gets the digests to send to the master.
+     *
+     * @return the digest of each subtree, keyed by the address of its root
+     */
+    public ModelNode getDigests() {
+        final ModelNode digests = new ModelNode().setEmptyObject();
+        for (Map.Entry<String, List<ModelNode>> subtree : subtrees.entrySet()) {
+            digests.get(subtree.getKey()).set(digest(subtree.getValue()));
+        }
+        return digests;
+    }
+
+    /**
+     * Replaces the markers of the subtrees the master did not send with the resources digested by this instance.
+     *
+     * @param described the resources sent by the master
+     * @return all the resources of the master's model
+     * @throws IllegalStateException if the master marked a subtree this instance does not know
+     */
+    public List<ModelNode> expand(final List<ModelNode> described) {
+        final List<ModelNode> result = new ArrayList<>(described.size());
+        for (ModelNode description : described) {
+            if (description.hasDefined(DOMAIN_RESOURCE_UNCHANGED)) {
+                final List<ModelNode> subtree = subtrees.get(subtreeKey(description));
+                if (subtree == null) {
+                    throw new IllegalStateException(description.toString());
+                }
+                result.addAll(subtree);
+            } else {
+                result.add(description);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the resources of each subtree the slave already has with a single marker.
+     *
+     * @param described the resources of the model transformed for the slave
+     * @param slaveDigests the digests sent by the slave, see {@link #getDigests()}
+     * @return the resources to send to the slave
+     */
+    static List<ModelNode> replaceUnchanged(final List<ModelNode> described, final Map<String, String> slaveDigests) {
+        final Map<String, List<ModelNode>> subtrees = groupBySubtree(described);
+        final Set<String> unchanged = new HashSet<>();
+        for (Map.Entry<String, List<ModelNode>> subtree : subtrees.entrySet()) {
+            final String slaveDigest = slaveDigests.get(subtree.getKey());
+            if (slaveDigest != null && slaveDigest.equals(digest(subtree.getValue()))) {
+                unchanged.add(subtree.getKey());
+            }
+        }
+        if (unchanged.isEmpty()) {
+            return described;
+        }
+        final List<ModelNode> result = new ArrayList<>();
+        final Set<String> marked = new HashSet<>();
+        for (ModelNode description : described) {
+            final String key = subtreeKey(description);
+            if (!unchanged.contains(key)) {
+                result.add(description);
+            } else if (marked.add(key)) {
+                // The marker takes the place of the first resource of the subtree, which is the root of the subtree
+                final ModelNode marker = new ModelNode();
+                marker.get(DOMAIN_RESOURCE_ADDRESS).set(subtreeAddress(description).toModelNode());
+                marker.get(DOMAIN_RESOURCE_UNCHANGED).set(true);
+                result.add(marker);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the digests from the host info sent by a slave.
+     *
+     * @param hostInfo the host info
+     * @return the digests, empty if the slave did not send any
+     */
+    public static Map<String, String> readDigests(final ModelNode hostInfo) {
+        if (!hostInfo.hasDefined(DOMAIN_MODEL_DIGESTS)) {
+            return Collections.emptyMap();
+        }
+        final Map<String, String> digests = new HashMap<>();
+        for (Property digest : hostInfo.get(DOMAIN_MODEL_DIGESTS).asPropertyList()) {
+            digests.put(digest.getName(), digest.getValue().asString());
+        }
+        return digests;
+    }
+
+    private static Map<String, List<ModelNode>> groupBySubtree(final List<ModelNode> described) {
+        final Map<String, List<ModelNode>> subtrees = new LinkedHashMap<>();
+        for (ModelNode description : described) {
+            final String key = subtreeKey(description);
+            List<ModelNode> subtree = subtrees.get(key);
+            if (subtree == null) {
+                subtree = new ArrayList<>();
+                subtrees.put(key, subtree);
+            }
+            subtree.add(description);
+        }
+        return subtrees;
+    }
+
+    private static PathAddress subtreeAddress(final ModelNode description) {
+        final PathAddress address = PathAddress.pathAddress(description.require(DOMAIN_RESOURCE_ADDRESS));
+        return address.size() > SUBTREE_DEPTH ? address.subAddress(0, SUBTREE_DEPTH) : address;
+    }
+
+    private static String subtreeKey(final ModelNode description) {
+        return subtreeAddress(description).toCLIStyleString();
+    }
+
+    private static String digest(final List<ModelNode> subtree) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try {
+            final DataOutputStream out = new DataOutputStream(new DigestOutputStream(DISCARD, digest));
+            for (ModelNode description : subtree) {
+                description.writeExternal(out);
+            }
+            out.flush();
+        } catch (IOException e) {
+            // cannot happen, nothing is written
+            throw new IllegalStateException(e);
+        }
+        return HashUtil.bytesToHexString(digest.digest());
+    }
+}
@@ -22,6 +22,10 @@
 
 package org.jboss.as.domain.controller.operations;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.OperationStepHandler;
@@ -39,10 +43,21 @@ class ReadDomainModelHandler implements OperationStepHandler {
 
     private final Transformers transformers;
     private final Transformers.ResourceIgnoredTransformationRegistry ignoredTransformationRegistry;
+    private final Map<String, String> slaveDigests;
 
     public ReadDomainModelHandler(final Transformers.ResourceIgnoredTransformationRegistry ignoredTransformationRegistry, final Transformers transformers) {
+        this(ignoredTransformationRegistry, transformers, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * @param slaveDigests the digests of the model the slave already has, the subtrees which did not change are
+     *                     not sent, see {@link DomainModelDigests}
+     */
+    public ReadDomainModelHandler(final Transformers.ResourceIgnoredTransformationRegistry ignoredTransformationRegistry, final Transformers transformers,
+                                  final Map<String, String> slaveDigests) {
         this.transformers = transformers;
         this.ignoredTransformationRegistry = ignoredTransformationRegistry != null ? ignoredTransformationRegistry : Transformers.DEFAULT;
+        this.slaveDigests = slaveDigests;
     }
 
     public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
@@ -51,7 +66,12 @@ class ReadDomainModelHandler implements OperationStepHandler {
 
         final Resource rootResource = context.readResource(PathAddress.EMPTY_ADDRESS, true);
         final ReadMasterDomainModelUtil readUtil = ReadMasterDomainModelUtil.readMasterDomainResourcesForInitialConnect(context, transformers, rootResource, ignoredTransformationRegistry);
-        context.getResult().set(readUtil.getDescribedResources());
+        final List<ModelNode> described = readUtil.getDescribedResources();
+        if (slaveDigests.isEmpty()) {
+            context.getResult().set(described);
+        } else {
+            context.getResult().set(DomainModelDigests.replaceUnchanged(described, slaveDigests));
+        }
     }
 
 }
@@ -22,6 +22,9 @@
 
 package org.jboss.as.domain.controller.operations;
 
+import java.util.Collections;
+import java.util.Map;
+
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.OperationStepHandler;
@@ -60,16 +63,19 @@ public class ReadMasterDomainModelHandler implements OperationStepHandler {
         context.acquireControllerLock();
 
         final Transformers.ResourceIgnoredTransformationRegistry ignoredTransformationRegistry;
+        final Map<String, String> slaveDigests;
         final Resource resource = context.readResourceFromRoot(PathAddress.EMPTY_ADDRESS);
         // The host info is only null in the tests
         if (hostInfo == null) {
             ignoredTransformationRegistry = Transformers.DEFAULT;
+            slaveDigests = Collections.emptyMap();
         } else {
             final ReadMasterDomainModelUtil.RequiredConfigurationHolder rc = ReadMasterDomainModelUtil.populateHostResolutionContext(hostInfo, resource, extensionRegistry);
             ignoredTransformationRegistry = ReadMasterDomainModelUtil.createHostIgnoredRegistry(hostInfo, rc, false);
+            slaveDigests = hostInfo.getDomainModelDigests();
         }
 
-        final OperationStepHandler handler = new ReadDomainModelHandler(ignoredTransformationRegistry, transformers);
+        final OperationStepHandler handler = new ReadDomainModelHandler(ignoredTransformationRegistry, transformers, slaveDigests);
         context.addStep(handler, OperationContext.Stage.MODEL);
     }
 
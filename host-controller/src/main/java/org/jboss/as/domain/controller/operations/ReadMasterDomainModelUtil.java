@@ -89,6 +89,16 @@ public class ReadMasterDomainModelUtil {
         return util;
     }
 
+    /**
+     * Describes a domain model the same way as the master describes it for the slaves.
+     *
+     * @param domainRoot the domain root resource
+     * @return the resources, see {@link #getDescribedResources()}
+     */
+    public static List<ModelNode> describeDomainResources(final Resource domainRoot) {
+        return new ReadMasterDomainModelUtil().describeAsNodeList(PathAddress.EMPTY_ADDRESS, domainRoot, false);
+    }
+
     /**
      * Gets a list of the resources for the slave's ApplyXXXXHandlers. Although the format might appear
      * similar as the operations generated at boot-time this description is only useful
@@ -196,6 +196,35 @@ public class HostControllerConfigurationPersister implements ExtensibleConfigura
         }
     }
 
+    @Override
+    public long flush() throws ConfigurationPersistenceException {
+        long flushed = hostPersister.flush();
+        if (domainPersister != null) {
+            flushed += domainPersister.flush();
+        }
+        return flushed;
+    }
+
+    @Override
+    public void shutdown() throws ConfigurationPersistenceException {
+        try {
+            hostPersister.shutdown();
+        } finally {
+            if (domainPersister != null) {
+                domainPersister.shutdown();
+            }
+        }
+    }
+
+    @Override
+    public long getUnflushedChangeCount() {
+        long unflushed = hostPersister.getUnflushedChangeCount();
+        if (domainPersister != null) {
+            unflushed += domainPersister.getUnflushedChangeCount();
+        }
+        return unflushed;
+    }
+
     @Override
     public String snapshot() throws ConfigurationPersistenceException {
         throw new UnsupportedOperationException();
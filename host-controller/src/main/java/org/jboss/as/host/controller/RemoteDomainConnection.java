@@ -43,6 +43,7 @@ import org.jboss.as.controller.RunningMode;
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.as.controller.remote.TransactionalProtocolClient;
 import org.jboss.as.domain.controller.SlaveRegistrationException;
+import org.jboss.as.domain.controller.operations.DomainModelDigests;
 import org.jboss.as.domain.management.CallbackHandlerFactory;
 import org.jboss.as.domain.management.SecurityRealm;
 import org.jboss.as.host.controller.discovery.DiscoveryOption;
@@ -333,6 +334,14 @@ class RemoteDomainConnection extends FutureManagementChannel {
          */
         ModelNode resolveSubsystemVersions(ModelNode extensions);
 
+        /**
+         * Get the digests of the domain model this host already has, so the master only sends the parts which
+         * changed.
+         *
+         * @return the digests, or an undefined node to get the complete domain model
+         */
+        ModelNode getDomainModelDigests();
+
         /**
          * Apply the remote domain model.
          *
@@ -361,6 +370,10 @@ class RemoteDomainConnection extends FutureManagementChannel {
              output.writeUTF(localHostName);
              ModelNode hostInfo = localHostInfo.clone();
              hostInfo.get(RemoteDomainConnectionService.DOMAIN_CONNECTION_ID).set(pongHandler.getConnectionId());
+             final ModelNode digests = callback.getDomainModelDigests();
+             if (digests.isDefined()) {
+                 hostInfo.get(DomainModelDigests.DOMAIN_MODEL_DIGESTS).set(digests);
+             }
              hostInfo.writeExternal(output);
          }
 
@@ -77,6 +77,7 @@ import org.jboss.as.controller.remote.TransactionalProtocolOperationHandler;
 import org.jboss.as.domain.controller.DomainController;
 import org.jboss.as.domain.controller.LocalHostControllerInfo;
 import org.jboss.as.domain.controller.SlaveRegistrationException;
+import org.jboss.as.domain.controller.operations.DomainModelDigests;
 import org.jboss.as.domain.controller.operations.FetchMissingConfigurationHandler;
 import org.jboss.as.domain.controller.operations.SyncDomainModelOperationHandler;
 import org.jboss.as.domain.controller.operations.SyncServerGroupOperationHandler;
@@ -187,6 +188,8 @@ public class RemoteDomainConnectionService implements MasterDomainControllerClie
     private ManagementChannelHandler handler;
     private volatile ResponseAttachmentInputStreamSupport responseAttachmentSupport;
     private volatile RemoteDomainConnection connection;
+    /** The local domain model sent to the master as digests, until the model sent back is applied */
+    private volatile DomainModelDigests localModelDigests;
 
     private RemoteDomainConnectionService(final ModelController controller,
                                           final ExtensionRegistry extensionRegistry,
@@ -499,6 +502,20 @@ public class RemoteDomainConnectionService implements MasterDomainControllerClie
                     return resolveSubsystems(extensions.asList());
                 }
 
+                @Override
+                public ModelNode getDomainModelDigests() {
+                    try {
+                        final DomainModelDigests digests = DomainModelDigests.create(ReadRootResourceHandler.grabDomainResource(operationExecutor));
+                        localModelDigests = digests;
+                        return digests.getDigests();
+                    } catch (Exception e) {
+                        // Just get the complete model
+                        HostControllerLogger.ROOT_LOGGER.debugf(e, "Failed to digest the local domain model");
+                        localModelDigests = null;
+                        return new ModelNode();
+                    }
+                }
+
                 @Override
                 public boolean applyDomainModel(final List<ModelNode> bootOperations) {
                     // Apply the model..
@@ -552,13 +569,17 @@ public class RemoteDomainConnectionService implements MasterDomainControllerClie
     private boolean applyRemoteDomainModel(final List<ModelNode> bootOperations, final HostInfo hostInfo) {
         try {
             HostControllerLogger.ROOT_LOGGER.debug("Applying domain level boot operations provided by master");
+            final DomainModelDigests digests = localModelDigests;
+            localModelDigests = null;
+            // Put back the resources the master did not send as the local ones did not change
+            final List<ModelNode> domainModel = digests == null ? bootOperations : digests.expand(bootOperations);
             SyncModelParameters parameters =
                     new SyncModelParameters(domainController, ignoredDomainResourceRegistry,
                             hostControllerEnvironment, extensionRegistry, operationExecutor, true, serverProxies, remoteFileRepository, contentRepository);
             final SyncDomainModelOperationHandler handler =
                     new SyncDomainModelOperationHandler(hostInfo, parameters);
             final ModelNode operation = APPLY_DOMAIN_MODEL.clone();
-            operation.get(DOMAIN_MODEL).set(bootOperations);
+            operation.get(DOMAIN_MODEL).set(domainModel);
 
             final ModelNode result = operationExecutor.execute(OperationBuilder.create(operation).build(), OperationMessageHandler.DISCARD, ModelController.OperationTransactionControl.COMMIT, handler);
 
@@ -47,6 +47,7 @@ import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.PathElement;
 import org.jboss.as.controller.registry.Resource;
 import org.jboss.as.controller.transform.Transformers;
+import org.jboss.as.domain.controller.operations.DomainModelDigests;
 import org.jboss.as.domain.controller.LocalHostControllerInfo;
 import org.jboss.as.host.controller.IgnoredNonAffectedServerGroupsUtil;
 import org.jboss.as.host.controller.IgnoredNonAffectedServerGroupsUtil.ServerConfigInfo;
@@ -115,6 +116,7 @@ public class HostInfo implements Transformers.ResourceIgnoredTransformationRegis
     private final Transformers.ResourceIgnoredTransformationRegistry ignoredResources;
     private final boolean ignoreUnaffectedConfig;
     private final Map<String, ServerConfigInfo> serverConfigInfos;
+    private final Map<String, String> domainModelDigests;
 
     private HostInfo(final ModelNode hostInfo) {
         hostName = hostInfo.require(NAME).asString();
@@ -137,6 +139,7 @@ public class HostInfo implements Transformers.ResourceIgnoredTransformationRegis
             serverConfigInfos = Collections.emptyMap();
         }
         this.serverConfigInfos = serverConfigInfos;
+        domainModelDigests = DomainModelDigests.readDigests(hostInfo);
     }
 
     public String getHostName() {
@@ -189,6 +192,15 @@ public class HostInfo implements Transformers.ResourceIgnoredTransformationRegis
             return serverConfigInfos.values();
     }
 
+    /**
+     * Gets the digests of the domain model the host already has, see {@link DomainModelDigests}.
+     *
+     * @return the digest of each subtree of the model, empty if the host did not send any
+     */
+    public Map<String, String> getDomainModelDigests() {
+        return domainModelDigests;
+    }
+
     public String getPrettyProductName() {
 
         final String result;
@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.domain.controller.operations;
+
+import static org.jboss.as.domain.controller.operations.ReadMasterDomainModelUtil.DOMAIN_RESOURCE_ADDRESS;
+
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.registry.Resource;
+import org.jboss.dmr.ModelNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link DomainModelDigests}.
+ */
+public class DomainModelDigestsTestCase {
+
+    private static final PathElement PROFILE = PathElement.pathElement("profile", "default");
+
+    @Test
+    public void testOnlyChangedSubtreesAreSent() {
+        final Resource slave = createModel("a");
+        final DomainModelDigests digests = DomainModelDigests.create(slave);
+        final Map<String, String> sent = DomainModelDigests.readDigests(hostInfo(digests));
+
+        final Resource master = createModel("b");
+        final List<ModelNode> described = ReadMasterDomainModelUtil.describeDomainResources(master);
+        final List<ModelNode> delta = DomainModelDigests.replaceUnchanged(described, sent);
+
+        // markers for the root, the profile and the unchanged subsystem, the changed subsystem with its child
+        Assert.assertEquals(5, delta.size());
+        assertUnchanged(delta.get(0), PathAddress.EMPTY_ADDRESS);
+        assertUnchanged(delta.get(1), PathAddress.pathAddress(PROFILE));
+        assertUnchanged(delta.get(2), PathAddress.pathAddress(PROFILE, PathElement.pathElement("subsystem", "unchanged")));
+        Assert.assertFalse(delta.get(3).has(DomainModelDigests.DOMAIN_RESOURCE_UNCHANGED));
+        Assert.assertFalse(delta.get(4).has(DomainModelDigests.DOMAIN_RESOURCE_UNCHANGED));
+
+        Assert.assertEquals(described, digests.expand(delta));
+    }
+
+    @Test
+    public void testNothingReplacedWithoutDigests() {
+        final List<ModelNode> described = ReadMasterDomainModelUtil.describeDomainResources(createModel("a"));
+        Assert.assertSame(described, DomainModelDigests.replaceUnchanged(described, DomainModelDigests.readDigests(new ModelNode())));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnknownSubtree() {
+        final DomainModelDigests digests = DomainModelDigests.create(Resource.Factory.create());
+        final List<ModelNode> delta = DomainModelDigests.replaceUnchanged(
+                ReadMasterDomainModelUtil.describeDomainResources(createModel("a")),
+                DomainModelDigests.readDigests(hostInfo(DomainModelDigests.create(createModel("a")))));
+        digests.expand(delta);
+    }
+
+    private static void assertUnchanged(final ModelNode description, final PathAddress address) {
+        Assert.assertTrue(description.hasDefined(DomainModelDigests.DOMAIN_RESOURCE_UNCHANGED));
+        Assert.assertEquals(address, PathAddress.pathAddress(description.get(DOMAIN_RESOURCE_ADDRESS)));
+    }
+
+    private static ModelNode hostInfo(final DomainModelDigests digests) {
+        final ModelNode hostInfo = new ModelNode();
+        hostInfo.get(DomainModelDigests.DOMAIN_MODEL_DIGESTS).set(digests.getDigests());
+        return hostInfo;
+    }
+
+    private static Resource createModel(final String value) {
+        final Resource root = Resource.Factory.create();
+        root.getModel().get("name").set("domain");
+        final Resource profile = Resource.Factory.create();
+        root.registerChild(PROFILE, profile);
+
+        final Resource unchanged = Resource.Factory.create();
+        unchanged.getModel().get("attr").set("value");
+        final Resource unchangedChild = Resource.Factory.create();
+        unchangedChild.getModel().get("attr").set("value");
+        unchanged.registerChild(PathElement.pathElement("child", "one"), unchangedChild);
+        profile.registerChild(PathElement.pathElement("subsystem", "unchanged"), unchanged);
+
+        final Resource changed = Resource.Factory.create();
+        changed.getModel().get("attr").set(value);
+        final Resource changedChild = Resource.Factory.create();
+        changedChild.getModel().get("attr").set("value");
+        changed.registerChild(PathElement.pathElement("child", "one"), changedChild);
+        profile.registerChild(PathElement.pathElement("subsystem", "changed"), changed);
+        return root;
+    }
+}
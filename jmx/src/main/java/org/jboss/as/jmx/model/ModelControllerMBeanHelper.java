@@ -23,13 +23,15 @@ package org.jboss.as.jmx.model;
 
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ACCESS_MECHANISM;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
-import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ATTRIBUTES;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ATTRIBUTES_ONLY;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILURE_DESCRIPTION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.INCLUDE_RUNTIME;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OPERATION_HEADERS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_ATTRIBUTE_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_RESOURCE_OPERATION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.REPLY_PROPERTIES;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.REQUEST_PROPERTIES;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
@@ -39,7 +41,6 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.WRI
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Set;
 
 import javax.management.Attribute;
@@ -61,7 +62,7 @@ import org.jboss.as.controller.ModelController;
 import org.jboss.as.controller.ModelController.OperationTransactionControl;
 import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.PathElement;
-import org.jboss.as.controller.descriptions.DescriptionProvider;
+import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ImmutableManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
 import org.jboss.as.core.security.AccessMechanism;
@@ -89,6 +90,8 @@ public class ModelControllerMBeanHelper {
     private final ConfiguredDomains configuredDomains;
     private final String domain;
     private final ManagementModelIntegration.ManagementModelProvider managementModelProvider;
+    private final RegistrationInfoCache infoCache;
+    private final ObjectNameKeyIndex keyIndex = new ObjectNameKeyIndex();
 
     ModelControllerMBeanHelper(TypeConverters converters, ConfiguredDomains configuredDomains, String domain,
                                ModelController controller, MutabilityChecker mutabilityChecker,
@@ -100,6 +103,7 @@ public class ModelControllerMBeanHelper {
         this.accessControlUtil = new ResourceAccessControlUtil(controller);
         this.mutabilityChecker = mutabilityChecker;
         this.managementModelProvider = managementModelProvider;
+        this.infoCache = new RegistrationInfoCache(converters, configuredDomains, mutabilityChecker);
     }
 
     int getMBeanCount() {
@@ -123,7 +127,8 @@ public class ModelControllerMBeanHelper {
     }
 
     Set<ObjectInstance> queryMBeans(final ObjectName name, final QueryExp query) {
-        return new RootResourceIterator<Set<ObjectInstance>>(accessControlUtil, getRootResourceAndRegistration().getResource(),
+        final ManagementModelIntegration.ResourceAndRegistration reg = getRootResourceAndRegistration();
+        return new RootResourceIterator<Set<ObjectInstance>>(accessControlUtil, reg.getResource(), reg.getRegistration(), keyIndex, name,
                 new ObjectNameMatchResourceAction<Set<ObjectInstance>>(name) {
 
             Set<ObjectInstance> set = new HashSet<ObjectInstance>();
@@ -131,7 +136,6 @@ public class ModelControllerMBeanHelper {
             @Override
             public boolean onResource(ObjectName resourceName) {
                 if (name == null || name.apply(resourceName)) {
-                    //TODO check query
                     set.add(new ObjectInstance(resourceName, CLASS_NAME));
                 }
                 return true;
@@ -148,7 +152,8 @@ public class ModelControllerMBeanHelper {
     }
 
     Set<ObjectName> queryNames(final ObjectName name, final QueryExp query) {
-        return new RootResourceIterator<Set<ObjectName>>(accessControlUtil, getRootResourceAndRegistration().getResource(),
+        final ManagementModelIntegration.ResourceAndRegistration reg = getRootResourceAndRegistration();
+        return new RootResourceIterator<Set<ObjectName>>(accessControlUtil, reg.getResource(), reg.getRegistration(), keyIndex, name,
                 new ObjectNameMatchResourceAction<Set<ObjectName>>(name) {
 
             Set<ObjectName> set = new HashSet<ObjectName>();
@@ -156,7 +161,6 @@ public class ModelControllerMBeanHelper {
             @Override
             public boolean onResource(ObjectName resourceName) {
                 if (name == null || name.apply(resourceName)) {
-                    //TODO check query
                     set.add(resourceName);
                 }
                 return true;
@@ -199,7 +203,16 @@ public class ModelControllerMBeanHelper {
             throw JmxLogger.ROOT_LOGGER.mbeanNotFound(name);
         }
         final ResourceAccessControl accessControl = accessControlUtil.getResourceAccessWithInstanceNotFoundExceptionIfNotAccessible(name, address, true);
-        return MBeanInfoFactory.createMBeanInfo(name, converters, configuredDomains, mutabilityChecker, address, getMBeanRegistration(address, reg));
+        return infoCache.getInfo(address, getMBeanRegistration(address, reg)).getMBeanInfo(name, address);
+    }
+
+    /**
+     * Forgets what was cached about a removed resource and its children.
+     *
+     * @param address the address of the removed resource
+     */
+    void resourceRemoved(final PathAddress address) {
+        infoCache.resourceRemoved(address);
     }
 
     Object getAttribute(final ObjectName name, final String attribute)  throws AttributeNotFoundException, InstanceNotFoundException, ReflectionException {
@@ -219,10 +232,37 @@ public class ModelControllerMBeanHelper {
             throw JmxLogger.ROOT_LOGGER.mbeanNotFound(name);
         }
         final ResourceAccessControl accessControl = accessControlUtil.getResourceAccessWithInstanceNotFoundExceptionIfNotAccessible(name, address, false);
+        final ImmutableManagementResourceRegistration registration = getMBeanRegistration(address, reg);
+        final RegistrationInfoCache.RegistrationInfo info = infoCache.getInfo(address, registration);
+
+        final String[] attributeNames = new String[attributes.length];
+        boolean includeRuntime = false;
+        for (int i = 0; i < attributes.length; i++) {
+            try {
+                attributeNames[i] = info.getAttributeName(attributes[i]);
+            } catch (AttributeNotFoundException e) {
+                throw new ReflectionException(e);
+            }
+            if (!accessControl.isReadableAttribute(attributeNames[i])) {
+                throw JmxLogger.ROOT_LOGGER.notAuthorizedToReadAttribute(attributeNames[i]);
+            }
+            final AttributeAccess access = registration.getAttributeAccess(PathAddress.EMPTY_ADDRESS, attributeNames[i]);
+            if (access != null && access.getStorageType() == AttributeAccess.Storage.RUNTIME) {
+                includeRuntime = true;
+            }
+        }
+
+        // Read all the attributes with a single operation, and only fall back to reading them one by one if that
+        // fails or leaves some out
+        final ModelNode values = attributes.length > 1 ? readAttributes(address, includeRuntime) : null;
         AttributeList list = new AttributeList();
-        for (String attribute : attributes) {
+        for (int i = 0; i < attributes.length; i++) {
             try {
-                list.add(new Attribute(attribute, getAttribute(reg, address, name, attribute, accessControl)));
+                if (values != null && values.has(attributeNames[i])) {
+                    list.add(new Attribute(attributes[i], converters.fromModelNode(info.getAttributeDescription(attributeNames[i]), values.get(attributeNames[i]))));
+                } else {
+                    list.add(new Attribute(attributes[i], getAttribute(reg, address, name, attributes[i], accessControl)));
+                }
             } catch (AttributeNotFoundException e) {
                 throw new ReflectionException(e);
             }
@@ -230,14 +270,29 @@ public class ModelControllerMBeanHelper {
         return list;
     }
 
-    private Object getAttribute(final ManagementModelIntegration.ResourceAndRegistration reg, final PathAddress address, final ObjectName name, final String attribute, final ResourceAccessControl accessControl)  throws ReflectionException, AttributeNotFoundException, InstanceNotFoundException {
-        final ImmutableManagementResourceRegistration registration = getMBeanRegistration(address, reg);
-        final DescriptionProvider provider = registration.getModelDescription(PathAddress.EMPTY_ADDRESS);
-        if (provider == null) {
-            throw JmxLogger.ROOT_LOGGER.descriptionProviderNotFound(address);
+    /**
+     * Reads the attributes of a resource with a {@code read-resource} operation.
+     *
+     * @param address the address of the resource
+     * @param includeRuntime whether to read the runtime attributes as well
+     * @return the attribute values, or {@code null} if the operation failed
+     */
+    private ModelNode readAttributes(final PathAddress address, final boolean includeRuntime) {
+        ModelNode op = new ModelNode();
+        op.get(OP).set(READ_RESOURCE_OPERATION);
+        op.get(OP_ADDR).set(address.toModelNode());
+        op.get(ATTRIBUTES_ONLY).set(true);
+        op.get(INCLUDE_RUNTIME).set(includeRuntime);
+        ModelNode result = execute(op);
+        if (getFailureDescription(result) != null) {
+            return null;
         }
-        final ModelNode description = provider.getModelDescription(null);
-        final String attributeName = findAttributeName(description.get(ATTRIBUTES), attribute);
+        return result.get(RESULT);
+    }
+
+    private Object getAttribute(final ManagementModelIntegration.ResourceAndRegistration reg, final PathAddress address, final ObjectName name, final String attribute, final ResourceAccessControl accessControl)  throws ReflectionException, AttributeNotFoundException, InstanceNotFoundException {
+        final RegistrationInfoCache.RegistrationInfo info = infoCache.getInfo(address, getMBeanRegistration(address, reg));
+        final String attributeName = info.getAttributeName(attribute);
 
         if (!accessControl.isReadableAttribute(attributeName)) {
             throw JmxLogger.ROOT_LOGGER.notAuthorizedToReadAttribute(attributeName);
@@ -254,7 +309,7 @@ public class ModelControllerMBeanHelper {
             throw new AttributeNotFoundException(error);
         }
 
-        return converters.fromModelNode(description.require(ATTRIBUTES).require(attributeName), result.get(RESULT));
+        return converters.fromModelNode(info.getAttributeDescription(attributeName), result.get(RESULT));
     }
 
 
@@ -292,13 +347,8 @@ public class ModelControllerMBeanHelper {
     }
 
     private void setAttribute(final ManagementModelIntegration.ResourceAndRegistration reg, final PathAddress address, final ObjectName name, final Attribute attribute, ResourceAccessControl accessControl)  throws InvalidAttributeValueException, AttributeNotFoundException, InstanceNotFoundException {
-        final ImmutableManagementResourceRegistration registration = getMBeanRegistration(address, reg);
-        final DescriptionProvider provider = registration.getModelDescription(PathAddress.EMPTY_ADDRESS);
-        if (provider == null) {
-            throw JmxLogger.ROOT_LOGGER.descriptionProviderNotFound(address);
-        }
-        final ModelNode description = provider.getModelDescription(null);
-        final String attributeName = findAttributeName(description.get(ATTRIBUTES), attribute.getName());
+        final RegistrationInfoCache.RegistrationInfo info = infoCache.getInfo(address, getMBeanRegistration(address, reg));
+        final String attributeName = info.getAttributeName(attribute.getName());
 
         if (!mutabilityChecker.mutable(address)) {
             throw JmxLogger.ROOT_LOGGER.attributeNotWritable(attribute);
@@ -313,7 +363,7 @@ public class ModelControllerMBeanHelper {
         op.get(OP_ADDR).set(address.toModelNode());
         op.get(NAME).set(attributeName);
         try {
-            op.get(VALUE).set(converters.toModelNode(description.require(ATTRIBUTES).require(attributeName), attribute.getValue()));
+            op.get(VALUE).set(converters.toModelNode(info.getAttributeDescription(attributeName), attribute.getValue()));
         } catch (ClassCastException e) {
             throw JmxLogger.ROOT_LOGGER.invalidAttributeType(e, attribute.getName());
         }
@@ -373,14 +423,11 @@ public class ModelControllerMBeanHelper {
         }
 
         if (opEntry == null) {
-            //Brute force search in case the operation name is not standard format
-            Map<String, OperationEntry> ops = registration.getOperationDescriptions(PathAddress.EMPTY_ADDRESS, false);
-            for (Map.Entry<String, OperationEntry> entry : ops.entrySet()) {
-                if (operationName.equals(NameConverter.convertToCamelCase(entry.getKey()))) {
-                    opEntry = entry.getValue();
-                    realOperationName = entry.getKey();
-                    break;
-                }
+            //Search the camel case names in case the operation name is not standard format
+            final String opName = infoCache.getInfo(address, registration).getOperationName(operationName);
+            if (opName != null) {
+                opEntry = registration.getOperationEntry(PathAddress.EMPTY_ADDRESS, opName);
+                realOperationName = opName;
             }
         }
 
@@ -401,12 +448,13 @@ public class ModelControllerMBeanHelper {
                 params = newParams;
             }
 
-            return invoke(entry.getOperationEntry(), ADD, address.append(element), params);
+            return invoke(entry.getOperationEntry(), ADD, address.append(element), params, null);
         }
-        return invoke(opEntry, realOperationName, address, params);
+        return invoke(opEntry, realOperationName, address, params, infoCache.getInfo(address, registration));
     }
 
-    private Object invoke(final OperationEntry entry, final String operationName, PathAddress address, Object[] params)  throws InstanceNotFoundException, MBeanException, ReflectionException {
+    private Object invoke(final OperationEntry entry, final String operationName, PathAddress address, Object[] params,
+                          final RegistrationInfoCache.RegistrationInfo info)  throws InstanceNotFoundException, MBeanException, ReflectionException {
         if (!mutabilityChecker.mutable(address) && !entry.getFlags().contains(OperationEntry.Flag.READ_ONLY)) {
             throw JmxLogger.ROOT_LOGGER.noOperationCalled(operationName);
         }
@@ -424,7 +472,8 @@ public class ModelControllerMBeanHelper {
             throw JmxLogger.ROOT_LOGGER.notAuthorizedToExecuteOperation(operationName);
         }
 
-        final ModelNode description = entry.getDescriptionProvider().getModelDescription(null);
+        final ModelNode description = info == null
+                ? entry.getDescriptionProvider().getModelDescription(null) : info.getOperationDescription(entry);
         ModelNode op = new ModelNode();
         op.get(OP).set(operationName);
         op.get(OP_ADDR).set(address.toModelNode());
@@ -490,18 +539,6 @@ public class ModelControllerMBeanHelper {
         return null;
     }
 
-    private String findAttributeName(ModelNode attributes, String attributeName) throws AttributeNotFoundException{
-        if (attributes.hasDefined(attributeName)) {
-            return attributeName;
-        }
-        for (String key : attributes.keys()) {
-            if (NameConverter.convertToCamelCase(key).equals(attributeName)) {
-                return key;
-            }
-        }
-        throw JmxLogger.ROOT_LOGGER.attributeNotFound(attributeName);
-    }
-
     private boolean isExcludeAddress(PathAddress pathAddress) {
         return pathAddress.equals(CORE_SERVICE_PLATFORM_MBEAN);
     }
@@ -541,13 +578,9 @@ public class ModelControllerMBeanHelper {
 
     private abstract class ObjectNameMatchResourceAction<T> implements ResourceAction<T> {
 
-        private final ObjectName baseName;
-        private final Map<String, String> properties;
         private final ObjectName domainOnlyName;
 
         protected ObjectNameMatchResourceAction(ObjectName baseName) {
-            this.baseName = baseName;
-            this.properties = baseName == null ? Collections.<String, String>emptyMap() : baseName.getKeyPropertyList();
             try {
                 this.domainOnlyName = baseName == null ? null : ObjectName.getInstance(baseName.getDomain() + ":*");
             } catch (MalformedObjectNameException e) {
@@ -561,42 +594,13 @@ public class ModelControllerMBeanHelper {
                 return null;
             }
 
-            ObjectName result = null;
+            // The RootResourceIterator only visits the addresses that may match the pattern or have descendants
+            // that do, so just check the domain
             ObjectName toMatch = ObjectNameAddressUtil.createObjectName(domain, address);
-            if (baseName == null) {
-                result = toMatch;
-            } else if (address.size() == 0) {
-                // We can't compare the ObjectName properties a la the final 'else' block,
-                // because the special management=server property will not match
-                // Just confirm correct domain
-                if (domainOnlyName.apply(toMatch)) {
-                    result = toMatch;
-                }
-            } else if (address.size() >= properties.size()) {
-                // We have same or more elements than our target has properties; let it do the match
-                if (baseName.apply(toMatch)) {
-                    result = toMatch;
-                }
-            } else {
-                // Address may be a parent of an interesting address, so see if it matches all elements it has
-                boolean matches = domainOnlyName.apply(toMatch);
-                if (matches) {
-                    for (Map.Entry<String, String> entry : toMatch.getKeyPropertyList().entrySet()) {
-
-                        String propertyValue = properties.get(entry.getKey());
-                        if (propertyValue == null
-                                || (!entry.getValue().equals(propertyValue))
-                                        && !baseName.isPropertyValuePattern(entry.getKey())) {
-                            matches = false;
-                            break;
-                        }
-                    }
-                }
-                if (matches) {
-                    result = toMatch;
-                }
+            if (domainOnlyName == null || domainOnlyName.apply(toMatch)) {
+                return toMatch;
             }
-            return result;
+            return null;
         }
     }
 }
@@ -25,6 +25,7 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ATT
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESOURCE_ADDED_NOTIFICATION;
 
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
@@ -39,12 +40,14 @@ import javax.management.InvalidAttributeValueException;
 import javax.management.ListenerNotFoundException;
 import javax.management.MBeanException;
 import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
 import javax.management.MBeanServerDelegate;
 import javax.management.MBeanServerNotification;
 import javax.management.NotificationBroadcaster;
 import javax.management.NotificationListener;
 import javax.management.ObjectInstance;
 import javax.management.ObjectName;
+import javax.management.QueryEval;
 import javax.management.QueryExp;
 import javax.management.ReflectionException;
 import javax.management.RuntimeOperationsException;
@@ -90,6 +93,10 @@ public class ModelControllerMBeanServerPlugin extends BaseMBeanServerPlugin {
                 new ModelControllerMBeanHelper(TypeConverters.createExpressionTypeConverters(), configuredDomains,
                         configuredDomains.getExprDomain(), controller, mutabilityChecker, managementModelProvider) : null;
 
+        // The helpers cache an MBeanInfo per resource, which must not outlive it
+        ResourceRemovedNotificationHandler removedHandler = new ResourceRemovedNotificationHandler(legacyHelper, exprHelper);
+        notificationRegistry.registerNotificationHandler(NotificationHandlerRegistration.ANY_ADDRESS, removedHandler, removedHandler);
+
         // JMX notifications for MBean registration/unregistration are emitted by the MBeanServerDelegate and not by the
         // MBeans itself. If we have a reference on the delegate, we add a listener for any WildFly resource address
         // that converts the resource-added and resource-removed notifications to MBeanServerNotification and send them
@@ -189,32 +196,72 @@ public class ModelControllerMBeanServerPlugin extends BaseMBeanServerPlugin {
     }
 
     public Set<ObjectInstance> queryMBeans(ObjectName name, QueryExp query) {
+        Set<ObjectInstance> instances;
         if (name != null && !name.isDomainPattern()) {
-            return getHelper(name).queryMBeans(name, query);
+            instances = getHelper(name).queryMBeans(name, query);
         } else {
-            Set<ObjectInstance> instances = new HashSet<ObjectInstance>();
+            instances = new HashSet<ObjectInstance>();
             if (legacyHelper != null) {
                 instances.addAll(legacyHelper.queryMBeans(name, query));
             }
             if (exprHelper != null) {
                 instances.addAll(exprHelper.queryMBeans(name, query));
             }
-            return instances;
         }
+        if (query != null && !instances.isEmpty()) {
+            final MBeanServer oldServer = QueryEval.getMBeanServer();
+            query.setMBeanServer(this);
+            try {
+                final Iterator<ObjectInstance> it = instances.iterator();
+                while (it.hasNext()) {
+                    if (!applyQuery(query, it.next().getObjectName())) {
+                        it.remove();
+                    }
+                }
+            } finally {
+                query.setMBeanServer(oldServer);
+            }
+        }
+        return instances;
     }
 
     public Set<ObjectName> queryNames(ObjectName name, QueryExp query) {
+        Set<ObjectName> names;
         if (name != null && !name.isDomainPattern()) {
-            return getHelper(name).queryNames(name, query);
+            names = getHelper(name).queryNames(name, query);
         } else {
-            Set<ObjectName> instances = new HashSet<ObjectName>();
+            names = new HashSet<ObjectName>();
             if (legacyHelper != null) {
-                instances.addAll(legacyHelper.queryNames(name, query));
+                names.addAll(legacyHelper.queryNames(name, query));
             }
             if (exprHelper != null) {
-                instances.addAll(exprHelper.queryNames(name, query));
+                names.addAll(exprHelper.queryNames(name, query));
+            }
+        }
+        if (query != null && !names.isEmpty()) {
+            final MBeanServer oldServer = QueryEval.getMBeanServer();
+            query.setMBeanServer(this);
+            try {
+                final Iterator<ObjectName> it = names.iterator();
+                while (it.hasNext()) {
+                    if (!applyQuery(query, it.next())) {
+                        it.remove();
+                    }
+                }
+            } finally {
+                query.setMBeanServer(oldServer);
             }
-            return instances;
+        }
+        return names;
+    }
+
+    private static boolean applyQuery(QueryExp query, ObjectName name) {
+        try {
+            return query.apply(name);
+        } catch (Exception e) {
+            // As the platform MBeanServer does, treat a query that cannot be evaluated for an MBean, e.g. because it
+            // does not have the attribute, as not matching
+            return false;
         }
     }
 
@@ -407,6 +454,32 @@ public class ModelControllerMBeanServerPlugin extends BaseMBeanServerPlugin {
         }
     }
 
+    /**
+     * Handle resource-removed notifications by dropping what the helpers cached about the resource
+     */
+    private static class ResourceRemovedNotificationHandler implements NotificationHandler, NotificationFilter {
+
+        private final ModelControllerMBeanHelper[] helpers;
+
+        private ResourceRemovedNotificationHandler(ModelControllerMBeanHelper... helpers) {
+            this.helpers = helpers;
+        }
+
+        @Override
+        public void handleNotification(Notification notification) {
+            for (ModelControllerMBeanHelper helper : helpers) {
+                if (helper != null) {
+                    helper.resourceRemoved(notification.getSource());
+                }
+            }
+        }
+
+        @Override
+        public boolean isNotificationEnabled(Notification notification) {
+            return notification.getType().equals(ModelDescriptionConstants.RESOURCE_REMOVED_NOTIFICATION);
+        }
+    }
+
     private static boolean isResourceAddedOrRemovedNotification(Notification notification) {
         return notification.getType().equals(RESOURCE_ADDED_NOTIFICATION) ||
                 notification.getType().equals(ModelDescriptionConstants.RESOURCE_REMOVED_NOTIFICATION);
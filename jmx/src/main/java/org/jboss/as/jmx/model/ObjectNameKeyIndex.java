@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.jmx.model;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.registry.ImmutableManagementResourceRegistration;
+
+/**
+ * Index of the ObjectName keys, i.e. the {@link PathElement#getKey() path element keys}, that can occur in the
+ * addresses below each resource registration. {@link RootResourceIterator} uses it to skip the subtrees that cannot
+ * contain a resource with all the keys of a queried ObjectName pattern, so that a query like
+ * {@code jboss.as:data-source=*,*} only walks the resources of the subsystems that have data sources.
+ * <p/>
+ * The index is built lazily from the registry and dropped as soon as the
+ * {@link ImmutableManagementResourceRegistration#getModificationCount() modification count} of the registry changes.
+ */
+class ObjectNameKeyIndex {
+
+    /** The keys below a registration are not known, e.g. because it is a proxy to another process */
+    private static final Set<String> UNKNOWN = Collections.unmodifiableSet(new HashSet<String>());
+
+    private volatile Snapshot snapshot = new Snapshot(-1);
+
+    /**
+     * Gets the keys that can occur in the addresses of the descendants of a resource registration.
+     *
+     * @param registration the registration
+     * @return the keys, or {@code null} if they are not known
+     */
+    Set<String> getDescendantKeys(final ImmutableManagementResourceRegistration registration) {
+        final long count = registration.getModificationCount();
+        if (count < 0) {
+            return null;
+        }
+        Snapshot snapshot = this.snapshot;
+        if (snapshot.modificationCount != count) {
+            snapshot = new Snapshot(count);
+            this.snapshot = snapshot;
+        }
+        final Set<String> keys = snapshot.getDescendantKeys(registration,
+                Collections.newSetFromMap(new IdentityHashMap<ImmutableManagementResourceRegistration, Boolean>()));
+        return keys == UNKNOWN ? null : keys;
+    }
+
+    private static final class Snapshot {
+
+        private final long modificationCount;
+        private final ConcurrentMap<ImmutableManagementResourceRegistration, Set<String>> keys = new ConcurrentHashMap<>();
+
+        private Snapshot(final long modificationCount) {
+            this.modificationCount = modificationCount;
+        }
+
+        private Set<String> getDescendantKeys(final ImmutableManagementResourceRegistration registration,
+                                              final Set<ImmutableManagementResourceRegistration> visiting) {
+            Set<String> result = keys.get(registration);
+            if (result != null) {
+                return result;
+            }
+            if (registration.isRemote() || registration.isAlias() || !visiting.add(registration)) {
+                // the children of proxies and aliases are not part of this registry
+                return UNKNOWN;
+            }
+            result = new HashSet<>();
+            for (PathElement element : registration.getChildAddresses(PathAddress.EMPTY_ADDRESS)) {
+                result.add(element.getKey());
+                final ImmutableManagementResourceRegistration child = registration.getSubModel(PathAddress.pathAddress(element));
+                if (child != null) {
+                    final Set<String> childKeys = getDescendantKeys(child, visiting);
+                    if (childKeys == UNKNOWN) {
+                        result = UNKNOWN;
+                        break;
+                    }
+                    result.addAll(childKeys);
+                }
+            }
+            visiting.remove(registration);
+            if (result != UNKNOWN) {
+                result = Collections.unmodifiableSet(result);
+            }
+            keys.put(registration, result);
+            return result;
+        }
+    }
+}
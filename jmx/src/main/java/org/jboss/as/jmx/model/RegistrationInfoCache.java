@@ -0,0 +1,259 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.jmx.model;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ATTRIBUTES;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.descriptions.DescriptionProvider;
+import org.jboss.as.controller.registry.ImmutableManagementResourceRegistration;
+import org.jboss.as.controller.registry.OperationEntry;
+import org.jboss.as.jmx.logging.JmxLogger;
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Caches what {@link ModelControllerMBeanHelper} derives from the resource registrations: the resource descriptions,
+ * the mapping of JMX attribute and operation names to management names, and the {@link MBeanInfo}s.
+ * <p/>
+ * Generating a resource description means resolving every attribute, operation and notification description, which
+ * is far more expensive than reading an attribute. The cached information is dropped as soon as the
+ * {@link ImmutableManagementResourceRegistration#getModificationCount() modification count} of the registry changes.
+ * Registries that do not track changes are not cached.
+ * <p/>
+ * A registration has an {@link MBeanInfo} per resource, as the MBean name is part of it. Those of a removed resource
+ * are dropped by {@link #resourceRemoved(PathAddress)}, and at most {@link #MAX_MBEAN_INFOS} are kept per registration.
+ *
+ * @see MBeanInfoFactory
+ */
+class RegistrationInfoCache {
+
+    /** The maximum number of {@link MBeanInfo}s kept per registration, one per resource */
+    static final int MAX_MBEAN_INFOS = 256;
+
+    private final TypeConverters converters;
+    private final ConfiguredDomains configuredDomains;
+    private final MutabilityChecker mutabilityChecker;
+    private final ConcurrentMap<ImmutableManagementResourceRegistration, RegistrationInfo> infos = new ConcurrentHashMap<>();
+    private volatile long modificationCount = -1;
+
+    RegistrationInfoCache(final TypeConverters converters, final ConfiguredDomains configuredDomains, final MutabilityChecker mutabilityChecker) {
+        this.converters = converters;
+        this.configuredDomains = configuredDomains;
+        this.mutabilityChecker = mutabilityChecker;
+    }
+
+    /**
+     * Gets the information about a resource registration.
+     *
+     * @param address the address of the resource, used in error messages
+     * @param registration the registration of the resource
+     * @return the information
+     * @throws InstanceNotFoundException if the registration has no description
+     */
+    RegistrationInfo getInfo(final PathAddress address, final ImmutableManagementResourceRegistration registration) throws InstanceNotFoundException {
+        final long count = registration.getModificationCount();
+        if (count < 0) {
+            return new RegistrationInfo(address, registration, count);
+        }
+        if (count != modificationCount) {
+            // the registry changed, so everything cached may be stale
+            infos.clear();
+            modificationCount = count;
+        }
+        RegistrationInfo info = infos.get(registration);
+        if (info == null || info.modificationCount != count) {
+            info = new RegistrationInfo(address, registration, count);
+            infos.put(registration, info);
+        }
+        return info;
+    }
+
+    /**
+     * Drops the {@link MBeanInfo}s of a removed resource and of its children.
+     *
+     * @param address the address of the removed resource
+     */
+    void resourceRemoved(final PathAddress address) {
+        for (RegistrationInfo info : infos.values()) {
+            info.resourceRemoved(address);
+        }
+    }
+
+    /**
+     * @return the number of registrations with cached information
+     */
+    int size() {
+        return infos.size();
+    }
+
+    final class RegistrationInfo {
+
+        private final ImmutableManagementResourceRegistration registration;
+        private final long modificationCount;
+        /** Never handed out, as descriptions are not safe for concurrent use */
+        private final ModelNode description;
+        /** JMX and management attribute names to the management name */
+        private final Map<String, String> attributeNames;
+        private final ConcurrentMap<ObjectName, ResourceMBeanInfo> mbeanInfos = new ConcurrentHashMap<>();
+        private final ConcurrentMap<OperationEntry, ModelNode> operationDescriptions = new ConcurrentHashMap<>();
+        private volatile Map<String, String> operationNames;
+
+        private RegistrationInfo(final PathAddress address, final ImmutableManagementResourceRegistration registration, final long modificationCount) throws InstanceNotFoundException {
+            this.registration = registration;
+            this.modificationCount = modificationCount;
+            final DescriptionProvider provider = registration.getModelDescription(PathAddress.EMPTY_ADDRESS);
+            if (provider == null) {
+                throw JmxLogger.ROOT_LOGGER.descriptionProviderNotFound(address);
+            }
+            this.description = provider.getModelDescription(null);
+            final Map<String, String> attributeNames = new HashMap<>();
+            if (description.hasDefined(ATTRIBUTES)) {
+                for (String name : description.get(ATTRIBUTES).keys()) {
+                    attributeNames.put(NameConverter.convertToCamelCase(name), name);
+                }
+                // the management names win over camel case names that happen to match another attribute
+                for (String name : description.get(ATTRIBUTES).keys()) {
+                    attributeNames.put(name, name);
+                }
+            }
+            this.attributeNames = Collections.unmodifiableMap(attributeNames);
+        }
+
+        /**
+         * Gets the management name of an attribute.
+         *
+         * @param attributeName the JMX or management name of the attribute
+         * @return the management name
+         * @throws AttributeNotFoundException if the resource has no such attribute
+         */
+        String getAttributeName(final String attributeName) throws AttributeNotFoundException {
+            final String name = attributeNames.get(attributeName);
+            if (name == null) {
+                throw JmxLogger.ROOT_LOGGER.attributeNotFound(attributeName);
+            }
+            return name;
+        }
+
+        /**
+         * @param attributeName the management name of the attribute
+         * @return a copy of the description of the attribute
+         */
+        ModelNode getAttributeDescription(final String attributeName) {
+            return description.require(ATTRIBUTES).require(attributeName).clone();
+        }
+
+        /**
+         * Gets the operation of the resource whose name in camel case is the given name.
+         *
+         * @param operationName the camel case name
+         * @return the management name of the operation, or {@code null} if there is no such operation
+         */
+        String getOperationName(final String operationName) {
+            Map<String, String> operationNames = this.operationNames;
+            if (operationNames == null) {
+                operationNames = new HashMap<>();
+                for (String name : registration.getOperationDescriptions(PathAddress.EMPTY_ADDRESS, false).keySet()) {
+                    final String camelCase = NameConverter.convertToCamelCase(name);
+                    if (!operationNames.containsKey(camelCase)) {
+                        operationNames.put(camelCase, name);
+                    }
+                }
+                this.operationNames = operationNames;
+            }
+            return operationNames.get(operationName);
+        }
+
+        /**
+         * @param entry an operation entry
+         * @return a copy of the description of the operation
+         */
+        ModelNode getOperationDescription(final OperationEntry entry) {
+            ModelNode operationDescription = operationDescriptions.get(entry);
+            if (operationDescription == null) {
+                operationDescription = entry.getDescriptionProvider().getModelDescription(null);
+                operationDescriptions.putIfAbsent(entry, operationDescription);
+            }
+            return operationDescription.clone();
+        }
+
+        /**
+         * Gets the {@link MBeanInfo} of the MBean for the resource.
+         *
+         * @param name the name of the MBean
+         * @param address the address of the resource
+         * @return the MBean info
+         */
+        MBeanInfo getMBeanInfo(final ObjectName name, final PathAddress address) throws InstanceNotFoundException {
+            final ResourceMBeanInfo cached = mbeanInfos.get(name);
+            if (cached != null) {
+                return cached.info;
+            }
+            final MBeanInfo info = MBeanInfoFactory.createMBeanInfo(name, converters, configuredDomains, mutabilityChecker, address, registration);
+            if (mbeanInfos.size() >= MAX_MBEAN_INFOS) {
+                // more resources than are worth caching, or removed ones we were not told about
+                mbeanInfos.clear();
+            }
+            mbeanInfos.putIfAbsent(name, new ResourceMBeanInfo(address, info));
+            return info;
+        }
+
+        /**
+         * @return the number of resources with a cached {@link MBeanInfo}
+         */
+        int getMBeanInfoCount() {
+            return mbeanInfos.size();
+        }
+
+        private void resourceRemoved(final PathAddress removed) {
+            final Iterator<ResourceMBeanInfo> it = mbeanInfos.values().iterator();
+            while (it.hasNext()) {
+                final PathAddress address = it.next().address;
+                if (address.size() >= removed.size() && address.subAddress(0, removed.size()).equals(removed)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static final class ResourceMBeanInfo {
+        private final PathAddress address;
+        private final MBeanInfo info;
+
+        private ResourceMBeanInfo(final PathAddress address, final MBeanInfo info) {
+            this.address = address;
+            this.info = info;
+        }
+    }
+}
@@ -21,10 +21,17 @@
 */
 package org.jboss.as.jmx.model;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import javax.management.ObjectName;
 
 import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.registry.ImmutableManagementResourceRegistration;
 import org.jboss.as.controller.registry.Resource;
 import org.jboss.as.controller.registry.Resource.ResourceEntry;
 
@@ -32,19 +39,71 @@ class RootResourceIterator<T> {
     private final ResourceAccessControlUtil accessControlUtil;
     private final Resource rootResource;
     private final ResourceAction<T> action;
+    private final ImmutableManagementResourceRegistration rootRegistration;
+    private final ObjectNameKeyIndex keyIndex;
+    /** The keys of the pattern whose values are not patterns, with their values, unescaped */
+    private final Map<String, String> fixedValues;
+    /** All the keys of the pattern, unescaped */
+    private final Set<String> patternKeys;
+    /** Whether the pattern matches names with more keys than its own */
+    private final boolean otherKeysAllowed;
 
     RootResourceIterator(final ResourceAccessControlUtil accessControlUtil, final Resource rootResource, final ResourceAction<T> action) {
+        this(accessControlUtil, rootResource, null, null, null, action);
+    }
+
+    /**
+     * Creates an iterator that only visits the resources which may have, or have descendants which may have, an
+     * ObjectName matching a pattern.
+     *
+     * @param accessControlUtil the access control util
+     * @param rootResource the root resource
+     * @param rootRegistration the root registration, or {@code null} to not use the registry to skip resources
+     * @param keyIndex the key index of the registry, or {@code null} to not use the registry to skip resources
+     * @param pattern the pattern, or {@code null} to visit all the resources
+     * @param action the action
+     */
+    RootResourceIterator(final ResourceAccessControlUtil accessControlUtil, final Resource rootResource,
+                         final ImmutableManagementResourceRegistration rootRegistration, final ObjectNameKeyIndex keyIndex,
+                         final ObjectName pattern, final ResourceAction<T> action) {
         this.accessControlUtil = accessControlUtil;
         this.rootResource = rootResource;
         this.action = action;
+        if (pattern == null) {
+            this.rootRegistration = null;
+            this.keyIndex = null;
+            this.fixedValues = Collections.emptyMap();
+            this.patternKeys = Collections.emptySet();
+            this.otherKeysAllowed = true;
+        } else {
+            this.rootRegistration = keyIndex == null ? null : rootRegistration;
+            this.keyIndex = keyIndex;
+            final Map<String, String> fixedValues = new HashMap<String, String>();
+            final Set<String> patternKeys = new HashSet<String>();
+            for (Map.Entry<String, String> entry : pattern.getKeyPropertyList().entrySet()) {
+                final String key = ObjectNameAddressUtil.replaceEscapedCharactersInKey(entry.getKey());
+                patternKeys.add(key);
+                if (!pattern.isPropertyValuePattern(entry.getKey())) {
+                    fixedValues.put(key, ObjectNameAddressUtil.replaceEscapedCharactersInValue(entry.getValue()));
+                }
+            }
+            this.fixedValues = fixedValues;
+            this.patternKeys = patternKeys;
+            this.otherKeysAllowed = pattern.isPropertyListPattern();
+        }
     }
 
     T iterate() {
-        doIterate(rootResource, PathAddress.EMPTY_ADDRESS);
+        doIterate(rootResource, PathAddress.EMPTY_ADDRESS, rootRegistration, patternKeys);
         return action.getResult();
     }
 
-    private void doIterate(final Resource current, final PathAddress address) {
+    /**
+     * @param registration the registration of the resource, or {@code null} if not known
+     * @param missingKeys the keys of the pattern that are not in the address
+     */
+    private void doIterate(final Resource current, final PathAddress address,
+                           final ImmutableManagementResourceRegistration registration, final Set<String> missingKeys) {
         boolean handleChildren = false;
 
         ObjectName resourceObjectName = action.onAddress(address);
@@ -54,17 +113,47 @@ class RootResourceIterator<T> {
 
         if (handleChildren) {
             for (String type : current.getChildTypes()) {
-                if (current.hasChildren(type)) {
+                if (!otherKeysAllowed && !missingKeys.contains(type)) {
+                    // the ObjectNames of all the resources below would have a key the pattern does not have
+                    continue;
+                }
+                final String value = fixedValues.get(type);
+                if (value != null) {
+                    final PathElement pathElement = PathElement.pathElement(type, value);
+                    final Resource child = current.getChild(pathElement);
+                    if (child != null) {
+                        doIterateChild(child, address, pathElement, registration, missingKeys);
+                    }
+                } else if (current.hasChildren(type)) {
                     for (ResourceEntry entry : current.getChildren(type)) {
-                        final PathElement pathElement = entry.getPathElement();
-                        final PathAddress childAddress = address.append(pathElement);
-                        doIterate(entry, childAddress);
+                        doIterateChild(entry, address, entry.getPathElement(), registration, missingKeys);
                     }
                 }
             }
         }
     }
 
+    private void doIterateChild(final Resource child, final PathAddress address, final PathElement pathElement,
+                                final ImmutableManagementResourceRegistration registration, final Set<String> missingKeys) {
+        Set<String> childMissingKeys = missingKeys;
+        if (missingKeys.contains(pathElement.getKey())) {
+            childMissingKeys = new HashSet<String>(missingKeys);
+            childMissingKeys.remove(pathElement.getKey());
+        }
+        ImmutableManagementResourceRegistration childRegistration = null;
+        if (registration != null) {
+            childRegistration = registration.getSubModel(PathAddress.pathAddress(pathElement));
+            if (childRegistration != null && !childMissingKeys.isEmpty()) {
+                final Set<String> descendantKeys = keyIndex.getDescendantKeys(childRegistration);
+                if (descendantKeys != null && !descendantKeys.containsAll(childMissingKeys)) {
+                    // neither the child nor any of its descendants can have all the keys of the pattern
+                    return;
+                }
+            }
+        }
+        doIterate(child, address.append(pathElement), childRegistration, childMissingKeys);
+    }
+
 
     interface ResourceAction<T> {
         /**
@@ -59,6 +59,9 @@ import javax.management.NotificationFilterSupport;
 import javax.management.NotificationListener;
 import javax.management.ObjectInstance;
 import javax.management.ObjectName;
+import javax.management.Query;
+import javax.management.QueryExp;
+import javax.management.ReflectionException;
 import javax.management.RuntimeOperationsException;
 import javax.management.openmbean.CompositeData;
 import javax.management.openmbean.CompositeDataSupport;
@@ -178,7 +181,40 @@ public class ModelControllerMBeanTestCase extends AbstractSubsystemTest {
         Assert.assertEquals(2, filteredNames.size());
         checkSameMBeans(filteredInstances, filteredNames);
         assertContainsNames(filteredNames, EXPR_SOCKET_BINDING_GROUP_NAME, EXPR_SERVER_SOCKET_BINDING_NAME);
-        // TODO test with QueryExp
+    }
+
+    @Test
+    public void testQueryPatterns() throws Exception {
+        MBeanServerConnection connection = setupAndGetConnection(new BaseAdditionalInitialization(ProcessType.STANDALONE_SERVER));
+
+        //a key of a child resource without the key of its parent
+        Set<ObjectName> names = connection.queryNames(createObjectName(LEGACY_DOMAIN + ":socket-binding=*,*"), null);
+        Assert.assertEquals(1, names.size());
+        assertContainsNames(names, LEGACY_SERVER_SOCKET_BINDING_NAME);
+
+        names = connection.queryNames(createObjectName(LEGACY_DOMAIN + ":socket-binding=server,socket-binding-group=*"), null);
+        Assert.assertEquals(1, names.size());
+        assertContainsNames(names, LEGACY_SERVER_SOCKET_BINDING_NAME);
+
+        Assert.assertTrue(connection.queryNames(createObjectName(LEGACY_DOMAIN + ":socket-binding=other,*"), null).isEmpty());
+        Assert.assertTrue(connection.queryNames(createObjectName(LEGACY_DOMAIN + ":socket-binding=*"), null).isEmpty());
+        Assert.assertTrue(connection.queryNames(createObjectName(LEGACY_DOMAIN + ":subsystem=jmx,socket-binding=*,*"), null).isEmpty());
+    }
+
+    @Test
+    public void testQueryExp() throws Exception {
+        MBeanServerConnection connection = setupAndGetConnection(new BaseAdditionalInitialization(ProcessType.STANDALONE_SERVER));
+
+        QueryExp query = Query.eq(Query.attr("port"), Query.value(12345));
+        Set<ObjectName> names = connection.queryNames(createObjectName(LEGACY_DOMAIN + ":*"), query);
+        Assert.assertEquals(1, names.size());
+        assertContainsNames(names, LEGACY_SERVER_SOCKET_BINDING_NAME);
+        Set<ObjectInstance> instances = connection.queryMBeans(createObjectName(LEGACY_DOMAIN + ":*"), query);
+        Assert.assertEquals(1, instances.size());
+        checkSameMBeans(instances, names);
+
+        Assert.assertTrue(connection.queryNames(createObjectName(LEGACY_DOMAIN + ":*"),
+                Query.eq(Query.attr("port"), Query.value(54321))).isEmpty());
     }
 
     private void checkQueryMBeans(MBeanServerConnection connection, int count, ObjectName filter) throws Exception {
@@ -763,6 +799,55 @@ public class ModelControllerMBeanTestCase extends AbstractSubsystemTest {
                 Collections.singletonList(109), 110, ModelType.STRING);
     }
 
+    @Test
+    public void testReadAttributeListUnknownAttribute() throws Exception {
+        MBeanServerConnection connection = setupAndGetConnection(new MBeanInfoAdditionalInitialization(ProcessType.STANDALONE_SERVER, new TestExtension()));
+
+        ObjectName name = createObjectName(LEGACY_DOMAIN + ":subsystem=test");
+        try {
+            connection.getAttributes(name, new String[]{"int", "unknown"});
+            Assert.fail("unknown is not an attribute");
+        } catch (ReflectionException expected) {
+        }
+    }
+
+    @Test
+    public void testReadAttributeListConfigurationAndRuntime() throws Exception {
+        SubsystemWithRuntimeAttributesExtension extension = new SubsystemWithRuntimeAttributesExtension(false);
+        MBeanServerConnection connection = setupAndGetConnection(new MBeanInfoAdditionalInitialization(ProcessType.STANDALONE_SERVER, extension));
+
+        ObjectName name = createObjectName(LEGACY_DOMAIN + ":subsystem=test");
+        int otherReads = extension.otherReads.get();
+        checkRuntimeAttributeList(connection.getAttributes(name, new String[]{"status", "number", "counter", "text"}));
+        // read with a single read-resource including the runtime attributes, which reads the one not asked for too
+        Assert.assertEquals(otherReads + 1, extension.otherReads.get());
+    }
+
+    @Test
+    public void testReadAttributeListFallsBackToReadAttribute() throws Exception {
+        SubsystemWithRuntimeAttributesExtension extension = new SubsystemWithRuntimeAttributesExtension(true);
+        MBeanServerConnection connection = setupAndGetConnection(new MBeanInfoAdditionalInitialization(ProcessType.STANDALONE_SERVER, extension));
+
+        ObjectName name = createObjectName(LEGACY_DOMAIN + ":subsystem=test");
+        int brokenReads = extension.brokenReads.get();
+        checkRuntimeAttributeList(connection.getAttributes(name, new String[]{"status", "number", "counter", "text"}));
+        // the read-resource failed on the broken attribute, so the others were read one by one
+        Assert.assertTrue(extension.brokenReads.get() > brokenReads);
+    }
+
+    private static void checkRuntimeAttributeList(AttributeList list) {
+        List<Attribute> attributes = list.asList();
+        Assert.assertEquals(4, attributes.size());
+        Assert.assertEquals("status", attributes.get(0).getName());
+        Assert.assertEquals("running", attributes.get(0).getValue());
+        Assert.assertEquals("number", attributes.get(1).getName());
+        Assert.assertEquals(1, attributes.get(1).getValue());
+        Assert.assertEquals("counter", attributes.get(2).getName());
+        Assert.assertEquals(101L, attributes.get(2).getValue());
+        Assert.assertEquals("text", attributes.get(3).getName());
+        Assert.assertEquals("one", attributes.get(3).getValue());
+    }
+
     @Test
     public void testReadWriteAttributeListDomain() throws Exception {
         MBeanServerConnection connection = setupAndGetConnection(new MBeanInfoAdditionalInitialization(ProcessType.DOMAIN_SERVER, new TestExtension()));
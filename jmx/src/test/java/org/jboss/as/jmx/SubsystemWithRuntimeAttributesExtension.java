@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.jmx;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBSYSTEM;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.as.controller.AbstractAddStepHandler;
+import org.jboss.as.controller.Extension;
+import org.jboss.as.controller.ExtensionContext;
+import org.jboss.as.controller.ModelVersion;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.OperationStepHandler;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.ResourceBuilder;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SubsystemRegistration;
+import org.jboss.as.controller.descriptions.NonResolvingResourceDescriptionResolver;
+import org.jboss.as.controller.parsing.ExtensionParsingContext;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.staxmapper.XMLElementReader;
+import org.jboss.staxmapper.XMLExtendedStreamReader;
+
+/**
+ * A subsystem with both configuration and runtime attributes, counting the reads of the runtime attributes that are
+ * not read through JMX, so that tests can tell how the other ones were read.
+ */
+class SubsystemWithRuntimeAttributesExtension implements Extension {
+
+    static final String NAMESPACE = "urn:jboss:mbean.model.test";
+
+    private static final PathElement SUBSYSTEM_PATH = PathElement.pathElement(SUBSYSTEM, "test");
+
+    private static final SimpleAttributeDefinition NUMBER = new SimpleAttributeDefinitionBuilder("number", ModelType.INT, true)
+            .build();
+    private static final SimpleAttributeDefinition TEXT = new SimpleAttributeDefinitionBuilder("text", ModelType.STRING, true)
+            .build();
+    private static final SimpleAttributeDefinition COUNTER = new SimpleAttributeDefinitionBuilder("counter", ModelType.LONG, true)
+            .build();
+    private static final SimpleAttributeDefinition STATUS = new SimpleAttributeDefinitionBuilder("status", ModelType.STRING, true)
+            .build();
+    /** Never read through JMX, so only read by a read-resource */
+    private static final SimpleAttributeDefinition OTHER = new SimpleAttributeDefinitionBuilder("other", ModelType.INT, true)
+            .build();
+    /** Fails to be read, and with it a read-resource including the runtime attributes, unlike a failing metric */
+    private static final SimpleAttributeDefinition BROKEN = new SimpleAttributeDefinitionBuilder("broken", ModelType.INT, true)
+            .setStorageRuntime()
+            .build();
+
+    private final boolean broken;
+    final AtomicInteger otherReads = new AtomicInteger();
+    final AtomicInteger brokenReads = new AtomicInteger();
+
+    SubsystemWithRuntimeAttributesExtension(boolean broken) {
+        this.broken = broken;
+    }
+
+    @Override
+    public void initialize(ExtensionContext context) {
+
+        final SubsystemRegistration subsystem = context.registerSubsystem("test", ModelVersion.create(1));
+
+        ResourceBuilder builder = ResourceBuilder.Factory.create(SUBSYSTEM_PATH, new NonResolvingResourceDescriptionResolver())
+                .setAddOperation(TestSubystemAdd.INSTANCE)
+                .addReadOnlyAttribute(NUMBER)
+                .addReadOnlyAttribute(TEXT)
+                .addMetric(COUNTER, new MetricHandler(new ModelNode(101L), null))
+                .addMetric(STATUS, new MetricHandler(new ModelNode("running"), null))
+                .addMetric(OTHER, new MetricHandler(new ModelNode(102), otherReads));
+
+        final ManagementResourceRegistration registration = subsystem.registerSubsystemModel(builder.build());
+        if (broken) {
+            registration.registerReadOnlyAttribute(BROKEN, new OperationStepHandler() {
+                @Override
+                public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+                    brokenReads.incrementAndGet();
+                    throw new OperationFailedException("broken");
+                }
+            });
+        }
+    }
+
+    @Override
+    public void initializeParsers(ExtensionParsingContext context) {
+        context.setSubsystemXmlMapping("test", NAMESPACE, new TestExtensionParser());
+    }
+
+    static class TestExtensionParser implements XMLElementReader<List<ModelNode>> {
+        @Override
+        public void readElement(XMLExtendedStreamReader reader, List<ModelNode> list) throws XMLStreamException {
+            reader.next();
+            ModelNode add = new ModelNode();
+            add.get(OP).set(ADD);
+            add.get(OP_ADDR).set(PathAddress.pathAddress(SUBSYSTEM_PATH).toModelNode());
+            list.add(add);
+        }
+    }
+
+    static class TestSubystemAdd extends AbstractAddStepHandler {
+        static final TestSubystemAdd INSTANCE = new TestSubystemAdd();
+
+        @Override
+        protected void populateModel(ModelNode operation, ModelNode model) throws OperationFailedException {
+            model.get(NUMBER.getName()).set(1);
+            model.get(TEXT.getName()).set("one");
+        }
+    }
+
+    private static class MetricHandler implements OperationStepHandler {
+        private final ModelNode value;
+        private final AtomicInteger reads;
+
+        MetricHandler(ModelNode value, AtomicInteger reads) {
+            this.value = value;
+            this.reads = reads;
+        }
+
+        @Override
+        public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+            if (reads != null) {
+                reads.incrementAndGet();
+            }
+            context.getResult().set(value);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.jmx.model;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ATTRIBUTES;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.ProcessType;
+import org.jboss.as.controller.ResourceBuilder;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.descriptions.NonResolvingResourceDescriptionResolver;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares what {@link ModelControllerMBeanHelper} spends per attribute read on resolving the attribute name and
+ * description: {@code uncached} generates the resource description on each read, as the helper used to, while
+ * {@code cached} goes through the {@link RegistrationInfoCache}. The read of the attribute value itself is left out.
+ * Not run as part of the test suite; run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistrationInfoCacheBenchmark {
+
+    private static final PathAddress ADDRESS = PathAddress.pathAddress("subsystem", "foo");
+
+    /** Number of attributes of the resource */
+    @Param({"5", "50"})
+    public int attributes;
+
+    private ManagementResourceRegistration registration;
+    private RegistrationInfoCache cache;
+    private String attributeName;
+
+    @Setup
+    public void setup() {
+        ManagementResourceRegistration root = ManagementResourceRegistration.Factory.create(
+                ResourceBuilder.Factory.create(PathElement.pathElement("test"), NonResolvingResourceDescriptionResolver.INSTANCE).build());
+        registration = root.registerSubModel(new SimpleResourceDefinition(ADDRESS.getLastElement(), NonResolvingResourceDescriptionResolver.INSTANCE));
+        for (int i = 0; i < attributes; ++i) {
+            registration.registerReadOnlyAttribute(SimpleAttributeDefinitionBuilder.create("attribute-" + i, ModelType.STRING).build(), null);
+        }
+        cache = new RegistrationInfoCache(TypeConverters.createLegacyTypeConverters(true), new ConfiguredDomains("jboss.as", "jboss.as.expr"),
+                MutabilityChecker.create(ProcessType.STANDALONE_SERVER, false));
+        // the camel case name of the last attribute, the worst case for the old lookup
+        attributeName = "attribute" + (attributes - 1);
+    }
+
+    @Benchmark
+    public ModelNode uncached() throws Exception {
+        final ModelNode description = registration.getModelDescription(PathAddress.EMPTY_ADDRESS).getModelDescription(null);
+        final ModelNode descriptions = description.get(ATTRIBUTES);
+        for (String key : descriptions.keys()) {
+            if (NameConverter.convertToCamelCase(key).equals(attributeName)) {
+                return descriptions.require(key);
+            }
+        }
+        throw new IllegalStateException(attributeName);
+    }
+
+    @Benchmark
+    public ModelNode cached() throws Exception {
+        final RegistrationInfoCache.RegistrationInfo info = cache.getInfo(ADDRESS, registration);
+        return info.getAttributeDescription(info.getAttributeName(attributeName));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RegistrationInfoCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.jmx.model;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.ProcessType;
+import org.jboss.as.controller.ResourceBuilder;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.descriptions.NonResolvingResourceDescriptionResolver;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.dmr.ModelType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link RegistrationInfoCache}.
+ */
+public class RegistrationInfoCacheTestCase {
+
+    private static final PathAddress ADDRESS = PathAddress.pathAddress("subsystem", "foo");
+
+    private ManagementResourceRegistration rootRegistration;
+    private ManagementResourceRegistration registration;
+    private RegistrationInfoCache cache;
+
+    @Before
+    public void setup() {
+        rootRegistration = ManagementResourceRegistration.Factory.create(
+                ResourceBuilder.Factory.create(PathElement.pathElement("test"), NonResolvingResourceDescriptionResolver.INSTANCE).build());
+        registration = rootRegistration.registerSubModel(new SimpleResourceDefinition(ADDRESS.getLastElement(), NonResolvingResourceDescriptionResolver.INSTANCE));
+        registration.registerReadOnlyAttribute(SimpleAttributeDefinitionBuilder.create("max-size", ModelType.INT).build(), null);
+        cache = new RegistrationInfoCache(TypeConverters.createLegacyTypeConverters(true), new ConfiguredDomains("jboss.as", "jboss.as.expr"),
+                MutabilityChecker.create(ProcessType.STANDALONE_SERVER, false));
+    }
+
+    @Test
+    public void testAttributeNames() throws Exception {
+        RegistrationInfoCache.RegistrationInfo info = cache.getInfo(ADDRESS, registration);
+        Assert.assertEquals("max-size", info.getAttributeName("max-size"));
+        Assert.assertEquals("max-size", info.getAttributeName("maxSize"));
+        Assert.assertEquals(ModelType.INT, info.getAttributeDescription("max-size").require("type").asType());
+        try {
+            info.getAttributeName("min-size");
+            Assert.fail("min-size is not registered");
+        } catch (AttributeNotFoundException expected) {
+        }
+    }
+
+    @Test
+    public void testInfoIsCachedUntilRegistrationsChange() throws Exception {
+        long count = registration.getModificationCount();
+        Assert.assertEquals(count, rootRegistration.getModificationCount());
+        RegistrationInfoCache.RegistrationInfo info = cache.getInfo(ADDRESS, registration);
+        Assert.assertSame(info, cache.getInfo(ADDRESS, registration));
+        ObjectName name = ObjectNameAddressUtil.createObjectName("jboss.as", ADDRESS);
+        MBeanInfo mbeanInfo = info.getMBeanInfo(name, ADDRESS);
+        Assert.assertSame(mbeanInfo, info.getMBeanInfo(name, ADDRESS));
+
+        //a change anywhere in the tree invalidates everything
+        rootRegistration.registerSubModel(new SimpleResourceDefinition(PathElement.pathElement("subsystem", "bar"), NonResolvingResourceDescriptionResolver.INSTANCE));
+        Assert.assertNotEquals(count, registration.getModificationCount());
+        Assert.assertNotSame(info, cache.getInfo(ADDRESS, registration));
+        Assert.assertEquals(1, cache.size());
+
+        registration.registerReadOnlyAttribute(SimpleAttributeDefinitionBuilder.create("min-size", ModelType.INT).build(), null);
+        info = cache.getInfo(ADDRESS, registration);
+        Assert.assertEquals("min-size", info.getAttributeName("minSize"));
+        Assert.assertNotSame(mbeanInfo, info.getMBeanInfo(name, ADDRESS));
+        Assert.assertEquals(2, info.getMBeanInfo(name, ADDRESS).getAttributes().length);
+    }
+
+    @Test
+    public void testMBeanInfosOfRemovedResourcesAreDropped() throws Exception {
+        ManagementResourceRegistration wildcard = registration.registerSubModel(
+                new SimpleResourceDefinition(PathElement.pathElement("pool"), NonResolvingResourceDescriptionResolver.INSTANCE));
+        PathAddress a = ADDRESS.append("pool", "a");
+        PathAddress b = ADDRESS.append("pool", "b");
+        RegistrationInfoCache.RegistrationInfo info = cache.getInfo(a, wildcard);
+        MBeanInfo infoA = info.getMBeanInfo(ObjectNameAddressUtil.createObjectName("jboss.as", a), a);
+        info.getMBeanInfo(ObjectNameAddressUtil.createObjectName("jboss.as", b), b);
+        Assert.assertEquals(2, info.getMBeanInfoCount());
+
+        cache.resourceRemoved(b);
+        Assert.assertEquals(1, info.getMBeanInfoCount());
+        Assert.assertSame(infoA, info.getMBeanInfo(ObjectNameAddressUtil.createObjectName("jboss.as", a), a));
+
+        //removing the parent drops its children
+        cache.resourceRemoved(ADDRESS);
+        Assert.assertEquals(0, info.getMBeanInfoCount());
+    }
+
+    @Test
+    public void testMBeanInfosAreBounded() throws Exception {
+        ManagementResourceRegistration wildcard = registration.registerSubModel(
+                new SimpleResourceDefinition(PathElement.pathElement("pool"), NonResolvingResourceDescriptionResolver.INSTANCE));
+        RegistrationInfoCache.RegistrationInfo info = cache.getInfo(ADDRESS.append("pool", "0"), wildcard);
+        for (int i = 0; i < RegistrationInfoCache.MAX_MBEAN_INFOS * 2; i++) {
+            PathAddress address = ADDRESS.append("pool", String.valueOf(i));
+            info.getMBeanInfo(ObjectNameAddressUtil.createObjectName("jboss.as", address), address);
+            Assert.assertTrue(info.getMBeanInfoCount() <= RegistrationInfoCache.MAX_MBEAN_INFOS);
+        }
+    }
+
+    @Test
+    public void testDescriptionsAreCopies() throws Exception {
+        RegistrationInfoCache.RegistrationInfo info = cache.getInfo(ADDRESS, registration);
+        info.getAttributeDescription("max-size").get("type").set(ModelType.STRING);
+        Assert.assertEquals(ModelType.INT, info.getAttributeDescription("max-size").require("type").asType());
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A stream of the lines appended to a log file, which ends after a given time.
+ * <p>
+ * The stream starts with the last lines of the file, or at an offset returned by an earlier stream, then waits for more
+ * to be logged. When the file is rotated, the rest of the rotated file is read and the stream ends, as it does when the
+ * file is truncated, so that the offsets of a stream are always those of a single file. A file replaced by another one
+ * is detected by its {@linkplain BasicFileAttributes#fileKey() key}, or if the file system has none, by the new file
+ * being smaller.
+ */
+final class LogFileFollowInputStream extends InputStream {
+
+    static final long POLL_INTERVAL = 500;
+
+    private final Path path;
+    private final long deadline;
+    private final FileChannel channel;
+    private final Object fileKey;
+    private volatile boolean closed;
+    private long startOffset;
+    private long position;
+
+    /**
+     * Creates a stream starting with the last lines of the file.
+     *
+     * @param path the log file
+     * @param lines the number of lines before the end of the file to start with, {@code -1} for the whole file
+     * @param duration how long in milliseconds to wait for more lines
+     * @throws IOException if the file cannot be read
+     */
+    LogFileFollowInputStream(final Path path, final int lines, final long duration) throws IOException {
+        this(path, duration);
+        final long size = channel.size();
+        if (lines < 0) {
+            position = 0;
+        } else if (lines == 0 || size == 0) {
+            position = size;
+        } else {
+            position = LogFileLineReader.findLineFromEnd(channel, size, lines)[0];
+        }
+        startOffset = position;
+    }
+
+    /**
+     * Creates a stream resuming where an earlier one ended. If the file has been rotated or truncated since, the stream
+     * starts at the beginning of the current file.
+     *
+     * @param path the log file
+     * @param fileKey the {@linkplain #getFileKey() key} of the file the earlier stream read, or {@code null} if unknown
+     * @param offset the offset in the file the earlier stream ended at
+     * @param duration how long in milliseconds to wait for more lines
+     * @throws IOException if the file cannot be read
+     */
+    LogFileFollowInputStream(final Path path, final String fileKey, final long offset, final long duration) throws IOException {
+        this(path, duration);
+        final boolean sameFile = fileKey == null || fileKey.equals(getFileKey());
+        position = sameFile && offset <= channel.size() ? offset : 0;
+        startOffset = position;
+    }
+
+    private LogFileFollowInputStream(final Path path, final long duration) throws IOException {
+        this.path = path;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(duration);
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+
+    /**
+     * Returns the key identifying the file read, so that a later stream can detect whether it has been rotated.
+     *
+     * @return the key, or {@code null} if the file system does not provide one
+     */
+    String getFileKey() {
+        return fileKey == null ? null : fileKey.toString();
+    }
+
+    /**
+     * Returns the offset in the file the stream starts at. The offset the stream ended at is this offset plus the
+     * number of bytes read.
+     *
+     * @return the offset
+     */
+    long getStartOffset() {
+        return startOffset;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public synchronized int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (!closed) {
+            final long size = channel.size();
+            if (size < position) {
+                // Truncated
+                return -1;
+            } else if (size > position) {
+                final int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, size - position)), position);
+                if (read > 0) {
+                    position += read;
+                    return read;
+                }
+            } else if (isReplaced() || System.nanoTime() - deadline >= 0) {
+                return -1;
+            } else {
+                try {
+                    Thread.sleep(POLL_INTERVAL);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public synchronized int available() throws IOException {
+        if (closed) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, channel.size() - position));
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        // Not synchronized, so a read waiting for more lines is not holding it up
+        channel.close();
+    }
+
+    /**
+     * Checks whether the file at the path is not the file being read anymore, which has been read completely.
+     *
+     * @return {@code true} if the file has been rotated
+     */
+    private boolean isReplaced() throws IOException {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // Rotated, but the new file is not created yet
+            return true;
+        }
+        return fileKey != null ? !fileKey.equals(attributes.fileKey()) : attributes.size() < position;
+    }
+}
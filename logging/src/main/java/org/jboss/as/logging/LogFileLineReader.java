@@ -0,0 +1,407 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.logging;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads pages of lines of log files for the {@code read-log-file} operations.
+ * <p>
+ * The file is read in blocks. Lines near the end of the file are found by scanning it backwards from the end, and
+ * lines further from either end by a sparse index holding the offset of every {@value #INDEX_INTERVAL}th line. The
+ * index of a file is built the first time it is needed and kept for the next pages. If the file grew since, only the
+ * new bytes are indexed; if it was replaced or truncated, e.g. when it was rotated, the index is built again.
+ * <p>
+ * Lines end with {@code \n}, {@code \r} or {@code \r\n}, as for {@link BufferedReader#readLine()}. The bytes are only
+ * scanned for them with encodings which encode them, and every other ASCII character, as single bytes which are not
+ * part of the encoding of other characters. Files in other encodings, such as UTF-16, are decoded from the start by a
+ * reader instead.
+ */
+final class LogFileLineReader {
+
+    /** The number of lines between two offsets of the index */
+    static final int INDEX_INTERVAL = 1024;
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final int MAX_INDEXES = 16;
+
+    /** Shared by the operations reading the log files, so they share the indexes */
+    static final LogFileLineReader INSTANCE = new LogFileLineReader();
+
+    private final Map<Path, LineIndex> indexes = new LinkedHashMap<Path, LineIndex>(MAX_INDEXES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Path, LineIndex> eldest) {
+            return size() > MAX_INDEXES;
+        }
+    };
+
+    /**
+     * Reads lines of a log file.
+     *
+     * @param file the log file
+     * @param encoding the encoding of the file, {@code null} for the default encoding
+     * @param tail {@code true} to count the lines to skip from the end of the file
+     * @param skip the number of lines to skip
+     * @param numberOfLines the number of lines to read, {@code -1} to read all the remaining lines
+     * @return the lines in the order they appear in the file
+     * @throws IOException if the file cannot be read or the encoding is not supported
+     */
+    List<String> readLines(final File file, final String encoding, final boolean tail, final int skip, final int numberOfLines) throws IOException {
+        final Charset charset = getCharset(encoding);
+        final Path path = file.toPath().toAbsolutePath();
+        if (!isAsciiCompatible(charset)) {
+            return readDecodedLines(path, charset, tail, skip, numberOfLines);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Read up to the current end of the file, even if more is being logged
+            final long size = channel.size();
+            if (numberOfLines == 0 || size == 0) {
+                return Collections.emptyList();
+            }
+            if (tail && numberOfLines > 0 && skip < INDEX_INTERVAL) {
+                // The lines are close to the end, no need for the index
+                final long[] start = findLineFromEnd(channel, size, (long) skip + numberOfLines);
+                final long count = Math.min(numberOfLines, start[1] - skip);
+                return count > 0 ? read(channel, size, start[0], 0, count, charset) : Collections.<String>emptyList();
+            } else if (!tail && skip < INDEX_INTERVAL) {
+                return read(channel, size, 0, skip, numberOfLines, charset);
+            }
+            final LineIndex index = getIndex(path, channel, size);
+            final long first;
+            final long count;
+            final long offset;
+            final long end;
+            synchronized (index) {
+                final long lineCount = index.getLineCount();
+                if (tail) {
+                    final long last = lineCount - skip;
+                    first = numberOfLines < 0 ? 0 : Math.max(0, last - numberOfLines);
+                    count = last - first;
+                } else {
+                    first = skip;
+                    count = numberOfLines < 0 ? lineCount - first : Math.min(numberOfLines, lineCount - first);
+                }
+                offset = index.getOffset(first);
+                // Another read may have indexed more of the file
+                end = index.getIndexedSize();
+            }
+            if (count <= 0) {
+                return Collections.emptyList();
+            }
+            return read(channel, end, offset, (int) (first % INDEX_INTERVAL), count, charset);
+        }
+    }
+
+    /**
+     * Reads lines of a file in an encoding whose line ends cannot be found by scanning the bytes, decoding it from the
+     * start. Only the lines which could be returned are kept.
+     */
+    private static List<String> readDecodedLines(final Path path, final Charset charset, final boolean tail, final int skip, final int numberOfLines) throws IOException {
+        if (numberOfLines == 0) {
+            return Collections.emptyList();
+        }
+        final ArrayDeque<String> lines = new ArrayDeque<>();
+        // Malformed input is replaced rather than failing the read, as Files.newBufferedReader would
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(path), charset))) {
+            long lineCount = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (tail) {
+                    lines.addLast(line);
+                    if (numberOfLines > 0 && lines.size() > (long) skip + numberOfLines) {
+                        lines.removeFirst();
+                    }
+                } else if (++lineCount > skip) {
+                    lines.addLast(line);
+                    if (lines.size() == numberOfLines) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (tail) {
+            // Drop the skipped lines at the end
+            for (int i = 0; i < skip && !lines.isEmpty(); ++i) {
+                lines.removeLast();
+            }
+        }
+        return new ArrayList<>(lines);
+    }
+
+    /**
+     * Whether the line ends, and the other ASCII characters, are encoded as single bytes of the same value, so that the
+     * bytes can be scanned for the line ends.
+     */
+    static boolean isAsciiCompatible(final Charset charset) {
+        final byte[] ascii = new byte[128];
+        for (int i = 0; i < ascii.length; ++i) {
+            ascii[i] = (byte) i;
+        }
+        return Arrays.equals(ascii, new String(ascii, StandardCharsets.US_ASCII).getBytes(charset));
+    }
+
+    private LineIndex getIndex(final Path path, final FileChannel channel, final long size) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        final LineIndex index;
+        synchronized (indexes) {
+            LineIndex current = indexes.get(path);
+            if (current == null || !current.isSameFile(attributes, size)) {
+                current = new LineIndex(attributes);
+                indexes.put(path, current);
+            }
+            index = current;
+        }
+        synchronized (index) {
+            index.update(channel, size);
+        }
+        return index;
+    }
+
+    /**
+     * Scans a file backwards for the start of a line.
+     *
+     * @return the offset of the {@code n}th line from the end, or of the first line if the file has less lines, and
+     * the number of lines found
+     */
+    static long[] findLineFromEnd(final FileChannel channel, final long size, final long n) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+        final byte[] bytes = buffer.array();
+        long found = 0;
+        // The byte after the one being looked at, -1 after the end
+        int next = -1;
+        long end = size;
+        while (end > 0) {
+            final long start = Math.max(0, end - BLOCK_SIZE);
+            final int length = (int) (end - start);
+            readFully(channel, buffer, start, length);
+            for (int i = length - 1; i >= 0; --i) {
+                final byte b = bytes[i];
+                long lineStart = -1;
+                if (b == '\r') {
+                    lineStart = start + i + (next == '\n' ? 2 : 1);
+                } else if (b == '\n' && (i > 0 ? bytes[i - 1] : readByte(channel, start - 1)) != '\r') {
+                    lineStart = start + i + 1;
+                }
+                // A line end at the very end terminates the last line, it does not start a new one
+                if (lineStart >= 0 && lineStart < size && ++found == n) {
+                    return new long[] {lineStart, found};
+                }
+                next = b;
+            }
+            end = start;
+        }
+        // The first line starts at the beginning of the file
+        return new long[] {0, found + 1};
+    }
+
+    /**
+     * Reads lines forward from the start of a line.
+     */
+    static List<String> read(final FileChannel channel, final long size, final long offset, final int skip, final long count, final Charset charset) throws IOException {
+        final List<String> lines = new ArrayList<>(count < 0 || count > INDEX_INTERVAL ? 16 : (int) count);
+        final ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+        final byte[] bytes = buffer.array();
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        int skipped = 0;
+        long position = offset;
+        // A \n after a \r is part of the line end
+        int previous = readByte(channel, offset - 1);
+        while (position < size && (count < 0 || lines.size() < count)) {
+            final int length = (int) Math.min(BLOCK_SIZE, size - position);
+            readFully(channel, buffer, position, length);
+            position += length;
+            int lineStart = 0;
+            for (int i = 0; i < length && (count < 0 || lines.size() < count); ++i) {
+                final byte b = bytes[i];
+                if (b == '\n' && previous == '\r') {
+                    previous = b;
+                    lineStart = i + 1;
+                    continue;
+                }
+                previous = b;
+                if (b != '\n' && b != '\r') {
+                    continue;
+                }
+                if (skipped < skip) {
+                    ++skipped;
+                } else if (lineLength == 0) {
+                    lines.add(decode(bytes, lineStart, i - lineStart, charset));
+                } else {
+                    line = append(line, lineLength, bytes, lineStart, i - lineStart);
+                    lines.add(decode(line, 0, lineLength + i - lineStart, charset));
+                }
+                lineLength = 0;
+                lineStart = i + 1;
+            }
+            if (skipped == skip && lineStart < length && (count < 0 || lines.size() < count)) {
+                // The line continues in the next block
+                line = append(line, lineLength, bytes, lineStart, length - lineStart);
+                lineLength += length - lineStart;
+            }
+        }
+        if (lineLength > 0 && (count < 0 || lines.size() < count)) {
+            // The last line of the file without a line feed
+            lines.add(decode(line, 0, lineLength, charset));
+        }
+        return lines;
+    }
+
+    private static byte[] append(final byte[] line, final int lineLength, final byte[] bytes, final int offset, final int length) {
+        final byte[] result = lineLength + length > line.length ? Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length)) : line;
+        System.arraycopy(bytes, offset, result, lineLength, length);
+        return result;
+    }
+
+    private static String decode(final byte[] bytes, final int offset, final int length, final Charset charset) {
+        return new String(bytes, offset, length, charset);
+    }
+
+    /**
+     * @return the byte at the position, or {@code -1} if it is outside of the file
+     */
+    private static int readByte(final FileChannel channel, final long position) throws IOException {
+        if (position < 0) {
+            return -1;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(1);
+        return channel.read(buffer, position) == 1 ? buffer.get(0) : -1;
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position, final int length) throws IOException {
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                // Truncated while reading
+                Arrays.fill(buffer.array(), buffer.position(), length, (byte) 0);
+                break;
+            }
+        }
+    }
+
+    private static Charset getCharset(final String encoding) throws UnsupportedEncodingException {
+        if (encoding == null) {
+            return Charset.defaultCharset();
+        }
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedEncodingException(encoding);
+        }
+    }
+
+    /**
+     * The offsets of every {@link #INDEX_INTERVAL}th line of a file, guarded by the instance monitor.
+     */
+    static final class LineIndex {
+
+        private final Object fileKey;
+        private final long creationTime;
+        private long[] offsets = new long[16];
+        private int offsetCount = 1;
+        /** The number of line ends in the indexed part of the file */
+        private long lineEnds;
+        private long indexedSize;
+        /** The last indexed byte, {@code -1} if none */
+        private int lastByte = -1;
+
+        LineIndex(final BasicFileAttributes attributes) {
+            this.fileKey = attributes.fileKey();
+            this.creationTime = attributes.creationTime().toMillis();
+        }
+
+        boolean isSameFile(final BasicFileAttributes attributes, final long size) {
+            synchronized (this) {
+                return Objects.equals(fileKey, attributes.fileKey()) && creationTime == attributes.creationTime().toMillis() && size >= indexedSize;
+            }
+        }
+
+        /**
+         * Indexes the bytes appended to the file since the last update.
+         */
+        void update(final FileChannel channel, final long size) throws IOException {
+            if (size <= indexedSize) {
+                return;
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+            final byte[] bytes = buffer.array();
+            long position = indexedSize;
+            while (position < size) {
+                final int length = (int) Math.min(BLOCK_SIZE, size - position);
+                readFully(channel, buffer, position, length);
+                for (int i = 0; i < length; ++i) {
+                    final byte b = bytes[i];
+                    // A \n after a \r is part of the same line end, the line starts after it
+                    if ((b == '\r' || b == '\n' && lastByte != '\r') && ++lineEnds % INDEX_INTERVAL == 0) {
+                        if (offsetCount == offsets.length) {
+                            offsets = Arrays.copyOf(offsets, offsetCount * 2);
+                        }
+                        offsets[offsetCount++] = position + i + 1;
+                    }
+                    lastByte = b;
+                }
+                position += length;
+            }
+            indexedSize = size;
+        }
+
+        long getIndexedSize() {
+            return indexedSize;
+        }
+
+        /**
+         * @return the number of lines, counting a last line without a line feed
+         */
+        long getLineCount() {
+            return indexedSize == 0 || lastByte == '\n' || lastByte == '\r' ? lineEnds : lineEnds + 1;
+        }
+
+        /**
+         * @return the offset of the last indexed line before or at the given line
+         */
+        long getOffset(final long line) {
+            return offsets[(int) Math.min(line / INDEX_INTERVAL, offsetCount - 1)];
+        }
+    }
+}
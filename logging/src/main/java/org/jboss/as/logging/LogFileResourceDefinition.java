@@ -24,20 +24,16 @@ package org.jboss.as.logging;
 
 import static org.jboss.as.logging.CommonAttributes.ENCODING;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.RandomAccessFile;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.OperationContext;
@@ -53,7 +49,9 @@ import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.access.constraint.SensitivityClassification;
 import org.jboss.as.controller.access.management.AccessConstraintDefinition;
 import org.jboss.as.controller.access.management.SensitiveTargetAccessConstraintDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.operations.validation.IntRangeValidator;
+import org.jboss.as.controller.operations.validation.LongRangeValidator;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry.Flag;
 import org.jboss.as.controller.services.path.PathManager;
@@ -119,6 +117,36 @@ class LogFileResourceDefinition extends SimpleResourceDefinition {
             .setRuntimeOnly()
             .build();
 
+    static final SimpleAttributeDefinition DURATION = SimpleAttributeDefinitionBuilder.create("duration", ModelType.INT, true)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(60))
+            .setValidator(new IntRangeValidator(1, 3600, true, true))
+            .setMeasurementUnit(MeasurementUnit.SECONDS)
+            .build();
+
+    static final SimpleAttributeDefinition FILE_KEY = SimpleAttributeDefinitionBuilder.create("file-key", ModelType.STRING, true)
+            .setAllowExpression(false)
+            .build();
+
+    static final SimpleAttributeDefinition OFFSET = SimpleAttributeDefinitionBuilder.create("offset", ModelType.LONG, true)
+            .setAllowExpression(false)
+            .setValidator(new LongRangeValidator(0, true))
+            .setMeasurementUnit(MeasurementUnit.BYTES)
+            .build();
+
+    static final SimpleAttributeDefinition STREAM = SimpleAttributeDefinitionBuilder.create("stream", ModelType.STRING, false)
+            .setAllowExpression(false)
+            .build();
+
+    static final SimpleOperationDefinition FOLLOW_LOG_FILE = new SimpleOperationDefinitionBuilder("follow-log-file", LoggingExtension.getResourceDescriptionResolver())
+            .addAccessConstraint(VIEW_SERVER_LOGS)
+            .setParameters(LINES, DURATION, FILE_KEY, OFFSET)
+            .setReplyType(ModelType.OBJECT)
+            .setReplyParameters(STREAM, FILE_KEY, OFFSET)
+            .setReadOnly()
+            .setRuntimeOnly()
+            .build();
+
     static final PathElement LOG_FILE_PATH = PathElement.pathElement("log-file");
 
     private final PathManager pathManager;
@@ -135,6 +163,7 @@ class LogFileResourceDefinition extends SimpleResourceDefinition {
     public void registerOperations(final ManagementResourceRegistration resourceRegistration) {
         super.registerOperations(resourceRegistration);
         resourceRegistration.registerOperationHandler(READ_LOG_FILE, new ReadLogFileOperation(pathManager));
+        resourceRegistration.registerOperationHandler(FOLLOW_LOG_FILE, new FollowLogFileOperation(pathManager));
 
     }
 
@@ -243,7 +272,7 @@ class LogFileResourceDefinition extends SimpleResourceDefinition {
                 if (numberOfLines == 0) {
                     lines = Collections.emptyList();
                 } else {
-                    lines = readLines(path, encoding, tail, skip, numberOfLines);
+                    lines = LogFileLineReader.INSTANCE.readLines(path, encoding, tail, skip, numberOfLines);
                 }
                 final ModelNode result = context.getResult().setEmptyList();
                 for (String line : lines) {
@@ -254,94 +283,57 @@ class LogFileResourceDefinition extends SimpleResourceDefinition {
             }
             context.completeStep(ResultHandler.NOOP_RESULT_HANDLER);
         }
-
-        private List<String> readLines(final File file, final String encoding, final boolean tail, final int skip, final int numberOfLines) throws IOException {
-            final List<String> lines;
-            if (numberOfLines < 0) {
-                lines = new ArrayList<>();
-            } else {
-                lines = new ArrayList<>(numberOfLines);
-            }
-            try (
-                    final InputStream in = (tail ? new LifoFileInputStream(file) : Files.newInputStream(file.toPath()));
-                    final InputStreamReader isr = (encoding == null ? new InputStreamReader(in) : new InputStreamReader(in, encoding));
-                    final BufferedReader reader = new BufferedReader(isr)
-            ) {
-                int lineCount = 0;
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if (++lineCount <= skip) continue;
-                    if (lines.size() == numberOfLines) break;
-                    lines.add(line);
-                }
-                if (tail) {
-                    Collections.reverse(lines);
-                }
-                return lines;
-            }
-        }
     }
 
-    static final class LifoFileInputStream extends InputStream {
-        private final RandomAccessFile raf;
-        private final long len;
-        private long start;
-        private long end;
-        private long pos;
-
-        LifoFileInputStream(final File file) throws IOException {
-            raf = new RandomAccessFile(file, "r");
-            len = raf.length();
-            start = len;
-            end = len;
-            pos = end;
-        }
+    /**
+     * Provides the lines logged to a log file as a response attachment, until the requested duration has elapsed or
+     * the file is rotated.
+     * <p/>
+     * The attachment is read from the file as it is written to the remote client, so the lines logged while the
+     * client reads it are included. See {@link LogFileFollowInputStream}. The result holds the key of the file and the
+     * offset the attachment starts at, which the client passes back with the number of bytes read added to resume.
+     */
+    static class FollowLogFileOperation implements OperationStepHandler {
 
-        private void positionFile() throws IOException {
-            end = start;
-            // If we're at the beginning of the file, nothing more to read
-            if (end == 0) {
-                end = -1;
-                start = -1;
-                pos = -1;
-                return;
-            }
+        private final PathManager pathManager;
 
-            long filePointer = start - 1;
-            while (true) {
-                filePointer--;
-                // We're at the start of the file
-                if (filePointer < 0) {
-                    break;
-                }
-                // Position the file
-                raf.seek(filePointer);
-                final byte readByte = raf.readByte();
-                // If the byte is a line feed we've found the next line ignoring the last line feed in the file
-                if (readByte == '\n' && filePointer != (len - 1)) {
-                    break;
-                }
-            }
-            start = filePointer + 1;
-            pos = start;
+        private FollowLogFileOperation(final PathManager pathManager) {
+            this.pathManager = pathManager;
         }
 
         @Override
-        public int read() throws IOException {
-            if (pos < end) {
-                raf.seek(pos++);
-                return raf.readByte();
-            } else if (pos < 0) {
-                return -1;
-            } else {
-                positionFile();
-                return read();
+        public void execute(final OperationContext context, final ModelNode operation) throws OperationFailedException {
+            for (AttributeDefinition attribute : FOLLOW_LOG_FILE.getParameters()) {
+                attribute.validateOperation(operation);
             }
-        }
+            final int numberOfLines = LINES.resolveModelAttribute(context, operation).asInt();
+            final int duration = DURATION.resolveModelAttribute(context, operation).asInt();
+            final ModelNode fileKey = FILE_KEY.resolveModelAttribute(context, operation);
+            final ModelNode offset = OFFSET.resolveModelAttribute(context, operation);
+            final String fileName = LoggingOperations.getAddressName(operation);
+            final Path path = Paths.get(pathManager.resolveRelativePathEntry(fileName, ServerEnvironment.SERVER_LOG_DIR));
 
-        @Override
-        public void close() throws IOException {
-            raf.close();
+            if (Files.notExists(path)) {
+                throw LoggingLogger.ROOT_LOGGER.logFileNotFound(fileName, ServerEnvironment.SERVER_LOG_DIR);
+            }
+            try {
+                final long durationMillis = TimeUnit.SECONDS.toMillis(duration);
+                final LogFileFollowInputStream stream = offset.isDefined()
+                        ? new LogFileFollowInputStream(path, fileKey.isDefined() ? fileKey.asString() : null, offset.asLong(), durationMillis)
+                        : new LogFileFollowInputStream(path, numberOfLines, durationMillis);
+                final ModelNode result = context.getResult();
+                result.get(STREAM.getName()).set(context.attachResultStream("text/plain", stream));
+                final String streamFileKey = stream.getFileKey();
+                if (streamFileKey != null) {
+                    result.get(FILE_KEY.getName()).set(streamFileKey);
+                } else {
+                    result.get(FILE_KEY.getName());
+                }
+                result.get(OFFSET.getName()).set(stream.getStartOffset());
+            } catch (IOException e) {
+                throw LoggingLogger.ROOT_LOGGER.failedToReadLogFile(e, fileName);
+            }
+            context.completeStep(ResultHandler.NOOP_RESULT_HANDLER);
         }
     }
 }
@@ -0,0 +1,199 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link LogFileFollowInputStream}.
+ */
+public class LogFileFollowInputStreamTestCase {
+
+    private Path directory;
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        directory = Files.createTempDirectory("log-follow");
+        file = directory.resolve("server.log");
+        Files.createFile(file);
+    }
+
+    @After
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(directory.resolve("server.log.1"));
+        Files.deleteIfExists(file);
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testStartsWithLastLines() throws IOException {
+        append(file, "a\nb\nc\n");
+        try (InputStream in = new LogFileFollowInputStream(file, 2, 0)) {
+            Assert.assertEquals("b\nc\n", readAll(in));
+        }
+        try (InputStream in = new LogFileFollowInputStream(file, -1, 0)) {
+            Assert.assertEquals("a\nb\nc\n", readAll(in));
+        }
+        try (InputStream in = new LogFileFollowInputStream(file, 0, 0)) {
+            Assert.assertEquals("", readAll(in));
+        }
+    }
+
+    @Test
+    public void testFollowsAppendedLines() throws Exception {
+        append(file, "a\n");
+        try (InputStream in = new LogFileFollowInputStream(file, 0, 60000)) {
+            Assert.assertEquals(0, in.available());
+            append(file, "b\n");
+            Assert.assertEquals(2, in.available());
+            Assert.assertEquals("b\n", read(in, 2));
+            appendLater(file, "c\n");
+            // waits for the line to be logged
+            Assert.assertEquals("c\n", read(in, 2));
+        }
+    }
+
+    @Test
+    public void testEndsWhenFileIsRotated() throws Exception {
+        append(file, "a\n");
+        try (InputStream in = new LogFileFollowInputStream(file, 1, 60000)) {
+            Assert.assertEquals("a\n", read(in, 2));
+            append(file, "b\n");
+            Files.move(file, directory.resolve("server.log.1"), StandardCopyOption.ATOMIC_MOVE);
+            append(file, "c\n");
+            // the rest of the rotated file is read before the stream ends
+            Assert.assertEquals("b\n", readAll(in));
+        }
+    }
+
+    @Test
+    public void testEndsWhenFileIsTruncated() throws Exception {
+        append(file, "first line\n");
+        try (InputStream in = new LogFileFollowInputStream(file, 1, 60000)) {
+            Assert.assertEquals("first line\n", read(in, 11));
+            Files.write(file, "a\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+            Assert.assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testResumes() throws Exception {
+        append(file, "a\nb\n");
+        final String fileKey;
+        final long offset;
+        try (LogFileFollowInputStream in = new LogFileFollowInputStream(file, 1, 0)) {
+            Assert.assertEquals(2, in.getStartOffset());
+            offset = in.getStartOffset() + readAll(in).length();
+            fileKey = in.getFileKey();
+        }
+        append(file, "c\n");
+        try (LogFileFollowInputStream in = new LogFileFollowInputStream(file, fileKey, offset, 0)) {
+            Assert.assertEquals(offset, in.getStartOffset());
+            Assert.assertEquals("c\n", readAll(in));
+        }
+
+        // a truncated file is read from the start
+        Files.write(file, "d\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+        try (LogFileFollowInputStream in = new LogFileFollowInputStream(file, fileKey, offset + 2, 0)) {
+            Assert.assertEquals(0, in.getStartOffset());
+            Assert.assertEquals("d\n", readAll(in));
+        }
+
+        // as is a rotated one
+        Files.move(file, directory.resolve("server.log.1"), StandardCopyOption.ATOMIC_MOVE);
+        append(file, "e\n");
+        try (LogFileFollowInputStream in = new LogFileFollowInputStream(file, fileKey, 2, 0)) {
+            Assert.assertEquals(0, in.getStartOffset());
+            Assert.assertEquals("e\n", readAll(in));
+        }
+    }
+
+    @Test
+    public void testEndsAfterDuration() throws IOException {
+        append(file, "a\n");
+        final long start = System.nanoTime();
+        try (InputStream in = new LogFileFollowInputStream(file, 1, 100)) {
+            Assert.assertEquals("a\n", readAll(in));
+        }
+        Assert.assertTrue(System.nanoTime() - start >= 100_000_000L);
+    }
+
+    @Test
+    public void testCloseEndsStream() throws IOException {
+        final InputStream in = new LogFileFollowInputStream(file, 0, 60000);
+        in.close();
+        Assert.assertEquals(-1, in.read());
+    }
+
+    private static void append(final Path file, final String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static void appendLater(final Path file, final String content) {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(LogFileFollowInputStream.POLL_INTERVAL);
+                    append(file, content);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        thread.start();
+    }
+
+    private static String read(final InputStream in, final int length) throws IOException {
+        final byte[] buffer = new byte[length];
+        int total = 0;
+        while (total < length) {
+            final int read = in.read(buffer, total, length - total);
+            Assert.assertTrue("Unexpected end of stream", read > 0);
+            total += read;
+        }
+        return new String(buffer, StandardCharsets.UTF_8);
+    }
+
+    private static String readAll(final InputStream in) throws IOException {
+        final StringBuilder result = new StringBuilder();
+        final byte[] buffer = new byte[64];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            result.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link LogFileLineReader}.
+ */
+public class LogFileLineReaderTestCase {
+
+    private static final int[] SKIPS = {0, 1, 5, LogFileLineReader.INDEX_INTERVAL - 1, LogFileLineReader.INDEX_INTERVAL,
+            LogFileLineReader.INDEX_INTERVAL * 2 + 7, 4999, 5000, 6000};
+    private static final int[] COUNTS = {-1, 1, 10, LogFileLineReader.INDEX_INTERVAL + 3, 6000};
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("server", ".log");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void testPages() throws IOException {
+        final List<String> lines = createLines(5000, 0);
+        write(lines, "\n", true);
+        assertPages(new LogFileLineReader(), lines);
+    }
+
+    @Test
+    public void testLastLineWithoutLineFeed() throws IOException {
+        final List<String> lines = createLines(5000, 0);
+        write(lines, "\n", false);
+        assertPages(new LogFileLineReader(), lines);
+    }
+
+    @Test
+    public void testCarriageReturnsAndLongLines() throws IOException {
+        final List<String> lines = createLines(3000, 0);
+        final StringBuilder longLine = new StringBuilder();
+        while (longLine.length() < 200 * 1024) {
+            longLine.append("long line ");
+        }
+        lines.set(1500, longLine.toString());
+        lines.set(2999, longLine.toString());
+        lines.set(10, "");
+        write(lines, "\r\n", true);
+        final LogFileLineReader reader = new LogFileLineReader();
+        Assert.assertEquals(lines, reader.readLines(file, "UTF-8", false, 0, -1));
+        Assert.assertEquals(lines.subList(1000, 2000), reader.readLines(file, "UTF-8", false, 1000, 1000));
+        Assert.assertEquals(lines.subList(2990, 3000), reader.readLines(file, "UTF-8", true, 0, 10));
+        Assert.assertEquals(lines.subList(1400, 1600), reader.readLines(file, "UTF-8", true, 1400, 200));
+    }
+
+    @Test
+    public void testLoneCarriageReturns() throws IOException {
+        final List<String> lines = createLines(3000, 0);
+        write(lines, "\r", true);
+        assertPages(new LogFileLineReader(), lines);
+
+        // Mixed line ends, with a \r\n split between the first two blocks and between the last two blocks
+        final int blockSize = 64 * 1024;
+        final StringBuilder content = new StringBuilder();
+        final List<String> mixed = new ArrayList<>();
+        final String[] separators = {"\n", "\r", "\r\n"};
+        for (int i = 0; content.length() < 3 * blockSize; ++i) {
+            final StringBuilder line = new StringBuilder("line ").append(i);
+            final int room = blockSize - 1 - content.length();
+            if (room > 0 && room < 40) {
+                while (line.length() < room) {
+                    line.append('x');
+                }
+            }
+            mixed.add(line.toString());
+            content.append(line).append(content.length() + line.length() == blockSize - 1 ? "\r\n" : separators[i % separators.length]);
+        }
+        final int split = content.indexOf("\r\n", content.length() + 4 - blockSize);
+        final StringBuilder last = new StringBuilder("last");
+        while (content.length() + last.length() + 1 < split + 1 + blockSize) {
+            last.append('x');
+        }
+        mixed.add(last.toString());
+        content.append(last).append('\n');
+        Assert.assertEquals(blockSize, content.length() - split - 1);
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        assertPages(new LogFileLineReader(), mixed);
+    }
+
+    @Test
+    public void testEncodingWithMultiByteLineFeeds() throws IOException {
+        final List<String> lines = createLines(3000, 0);
+        lines.set(7, "caf\u00e9 \u010a\u0a0d");
+        final StringBuilder content = new StringBuilder();
+        for (String line : lines) {
+            content.append(line).append(line.length() % 2 == 0 ? "\n" : "\r\n");
+        }
+        for (String encoding : new String[] {"UTF-16", "UTF-16LE", "UTF-32"}) {
+            Files.write(file.toPath(), content.toString().getBytes(encoding));
+            final LogFileLineReader reader = new LogFileLineReader();
+            Assert.assertEquals(encoding, lines, reader.readLines(file, encoding, false, 0, -1));
+            Assert.assertEquals(encoding, lines.subList(5, 15), reader.readLines(file, encoding, false, 5, 10));
+            Assert.assertEquals(encoding, lines.subList(2990, 3000), reader.readLines(file, encoding, true, 0, 10));
+            Assert.assertEquals(encoding, lines.subList(1400, 1600), reader.readLines(file, encoding, true, 1400, 200));
+            Assert.assertEquals(encoding, lines.subList(0, 1000), reader.readLines(file, encoding, true, 2000, -1));
+        }
+    }
+
+    @Test
+    public void testGrowingAndRotatedFile() throws IOException {
+        final LogFileLineReader reader = new LogFileLineReader();
+        final List<String> lines = createLines(3000, 0);
+        write(lines, "\n", true);
+        Assert.assertEquals(lines.subList(2000, 2010), reader.readLines(file, null, false, 2000, 10));
+
+        // Appended lines are indexed
+        final List<String> more = createLines(2000, 3000);
+        Files.write(file.toPath(), more, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        lines.addAll(more);
+        assertPages(reader, lines);
+
+        // A smaller file is indexed again
+        final List<String> rotated = createLines(1500, 10000);
+        write(rotated, "\n", true);
+        assertPages(reader, rotated);
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        final LogFileLineReader reader = new LogFileLineReader();
+        Assert.assertEquals(Collections.emptyList(), reader.readLines(file, null, true, 0, 10));
+        Assert.assertEquals(Collections.emptyList(), reader.readLines(file, null, false, 5000, -1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedEncoding() throws IOException {
+        write(createLines(10, 0), "\n", true);
+        new LogFileLineReader().readLines(file, "no-such-encoding", true, 0, 10);
+    }
+
+    private void assertPages(final LogFileLineReader reader, final List<String> lines) throws IOException {
+        for (int skip : SKIPS) {
+            for (int count : COUNTS) {
+                final String message = "skip " + skip + " lines " + count;
+                Assert.assertEquals("Head " + message, expected(lines, false, skip, count), reader.readLines(file, null, false, skip, count));
+                Assert.assertEquals("Tail " + message, expected(lines, true, skip, count), reader.readLines(file, null, true, skip, count));
+            }
+        }
+    }
+
+    private static List<String> expected(final List<String> lines, final boolean tail, final int skip, final int count) {
+        final int size = lines.size();
+        if (tail) {
+            final int last = Math.max(0, size - skip);
+            return lines.subList(count < 0 ? 0 : Math.max(0, last - count), last);
+        }
+        final int first = Math.min(size, skip);
+        return lines.subList(first, count < 0 ? size : Math.min(size, first + count));
+    }
+
+    private static List<String> createLines(final int count, final int first) {
+        final List<String> lines = new ArrayList<>(count);
+        for (int i = first; i < first + count; ++i) {
+            lines.add("2015-06-01 12:00:00,000 INFO  [org.jboss.as] (main) line " + i);
+        }
+        return lines;
+    }
+
+    private void write(final List<String> lines, final String separator, final boolean lastSeparator) throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < lines.size(); ++i) {
+            content.append(lines.get(i));
+            if (lastSeparator || i < lines.size() - 1) {
+                content.append(separator);
+            }
+        }
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
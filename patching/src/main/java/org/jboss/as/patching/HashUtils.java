@@ -24,17 +24,24 @@ package org.jboss.as.patching;
 
 import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.Arrays;
 
 /**
+ * Calculates the SHA-1 hashes of patched content.
+ * <p>
+ * The hash of a directory is the hash of the content of all the files below it, read in the order of their names.
+ * Each thread uses its own digest and read buffer, so concurrent callers do not wait on each other.
+ *
  * @author Emanuel Muckenhuber
  * @author Brian Stansberry (c) 2012 Red Hat Inc.
  * @author <a href="http://jmesnil/net/">Jeff Mesnil</a> (c) 2012 Red Hat Inc
@@ -42,77 +49,136 @@ import java.util.TreeMap;
 public class HashUtils {
 
     private static final char[] TABLE = "0123456789abcdef".toCharArray();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<MessageDigest> DIGEST = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            return newDigest();
+        }
+    };
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+    };
 
-    private static final MessageDigest DIGEST;
     static {
+        // fail early if SHA-1 is not available
+        newDigest();
+    }
+
+    private static MessageDigest newDigest() {
         try {
-            DIGEST = MessageDigest.getInstance("SHA-1");
+            return MessageDigest.getInstance("SHA-1");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static MessageDigest getDigest() {
+        final MessageDigest digest = DIGEST.get();
+        digest.reset();
+        return digest;
+    }
+
     public static byte[] hashFile(File file) throws IOException {
-        synchronized (DIGEST) {
-            DIGEST.reset();
-            updateDigest(DIGEST, file);
-            return DIGEST.digest();
-        }
+        final MessageDigest digest = getDigest();
+        updateDigest(digest, file, BUFFER.get());
+        return digest.digest();
     }
 
     public static byte[] hashBytes(byte[] bytes) throws IOException {
-        synchronized (DIGEST) {
-            DIGEST.reset();
-            DIGEST.update(bytes);
-            return DIGEST.digest();
-        }
+        final MessageDigest digest = getDigest();
+        digest.update(bytes);
+        return digest.digest();
     }
 
-    private static void updateDigest(MessageDigest digest, File file) throws IOException {
+    /**
+     * Calculates a hash of the names, sizes and last modified times of the files {@link #hashFile(File)} would read, which
+     * changes whenever the hash of their content could have changed.
+     *
+     * @param file the file or directory
+     * @param modifiedBefore the time in milliseconds before which the files must have been last modified
+     * @return the hash, or {@code null} if a file has been modified at or after {@code modifiedBefore}, in which case it
+     *         could be modified again without its last modified time changing
+     */
+    public static byte[] hashFileMetadata(File file, long modifiedBefore) {
+        final MessageDigest digest = getDigest();
+        return updateMetadataDigest(digest, file, modifiedBefore) ? digest.digest() : null;
+    }
+
+    private static void updateDigest(MessageDigest digest, File file, ByteBuffer buffer) throws IOException {
         if (file.isDirectory()) {
-            File[] childList = file.listFiles();
-            if (childList != null) {
-                Map<String, File> sortedChildren = new TreeMap<String, File>();
-                for (File child : childList) {
-                    sortedChildren.put(child.getName(), child);
-                }
-                for (File child : sortedChildren.values()) {
-                    updateDigest(digest, child);
-                }
+            for (File child : listSorted(file)) {
+                updateDigest(digest, child, buffer);
             }
-        } else {
-            // jar index files are generated by JBoss modules at runtime (a pristine AS7 installation does not have them).
-            // they are skipped when computing checksum to avoid different checksum for the same JBoss module depending on
-            // whether the AS7 installation has been started or not.
-            if (file.getName().endsWith(".jar.index")) {
-                return;
-            }
-            FileInputStream fis = new FileInputStream(file);
+        } else if (isHashed(file)) {
+            final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
             try {
-
-                BufferedInputStream bis = new BufferedInputStream(fis);
-                byte[] bytes = new byte[8192];
-                int read;
-                while ((read = bis.read(bytes)) > -1) {
-                    digest.update(bytes, 0, read);
+                buffer.clear();
+                while (channel.read(buffer) > -1) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
                 }
             } finally {
-                IoUtils.safeClose(fis);
+                IoUtils.safeClose(channel);
             }
+        }
+    }
 
+    private static boolean updateMetadataDigest(MessageDigest digest, File file, long modifiedBefore) {
+        if (file.isDirectory()) {
+            for (File child : listSorted(file)) {
+                if (!updateMetadataDigest(digest, child, modifiedBefore)) {
+                    return false;
+                }
+            }
+        } else if (isHashed(file)) {
+            final long lastModified = file.lastModified();
+            if (lastModified >= modifiedBefore) {
+                return false;
+            }
+            digest.update(file.getPath().getBytes(StandardCharsets.UTF_8));
+            final ByteBuffer values = ByteBuffer.allocate(16);
+            values.putLong(file.length()).putLong(lastModified).flip();
+            digest.update(values);
         }
+        return true;
     }
 
-    public static byte[] copyAndGetHash(final InputStream is, final OutputStream os) throws IOException {
-        byte[] sha1Bytes;
-        synchronized (DIGEST) {
-            DIGEST.reset();
-            BufferedInputStream bis = new BufferedInputStream(is);
-            DigestOutputStream dos = new DigestOutputStream(os, DIGEST);
-            IoUtils.copyStream(bis, dos);
-            sha1Bytes = DIGEST.digest();
+    /**
+     * Lists the children of a directory in the order of their names.
+     */
+    private static File[] listSorted(File directory) {
+        final String[] names = directory.list();
+        if (names == null) {
+            return new File[0];
         }
-        return sha1Bytes;
+        Arrays.sort(names);
+        final File[] children = new File[names.length];
+        for (int i = 0; i < names.length; i++) {
+            children[i] = new File(directory, names[i]);
+        }
+        return children;
+    }
+
+    private static boolean isHashed(File file) {
+        // jar index files are generated by JBoss modules at runtime (a pristine AS7 installation does not have them).
+        // they are skipped when computing checksum to avoid different checksum for the same JBoss module depending on
+        // whether the AS7 installation has been started or not.
+        return !file.getName().endsWith(".jar.index");
+    }
+
+    public static byte[] copyAndGetHash(final InputStream is, final OutputStream os) throws IOException {
+        final MessageDigest digest = getDigest();
+        BufferedInputStream bis = new BufferedInputStream(is);
+        DigestOutputStream dos = new DigestOutputStream(os, digest);
+        IoUtils.copyStream(bis, dos);
+        return digest.digest();
     }
 
     /**
@@ -27,7 +27,6 @@ import static org.jboss.as.patching.IoUtils.NO_CONTENT;
 import java.io.File;
 import java.io.IOException;
 
-import org.jboss.as.patching.HashUtils;
 import org.jboss.as.patching.logging.PatchLogger;
 import org.jboss.as.patching.metadata.BundleItem;
 import org.jboss.as.patching.metadata.ContentType;
@@ -58,7 +57,7 @@ abstract class AbstractModuleTask extends AbstractPatchingTask<ModuleItem> {
             if(moduleXml.exists()) {
                 PatchLogger.ROOT_LOGGER.debugf("found in path (%s)", moduleXml.getAbsolutePath());
                 context.invalidateRoot(modulePath);
-                return HashUtils.hashFile(modulePath);
+                return context.hashFile(modulePath);
             }
         }
         return notFound(contentItem);
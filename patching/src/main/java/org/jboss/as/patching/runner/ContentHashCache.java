@@ -0,0 +1,218 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.patching.HashUtils;
+import org.jboss.as.patching.IoUtils;
+import org.jboss.as.patching.logging.PatchLogger;
+
+/**
+ * Keeps the hashes of content calculated by {@link HashUtils#hashFile(File)}, together with a hash of the names, sizes
+ * and last modified times of the files they were calculated from, so that unchanged modules do not need to be read
+ * again each time a patch is applied.
+ * <p>
+ * Content modified shortly before its hash is calculated is not cached, as it could be modified again without its last
+ * modified time changing on file systems that only keep it to the second.
+ */
+class ContentHashCache {
+
+    static final String FILE_NAME = "content-hashes";
+
+    /** Changing this discards the stored hashes */
+    private static final int VERSION = 1;
+    private static final long RACY_INTERVAL = TimeUnit.SECONDS.toMillis(2);
+
+    private final File file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private volatile boolean modified;
+
+    ContentHashCache(final File file) {
+        this.file = file;
+        if (file.isFile()) {
+            try {
+                read();
+            } catch (IOException e) {
+                PatchLogger.ROOT_LOGGER.debugf(e, "failed to read content hashes %s", file);
+                entries.clear();
+            }
+        }
+    }
+
+    /**
+     * Get the hash of a file or directory, see {@link HashUtils#hashFile(File)}.
+     *
+     * @param target the file or directory
+     * @return the hash
+     * @throws IOException
+     */
+    byte[] hashFile(final File target) throws IOException {
+        final String key = target.getAbsolutePath();
+        final long now = System.currentTimeMillis();
+        final byte[] metadataHash = HashUtils.hashFileMetadata(target, now - RACY_INTERVAL);
+        if (metadataHash != null) {
+            final Entry entry = entries.get(key);
+            if (entry != null && Arrays.equals(entry.metadataHash, metadataHash)) {
+                return entry.hash.clone();
+            }
+        }
+        final byte[] hash = HashUtils.hashFile(target);
+        if (metadataHash != null) {
+            entries.put(key, new Entry(metadataHash, hash.clone()));
+            modified = true;
+        }
+        return hash;
+    }
+
+    /**
+     * Calculate the hashes of several files or directories in parallel, so that they are cached when needed.
+     * Failures are ignored, they are reported when the hash is needed.
+     *
+     * @param targets the files or directories
+     */
+    void prepare(final Collection<File> targets) {
+        if (targets.size() < 2) {
+            return;
+        }
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(targets.size());
+        for (final File target : targets) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    try {
+                        hashFile(target);
+                    } catch (IOException e) {
+                        PatchLogger.ROOT_LOGGER.debugf(e, "failed to calculate hash of %s", target);
+                    }
+                    return null;
+                }
+            });
+        }
+        final ForkJoinPool pool = new ForkJoinPool(Math.min(targets.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            pool.invokeAll(tasks);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Store the hashes, if new ones have been calculated. Failures are ignored as the hashes can be calculated again.
+     */
+    void store() {
+        if (!modified) {
+            return;
+        }
+        final File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            PatchLogger.ROOT_LOGGER.debugf("failed to create %s, content hashes will not be stored", dir);
+            return;
+        }
+        final File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        DataOutputStream os = null;
+        try {
+            os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            os.writeInt(VERSION);
+            final List<Map.Entry<String, Entry>> entries = new ArrayList<Map.Entry<String, Entry>>();
+            for (final Map.Entry<String, Entry> entry : this.entries.entrySet()) {
+                // Forget the content that has been removed, such as the overlays of rolled back patches
+                if (new File(entry.getKey()).exists()) {
+                    entries.add(entry);
+                }
+            }
+            os.writeInt(entries.size());
+            for (final Map.Entry<String, Entry> entry : entries) {
+                os.writeUTF(entry.getKey());
+                writeBytes(os, entry.getValue().metadataHash);
+                writeBytes(os, entry.getValue().hash);
+            }
+            os.close();
+            os = null;
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        } catch (IOException e) {
+            PatchLogger.ROOT_LOGGER.debugf(e, "failed to store content hashes %s", file);
+            IoUtils.safeClose(os);
+            tmp.delete();
+        }
+    }
+
+    private void read() throws IOException {
+        final DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (is.readInt() != VERSION) {
+                return;
+            }
+            final int count = is.readInt();
+            for (int i = 0; i < count; i++) {
+                final String key = is.readUTF();
+                final byte[] metadataHash = readBytes(is);
+                final byte[] hash = readBytes(is);
+                entries.put(key, new Entry(metadataHash, hash));
+            }
+        } finally {
+            IoUtils.safeClose(is);
+        }
+    }
+
+    private static void writeBytes(final DataOutputStream os, final byte[] bytes) throws IOException {
+        os.writeShort(bytes.length);
+        os.write(bytes);
+    }
+
+    private static byte[] readBytes(final DataInputStream is) throws IOException {
+        final byte[] bytes = new byte[is.readUnsignedShort()];
+        is.readFully(bytes);
+        return bytes;
+    }
+
+    private static final class Entry {
+
+        private final byte[] metadataHash;
+        private final byte[] hash;
+
+        private Entry(final byte[] metadataHash, final byte[] hash) {
+            this.metadataHash = metadataHash;
+            this.hash = hash;
+        }
+    }
+}
@@ -66,6 +66,7 @@ class IdentityPatchContext implements PatchContentProvider {
     private final InstallationManager.InstallationModification modification;
     private final Map<String, PatchContentLoader> contentLoaders = new HashMap<String, PatchContentLoader>();
     private final PatchingHistory history;
+    private final ContentHashCache hashCache;
 
     // TODO initialize layers in the correct order
     private final Map<String, PatchEntry> layers = new LinkedHashMap<String, PatchEntry>();
@@ -103,6 +104,7 @@ class IdentityPatchContext implements PatchContentProvider {
         this.modification = modification;
         this.installedImage = installedImage;
         this.history = PatchingHistory.Factory.getHistory(modification.getUnmodifiedInstallationState());
+        this.hashCache = new ContentHashCache(new File(installedImage.getInstallationMetadata(), ContentHashCache.FILE_NAME));
 
         if (backup != null) {
             this.miscBackup = new File(backup, PatchContentLoader.MISC);
@@ -179,6 +181,15 @@ class IdentityPatchContext implements PatchContentProvider {
         return mode;
     }
 
+    /**
+     * Get the hashes of the existing content.
+     *
+     * @return the hash cache
+     */
+    ContentHashCache getHashCache() {
+        return hashCache;
+    }
+
     /**
      * In case we cannot delete a directory create a marker to recheck whether we can garbage collect some not
      * referenced directories and files.
@@ -735,6 +746,11 @@ class IdentityPatchContext implements PatchContentProvider {
             return delegate.getModifiedState();
         }
 
+        @Override
+        public byte[] hashFile(final File target) throws IOException {
+            return hashCache.hashFile(target);
+        }
+
         @Override
         public File[] getTargetBundlePath() {
             // We need the updated state for invalidating one-off patches
@@ -25,8 +25,10 @@ import org.jboss.as.patching.installation.InstalledImage;
 import org.jboss.as.patching.installation.PatchableTarget;
 import org.jboss.as.patching.logging.PatchLogger;
 import org.jboss.as.patching.metadata.ContentItem;
+import org.jboss.as.patching.metadata.ContentType;
 import org.jboss.as.patching.metadata.Identity;
 import org.jboss.as.patching.metadata.LayerType;
+import org.jboss.as.patching.metadata.ModuleItem;
 import org.jboss.as.patching.metadata.Patch;
 import org.jboss.as.patching.metadata.PatchElement;
 import org.jboss.as.patching.metadata.PatchElementProvider;
@@ -499,6 +501,9 @@ class IdentityPatchRunner implements InstallationManager.ModificationCompletionC
     static PatchingResult executeTasks(final IdentityPatchContext context, final IdentityPatchContext.FinalizeCallback callback) throws Exception {
         final List<PreparedTask> tasks = new ArrayList<PreparedTask>();
         final List<ContentItem> conflicts = new ArrayList<ContentItem>();
+        if (context.getMode() == APPLY) {
+            prepareHashes(context);
+        }
         // Identity
         prepareTasks(context.getIdentityEntry(), context, tasks, conflicts);
         // Layers
@@ -523,9 +528,47 @@ class IdentityPatchRunner implements InstallationManager.ModificationCompletionC
             // Run the task
             task.execute();
         }
+        context.getHashCache().store();
         return context.finalize(callback);
     }
 
+    /**
+     * Calculate the hashes of the modules to be patched in parallel, rather than one after the other when the tasks
+     * back them up. When rolling back the module roots need to be restored before the hashes are calculated.
+     *
+     * @param context the patch context
+     */
+    static void prepareHashes(final IdentityPatchContext context) {
+        final List<File> modules = new ArrayList<File>();
+        addModules(context.getIdentityEntry(), modules);
+        for (final IdentityPatchContext.PatchEntry layer : context.getLayers()) {
+            addModules(layer, modules);
+        }
+        for (final IdentityPatchContext.PatchEntry addOn : context.getAddOns()) {
+            addModules(addOn, modules);
+        }
+        context.getHashCache().prepare(modules);
+    }
+
+    private static void addModules(final IdentityPatchContext.PatchEntry entry, final List<File> modules) {
+        final File[] repoRoots = entry.getTargetModulePath();
+        for (final ContentTaskDefinition definition : entry.getDefinitions().values()) {
+            final ContentItem item = definition.getLocation().getItem();
+            if (item.getContentType() != ContentType.MODULE) {
+                continue;
+            }
+            final ModuleItem module = (ModuleItem) item;
+            // Same lookup as AbstractModuleTask#backup
+            for (final File root : repoRoots) {
+                final File modulePath = PatchContentLoader.getModulePath(root, module);
+                if (new File(modulePath, AbstractModuleTask.MODULE_XML).exists()) {
+                    modules.add(modulePath);
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      * Prepare all tasks.
      *
@@ -68,6 +68,15 @@ public interface PatchingTaskContext {
      */
     void invalidateRoot(final File root) throws IOException;
 
+    /**
+     * Get the hash of existing content, which may have been calculated before if the content has not changed since.
+     *
+     * @param target the file or directory
+     * @return the hash
+     * @throws IOException
+     */
+    byte[] hashFile(final File target) throws IOException;
+
     /**
      * Get the current bundle path.
      *
@@ -0,0 +1,164 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link HashUtils}.
+ */
+public class HashUtilsTestCase {
+
+    private File root;
+
+    @Before
+    public void createRoot() throws IOException {
+        root = Files.createTempDirectory("hash-utils").toFile();
+    }
+
+    @After
+    public void deleteRoot() {
+        IoUtils.recursiveDelete(root);
+    }
+
+    @Test
+    public void testDirectoryHashIsUnchanged() throws Exception {
+        final File module = new File(root, "module");
+        write(new File(module, "module.xml"), 100);
+        write(new File(module, "b.jar"), 200 * 1024);
+        write(new File(module, "a.jar"), 0);
+        write(new File(module, "lib/linux-x86_64/native.so"), 70 * 1024);
+
+        Assert.assertArrayEquals(sequentialHash(module), HashUtils.hashFile(module));
+        Assert.assertArrayEquals(sequentialHash(new File(module, "b.jar")), HashUtils.hashFile(new File(module, "b.jar")));
+    }
+
+    @Test
+    public void testJarIndexIsSkipped() throws Exception {
+        final File module = new File(root, "module");
+        write(new File(module, "module.xml"), 100);
+        write(new File(module, "a.jar"), 1024);
+        final byte[] hash = HashUtils.hashFile(module);
+        final byte[] metadataHash = HashUtils.hashFileMetadata(module, Long.MAX_VALUE);
+
+        write(new File(module, "a.jar.index"), 10);
+        Assert.assertArrayEquals(hash, HashUtils.hashFile(module));
+        Assert.assertArrayEquals(metadataHash, HashUtils.hashFileMetadata(module, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testMetadataHash() throws Exception {
+        final File module = new File(root, "module");
+        final File jar = new File(module, "a.jar");
+        write(new File(module, "module.xml"), 100);
+        write(jar, 1024);
+        final byte[] metadataHash = HashUtils.hashFileMetadata(module, Long.MAX_VALUE);
+        Assert.assertArrayEquals(metadataHash, HashUtils.hashFileMetadata(module, Long.MAX_VALUE));
+
+        // recently modified
+        Assert.assertNull(HashUtils.hashFileMetadata(module, jar.lastModified()));
+
+        Assert.assertTrue(jar.setLastModified(jar.lastModified() - 10000));
+        Assert.assertFalse(Arrays.equals(metadataHash, HashUtils.hashFileMetadata(module, Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testConcurrentHashing() throws Exception {
+        final List<File> modules = new ArrayList<File>();
+        final List<byte[]> expected = new ArrayList<byte[]>();
+        for (int i = 0; i < 8; i++) {
+            final File module = new File(root, "module" + i);
+            write(new File(module, "module.xml"), 100);
+            write(new File(module, "main.jar"), 100 * 1024 + i);
+            modules.add(module);
+            expected.add(sequentialHash(module));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+            for (int n = 0; n < 10; n++) {
+                for (final File module : modules) {
+                    results.add(executor.submit(new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() throws Exception {
+                            return HashUtils.hashFile(module);
+                        }
+                    }));
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertArrayEquals(expected.get(i % modules.size()), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The hash of a file or directory as calculated by a single digest reading the files one after the other.
+     */
+    private static byte[] sequentialHash(File file) throws Exception {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        update(digest, file);
+        return digest.digest();
+    }
+
+    private static void update(MessageDigest digest, File file) throws IOException {
+        if (file.isDirectory()) {
+            final Map<String, File> children = new TreeMap<String, File>();
+            for (File child : file.listFiles()) {
+                children.put(child.getName(), child);
+            }
+            for (File child : children.values()) {
+                update(digest, child);
+            }
+        } else if (!file.getName().endsWith(".jar.index")) {
+            digest.update(Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    private static void write(File file, int size) throws IOException {
+        file.getParentFile().mkdirs();
+        final byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        Files.write(file.toPath(), bytes);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.patching.HashUtils;
+import org.jboss.as.patching.IoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares hashing a synthetic modules tree: {@code sequential} hashes one module after the other, as patching used
+ * to, {@code parallel} calculates the hashes with {@link ContentHashCache#prepare(java.util.Collection)} and
+ * {@code stored} reads them from a {@link ContentHashCache} stored beforehand. Not run as part of the test suite; run
+ * {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentHashCacheBenchmark {
+
+    /** Number of modules in the tree */
+    @Param({"300"})
+    public int modules;
+
+    /** Size in bytes of the jar of each module */
+    @Param({"524288"})
+    public int size;
+
+    private File root;
+    private File stored;
+    private File unstored;
+    private List<File> targets;
+
+    @Setup
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("content-hashes").toFile();
+        final File modulesDir = new File(root, "modules");
+        targets = new ArrayList<File>();
+        final long lastModified = System.currentTimeMillis() - 60000;
+        for (int i = 0; i < modules; i++) {
+            final File module = PatchContentLoader.getModulePath(modulesDir, "org.jboss.benchmark" + i, "main");
+            write(new File(module, AbstractModuleTask.MODULE_XML), 256, i, lastModified);
+            write(new File(module, "main.jar"), size, i, lastModified);
+            targets.add(module);
+        }
+        stored = new File(root, ContentHashCache.FILE_NAME);
+        final ContentHashCache cache = new ContentHashCache(stored);
+        cache.prepare(targets);
+        cache.store();
+        // never stored, so each cache created on it starts empty
+        unstored = new File(root, "unstored");
+    }
+
+    @TearDown
+    public void tearDown() {
+        IoUtils.recursiveDelete(root);
+    }
+
+    @Benchmark
+    public byte[] sequential() throws IOException {
+        byte[] hash = null;
+        for (File target : targets) {
+            hash = HashUtils.hashFile(target);
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public byte[] parallel() throws IOException {
+        final ContentHashCache cache = new ContentHashCache(unstored);
+        cache.prepare(targets);
+        return cache.hashFile(targets.get(0));
+    }
+
+    @Benchmark
+    public byte[] stored() throws IOException {
+        final ContentHashCache cache = new ContentHashCache(stored);
+        byte[] hash = null;
+        for (File target : targets) {
+            hash = cache.hashFile(target);
+        }
+        return hash;
+    }
+
+    private static void write(final File file, final int size, final long seed, final long lastModified) throws IOException {
+        file.getParentFile().mkdirs();
+        final byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        Files.write(file.toPath(), bytes);
+        // old enough to be cached
+        if (!file.setLastModified(lastModified)) {
+            throw new IOException(file.toString());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ContentHashCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
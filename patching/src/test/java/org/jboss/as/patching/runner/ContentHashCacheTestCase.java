@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.jboss.as.patching.HashUtils;
+import org.jboss.as.patching.IoUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link ContentHashCache}.
+ */
+public class ContentHashCacheTestCase {
+
+    private File root;
+    private File modules;
+    private File file;
+
+    @Before
+    public void createRoot() throws IOException {
+        root = Files.createTempDirectory("content-hashes").toFile();
+        modules = new File(root, "modules");
+        file = new File(new File(root, ".installation"), ContentHashCache.FILE_NAME);
+    }
+
+    @After
+    public void deleteRoot() {
+        IoUtils.recursiveDelete(root);
+    }
+
+    @Test
+    public void testStoredHashIsUsed() throws Exception {
+        final File module = createModule("org.jboss.test", 1024, true);
+        final byte[] hash = HashUtils.hashFile(module);
+
+        ContentHashCache cache = new ContentHashCache(file);
+        Assert.assertArrayEquals(hash, cache.hashFile(module));
+        cache.store();
+        Assert.assertTrue(file.isFile());
+
+        // Replace the content without changing its metadata, so that only a stored hash can match the old one
+        final File jar = new File(module, "main.jar");
+        final long lastModified = jar.lastModified();
+        write(jar, 1024, 42);
+        Assert.assertTrue(jar.setLastModified(lastModified));
+
+        cache = new ContentHashCache(file);
+        Assert.assertArrayEquals(hash, cache.hashFile(module));
+    }
+
+    @Test
+    public void testChangedContentIsHashedAgain() throws Exception {
+        final File module = createModule("org.jboss.test", 1024, true);
+        final ContentHashCache cache = new ContentHashCache(file);
+        final byte[] hash = cache.hashFile(module);
+
+        final File jar = new File(module, "main.jar");
+        final long lastModified = jar.lastModified();
+        write(jar, 2048, 42);
+        Assert.assertTrue(jar.setLastModified(lastModified));
+        final byte[] changed = cache.hashFile(module);
+        Assert.assertArrayEquals(HashUtils.hashFile(module), changed);
+        Assert.assertFalse(Arrays.equals(hash, changed));
+
+        write(new File(module, "other.jar"), 10, 1);
+        Assert.assertTrue(new File(module, "other.jar").setLastModified(lastModified));
+        Assert.assertArrayEquals(HashUtils.hashFile(module), cache.hashFile(module));
+    }
+
+    @Test
+    public void testRecentlyModifiedContentIsNotCached() throws Exception {
+        final File module = createModule("org.jboss.test", 1024, false);
+        final ContentHashCache cache = new ContentHashCache(file);
+        final byte[] hash = cache.hashFile(module);
+        cache.store();
+        Assert.assertFalse(file.exists());
+
+        final File jar = new File(module, "main.jar");
+        final long lastModified = jar.lastModified();
+        write(jar, 1024, 42);
+        jar.setLastModified(lastModified);
+        final byte[] changed = cache.hashFile(module);
+        Assert.assertArrayEquals(HashUtils.hashFile(module), changed);
+        Assert.assertFalse(Arrays.equals(hash, changed));
+    }
+
+    @Test
+    public void testPrepare() throws Exception {
+        final List<File> targets = new ArrayList<File>();
+        for (int i = 0; i < 16; i++) {
+            targets.add(createModule("org.jboss.test" + i, 1024 + i, true));
+        }
+        targets.add(new File(modules, "does-not-exist"));
+        final ContentHashCache cache = new ContentHashCache(file);
+        cache.prepare(targets);
+        cache.store();
+
+        final ContentHashCache stored = new ContentHashCache(file);
+        for (File target : targets.subList(0, 16)) {
+            Assert.assertArrayEquals(HashUtils.hashFile(target), stored.hashFile(target));
+        }
+    }
+
+    @Test
+    public void testCorruptFileIsIgnored() throws Exception {
+        final File module = createModule("org.jboss.test", 1024, true);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), new byte[] {0, 0, 0, 1, 0, 0, 0, 5, 1});
+        final ContentHashCache cache = new ContentHashCache(file);
+        Assert.assertArrayEquals(HashUtils.hashFile(module), cache.hashFile(module));
+    }
+
+    private File createModule(final String name, final int size, final boolean old) throws IOException {
+        final File module = PatchContentLoader.getModulePath(modules, name, "main");
+        final File moduleXml = new File(module, AbstractModuleTask.MODULE_XML);
+        final File jar = new File(module, "main.jar");
+        write(moduleXml, 256, size);
+        write(jar, size, size);
+        if (old) {
+            final long lastModified = System.currentTimeMillis() - 60000;
+            Assert.assertTrue(moduleXml.setLastModified(lastModified));
+            Assert.assertTrue(jar.setLastModified(lastModified));
+        }
+        return module;
+    }
+
+    private static void write(final File file, final int size, final long seed) throws IOException {
+        file.getParentFile().mkdirs();
+        final byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        Files.write(file.toPath(), bytes);
+    }
+}
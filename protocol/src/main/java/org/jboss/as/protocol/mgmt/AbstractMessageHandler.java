@@ -433,16 +433,15 @@ public abstract class AbstractMessageHandler extends ActiveOperationSupport impl
     }
 
     /**
-     * Write the management protocol header.
+     * Write the management protocol header. The body of a large response written to the returned output is compressed
+     * if the requester can read it, see {@link MessageCompression}.
      *
      * @param header the mgmt protocol header
      * @param os the output stream
      * @throws IOException
      */
     protected static FlushableDataOutput writeHeader(final ManagementProtocolHeader header, final OutputStream os) throws IOException {
-        final FlushableDataOutput output = FlushableDataOutputImpl.create(os);
-        header.write(output);
-        return output;
+        return MessageCompression.getInstance().writeHeader(header, os);
     }
 
     /**
@@ -30,6 +30,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -77,10 +78,10 @@ class ActiveOperationSupport {
     private final ConcurrentMap<Integer, ActiveOperationImpl<?, ?>> activeRequests = new ConcurrentHashMap<Integer, ActiveOperationImpl<?, ?>> (16, 0.75f, Runtime.getRuntime().availableProcessors());
     private final ManagementBatchIdManager operationIdManager = new ManagementBatchIdManager.DefaultManagementBatchIdManager();
 
+    // Registration and removal do not take the lock, it is only used to wake up awaitCompletion
     private final ReentrantLock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
-    // mutable variables, have to be guarded by the lock
-    private int activeCount = 0;
+    private final AtomicInteger activeCount = new AtomicInteger();
     private volatile boolean shutdown = false;
 
     protected ActiveOperationSupport() {
@@ -146,30 +147,26 @@ class ActiveOperationSupport {
      * @throws java.lang.IllegalStateException if an operation with the same id is already registered
      */
     protected <T, A> ActiveOperation<T, A> registerActiveOperation(final Integer id, A attachment, ActiveOperation.CompletedCallback<T> callback) {
-        lock.lock(); try {
-            // Check that we still allow registration
-            assert ! shutdown;
-            final Integer operationId;
-            if(id == null) {
-                // If we did not get an operationId, create a new one
-                operationId = operationIdManager.createBatchId();
-            } else {
-                // Check that the operationId is not already taken
-                if(! operationIdManager.lockBatchId(id)) {
-                    throw ProtocolLogger.ROOT_LOGGER.operationIdAlreadyExists(id);
-                }
-                operationId = id;
+        // Check that we still allow registration
+        assert ! shutdown;
+        final Integer operationId;
+        if(id == null) {
+            // If we did not get an operationId, create a new one
+            operationId = operationIdManager.createBatchId();
+        } else {
+            // Check that the operationId is not already taken
+            if(! operationIdManager.lockBatchId(id)) {
+                throw ProtocolLogger.ROOT_LOGGER.operationIdAlreadyExists(id);
             }
-            final ActiveOperationImpl<T, A> request = new ActiveOperationImpl<T, A>(operationId, attachment, getCheckedCallback(callback));
-            final ActiveOperation<?, ?> existing =  activeRequests.putIfAbsent(operationId, request);
-            if(existing != null) {
-                throw ProtocolLogger.ROOT_LOGGER.operationIdAlreadyExists(operationId);
-            }
-            activeCount++; // condition.signalAll();
-            return request;
-        } finally {
-            lock.unlock();
+            operationId = id;
+        }
+        final ActiveOperationImpl<T, A> request = new ActiveOperationImpl<T, A>(operationId, attachment, getCheckedCallback(callback));
+        final ActiveOperation<?, ?> existing =  activeRequests.putIfAbsent(operationId, request);
+        if(existing != null) {
+            throw ProtocolLogger.ROOT_LOGGER.operationIdAlreadyExists(operationId);
         }
+        activeCount.incrementAndGet();
+        return request;
     }
 
     /**
@@ -200,18 +197,20 @@ class ActiveOperationSupport {
      * @return the removed active operation, {@code null} if there was no registered operation
      */
     protected <T, A> ActiveOperation<T, A> removeActiveOperation(final Integer id) {
-        lock.lock(); try {
-            final ActiveOperation<?, ?> removed = activeRequests.remove(id);
-            if(removed != null) {
-                activeCount--;
-                operationIdManager.freeBatchId(id);
-                condition.signalAll();
+        final ActiveOperation<?, ?> removed = activeRequests.remove(id);
+        if(removed != null) {
+            operationIdManager.freeBatchId(id);
+            // awaitCompletion checks the count while holding the lock, so signalling under the lock cannot be missed
+            if(activeCount.decrementAndGet() == 0 && shutdown) {
+                lock.lock(); try {
+                    condition.signalAll();
+                } finally {
+                    lock.unlock();
+                }
             }
-            //noinspection unchecked
-            return (ActiveOperation<T, A>) removed;
-        } finally {
-            lock.unlock();
         }
+        //noinspection unchecked
+        return (ActiveOperation<T, A>) removed;
     }
 
     /**
@@ -258,11 +257,7 @@ class ActiveOperationSupport {
      * Prevent new active operations get registered.
      */
     protected void shutdown() {
-        lock.lock(); try {
-            shutdown = true;
-        } finally {
-            lock.unlock();
-        }
+        shutdown = true;
     }
 
     /**
@@ -277,14 +272,14 @@ class ActiveOperationSupport {
         long deadline = unit.toMillis(timeout) + System.currentTimeMillis();
         lock.lock(); try {
             assert shutdown;
-            while(activeCount != 0) {
+            while(activeCount.get() != 0) {
                 long remaining = deadline - System.currentTimeMillis();
                 if (remaining <= 0) {
-                    return activeCount == 0;
+                    return activeCount.get() == 0;
                 }
                 condition.await(remaining, TimeUnit.MILLISECONDS);
             }
-            return activeCount == 0;
+            return activeCount.get() == 0;
         } finally {
             lock.unlock();
         }
@@ -27,6 +27,8 @@ import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.jboss.as.protocol.StreamUtils;
 import org.jboss.as.protocol.logging.ProtocolLogger;
@@ -62,12 +64,17 @@ public abstract class ManagementChannelReceiver implements ManagementMessageHand
 
     @Override
     public void handleMessage(final Channel channel, final MessageInputStream message) {
+        Inflater inflater = null;
         try {
             ProtocolLogger.ROOT_LOGGER.tracef("%s handling incoming data", this);
             lastMessageTime = System.currentTimeMillis();
-            final DataInput input = new DataInputStream(message);
+            DataInput input = new DataInputStream(message);
             final ManagementProtocolHeader header = ManagementProtocolHeader.parse(input);
             final byte type = header.getType();
+            if (type == ManagementProtocol.TYPE_RESPONSE && ((ManagementResponseHeader) header).isCompressed()) {
+                inflater = new Inflater();
+                input = new DataInputStream(new InflaterInputStream(message, inflater));
+            }
             try {
                 if (type == ManagementProtocol.TYPE_PING) {
                     // Handle legacy ping/pong directly
@@ -99,6 +106,9 @@ public abstract class ManagementChannelReceiver implements ManagementMessageHand
         } catch (Exception e) {
             handleError(channel, new IOException(e));
         } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
             StreamUtils.safeClose(message);
             ProtocolLogger.ROOT_LOGGER.tracef("%s done handling incoming data", this);
         }
@@ -40,6 +40,7 @@ public class ManagementResponseHeader extends ManagementProtocolHeader {
     private int responseId;
     private boolean failed = false;
     private String error;
+    private boolean compressed;
 
     /**
      * Construct an instance with the protocol version for the header.
@@ -68,6 +69,8 @@ public class ManagementResponseHeader extends ManagementProtocolHeader {
         if (type == ManagementProtocol.RESPONSE_ERROR) {
             this.failed = true;
             error = input.readUTF();
+        } else if (type == ManagementProtocol.RESPONSE_COMPRESSED_BODY) {
+            this.compressed = true;
         } else if (type != ManagementProtocol.RESPONSE_BODY) {
             throw ProtocolLogger.ROOT_LOGGER.invalidType("RESPONSE_ERROR", "RESPONSE_BODY", type);
         }
@@ -81,6 +84,8 @@ public class ManagementResponseHeader extends ManagementProtocolHeader {
         if (error != null) {
             output.write(ManagementProtocol.RESPONSE_ERROR);
             output.writeUTF(error);
+        } else if (compressed) {
+            output.write(ManagementProtocol.RESPONSE_COMPRESSED_BODY);
         } else {
             output.write(ManagementProtocol.RESPONSE_BODY);
         }
@@ -95,6 +100,26 @@ public class ManagementResponseHeader extends ManagementProtocolHeader {
         return failed;
     }
 
+    /**
+     * Whether the body of the response is compressed, see {@link MessageCompression}.
+     *
+     * @return {@code true} if the body is compressed, {@code false} otherwise
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Gets a copy of this header marking the body as compressed.
+     *
+     * @return the header
+     */
+    ManagementResponseHeader compressed() {
+        final ManagementResponseHeader header = new ManagementResponseHeader(getVersion(), responseId, error);
+        header.compressed = true;
+        return header;
+    }
+
     /**
      * The response id.  This should correspond to the id of the request.
      *
@@ -0,0 +1,295 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol.mgmt;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * Compression of the body of large management protocol responses.
+ * <p>
+ * A peer which speaks protocol version {@link ManagementProtocol#VERSION_COMPRESSION} or later can read compressed
+ * responses, which the response header version negotiates with each request. The body of a successful response is
+ * buffered until it exceeds a threshold, so small responses are sent as they are. A larger body is deflated while it
+ * is written and marked with a {@link ManagementProtocol#RESPONSE_COMPRESSED_BODY} header.
+ * <p>
+ * Flushing the body, as streamed attachments do, sends everything written so far, so that the receiver can inflate it
+ * without waiting for the rest. This needs {@link Deflater#SYNC_FLUSH}, so responses are not compressed on JDK 6.
+ * <p>
+ * The threshold in bytes is set by the {@value #THRESHOLD_PROPERTY} system property, {@code 0} disables compression,
+ * and the deflate level by the {@value #LEVEL_PROPERTY} system property.
+ */
+public final class MessageCompression {
+
+    /** System property setting the size in bytes a response body needs to exceed to be compressed */
+    public static final String THRESHOLD_PROPERTY = "jboss.management.compression_threshold";
+
+    /** System property setting the deflate level, {@code 1} (fastest) to {@code 9} (smallest) */
+    public static final String LEVEL_PROPERTY = "jboss.management.compression_level";
+
+    private static final int DEFAULT_THRESHOLD = 64 * 1024;
+
+    private static final MessageCompression INSTANCE = new MessageCompression(
+            getIntProperty(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD), getIntProperty(LEVEL_PROPERTY, Deflater.BEST_SPEED));
+
+    private static final boolean SYNC_FLUSH_SUPPORTED = isSyncFlushSupported();
+
+    private final int threshold;
+    private final int level;
+    private final AtomicLong compressedMessageCount = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+
+    MessageCompression(final int threshold, final int level) {
+        this.threshold = threshold;
+        this.level = level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION ? Deflater.BEST_SPEED : level;
+    }
+
+    /**
+     * Gets the compression settings and statistics of this process.
+     *
+     * @return the instance
+     */
+    public static MessageCompression getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the number of responses which were compressed
+     */
+    public long getCompressedMessageCount() {
+        return compressedMessageCount.get();
+    }
+
+    /**
+     * @return the size in bytes of the bodies of the compressed responses before compression
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    /**
+     * @return the size in bytes of the bodies of the compressed responses after compression
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    /**
+     * Writes a protocol header, compressing the message body written afterwards if the receiver can read it.
+     *
+     * @param header the header
+     * @param os the message output stream
+     * @return the output to write the message body to
+     * @throws IOException if the header cannot be written
+     */
+    FlushableDataOutput writeHeader(final ManagementProtocolHeader header, final OutputStream os) throws IOException {
+        if (threshold > 0 && SYNC_FLUSH_SUPPORTED && header.getType() == ManagementProtocol.TYPE_RESPONSE
+                && header.getVersion() >= ManagementProtocol.VERSION_COMPRESSION
+                && !((ManagementResponseHeader) header).isFailed()) {
+            return FlushableDataOutputImpl.create(new CompressingOutputStream((ManagementResponseHeader) header, os));
+        }
+        final FlushableDataOutput output = FlushableDataOutputImpl.create(os);
+        header.write(output);
+        return output;
+    }
+
+    private static boolean isSyncFlushSupported() {
+        try {
+            Deflater.class.getMethod("deflate", byte[].class, int.class, int.class, int.class);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static int getIntProperty(final String name, final int defaultValue) {
+        final String value = SecurityActions.getSystemProperty(name);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException ignored) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Holds back the header and the start of the body until either the body exceeds the threshold, in which case the
+     * message is compressed, or the message is flushed or closed, in which case it is sent as it is.
+     */
+    private final class CompressingOutputStream extends OutputStream {
+
+        private final ManagementResponseHeader header;
+        private final OutputStream delegate;
+        /** The start of the body until the header is written, then the input of the deflater */
+        private byte[] buffer = new byte[512];
+        private int count;
+        private boolean headerWritten;
+        private Deflater deflater;
+        private byte[] deflated;
+        /** Whether input has been given to the deflater since it was last flushed */
+        private boolean deflaterFlushed = true;
+
+        private CompressingOutputStream(final ManagementResponseHeader header, final OutputStream delegate) {
+            this.header = header;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (!headerWritten) {
+                hold(1);
+            }
+            if (headerWritten && deflater == null) {
+                delegate.write(b);
+            } else {
+                if (count == buffer.length) {
+                    compressBuffer();
+                }
+                buffer[count++] = (byte) b;
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (!headerWritten) {
+                hold(len);
+            }
+            if (headerWritten && deflater == null) {
+                delegate.write(b, off, len);
+            } else if (len <= buffer.length - count) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+            } else {
+                compressBuffer();
+                compress(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!headerWritten) {
+                // Too late to find out whether the body gets large enough
+                writeHeader(false);
+            } else if (deflater != null) {
+                compressBuffer();
+                if (!deflaterFlushed) {
+                    // The deflater holds back input until it has enough, get it out so the receiver can read it
+                    int length;
+                    do {
+                        length = deflater.deflate(deflated, 0, deflated.length, Deflater.SYNC_FLUSH);
+                        writeDeflated(length);
+                    } while (length == deflated.length);
+                    deflaterFlushed = true;
+                }
+            }
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (!headerWritten) {
+                    writeHeader(false);
+                }
+                if (deflater != null) {
+                    compressBuffer();
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        deflate();
+                    }
+                    compressedMessageCount.incrementAndGet();
+                }
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+                delegate.close();
+            }
+        }
+
+        /**
+         * Makes room for more of the start of the body, or starts compressing if it gets too large.
+         */
+        private void hold(final int len) throws IOException {
+            final int required = count + len;
+            if (required > threshold) {
+                writeHeader(true);
+            } else if (required > buffer.length) {
+                final byte[] grown = new byte[Math.min(threshold, Math.max(buffer.length * 2, required))];
+                System.arraycopy(buffer, 0, grown, 0, count);
+                buffer = grown;
+            }
+        }
+
+        private void writeHeader(final boolean compress) throws IOException {
+            headerWritten = true;
+            final DataOutputStream output = new DataOutputStream(delegate);
+            if (compress) {
+                header.compressed().write(output);
+                deflater = new Deflater(level);
+                deflated = new byte[8192];
+                if (buffer.length < 8192) {
+                    final byte[] grown = new byte[8192];
+                    System.arraycopy(buffer, 0, grown, 0, count);
+                    buffer = grown;
+                }
+            } else {
+                header.write(output);
+                delegate.write(buffer, 0, count);
+                count = 0;
+                buffer = null;
+            }
+        }
+
+        private void compressBuffer() throws IOException {
+            if (count > 0) {
+                final int length = count;
+                count = 0;
+                compress(buffer, 0, length);
+            }
+        }
+
+        private void compress(final byte[] b, final int off, final int len) throws IOException {
+            uncompressedBytes.addAndGet(len);
+            deflater.setInput(b, off, len);
+            deflaterFlushed = false;
+            while (!deflater.needsInput()) {
+                deflate();
+            }
+        }
+
+        private void deflate() throws IOException {
+            writeDeflated(deflater.deflate(deflated, 0, deflated.length));
+        }
+
+        private void writeDeflated(final int length) throws IOException {
+            if (length > 0) {
+                delegate.write(deflated, 0, length);
+                compressedBytes.addAndGet(length);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol.mgmt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link MessageCompression}.
+ */
+public class MessageCompressionTestCase {
+
+    private static final ManagementRequestHeader REQUEST = new ManagementRequestHeader(ManagementProtocol.VERSION, 1, 2, (byte) 3);
+
+    @Test
+    public void testLargeBodyIsCompressed() throws IOException {
+        final MessageCompression compression = new MessageCompression(1024, 1);
+        final byte[] message = write(compression, ManagementResponseHeader.create(REQUEST), 10000);
+
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(message));
+        final ManagementResponseHeader header = (ManagementResponseHeader) ManagementProtocolHeader.parse(input);
+        Assert.assertTrue(header.isCompressed());
+        Assert.assertEquals(1, header.getResponseId());
+        assertBody(new DataInputStream(new InflaterInputStream(input)), 10000);
+
+        Assert.assertEquals(1, compression.getCompressedMessageCount());
+        Assert.assertEquals(10000 * 4, compression.getUncompressedBytes());
+        Assert.assertTrue(compression.getCompressedBytes() < compression.getUncompressedBytes());
+        Assert.assertTrue(message.length < 10000 * 4);
+    }
+
+    @Test
+    public void testBulkWrites() throws IOException {
+        final MessageCompression compression = new MessageCompression(1024, 1);
+        final byte[] chunk = new byte[700];
+        for (int i = 0; i < chunk.length; ++i) {
+            chunk[i] = (byte) (i % 7);
+        }
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final FlushableDataOutput output = compression.writeHeader(ManagementResponseHeader.create(REQUEST), os);
+        for (int i = 0; i < 20; ++i) {
+            output.write(chunk);
+            output.writeByte(i);
+        }
+        output.write(new byte[20000]);
+        output.close();
+
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(os.toByteArray()));
+        Assert.assertTrue(((ManagementResponseHeader) ManagementProtocolHeader.parse(input)).isCompressed());
+        final DataInputStream body = new DataInputStream(new InflaterInputStream(input));
+        final byte[] read = new byte[chunk.length];
+        for (int i = 0; i < 20; ++i) {
+            body.readFully(read);
+            Assert.assertArrayEquals(chunk, read);
+            Assert.assertEquals(i, body.readByte());
+        }
+        body.readFully(new byte[20000]);
+        Assert.assertEquals(-1, body.read());
+    }
+
+    @Test
+    public void testFlushSendsCompressedBody() throws IOException {
+        final MessageCompression compression = new MessageCompression(1024, 1);
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final FlushableDataOutput output = compression.writeHeader(ManagementResponseHeader.create(REQUEST), os);
+        for (int i = 0; i < 2000; ++i) {
+            output.writeInt(i % 100);
+        }
+        output.flush();
+
+        // what has been sent so far can be read without the rest of the message
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(os.toByteArray()));
+        Assert.assertTrue(((ManagementResponseHeader) ManagementProtocolHeader.parse(input)).isCompressed());
+        final DataInputStream body = new DataInputStream(new InflaterInputStream(input));
+        for (int i = 0; i < 2000; ++i) {
+            Assert.assertEquals(i % 100, body.readInt());
+        }
+
+        // the statistics include what has been flushed, the message is counted once complete
+        Assert.assertEquals(2000 * 4, compression.getUncompressedBytes());
+        Assert.assertTrue(compression.getCompressedBytes() > 0);
+        Assert.assertEquals(0, compression.getCompressedMessageCount());
+
+        // flushing again without writing anything sends nothing
+        final int flushed = os.size();
+        output.flush();
+        Assert.assertEquals(flushed, os.size());
+
+        for (int i = 2000; i < 3000; ++i) {
+            output.writeInt(i % 100);
+        }
+        output.close();
+        final DataInputStream message = new DataInputStream(new ByteArrayInputStream(os.toByteArray()));
+        ManagementProtocolHeader.parse(message);
+        assertBody(new DataInputStream(new InflaterInputStream(message)), 3000);
+        Assert.assertEquals(1, compression.getCompressedMessageCount());
+        Assert.assertEquals(3000 * 4, compression.getUncompressedBytes());
+    }
+
+    @Test
+    public void testSmallBodyIsNotCompressed() throws IOException {
+        final MessageCompression compression = new MessageCompression(1024, 1);
+        assertNotCompressed(write(compression, ManagementResponseHeader.create(REQUEST), 100), 100);
+        Assert.assertEquals(0, compression.getCompressedMessageCount());
+        Assert.assertEquals(0, compression.getUncompressedBytes());
+    }
+
+    @Test
+    public void testOldRequesterGetsUncompressedBody() throws IOException {
+        final MessageCompression compression = new MessageCompression(1024, 1);
+        final ManagementRequestHeader request = new ManagementRequestHeader(ManagementProtocol.VERSION_COMPRESSION - 1, 1, 2, (byte) 3);
+        assertNotCompressed(write(compression, ManagementResponseHeader.create(request), 10000), 10000);
+    }
+
+    @Test
+    public void testRequestIsNotCompressed() throws IOException {
+        final MessageCompression compression = new MessageCompression(1024, 1);
+        final byte[] message = write(compression, REQUEST, 10000);
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(message));
+        Assert.assertEquals(ManagementProtocol.TYPE_REQUEST, ManagementProtocolHeader.parse(input).getType());
+        assertBody(input, 10000);
+    }
+
+    @Test
+    public void testDisabled() throws IOException {
+        final MessageCompression compression = new MessageCompression(0, 1);
+        assertNotCompressed(write(compression, ManagementResponseHeader.create(REQUEST), 10000), 10000);
+    }
+
+    private static byte[] write(final MessageCompression compression, final ManagementProtocolHeader header, final int count) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final FlushableDataOutput output = compression.writeHeader(header, os);
+        for (int i = 0; i < count; ++i) {
+            output.writeInt(i % 100);
+        }
+        output.close();
+        return os.toByteArray();
+    }
+
+    private static void assertNotCompressed(final byte[] message, final int count) throws IOException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(message));
+        final ManagementResponseHeader header = (ManagementResponseHeader) ManagementProtocolHeader.parse(input);
+        Assert.assertFalse(header.isCompressed());
+        assertBody(input, count);
+    }
+
+    private static void assertBody(final DataInputStream input, final int count) throws IOException {
+        for (int i = 0; i < count; ++i) {
+            Assert.assertEquals(i % 100, input.readInt());
+        }
+        Assert.assertEquals(-1, input.read());
+    }
+}
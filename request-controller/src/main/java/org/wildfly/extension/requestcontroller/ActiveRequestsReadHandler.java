@@ -25,11 +25,13 @@ package org.wildfly.extension.requestcontroller;
 import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.dmr.ModelNode;
 import org.jboss.msc.service.ServiceController;
 
 /**
- * Reads handler for active requests
+ * Reads handler for active requests, and the other metrics of the request controller
  *
  * @author Stuart Douglas
  */
@@ -40,9 +42,41 @@ class ActiveRequestsReadHandler extends AbstractRuntimeOnlyHandler {
         ServiceController<?> service = context.getServiceRegistry(false).getService(RequestController.SERVICE_NAME);
         if(service != null) {
             RequestController requestController = (RequestController) service.getService().getValue();
-            context.getResult().set(requestController.getActiveRequestCount());
-        } else {
+            PathAddress address = context.getCurrentAddress();
+            if (Constants.REQUEST_CLASS.equals(address.getLastElement().getKey())) {
+                readRequestClassMetric(context, operation, requestController.getRequestClass(address.getLastElement().getValue()));
+                return;
+            }
+            switch (operation.require(ModelDescriptionConstants.NAME).asString()) {
+                case Constants.QUEUED_REQUESTS:
+                    context.getResult().set(requestController.getQueuedTaskCount());
+                    break;
+                case Constants.QUEUE_DELAY_HISTOGRAM:
+                    context.getResult().set(requestController.getQueueDelayHistogram().toModelNode());
+                    break;
+                default:
+                    context.getResult().set(requestController.getActiveRequestCount());
+            }
+        } else if (!Constants.QUEUE_DELAY_HISTOGRAM.equals(operation.require(ModelDescriptionConstants.NAME).asString())) {
             context.getResult().set(-1);
         }
     }
+
+    private static void readRequestClassMetric(OperationContext context, ModelNode operation, RequestClass requestClass) {
+        if (requestClass == null) {
+            //added since the last reload
+            context.getResult().set(-1);
+            return;
+        }
+        switch (operation.require(ModelDescriptionConstants.NAME).asString()) {
+            case Constants.QUEUED_REQUESTS:
+                context.getResult().set(requestClass.getQueuedRequestCount());
+                break;
+            case Constants.REJECTED_REQUESTS:
+                context.getResult().set(requestClass.getRejectedRequestCount());
+                break;
+            default:
+                context.getResult().set(requestClass.getActiveRequestCount());
+        }
+    }
 }
@@ -31,4 +31,12 @@ interface Constants {
     String MAX_REQUESTS = "max-requests";
     String ACTIVE_REQUESTS = "active-requests";
     String TRACK_INDIVIDUAL_ENDPOINTS = "track-individual-endpoints";
+    String QUEUED_REQUESTS = "queued-requests";
+    String QUEUE_DELAY_HISTOGRAM = "queue-delay-histogram";
+    String REQUEST_CLASS = "request-class";
+    String DEPLOYMENTS = "deployments";
+    String ENTRY_POINTS = "entry-points";
+    String WEIGHT = "weight";
+    String MIN_REQUESTS = "min-requests";
+    String REJECTED_REQUESTS = "rejected-requests";
 }
@@ -25,6 +25,8 @@ import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import org.jboss.as.server.logging.ServerLogger;
 import org.jboss.as.server.suspend.ServerActivityCallback;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
 import java.util.concurrent.Executor;
 
 /**
@@ -42,19 +44,45 @@ import java.util.concurrent.Executor;
  */
 public class ControlPoint {
 
-    private static final AtomicIntegerFieldUpdater<ControlPoint> activeRequestCountUpdater = AtomicIntegerFieldUpdater.newUpdater(ControlPoint.class, "activeRequestCount");
+    /**
+     * System property that sets the default maximum number of tasks each control point can have queued, see
+     * {@link #setMaxQueuedTasks(int)}.
+     */
+    static final String MAX_QUEUED_TASKS_PROPERTY = "org.wildfly.request-controller.max-queued-tasks-per-control-point";
+
+    private static final int DEFAULT_MAX_QUEUED_TASKS;
+
+    static {
+        int max = -1;
+        try {
+            max = Integer.parseInt(WildFlySecurityManager.getPropertyPrivileged(MAX_QUEUED_TASKS_PROPERTY, "-1"));
+        } catch (NumberFormatException ignored) {
+            // no limit
+        }
+        DEFAULT_MAX_QUEUED_TASKS = max;
+    }
+
+    private static final AtomicIntegerFieldUpdater<ControlPoint> queuedTaskCountUpdater = AtomicIntegerFieldUpdater.newUpdater(ControlPoint.class, "queuedTaskCount");
     private static final AtomicReferenceFieldUpdater<ControlPoint, ServerActivityCallback> listenerUpdater = AtomicReferenceFieldUpdater.newUpdater(ControlPoint.class, ServerActivityCallback.class, "listener");
 
     private final RequestController controller;
     private final String deployment;
     private final String entryPoint;
     private final boolean trackIndividualControlPoints;
+    private final RequestClass requestClass;
 
     /**
      * The number of active requests that are using this entry point
      */
+    private final RequestCounter activeRequestCount = RequestCounter.create(RequestCounter.UNLIMITED);
+
+    /**
+     * The number of tasks queued via this entry point that have neither run nor timed out yet
+     */
     @SuppressWarnings("unused")
-    private volatile int activeRequestCount = 0;
+    private volatile int queuedTaskCount = 0;
+
+    private volatile int maxQueuedTasks = DEFAULT_MAX_QUEUED_TASKS;
 
     /**
      * If this entry point is paused
@@ -70,11 +98,12 @@ public class ControlPoint {
      */
     private int referenceCount = 0;
 
-    ControlPoint(RequestController controller, String deployment, String entryPoint, boolean trackIndividualControlPoints) {
+    ControlPoint(RequestController controller, String deployment, String entryPoint, boolean trackIndividualControlPoints, RequestClass requestClass) {
         this.controller = controller;
         this.deployment = deployment;
         this.entryPoint = entryPoint;
         this.trackIndividualControlPoints = trackIndividualControlPoints;
+        this.requestClass = requestClass;
     }
 
     public String getEntryPoint() {
@@ -98,7 +127,7 @@ public class ControlPoint {
         }
         this.paused = true;
         listenerUpdater.set(this, requestCountListener);
-        if (activeRequestCountUpdater.get(this) == 0) {
+        if (activeRequestCount.drain()) {
             if (listenerUpdater.compareAndSet(this, requestCountListener, null)) {
                 requestCountListener.done();
             }
@@ -110,6 +139,7 @@ public class ControlPoint {
      */
     public void resume() {
         this.paused = false;
+        activeRequestCount.undrain();
         ServerActivityCallback listener = listenerUpdater.get(this);
         if (listener != null) {
             listenerUpdater.compareAndSet(this, listener, null);
@@ -129,9 +159,9 @@ public class ControlPoint {
             return RunResult.REJECTED;
         }
         if(trackIndividualControlPoints) {
-            activeRequestCountUpdater.incrementAndGet(this);
+            activeRequestCount.tryIncrement();
         }
-        RunResult runResult = controller.beginRequest(false);
+        RunResult runResult = controller.beginRequest(requestClass, false);
         if (runResult == RunResult.REJECTED) {
             decreaseRequestCount();
         }
@@ -151,9 +181,9 @@ public class ControlPoint {
      */
     public RunResult forceBeginRequest() throws Exception {
         if(trackIndividualControlPoints) {
-            activeRequestCountUpdater.incrementAndGet(this);
+            activeRequestCount.tryIncrement();
         }
-        return controller.beginRequest(true);
+        return controller.beginRequest(requestClass, true);
     }
 
     /**
@@ -161,7 +191,7 @@ public class ControlPoint {
      */
     void beginExistingRequest() {
         if(trackIndividualControlPoints) {
-            activeRequestCountUpdater.incrementAndGet(this);
+            activeRequestCount.tryIncrement();
         }
     }
 
@@ -172,13 +202,13 @@ public class ControlPoint {
      */
     public void requestComplete() {
         decreaseRequestCount();
-        controller.requestComplete();
+        controller.requestComplete(requestClass);
     }
 
     private void decreaseRequestCount() {
         if (trackIndividualControlPoints) {
-            int result = activeRequestCountUpdater.decrementAndGet(this);
-            if (paused && result == 0) {
+            boolean zero = activeRequestCount.decrement();
+            if (paused && zero) {
                 ServerActivityCallback listener = listenerUpdater.get(this);
                 if (listener != null) {
                     if (listenerUpdater.compareAndSet(this, listener, null)) {
@@ -232,8 +262,71 @@ public class ControlPoint {
         return paused;
     }
 
+    /**
+     * @return The request class this control point belongs to, or null if it is not in any class
+     */
+    RequestClass getRequestClass() {
+        return requestClass;
+    }
+
+    /**
+     * @return The number of tasks queued via this control point that are waiting to run
+     */
+    public int getQueuedTaskCount() {
+        return queuedTaskCountUpdater.get(this);
+    }
+
+    /**
+     * @return The maximum number of tasks that can be queued via this control point, or -1 if there is no limit
+     */
+    public int getMaxQueuedTasks() {
+        return maxQueuedTasks;
+    }
+
+    /**
+     * Sets the maximum number of tasks that can be queued via this control point at a time. Once the limit has been
+     * reached, {@link #queueTask(Runnable, Executor, long, Runnable, boolean)} invokes the timeout task straight away
+     * instead of queueing the task. Tasks queued with {@link #forceQueueTask(Runnable, Executor)} are never rejected,
+     * but do count towards the limit.
+     * <p/>
+     * The default is taken from the {@code org.wildfly.request-controller.max-queued-tasks-per-control-point}
+     * system property, and is no limit if that is not set.
+     *
+     * @param maxQueuedTasks The max number of queued tasks, or -1 for no limit
+     */
+    public void setMaxQueuedTasks(int maxQueuedTasks) {
+        this.maxQueuedTasks = maxQueuedTasks;
+    }
+
+    /**
+     * Called before a task is queued.
+     *
+     * @param force If the task must be queued regardless of the limit
+     * @return {@code true} if the task can be queued
+     */
+    boolean taskQueued(boolean force) {
+        int queued = queuedTaskCountUpdater.get(this);
+        for (;;) {
+            int max = maxQueuedTasks;
+            if (!force && max >= 0 && queued >= max) {
+                return false;
+            }
+            if (queuedTaskCountUpdater.compareAndSet(this, queued, queued + 1)) {
+                return true;
+            }
+            queued = queuedTaskCountUpdater.get(this);
+        }
+    }
+
+    /**
+     * Called once a queued task has been run or timed out.
+     */
+    void taskDequeued() {
+        queuedTaskCountUpdater.decrementAndGet(this);
+    }
+
     public int getActiveRequestCount() {
-        return activeRequestCountUpdater.get(this);
+        return (int) activeRequestCount.get();
     }
 
     synchronized int increaseReferenceCount() {
@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.requestcontroller;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Histogram of the time queued tasks spent in the queue before they were run or timed out.
+ */
+final class QueueDelayHistogram {
+
+    /** Upper bounds of the buckets, in ms; the last bucket takes everything above */
+    private static final long[] BOUNDS = {1, 5, 10, 50, 100, 500, 1000, 5000, 10000};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+
+    void record(final long delayNanos) {
+        final long millis = TimeUnit.NANOSECONDS.toMillis(delayNanos);
+        int bucket = 0;
+        while (bucket < BOUNDS.length && millis >= BOUNDS[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+    }
+
+    /**
+     * Gets the histogram as an object with one {@code LONG} field per bucket, named after the bucket's range.
+     *
+     * @return the histogram. Will not be {@code null}
+     */
+    ModelNode toModelNode() {
+        final ModelNode result = new ModelNode();
+        for (int i = 0; i < BOUNDS.length; i++) {
+            result.get("under-" + BOUNDS[i] + "ms").set(counts.get(i));
+        }
+        result.get("over-" + BOUNDS[BOUNDS.length - 1] + "ms").set(counts.get(BOUNDS.length));
+        return result;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.requestcontroller;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class of requests that is admitted by the {@link RequestController} according to its own rules, so that e.g.
+ * health checks or administrative traffic are not starved by application traffic.
+ * <p/>
+ * A class is made up of the control points whose deployment and entry point match. Up to {@code min-requests}
+ * requests of the class can always run, as that many slots of the global {@code max-requests} are reserved for it;
+ * once these are in use, further requests compete with all other requests for the slots that are not reserved by
+ * any class. When slots free up, queued tasks are run in proportion to the weights of their classes.
+ */
+final class RequestClass {
+
+    private final String name;
+    private final int weight;
+    private final int minRequests;
+    private final Set<String> deployments;
+    private final Set<String> entryPoints;
+
+    /**
+     * The number of active requests that run in the slots reserved for this class
+     */
+    private final AtomicInteger reservedRequests = new AtomicInteger();
+
+    /**
+     * The number of active requests that run in the slots shared by all classes
+     */
+    private final AtomicInteger sharedRequests = new AtomicInteger();
+
+    private final AtomicInteger queuedRequests = new AtomicInteger();
+
+    private final AtomicLong rejectedRequests = new AtomicLong();
+
+    /**
+     * @param name the name of the class
+     * @param weight the share of the queued tasks that is run for this class, relative to other classes
+     * @param minRequests the number of requests of this class that can always run
+     * @param deployments the deployments whose control points belong to this class, or empty for any
+     * @param entryPoints the entry points whose control points belong to this class, or empty for any
+     */
+    RequestClass(final String name, final int weight, final int minRequests, final Collection<String> deployments, final Collection<String> entryPoints) {
+        this.name = name;
+        this.weight = Math.max(1, weight);
+        this.minRequests = Math.max(0, minRequests);
+        this.deployments = Collections.unmodifiableSet(new HashSet<>(deployments));
+        this.entryPoints = Collections.unmodifiableSet(new HashSet<>(entryPoints));
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getWeight() {
+        return weight;
+    }
+
+    int getMinRequests() {
+        return minRequests;
+    }
+
+    /**
+     * Gets how well this class matches a control point. A class that names both the deployment and the entry point
+     * beats one that only names the deployment, which in turn beats one that only names the entry point.
+     *
+     * @return the specificity of the match, or -1 if the class does not match
+     */
+    int match(final String deployment, final String entryPoint) {
+        if (!deployments.isEmpty() && !deployments.contains(deployment)) {
+            return -1;
+        }
+        if (!entryPoints.isEmpty() && !entryPoints.contains(entryPoint)) {
+            return -1;
+        }
+        return (deployments.isEmpty() ? 0 : 2) + (entryPoints.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Takes one of the slots reserved for this class, if any is free.
+     */
+    boolean tryReserve() {
+        int current = reservedRequests.get();
+        while (current < minRequests) {
+            if (reservedRequests.compareAndSet(current, current + 1)) {
+                return true;
+            }
+            current = reservedRequests.get();
+        }
+        return false;
+    }
+
+    void sharedRequestStarted() {
+        sharedRequests.incrementAndGet();
+    }
+
+    /**
+     * Records that a request of this class has completed. As requests in reserved and shared slots are
+     * interchangeable, a shared slot is given back first if this class holds any, which leaves the reserved slots
+     * to this class and frees a slot for the others.
+     *
+     * @return {@code true} if a shared slot was given back
+     */
+    boolean requestComplete() {
+        int shared = sharedRequests.get();
+        while (shared > 0) {
+            if (sharedRequests.compareAndSet(shared, shared - 1)) {
+                return true;
+            }
+            shared = sharedRequests.get();
+        }
+        reservedRequests.decrementAndGet();
+        return false;
+    }
+
+    void releaseReserved() {
+        reservedRequests.decrementAndGet();
+    }
+
+    void taskQueued() {
+        queuedRequests.incrementAndGet();
+    }
+
+    void taskDequeued() {
+        queuedRequests.decrementAndGet();
+    }
+
+    void requestRejected() {
+        rejectedRequests.incrementAndGet();
+    }
+
+    /**
+     * @return The number of requests of this class that are currently running
+     */
+    int getActiveRequestCount() {
+        return reservedRequests.get() + sharedRequests.get();
+    }
+
+    /**
+     * @return The number of tasks of this class that are currently queued
+     */
+    int getQueuedRequestCount() {
+        return queuedRequests.get();
+    }
+
+    /**
+     * @return The number of requests of this class that have been rejected or timed out while queued
+     */
+    long getRejectedRequestCount() {
+        return rejectedRequests.get();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.requestcontroller;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.AttributeMarshaller;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.PersistentResourceDefinition;
+import org.jboss.as.controller.ReloadRequiredAddStepHandler;
+import org.jboss.as.controller.ReloadRequiredRemoveStepHandler;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.StringListAttributeDefinition;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+
+/**
+ * Definition of a request class, see {@link RequestClass}.
+ */
+class RequestClassDefinition extends PersistentResourceDefinition {
+
+    static final PathElement PATH = PathElement.pathElement(Constants.REQUEST_CLASS);
+
+    static final StringListAttributeDefinition DEPLOYMENTS = new StringListAttributeDefinition.Builder(Constants.DEPLOYMENTS)
+            .setAllowNull(true)
+            .setAllowExpression(true)
+            .setAttributeMarshaller(AttributeMarshaller.STRING_LIST)
+            .build();
+
+    static final StringListAttributeDefinition ENTRY_POINTS = new StringListAttributeDefinition.Builder(Constants.ENTRY_POINTS)
+            .setAllowNull(true)
+            .setAllowExpression(true)
+            .setAttributeMarshaller(AttributeMarshaller.STRING_LIST)
+            .build();
+
+    static final SimpleAttributeDefinition WEIGHT = SimpleAttributeDefinitionBuilder.create(Constants.WEIGHT, ModelType.INT, true)
+            .setAllowExpression(true)
+            .setValidator(new IntRangeValidator(1, true, true))
+            .setDefaultValue(new ModelNode(1))
+            .build();
+
+    static final SimpleAttributeDefinition MIN_REQUESTS = SimpleAttributeDefinitionBuilder.create(Constants.MIN_REQUESTS, ModelType.INT, true)
+            .setAllowExpression(true)
+            .setValidator(new IntRangeValidator(0, true, true))
+            .setDefaultValue(new ModelNode(0))
+            .build();
+
+    static final SimpleAttributeDefinition ACTIVE_REQUESTS = SimpleAttributeDefinitionBuilder.create(Constants.ACTIVE_REQUESTS, ModelType.INT, true)
+            .setStorageRuntime()
+            .build();
+
+    static final SimpleAttributeDefinition QUEUED_REQUESTS = SimpleAttributeDefinitionBuilder.create(Constants.QUEUED_REQUESTS, ModelType.INT, true)
+            .setStorageRuntime()
+            .build();
+
+    static final SimpleAttributeDefinition REJECTED_REQUESTS = SimpleAttributeDefinitionBuilder.create(Constants.REJECTED_REQUESTS, ModelType.LONG, true)
+            .setStorageRuntime()
+            .build();
+
+    static final AttributeDefinition[] ATTRIBUTES = {DEPLOYMENTS, ENTRY_POINTS, WEIGHT, MIN_REQUESTS};
+
+    private final boolean registerRuntimeOnly;
+
+    RequestClassDefinition(boolean registerRuntimeOnly) {
+        super(PATH,
+                RequestControllerExtension.getResolver(Constants.REQUEST_CLASS),
+                new ReloadRequiredAddStepHandler(ATTRIBUTES),
+                ReloadRequiredRemoveStepHandler.INSTANCE);
+        this.registerRuntimeOnly = registerRuntimeOnly;
+    }
+
+    @Override
+    public Collection<AttributeDefinition> getAttributes() {
+        return Arrays.asList(ATTRIBUTES);
+    }
+
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        super.registerAttributes(resourceRegistration);
+        if (registerRuntimeOnly) {
+            ActiveRequestsReadHandler readHandler = new ActiveRequestsReadHandler();
+            resourceRegistration.registerMetric(ACTIVE_REQUESTS, readHandler);
+            resourceRegistration.registerMetric(QUEUED_REQUESTS, readHandler);
+            resourceRegistration.registerMetric(REJECTED_REQUESTS, readHandler);
+        }
+    }
+}
@@ -33,17 +33,20 @@ import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
 import org.wildfly.extension.requestcontroller.logging.RequestControllerLogger;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.TreeMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
@@ -54,6 +57,10 @@ import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
  * 1) Graceful shutdown - When the number of active request reaches zero then the container can be gracefully shut down
  * 2) Request limiting - This allows the total number of requests that are active to be limited.
  * <p/>
+ * If {@link RequestClass request classes} are configured, part of the request limit can be reserved for
+ * some control points, and queued tasks are run in proportion to the weights of their classes rather than in
+ * FIFO order.
+ * <p/>
  *
  * @author Stuart Douglas
  */
@@ -62,12 +69,11 @@ public class RequestController implements Service<RequestController>, ServerActi
     @Deprecated
     public static final ServiceName SERVICE_NAME = RequestControllerRootDefinition.REQUEST_CONTROLLER_CAPABILITY.getCapabilityServiceName();
 
-    private static final AtomicIntegerFieldUpdater<RequestController> activeRequestCountUpdater = AtomicIntegerFieldUpdater.newUpdater(RequestController.class, "activeRequestCount");
     private static final AtomicReferenceFieldUpdater<RequestController, ServerActivityCallback> listenerUpdater = AtomicReferenceFieldUpdater.newUpdater(RequestController.class, ServerActivityCallback.class, "listener");
 
     private volatile int maxRequestCount = -1;
 
-    private volatile int activeRequestCount = 0;
+    private final RequestCounter activeRequestCount = RequestCounter.create(RequestCounter.UNLIMITED);
 
     private volatile boolean paused = false;
 
@@ -89,10 +95,37 @@ public class RequestController implements Service<RequestController>, ServerActi
         listener.done();
     }
 
-    private Timer timer;
+    private final TimeoutWheel timeoutWheel = new TimeoutWheel("Request controller queued task timeouts", 10, TimeUnit.MILLISECONDS);
 
     private final Deque<QueuedTask> taskQueue = new LinkedBlockingDeque<>();
 
+    private final AtomicInteger queuedTaskCount = new AtomicInteger();
+
+    private final QueueDelayHistogram queueDelayHistogram = new QueueDelayHistogram();
+
+    /**
+     * The request classes by name; empty if none are configured
+     */
+    private volatile Map<String, RequestClass> requestClasses = Collections.emptyMap();
+
+    /**
+     * Used instead of the task queue if request classes are configured, with one queue per class and a last one
+     * for the control points that are not in any class. Guarded by itself.
+     */
+    private volatile ClassQueue[] classQueues;
+
+    /**
+     * The number of active requests that run in slots not reserved by any request class
+     */
+    private final AtomicInteger sharedRequestCount = new AtomicInteger();
+
+    private volatile int sharedRequestLimit = -1;
+
+    /**
+     * The pass of the class queue that was served last, guarded by the class queues
+     */
+    private long currentPass;
+
     /**
      * Pause the controller. All existing requests will have a chance to finish, and once all requests are
      * finished the provided listener will be invoked.
@@ -105,7 +138,7 @@ public class RequestController implements Service<RequestController>, ServerActi
         this.paused = true;
         listenerUpdater.set(this, requestCountListener);
 
-        if (activeRequestCountUpdater.get(this) == 0) {
+        if (activeRequestCount.drain()) {
             if (listenerUpdater.compareAndSet(this, requestCountListener, null)) {
                 requestCountListener.done();
             }
@@ -118,12 +151,15 @@ public class RequestController implements Service<RequestController>, ServerActi
     @Override
     public synchronized void resume() {
         this.paused = false;
+        activeRequestCount.undrain();
         ServerActivityCallback listener = listenerUpdater.get(this);
         if (listener != null) {
             listenerUpdater.compareAndSet(this, listener, null);
         }
-        while (!taskQueue.isEmpty() && (activeRequestCount < maxRequestCount || maxRequestCount < 0)) {
-            runQueuedTask(false);
+        while (hasQueuedTasks() && (getActiveRequestCount() < maxRequestCount || maxRequestCount < 0)) {
+            if(!runQueuedTask(false)) {
+                break;
+            }
         }
     }
 
@@ -205,44 +241,99 @@ public class RequestController implements Service<RequestController>, ServerActi
         for (ControlPoint controlPoint : entryPoints.values()) {
             eps.add(new RequestControllerState.EntryPointState(controlPoint.getDeployment(), controlPoint.getEntryPoint(), controlPoint.isPaused(), controlPoint.getActiveRequestCount()));
         }
-        return new RequestControllerState(paused, activeRequestCount, maxRequestCount, eps);
+        return new RequestControllerState(paused, getActiveRequestCount(), maxRequestCount, eps);
     }
 
-    RunResult beginRequest(boolean force) {
-        int maxRequests = maxRequestCount;
-        int active = activeRequestCountUpdater.get(this);
-        boolean success = false;
-        while ((maxRequests <= 0 || active < maxRequests) && (!paused || force)) {
-            if (activeRequestCountUpdater.compareAndSet(this, active, active + 1)) {
-                success = true;
-                break;
-            }
-            active = activeRequestCountUpdater.get(this);
+    RunResult beginRequest(RequestClass requestClass, boolean force) {
+        if (paused && !force) {
+            requestRejected(requestClass);
+            return RunResult.REJECTED;
         }
-        if (success) {
+        if (admit(requestClass)) {
             //re-check the paused state
             //this is necessary because there is a race between checking paused and updating active requests
             //if this happens we just call requestComplete(), as the listener can only be invoked once it does not
             //matter if it has already been invoked
             if(!force && paused) {
-                requestComplete();
+                requestComplete(requestClass);
+                requestRejected(requestClass);
                 return RunResult.REJECTED;
             }
             return RunResult.RUN;
         } else {
+            requestRejected(requestClass);
             return RunResult.REJECTED;
         }
     }
 
-    void requestComplete() {
+    void requestComplete(RequestClass requestClass) {
+        release(requestClass);
         runQueuedTask(true);
     }
 
+    /**
+     * Takes a slot for a request of the given class, taking one of the slots reserved for the class if possible and
+     * one of the shared slots otherwise.
+     *
+     * @param requestClass The class of the request, or null if it is not in any class
+     * @return <code>true</code> if the request can run
+     */
+    private boolean admit(RequestClass requestClass) {
+        if (classQueues == null) {
+            return activeRequestCount.tryIncrement();
+        }
+        if (requestClass != null && requestClass.tryReserve()) {
+            if (activeRequestCount.tryIncrement()) {
+                return true;
+            }
+            //only possible if max-requests has been lowered below the reserved slots
+            requestClass.releaseReserved();
+            return false;
+        }
+        int shared = sharedRequestCount.get();
+        for (;;) {
+            int max = sharedRequestLimit;
+            if (max >= 0 && shared >= max) {
+                return false;
+            }
+            if (sharedRequestCount.compareAndSet(shared, shared + 1)) {
+                break;
+            }
+            shared = sharedRequestCount.get();
+        }
+        if (requestClass != null) {
+            requestClass.sharedRequestStarted();
+        }
+        if (activeRequestCount.tryIncrement()) {
+            return true;
+        }
+        release(requestClass);
+        return false;
+    }
+
+    /**
+     * Gives back the slot taken by {@link #admit(RequestClass)}. The active request count is decremented separately.
+     */
+    private void release(RequestClass requestClass) {
+        if (classQueues == null) {
+            return;
+        }
+        if (requestClass == null || requestClass.requestComplete()) {
+            sharedRequestCount.decrementAndGet();
+        }
+    }
+
+    private static void requestRejected(RequestClass requestClass) {
+        if (requestClass != null) {
+            requestClass.requestRejected();
+        }
+    }
+
     private void decrementRequestCount() {
 
-        int result = activeRequestCountUpdater.decrementAndGet(this);
+        boolean zero = activeRequestCount.decrement();
         if (paused) {
-            if (paused && result == 0) {
+            if (paused && zero) {
                 ServerActivityCallback listener = listenerUpdater.get(this);
                 if (listener != null) {
                     if (listenerUpdater.compareAndSet(this, listener, null)) {
@@ -268,7 +359,7 @@ public class RequestController implements Service<RequestController>, ServerActi
         ControlPointIdentifier id = new ControlPointIdentifier(deploymentName, entryPointName);
         ControlPoint ep = entryPoints.get(id);
         if (ep == null) {
-            ep = new ControlPoint(this, deploymentName, entryPointName, trackIndividualControlPoints);
+            ep = new ControlPoint(this, deploymentName, entryPointName, trackIndividualControlPoints, findRequestClass(deploymentName, entryPointName));
             entryPoints.put(id, ep);
         }
         ep.increaseReferenceCount();
@@ -287,6 +378,69 @@ public class RequestController implements Service<RequestController>, ServerActi
         }
     }
 
+    /**
+     * Sets the request classes. This must be called before any control point is created, as the class of a control
+     * point is determined when it is created.
+     *
+     * @param classes The request classes
+     */
+    void setRequestClasses(Collection<RequestClass> classes) {
+        if (classes.isEmpty()) {
+            requestClasses = Collections.emptyMap();
+            classQueues = null;
+        } else {
+            //sorted so that ties between equally specific classes are always resolved the same way
+            final Map<String, RequestClass> map = new TreeMap<>();
+            final ClassQueue[] queues = new ClassQueue[classes.size() + 1];
+            int i = 0;
+            for (RequestClass requestClass : classes) {
+                map.put(requestClass.getName(), requestClass);
+                queues[i++] = new ClassQueue(requestClass, requestClass.getWeight());
+            }
+            queues[i] = new ClassQueue(null, 1);
+            requestClasses = Collections.unmodifiableMap(map);
+            classQueues = queues;
+        }
+        updateSharedRequestLimit();
+    }
+
+    /**
+     * @param name The name of the request class
+     * @return The request class, or null if there is no class with that name
+     */
+    RequestClass getRequestClass(String name) {
+        return requestClasses.get(name);
+    }
+
+    private RequestClass findRequestClass(String deploymentName, String entryPointName) {
+        RequestClass result = null;
+        int best = -1;
+        for (RequestClass requestClass : requestClasses.values()) {
+            int match = requestClass.match(deploymentName, entryPointName);
+            if (match > best) {
+                best = match;
+                result = requestClass;
+            }
+        }
+        return result;
+    }
+
+    private void updateSharedRequestLimit() {
+        int reserved = 0;
+        for (RequestClass requestClass : requestClasses.values()) {
+            reserved += requestClass.getMinRequests();
+        }
+        int max = maxRequestCount;
+        if (max < 0) {
+            sharedRequestLimit = -1;
+        } else {
+            if (reserved >= max && reserved > 0) {
+                RequestControllerLogger.ROOT_LOGGER.requestClassesReserveAllRequests(reserved, max);
+            }
+            sharedRequestLimit = Math.max(0, max - reserved);
+        }
+    }
+
     /**
      * @return The maximum number of requests that can be active at a time
      */
@@ -304,7 +458,9 @@ public class RequestController implements Service<RequestController>, ServerActi
      */
     public void setMaxRequestCount(int maxRequestCount) {
         this.maxRequestCount = maxRequestCount;
-        while (!taskQueue.isEmpty() && (activeRequestCount < maxRequestCount || maxRequestCount < 0)) {
+        activeRequestCount.setLimit(maxRequestCount);
+        updateSharedRequestLimit();
+        while (hasQueuedTasks() && (getActiveRequestCount() < maxRequestCount || maxRequestCount < 0)) {
             if(!runQueuedTask(false)) {
                 break;
             }
@@ -321,19 +477,15 @@ public class RequestController implements Service<RequestController>, ServerActi
     @Override
     public void start(StartContext startContext) throws StartException {
         shutdownControllerInjectedValue.getValue().registerActivity(this);
-        timer = new Timer();
     }
 
     @Override
     public void stop(StopContext stopContext) {
         shutdownControllerInjectedValue.getValue().unRegisterActivity(this);
-        timer.cancel();
-        timer = null;
-        while (!taskQueue.isEmpty()) {
-            QueuedTask t = taskQueue.poll();
-            if(t != null) {
-                t.run();
-            }
+        timeoutWheel.stop();
+        QueuedTask t;
+        while ((t = pollQueuedTask()) != null) {
+            t.expired();
         }
     }
 
@@ -347,7 +499,18 @@ public class RequestController implements Service<RequestController>, ServerActi
     }
 
     public int getActiveRequestCount() {
-        return activeRequestCount;
+        return (int) activeRequestCount.get();
+    }
+
+    /**
+     * @return The number of tasks that are currently queued, waiting for the request controller to allow them to run
+     */
+    public int getQueuedTaskCount() {
+        return queuedTaskCount.get();
+    }
+
+    QueueDelayHistogram getQueueDelayHistogram() {
+        return queueDelayHistogram;
     }
 
     void queueTask(ControlPoint controlPoint, Runnable task, Executor taskExecutor, long timeout, Runnable timeoutTask, boolean rejectOnSuspend, boolean forceRun) {
@@ -357,12 +520,21 @@ public class RequestController implements Service<RequestController>, ServerActi
                 return;
             }
         }
+        if(!controlPoint.taskQueued(forceRun)) {
+            //the control point already has as many queued tasks as it is allowed to
+            requestRejected(controlPoint.getRequestClass());
+            if(timeoutTask != null) {
+                taskExecutor.execute(timeoutTask);
+            }
+            return;
+        }
+        queuedTaskCount.incrementAndGet();
         QueuedTask queuedTask = new QueuedTask(taskExecutor, task, timeoutTask, controlPoint, forceRun);
-        taskQueue.add(queuedTask);
+        enqueue(queuedTask);
         runQueuedTask(false);
         if(queuedTask.isQueued()) {
             if(timeout > 0) {
-                timer.schedule(queuedTask, timeout);
+                timeoutWheel.schedule(queuedTask, timeout, TimeUnit.MILLISECONDS);
             }
         }
     }
@@ -372,16 +544,30 @@ public class RequestController implements Service<RequestController>, ServerActi
      *
      * Note that this will decrement the request count if there are no queued tasks to be run
      *
-     * @param hasPermit If the caller has already called {@link #beginRequest(boolean force)}
+     * @param hasPermit If the caller has already called {@link #beginRequest(RequestClass, boolean)}
      */
     private boolean runQueuedTask(boolean hasPermit) {
         QueuedTask task = null;
         if(!hasPermit) {
-            if(!paused) {
-                if (beginRequest(false) == RunResult.REJECTED) {
+            final ClassQueue[] queues = classQueues;
+            if(!paused && queues != null) {
+                task = pollAdmittedTask(queues);
+                if(task == null) {
+                    return false;
+                }
+            } else if(!paused) {
+                if (beginRequest(null, false) == RunResult.REJECTED) {
                     return false;
                 }
                 task = taskQueue.poll();
+            } else if(queues != null) {
+                task = pollForcedTask(queues);
+                if(task == null) {
+                    return false;
+                }
+                if (beginRequest(task.controlPoint.getRequestClass(), true) == RunResult.REJECTED) {
+                    return false;
+                }
             } else {
                 //the container is suspended, but we still need to run any force queued tasks
                 List<QueuedTask> storage = new ArrayList<>();
@@ -400,13 +586,14 @@ public class RequestController implements Service<RequestController>, ServerActi
                     return false;
                 }
                 //after all that we are at the max request limit anyway
-                if (beginRequest(true) == RunResult.REJECTED) {
+                if (beginRequest(task.controlPoint.getRequestClass(), true) == RunResult.REJECTED) {
                     return false;
                 }
             }
         }
         if(task != null) {
             if(!task.runRequest()) {
+                release(task.controlPoint.getRequestClass());
                 decrementRequestCount();
             }
             return true;
@@ -416,6 +603,122 @@ public class RequestController implements Service<RequestController>, ServerActi
         }
     }
 
+    private void enqueue(QueuedTask task) {
+        final ClassQueue[] queues = classQueues;
+        if (queues == null) {
+            taskQueue.add(task);
+            return;
+        }
+        final RequestClass requestClass = task.controlPoint.getRequestClass();
+        synchronized (queues) {
+            ClassQueue queue = queues[queues.length - 1];
+            for (ClassQueue q : queues) {
+                if (q.requestClass == requestClass) {
+                    queue = q;
+                    break;
+                }
+            }
+            if (queue.tasks.isEmpty()) {
+                //a class that had nothing queued does not get to catch up on the turns it did not need
+                queue.pass = Math.max(queue.pass, currentPass);
+            }
+            queue.tasks.add(task);
+        }
+    }
+
+    private boolean hasQueuedTasks() {
+        final ClassQueue[] queues = classQueues;
+        if (queues == null) {
+            return !taskQueue.isEmpty();
+        }
+        synchronized (queues) {
+            for (ClassQueue queue : queues) {
+                if (!queue.tasks.isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private QueuedTask pollQueuedTask() {
+        final ClassQueue[] queues = classQueues;
+        if (queues == null) {
+            return taskQueue.poll();
+        }
+        synchronized (queues) {
+            for (ClassQueue queue : queues) {
+                if (!queue.tasks.isEmpty()) {
+                    return queue.tasks.poll();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks the next queued task by stride scheduling: every class queue has a pass that advances by the inverse of
+     * its weight each time one of its tasks is run, and the non-empty queue with the lowest pass goes next. Queues
+     * whose class cannot get a slot right now are skipped, so a class with free reserved slots is not held up by
+     * the others.
+     *
+     * @return The task, for which a slot has been taken, or null if no queued task can run
+     */
+    private QueuedTask pollAdmittedTask(ClassQueue[] queues) {
+        synchronized (queues) {
+            final boolean[] tried = new boolean[queues.length];
+            for (;;) {
+                int next = -1;
+                for (int i = 0; i < queues.length; ++i) {
+                    if (!tried[i] && !queues[i].tasks.isEmpty() && (next < 0 || queues[i].pass < queues[next].pass)) {
+                        next = i;
+                    }
+                }
+                if (next < 0) {
+                    return null;
+                }
+                final ClassQueue queue = queues[next];
+                if (admit(queue.requestClass)) {
+                    currentPass = queue.pass;
+                    queue.pass += queue.stride;
+                    return queue.tasks.poll();
+                }
+                tried[next] = true;
+            }
+        }
+    }
+
+    private QueuedTask pollForcedTask(ClassQueue[] queues) {
+        synchronized (queues) {
+            for (ClassQueue queue : queues) {
+                final Iterator<QueuedTask> it = queue.tasks.iterator();
+                while (it.hasNext()) {
+                    final QueuedTask task = it.next();
+                    if (task.forceRun) {
+                        it.remove();
+                        return task;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static final class ClassQueue {
+
+        private static final long STRIDE = 1 << 20;
+
+        private final RequestClass requestClass;
+        private final long stride;
+        private final Deque<QueuedTask> tasks = new ArrayDeque<>();
+        private long pass;
+
+        private ClassQueue(RequestClass requestClass, int weight) {
+            this.requestClass = requestClass;
+            this.stride = STRIDE / weight;
+        }
+    }
+
     private static final class ControlPointIdentifier {
         private final String deployment, name;
 
@@ -451,13 +754,14 @@ public class RequestController implements Service<RequestController>, ServerActi
     }
 
 
-    private static final class QueuedTask extends TimerTask {
+    private final class QueuedTask extends TimeoutWheel.Timeout {
 
         private final Executor executor;
         private final Runnable task;
         private final Runnable cancelTask;
         private final ControlPoint controlPoint;
         private final boolean forceRun;
+        private final long queuedTime = System.nanoTime();
 
         //0 == queued
         //1 == run
@@ -470,11 +774,17 @@ public class RequestController implements Service<RequestController>, ServerActi
             this.cancelTask = cancelTask;
             this.controlPoint = controlPoint;
             this.forceRun = forceRun;
+            RequestClass requestClass = controlPoint.getRequestClass();
+            if (requestClass != null) {
+                requestClass.taskQueued();
+            }
         }
 
         @Override
-        public void run() {
+        void expired() {
             if(state.compareAndSet(0, 2)) {
+                dequeued();
+                requestRejected(controlPoint.getRequestClass());
                 if(cancelTask != null) {
                     try {
                         executor.execute(cancelTask);
@@ -488,7 +798,8 @@ public class RequestController implements Service<RequestController>, ServerActi
 
         public boolean runRequest() {
             if(state.compareAndSet(0, 1)) {
-                cancel();
+                timeoutWheel.cancel(this);
+                dequeued();
                 executor.execute(new Runnable() {
                     @Override
                     public void run() {
@@ -509,6 +820,16 @@ public class RequestController implements Service<RequestController>, ServerActi
         boolean isQueued() {
             return state.get() == 0;
         }
+
+        private void dequeued() {
+            queuedTaskCount.decrementAndGet();
+            controlPoint.taskDequeued();
+            RequestClass requestClass = controlPoint.getRequestClass();
+            if (requestClass != null) {
+                requestClass.taskDequeued();
+            }
+            queueDelayHistogram.record(System.nanoTime() - queuedTime);
+        }
     }
 
 }
@@ -26,7 +26,6 @@ package org.wildfly.extension.requestcontroller;
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 
 import org.jboss.as.controller.AttributeDefinition;
@@ -35,6 +34,7 @@ import org.jboss.as.controller.ReloadRequiredRemoveStepHandler;
 import org.jboss.as.controller.ReloadRequiredWriteAttributeHandler;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleMapAttributeDefinition;
 import org.jboss.as.controller.capability.RuntimeCapability;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.dmr.ModelNode;
@@ -60,6 +60,14 @@ class RequestControllerRootDefinition extends PersistentResourceDefinition {
     public static final SimpleAttributeDefinition ACTIVE_REQUESTS = SimpleAttributeDefinitionBuilder.create(Constants.ACTIVE_REQUESTS, ModelType.INT, true)
             .setStorageRuntime()
             .build();
+
+    public static final SimpleAttributeDefinition QUEUED_REQUESTS = SimpleAttributeDefinitionBuilder.create(Constants.QUEUED_REQUESTS, ModelType.INT, true)
+            .setStorageRuntime()
+            .build();
+
+    public static final SimpleMapAttributeDefinition QUEUE_DELAY_HISTOGRAM = new SimpleMapAttributeDefinition.Builder(Constants.QUEUE_DELAY_HISTOGRAM, ModelType.LONG, true)
+            .setStorageRuntime()
+            .build();
     public static final RequestControllerRootDefinition INSTANCE = new RequestControllerRootDefinition(true);
 
     static final RuntimeCapability<Void> REQUEST_CONTROLLER_CAPABILITY =
@@ -83,7 +91,7 @@ class RequestControllerRootDefinition extends PersistentResourceDefinition {
 
     private static Collection<AttributeDefinition> getAttributeDefinitions(boolean registerRuntimeOnly) {
         if(registerRuntimeOnly) {
-            return Arrays.asList(new AttributeDefinition[]{MAX_REQUESTS, TRACK_INDIVIDUAL_ENDPOINTS, ACTIVE_REQUESTS});
+            return Arrays.asList(new AttributeDefinition[]{MAX_REQUESTS, TRACK_INDIVIDUAL_ENDPOINTS, ACTIVE_REQUESTS, QUEUED_REQUESTS, QUEUE_DELAY_HISTOGRAM});
         } else {
             return Arrays.asList(new AttributeDefinition[]{MAX_REQUESTS, TRACK_INDIVIDUAL_ENDPOINTS});
         }
@@ -91,7 +99,7 @@ class RequestControllerRootDefinition extends PersistentResourceDefinition {
 
     @Override
     protected List<? extends PersistentResourceDefinition> getChildren() {
-        return Collections.emptyList();
+        return Arrays.asList(new RequestClassDefinition(registerRuntimeOnly));
     }
 
     @Override
@@ -100,7 +108,10 @@ class RequestControllerRootDefinition extends PersistentResourceDefinition {
         resourceRegistration.registerReadWriteAttribute(MAX_REQUESTS, null, handler);
         resourceRegistration.registerReadWriteAttribute(TRACK_INDIVIDUAL_ENDPOINTS, null, new ReloadRequiredWriteAttributeHandler(TRACK_INDIVIDUAL_ENDPOINTS));
         if(registerRuntimeOnly) {
-            resourceRegistration.registerMetric(ACTIVE_REQUESTS, new ActiveRequestsReadHandler());
+            ActiveRequestsReadHandler readHandler = new ActiveRequestsReadHandler();
+            resourceRegistration.registerMetric(ACTIVE_REQUESTS, readHandler);
+            resourceRegistration.registerMetric(QUEUED_REQUESTS, readHandler);
+            resourceRegistration.registerMetric(QUEUE_DELAY_HISTOGRAM, readHandler);
         }
     }
 
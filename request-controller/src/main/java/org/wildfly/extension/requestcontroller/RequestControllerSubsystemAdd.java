@@ -35,7 +35,9 @@ import org.jboss.as.server.deployment.Phase;
 import org.jboss.as.server.suspend.SuspendController;
 import org.jboss.dmr.ModelNode;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 
 /**
@@ -71,6 +73,17 @@ class RequestControllerSubsystemAdd extends AbstractBoottimeAddStepHandler {
 
         requestController.setMaxRequestCount(maxRequests);
 
+        List<RequestClass> requestClasses = new ArrayList<>();
+        for (Resource.ResourceEntry entry : resource.getChildren(Constants.REQUEST_CLASS)) {
+            ModelNode model = entry.getModel();
+            requestClasses.add(new RequestClass(entry.getName(),
+                    RequestClassDefinition.WEIGHT.resolveModelAttribute(context, model).asInt(),
+                    RequestClassDefinition.MIN_REQUESTS.resolveModelAttribute(context, model).asInt(),
+                    RequestClassDefinition.DEPLOYMENTS.unwrap(context, model),
+                    RequestClassDefinition.ENTRY_POINTS.unwrap(context, model)));
+        }
+        requestController.setRequestClasses(requestClasses);
+
         context.getServiceTarget().addService(RequestController.SERVICE_NAME, requestController)
                 .addDependency(SuspendController.SERVICE_NAME, SuspendController.class, requestController.getShutdownControllerInjectedValue())
                 .install();
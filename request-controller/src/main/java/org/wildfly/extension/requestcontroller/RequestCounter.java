@@ -0,0 +1,172 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.requestcontroller;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Counts the active requests of a {@link RequestController} or {@link ControlPoint}, optionally enforcing a
+ * limit.
+ * <p/>
+ * Graceful suspend needs to know when the count drops to zero. As some implementations can only tell this
+ * reliably while no new requests are coming in, the owner calls {@link #drain()} once it stops accepting new
+ * requests and {@link #undrain()} when it resumes; while draining {@link #decrement()} returns {@code true}
+ * once the count reaches zero.
+ */
+abstract class RequestCounter {
+
+    /**
+     * System property that, if {@code true}, makes requests be counted by a {@link StripedRequestCounter}, which
+     * scales better with many cores at the expense of some memory and of a slower {@link #get()}.
+     */
+    static final String STRIPED_PROPERTY = "org.wildfly.request-controller.striped-counter";
+
+    /**
+     * System property that sets how many free permits each stripe of a {@link StripedRequestCounter} may keep for
+     * itself. Higher values reduce contention on the shared permit pool when the number of active requests is well
+     * below the limit.
+     */
+    static final String STRIPE_PERMITS_PROPERTY = "org.wildfly.request-controller.stripe-permits";
+
+    static final long UNLIMITED = -1;
+
+    /**
+     * Creates a counter of the type configured via {@link #STRIPED_PROPERTY}.
+     *
+     * @param limit the max number of active requests, or a value less than one for no limit
+     * @return the counter. Will not be {@code null}
+     */
+    static RequestCounter create(final long limit) {
+        if (Boolean.parseBoolean(WildFlySecurityManager.getPropertyPrivileged(STRIPED_PROPERTY, "false"))) {
+            int permits = 16;
+            try {
+                permits = Integer.parseInt(WildFlySecurityManager.getPropertyPrivileged(STRIPE_PERMITS_PROPERTY, "16"));
+            } catch (NumberFormatException ignored) {
+                // use the default
+            }
+            return new StripedRequestCounter(limit, Runtime.getRuntime().availableProcessors(), permits);
+        }
+        return new AtomicRequestCounter(limit);
+    }
+
+    /**
+     * Increments the count unless that would exceed the limit.
+     *
+     * @return {@code true} if the count was incremented, {@code false} if the limit has been reached
+     */
+    abstract boolean tryIncrement();
+
+    /**
+     * Decrements the count.
+     *
+     * @return {@code true} if the count dropped to zero while {@link #drain() draining}
+     */
+    abstract boolean decrement();
+
+    /**
+     * Notifies the counter that no more requests are expected, except forced ones.
+     *
+     * @return {@code true} if the count is zero
+     */
+    abstract boolean drain();
+
+    /**
+     * Notifies the counter that requests are accepted again.
+     */
+    abstract void undrain();
+
+    /**
+     * Changes the limit. Requests that are already active are not affected.
+     *
+     * @param limit the max number of active requests, or a value less than one for no limit
+     */
+    abstract void setLimit(long limit);
+
+    /**
+     * Gets the count. Counters that do not keep a central count may return an approximation while the count is
+     * being changed concurrently.
+     *
+     * @return the number of active requests
+     */
+    abstract long get();
+
+    /**
+     * The original implementation, which keeps the count in a single field updated with CAS.
+     */
+    static final class AtomicRequestCounter extends RequestCounter {
+
+        private static final AtomicLongFieldUpdater<AtomicRequestCounter> countUpdater = AtomicLongFieldUpdater.newUpdater(AtomicRequestCounter.class, "count");
+
+        private volatile long limit;
+        private volatile boolean draining;
+        @SuppressWarnings("unused")
+        private volatile long count;
+
+        AtomicRequestCounter(final long limit) {
+            this.limit = limit > 0 ? limit : UNLIMITED;
+        }
+
+        @Override
+        boolean tryIncrement() {
+            long current = countUpdater.get(this);
+            for (;;) {
+                final long max = limit;
+                if (max > 0 && current >= max) {
+                    return false;
+                }
+                if (countUpdater.compareAndSet(this, current, current + 1)) {
+                    return true;
+                }
+                current = countUpdater.get(this);
+            }
+        }
+
+        @Override
+        boolean decrement() {
+            return countUpdater.decrementAndGet(this) == 0 && draining;
+        }
+
+        @Override
+        boolean drain() {
+            draining = true;
+            return countUpdater.get(this) == 0;
+        }
+
+        @Override
+        void undrain() {
+            draining = false;
+        }
+
+        @Override
+        void setLimit(final long limit) {
+            this.limit = limit > 0 ? limit : UNLIMITED;
+        }
+
+        @Override
+        long get() {
+            return countUpdater.get(this);
+        }
+    }
+}
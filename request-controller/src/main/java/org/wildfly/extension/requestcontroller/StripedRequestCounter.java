@@ -0,0 +1,197 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.requestcontroller;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link RequestCounter} that spreads its state over per-thread stripes, so that requests started and completed on
+ * different cores do not all update the same memory location.
+ * <p/>
+ * The counter does not count active requests directly but hands out permits. Free permits live in a shared pool and
+ * in the stripes; a request takes a permit from the stripe of the current thread, refilling the stripe from the pool
+ * in batches, and a completing request returns its permit to the stripe of the current thread unless that already
+ * holds enough. The limit is enforced exactly: a request is only rejected if no free permit is found anywhere,
+ * stripes of other threads included.
+ * <p/>
+ * While {@link #drain() draining}, each stripe is sealed and its permits moved to the pool, so the pool becomes the
+ * single place permits are returned to and the count reaching zero can be detected immediately.
+ */
+final class StripedRequestCounter extends RequestCounter {
+
+    /** Used as capacity if there is no limit; large enough to never be reached, small enough to never overflow */
+    private static final long UNLIMITED_CAPACITY = Long.MAX_VALUE >> 2;
+    private static final long SEALED = Long.MIN_VALUE;
+    /** Each stripe gets its own 64 byte cache line */
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray stripes;
+    private final int mask;
+    private final long stripePermits;
+    private final AtomicLong pool;
+    private volatile long capacity;
+    private volatile boolean draining;
+
+    StripedRequestCounter(final long limit, final int concurrency, final int stripePermits) {
+        final int count = Integer.highestOneBit(Math.max(1, concurrency - 1)) << 1;
+        this.stripes = new AtomicLongArray((count + 2) * PADDING);
+        this.mask = count - 1;
+        this.stripePermits = Math.max(0, stripePermits);
+        this.capacity = limit > 0 ? limit : UNLIMITED_CAPACITY;
+        this.pool = new AtomicLong(capacity);
+    }
+
+    @Override
+    boolean tryIncrement() {
+        final int own = index(currentStripe());
+        if (takeFromStripe(own)) {
+            return true;
+        }
+        long available = pool.get();
+        while (available > 0) {
+            final long stripe = stripes.get(own);
+            final long batch = stripe == SEALED ? 1 : Math.min(available, Math.max(1, stripePermits));
+            if (pool.compareAndSet(available, available - batch)) {
+                if (batch > 1) {
+                    returnToStripe(own, batch - 1);
+                }
+                return true;
+            }
+            available = pool.get();
+        }
+        // The pool is empty; only reject if no other stripe has a spare permit either
+        for (int i = 0; i <= mask; i++) {
+            final int index = index(i);
+            if (index != own && takeFromStripe(index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    boolean decrement() {
+        final int own = index(currentStripe());
+        long stripe = stripes.get(own);
+        while (stripe != SEALED && stripe < stripePermits && pool.get() >= 0) {
+            if (stripes.compareAndSet(own, stripe, stripe + 1)) {
+                return false;
+            }
+            stripe = stripes.get(own);
+        }
+        final long free = pool.incrementAndGet();
+        return draining && free == capacity;
+    }
+
+    @Override
+    synchronized boolean drain() {
+        draining = true;
+        for (int i = 0; i <= mask; i++) {
+            final long permits = stripes.getAndSet(index(i), SEALED);
+            if (permits > 0) {
+                pool.addAndGet(permits);
+            }
+        }
+        return pool.get() == capacity;
+    }
+
+    @Override
+    synchronized void undrain() {
+        draining = false;
+        for (int i = 0; i <= mask; i++) {
+            stripes.compareAndSet(index(i), SEALED, 0);
+        }
+    }
+
+    @Override
+    synchronized void setLimit(final long limit) {
+        final long newCapacity = limit > 0 ? limit : UNLIMITED_CAPACITY;
+        final long delta = newCapacity - capacity;
+        // Keep pool <= capacity at all times, so a full pool always means no active requests
+        if (delta > 0) {
+            capacity = newCapacity;
+            pool.addAndGet(delta);
+        } else if (delta < 0) {
+            pool.addAndGet(delta);
+            capacity = newCapacity;
+            // Make the permits held by the stripes cover the deficit first
+            for (int i = 0; i <= mask; i++) {
+                final int index = index(i);
+                long permits = stripes.get(index);
+                while (permits > 0 && !stripes.compareAndSet(index, permits, 0)) {
+                    permits = stripes.get(index);
+                }
+                if (permits > 0) {
+                    pool.addAndGet(permits);
+                }
+            }
+        }
+    }
+
+    @Override
+    long get() {
+        long free = pool.get();
+        for (int i = 0; i <= mask; i++) {
+            final long permits = stripes.get(index(i));
+            if (permits > 0) {
+                free += permits;
+            }
+        }
+        return Math.max(0, capacity - free);
+    }
+
+    private boolean takeFromStripe(final int index) {
+        long permits = stripes.get(index);
+        while (permits > 0) {
+            if (stripes.compareAndSet(index, permits, permits - 1)) {
+                return true;
+            }
+            permits = stripes.get(index);
+        }
+        return false;
+    }
+
+    private void returnToStripe(final int index, final long permits) {
+        long current = stripes.get(index);
+        while (current != SEALED) {
+            if (stripes.compareAndSet(index, current, current + permits)) {
+                return;
+            }
+            current = stripes.get(index);
+        }
+        pool.addAndGet(permits);
+    }
+
+    private int currentStripe() {
+        int h = (int) Thread.currentThread().getId();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h & mask;
+    }
+
+    private static int index(final int stripe) {
+        return (stripe + 1) * PADDING;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.requestcontroller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.wildfly.extension.requestcontroller.logging.RequestControllerLogger;
+
+/**
+ * Hierarchical timing wheel used to time out queued requests.
+ * <p/>
+ * Time is divided in ticks. Each level of the wheel has 64 slots, a slot of level {@code n} covering
+ * {@code 64^n} ticks; a timeout is put in the slot of the lowest level whose range it fits in, and moved down a level
+ * when the wheel reaches the start of its slot. Scheduling and cancelling are O(1), so cancelled timeouts do not
+ * linger until they would have fired, and the wheel thread only does work on ticks that have timeouts due or need
+ * to move timeouts down. The thread sleeps while there is nothing scheduled.
+ * <p/>
+ * Timeouts fire at most one tick late. Timeouts beyond the range of the top level are parked in it and
+ * re-evaluated each time they come up.
+ */
+final class TimeoutWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final String name;
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    /** Guarded by this. Each slot is a circular list with a sentinel head */
+    private final Timeout[][] slots = new Timeout[LEVELS][SLOTS];
+    /** Guarded by this */
+    private long currentTick;
+    /** Guarded by this */
+    private int size;
+    /** Guarded by this */
+    private Thread thread;
+
+    TimeoutWheel(final String name, final long tick, final TimeUnit unit) {
+        this.name = name;
+        this.tickNanos = Math.max(1, unit.toNanos(tick));
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                final Timeout head = new Timeout();
+                head.next = head.prev = head;
+                slots[level][slot] = head;
+            }
+        }
+    }
+
+    /**
+     * Schedules a timeout. A timeout can only be scheduled once at a time.
+     *
+     * @param timeout the timeout
+     * @param delay the time until the timeout should fire
+     * @param unit the unit of {@code delay}
+     */
+    synchronized void schedule(final Timeout timeout, final long delay, final TimeUnit unit) {
+        if (timeout.next != null) {
+            throw new IllegalStateException();
+        }
+        if (size == 0) {
+            // Nothing was advancing the wheel, catch up with the clock
+            currentTick = Math.max(currentTick, elapsedTicks());
+        }
+        final long ticks = (unit.toNanos(delay) + tickNanos - 1) / tickNanos;
+        timeout.deadline = currentTick + Math.max(1, ticks);
+        insert(timeout);
+        if (size++ == 0) {
+            if (thread == null) {
+                thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        TimeoutWheel.this.run();
+                    }
+                }, name);
+                thread.setDaemon(true);
+                thread.start();
+            } else {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Cancels a timeout.
+     *
+     * @param timeout the timeout
+     * @return {@code true} if the timeout was scheduled and has not fired yet
+     */
+    synchronized boolean cancel(final Timeout timeout) {
+        if (timeout.next == null) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Discards all scheduled timeouts and ends the wheel thread. The wheel can still be used afterwards, which starts
+     * a new thread.
+     */
+    synchronized void stop() {
+        for (Timeout[] level : slots) {
+            for (Timeout head : level) {
+                while (head.next != head) {
+                    unlink(head.next);
+                }
+            }
+        }
+        size = 0;
+        thread = null;
+        notifyAll();
+    }
+
+    private void run() {
+        final List<Timeout> expired = new ArrayList<>();
+        for (;;) {
+            synchronized (this) {
+                try {
+                    while (thread == Thread.currentThread() && size == 0) {
+                        wait();
+                    }
+                    if (thread == Thread.currentThread()) {
+                        final long remaining = startNanos + (currentTick + 1) * tickNanos - System.nanoTime();
+                        if (remaining > 0) {
+                            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    // Nobody interrupts this thread on purpose; just re-check the state
+                }
+                if (thread != Thread.currentThread()) {
+                    return;
+                }
+                final long now = elapsedTicks();
+                while (currentTick < now && size > 0) {
+                    advance(expired);
+                }
+            }
+            for (Timeout timeout : expired) {
+                try {
+                    timeout.expired();
+                } catch (Exception e) {
+                    RequestControllerLogger.ROOT_LOGGER.failedToCancelTask(timeout, e);
+                }
+            }
+            expired.clear();
+        }
+    }
+
+    /** Must be called while holding the monitor. */
+    private void advance(final List<Timeout> expired) {
+        currentTick++;
+        if ((currentTick & MASK) == 0) {
+            // Level 0 went round; move the timeouts of the next slot of the level above down, and so on
+            for (int level = 1; level < LEVELS; level++) {
+                final int slot = (int) (currentTick >>> (SLOT_BITS * level)) & MASK;
+                final Timeout head = slots[level][slot];
+                Timeout timeout = head.next;
+                head.next = head.prev = head;
+                while (timeout != head) {
+                    final Timeout next = timeout.next;
+                    insert(timeout);
+                    timeout = next;
+                }
+                if (slot != 0) {
+                    break;
+                }
+            }
+        }
+        final Timeout head = slots[0][(int) currentTick & MASK];
+        while (head.next != head) {
+            final Timeout timeout = head.next;
+            unlink(timeout);
+            size--;
+            expired.add(timeout);
+        }
+    }
+
+    /** Must be called while holding the monitor. */
+    private void insert(final Timeout timeout) {
+        final long remaining = timeout.deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && remaining >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        final int slot;
+        if (remaining >= 1L << (SLOT_BITS * (level + 1))) {
+            // Beyond the range of the wheel; park in the top level slot that comes up last
+            slot = (int) ((currentTick >>> (SLOT_BITS * level)) - 1) & MASK;
+        } else {
+            slot = (int) (timeout.deadline >>> (SLOT_BITS * level)) & MASK;
+        }
+        final Timeout head = slots[level][slot];
+        timeout.prev = head.prev;
+        timeout.next = head;
+        head.prev.next = timeout;
+        head.prev = timeout;
+    }
+
+    private static void unlink(final Timeout timeout) {
+        timeout.prev.next = timeout.next;
+        timeout.next.prev = timeout.prev;
+        timeout.next = timeout.prev = null;
+    }
+
+    private long elapsedTicks() {
+        return (System.nanoTime() - startNanos) / tickNanos;
+    }
+
+    /**
+     * Something that can be scheduled on a {@link TimeoutWheel}.
+     */
+    static class Timeout {
+        /** Guarded by the wheel */
+        private Timeout prev;
+        /** Guarded by the wheel. {@code null} if not scheduled */
+        private Timeout next;
+        /** Guarded by the wheel */
+        private long deadline;
+
+        /**
+         * Invoked on the wheel thread when the timeout fires. Should not block.
+         */
+        void expired() {
+        }
+    }
+}
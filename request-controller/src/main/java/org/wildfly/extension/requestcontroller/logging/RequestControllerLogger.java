@@ -49,4 +49,8 @@ public interface RequestControllerLogger extends BasicLogger {
     @Message(id = 1, value = "Failed to cancel queued task %s")
     void failedToCancelTask(Object task, @Cause Exception e);
 
+    @LogMessage(level = WARN)
+    @Message(id = 2, value = "The request classes reserve %d requests, which leaves none of the %d max-requests to requests outside of them")
+    void requestClassesReserveAllRequests(int reserved, int maxRequests);
+
 }
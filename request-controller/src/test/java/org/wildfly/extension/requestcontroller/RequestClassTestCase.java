@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.requestcontroller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests admission of requests that belong to {@link RequestClass request classes}.
+ */
+public class RequestClassTestCase {
+
+    private static final List<String> NONE = Collections.emptyList();
+
+    @Test
+    public void testMatching() {
+        RequestClass entryPoint = new RequestClass("entry-point", 1, 0, NONE, Arrays.asList("health"));
+        RequestClass deployment = new RequestClass("deployment", 1, 0, Arrays.asList("app.war"), NONE);
+        RequestClass both = new RequestClass("both", 1, 0, Arrays.asList("app.war"), Arrays.asList("health"));
+        RequestController controller = new RequestController(false);
+        controller.setRequestClasses(Arrays.asList(entryPoint, deployment, both));
+
+        Assert.assertSame(both, controller.getControlPoint("app.war", "health").getRequestClass());
+        Assert.assertSame(deployment, controller.getControlPoint("app.war", "servlet").getRequestClass());
+        Assert.assertSame(entryPoint, controller.getControlPoint("other.war", "health").getRequestClass());
+        Assert.assertNull(controller.getControlPoint("other.war", "servlet").getRequestClass());
+    }
+
+    @Test
+    public void testReservedRequests() throws Exception {
+        RequestClass health = new RequestClass("health", 1, 2, NONE, Arrays.asList("health"));
+        RequestController controller = new RequestController(false);
+        controller.setRequestClasses(Collections.singletonList(health));
+        controller.setMaxRequestCount(10);
+        ControlPoint app = controller.getControlPoint("app.war", "servlet");
+        ControlPoint check = controller.getControlPoint("app.war", "health");
+
+        for (int i = 0; i < 8; ++i) {
+            Assert.assertEquals(RunResult.RUN, app.beginRequest());
+        }
+        Assert.assertEquals(RunResult.REJECTED, app.beginRequest());
+
+        Assert.assertEquals(RunResult.RUN, check.beginRequest());
+        Assert.assertEquals(RunResult.RUN, check.beginRequest());
+        Assert.assertEquals(RunResult.REJECTED, check.beginRequest());
+        Assert.assertEquals(2, health.getActiveRequestCount());
+        Assert.assertEquals(1, health.getRejectedRequestCount());
+
+        //a shared slot that frees up can be used by either
+        app.requestComplete();
+        Assert.assertEquals(RunResult.RUN, check.beginRequest());
+        Assert.assertEquals(3, health.getActiveRequestCount());
+        Assert.assertEquals(RunResult.REJECTED, app.beginRequest());
+
+        //the shared slot is given back first
+        check.requestComplete();
+        Assert.assertEquals(RunResult.RUN, app.beginRequest());
+        Assert.assertEquals(RunResult.REJECTED, app.beginRequest());
+
+        check.requestComplete();
+        check.requestComplete();
+        Assert.assertEquals(0, health.getActiveRequestCount());
+        Assert.assertEquals(8, controller.getActiveRequestCount());
+    }
+
+    @Test
+    public void testQueuedTasksAreRunByWeight() throws Exception {
+        RequestClass heavy = new RequestClass("heavy", 3, 0, Arrays.asList("heavy.war"), NONE);
+        RequestClass light = new RequestClass("light", 1, 0, Arrays.asList("light.war"), NONE);
+        RequestController controller = new RequestController(false);
+        controller.setRequestClasses(Arrays.asList(heavy, light));
+        controller.setMaxRequestCount(1);
+        ControlPoint other = controller.getControlPoint("other.war", "servlet");
+        ControlPoint heavyPoint = controller.getControlPoint("heavy.war", "servlet");
+        ControlPoint lightPoint = controller.getControlPoint("light.war", "servlet");
+
+        Assert.assertEquals(RunResult.RUN, other.beginRequest());
+        final List<Runnable> dispatched = new ArrayList<>();
+        final List<String> order = new ArrayList<>();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                dispatched.add(command);
+            }
+        };
+        for (int i = 0; i < 8; ++i) {
+            heavyPoint.queueTask(new Recorder(order, "heavy"), executor, -1, null, false);
+            lightPoint.queueTask(new Recorder(order, "light"), executor, -1, null, false);
+        }
+        Assert.assertTrue(dispatched.isEmpty());
+        Assert.assertEquals(8, heavy.getQueuedRequestCount());
+        Assert.assertEquals(8, light.getQueuedRequestCount());
+        other.requestComplete();
+
+        for (int i = 0; i < 8; ++i) {
+            controller.setMaxRequestCount(1);
+            Assert.assertEquals(1, dispatched.size());
+            dispatched.remove(0).run();
+        }
+        Assert.assertEquals(6, Collections.frequency(order, "heavy"));
+        Assert.assertEquals(2, Collections.frequency(order, "light"));
+        Assert.assertEquals(2, heavy.getQueuedRequestCount());
+        Assert.assertEquals(6, light.getQueuedRequestCount());
+        Assert.assertEquals(0, controller.getActiveRequestCount());
+    }
+
+    private static final class Recorder implements Runnable {
+
+        private final List<String> order;
+        private final String name;
+
+        private Recorder(List<String> order, String name) {
+            this.order = order;
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            order.add(name);
+        }
+    }
+}
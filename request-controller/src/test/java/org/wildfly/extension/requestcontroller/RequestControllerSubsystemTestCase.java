@@ -48,7 +48,12 @@ public class RequestControllerSubsystemTestCase extends AbstractSubsystemBaseTes
 
     @Override
     protected String getSubsystemXml() throws IOException {
-        return readResource("request-controller-1.0.xml");
+        return readResource("request-controller-1.1.xml");
+    }
+
+    @Test
+    public void testSubsystem10() throws Exception {
+        standardSubsystemTest("request-controller-1.0.xml", false);
     }
 
     @Test
@@ -64,6 +69,9 @@ public class RequestControllerSubsystemTestCase extends AbstractSubsystemBaseTes
         workerServiceController.awaitValue();
         RequestController controller = workerServiceController.getService().getValue();
         Assert.assertEquals(100, controller.getMaxRequestCount());
+        Assert.assertEquals(5, controller.getRequestClass("health").getMinRequests());
+        Assert.assertEquals(4, controller.getRequestClass("health").getWeight());
+        Assert.assertEquals(2, controller.getRequestClass("admin").getMinRequests());
     }
 
     @Override
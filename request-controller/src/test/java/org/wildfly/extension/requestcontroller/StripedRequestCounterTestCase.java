@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.requestcontroller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link StripedRequestCounter}.
+ */
+public class StripedRequestCounterTestCase {
+
+    @Test
+    public void testLimitIsExact() {
+        StripedRequestCounter counter = new StripedRequestCounter(10, 8, 4);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(counter.tryIncrement());
+        }
+        assertFalse(counter.tryIncrement());
+        assertEquals(10, counter.get());
+        counter.decrement();
+        assertTrue(counter.tryIncrement());
+        assertFalse(counter.tryIncrement());
+    }
+
+    @Test
+    public void testPermitsOfOtherStripesAreUsed() throws Exception {
+        final StripedRequestCounter counter = new StripedRequestCounter(4, 8, 4);
+        // Another thread takes a batch of permits into its stripe and uses only one
+        runInOtherThread(new Runnable() {
+            @Override
+            public void run() {
+                assertTrue(counter.tryIncrement());
+            }
+        });
+        assertTrue(counter.tryIncrement());
+        assertTrue(counter.tryIncrement());
+        assertTrue(counter.tryIncrement());
+        assertFalse(counter.tryIncrement());
+    }
+
+    @Test
+    public void testSetLimit() {
+        StripedRequestCounter counter = new StripedRequestCounter(-1, 4, 4);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(counter.tryIncrement());
+        }
+        counter.setLimit(3);
+        assertFalse(counter.tryIncrement());
+        counter.decrement();
+        counter.decrement();
+        assertFalse(counter.tryIncrement());
+        counter.decrement();
+        assertTrue(counter.tryIncrement());
+        assertEquals(3, counter.get());
+        counter.setLimit(4);
+        assertTrue(counter.tryIncrement());
+        assertFalse(counter.tryIncrement());
+    }
+
+    @Test
+    public void testDrainDetectsZero() throws Exception {
+        final StripedRequestCounter counter = new StripedRequestCounter(-1, 4, 4);
+        assertTrue(counter.drain());
+        counter.undrain();
+
+        assertTrue(counter.tryIncrement());
+        assertTrue(counter.tryIncrement());
+        assertFalse(counter.drain());
+        final AtomicInteger zeros = new AtomicInteger();
+        runInOtherThread(new Runnable() {
+            @Override
+            public void run() {
+                if (counter.decrement()) {
+                    zeros.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(0, zeros.get());
+        assertTrue(counter.decrement());
+        counter.undrain();
+        assertEquals(0, counter.get());
+    }
+
+    @Test
+    public void testConcurrentUseNeverExceedsLimit() throws Exception {
+        final int limit = 5;
+        final StripedRequestCounter counter = new StripedRequestCounter(limit, 8, 2);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 10000; i++) {
+                        if (counter.tryIncrement()) {
+                            int current = active.incrementAndGet();
+                            int max;
+                            while ((max = maxActive.get()) < current && !maxActive.compareAndSet(max, current)) {
+                                // retry
+                            }
+                            active.decrementAndGet();
+                            counter.decrement();
+                        }
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(maxActive.get() <= limit);
+        assertTrue(counter.drain());
+    }
+
+    private static void runInOtherThread(Runnable task) throws InterruptedException {
+        Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+    }
+}
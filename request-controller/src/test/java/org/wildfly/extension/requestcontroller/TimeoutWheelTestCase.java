@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.requestcontroller;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests of {@link TimeoutWheel}.
+ */
+public class TimeoutWheelTestCase {
+
+    private final TimeoutWheel wheel = new TimeoutWheel("test wheel", 1, TimeUnit.MILLISECONDS);
+
+    @After
+    public void stop() {
+        wheel.stop();
+    }
+
+    @Test
+    public void testTimeoutsFireNotBeforeTheirDelay() throws Exception {
+        LatchTimeout shortTimeout = new LatchTimeout();
+        // Beyond the first level of the wheel, so it has to be moved down before it fires
+        LatchTimeout longTimeout = new LatchTimeout();
+        long start = System.nanoTime();
+        wheel.schedule(shortTimeout, 20, TimeUnit.MILLISECONDS);
+        wheel.schedule(longTimeout, 150, TimeUnit.MILLISECONDS);
+
+        assertTrue(shortTimeout.latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(longTimeout.latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+    }
+
+    @Test
+    public void testCancelledTimeoutsDoNotFire() throws Exception {
+        LatchTimeout cancelled = new LatchTimeout();
+        LatchTimeout kept = new LatchTimeout();
+        wheel.schedule(cancelled, 30, TimeUnit.MILLISECONDS);
+        wheel.schedule(kept, 60, TimeUnit.MILLISECONDS);
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+
+        assertTrue(kept.latch.await(5, TimeUnit.SECONDS));
+        assertFalse(cancelled.latch.await(0, TimeUnit.MILLISECONDS));
+        assertFalse(wheel.cancel(kept));
+    }
+
+    @Test
+    public void testStopDiscardsTimeoutsAndWheelCanBeReused() throws Exception {
+        LatchTimeout discarded = new LatchTimeout();
+        wheel.schedule(discarded, 20, TimeUnit.MILLISECONDS);
+        wheel.stop();
+        assertFalse(wheel.cancel(discarded));
+
+        LatchTimeout later = new LatchTimeout();
+        wheel.schedule(later, 10, TimeUnit.MILLISECONDS);
+        assertTrue(later.latch.await(5, TimeUnit.SECONDS));
+        assertFalse(discarded.latch.await(50, TimeUnit.MILLISECONDS));
+    }
+
+    private static final class LatchTimeout extends TimeoutWheel.Timeout {
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        @Override
+        void expired() {
+            latch.countDown();
+        }
+    }
+}
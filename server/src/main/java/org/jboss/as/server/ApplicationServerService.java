@@ -22,6 +22,7 @@
 
 package org.jboss.as.server;
 
+import java.io.File;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
 import java.util.Iterator;
@@ -39,6 +40,7 @@ import org.jboss.as.repository.ContentRepository;
 import org.jboss.as.selfcontained.SelfContainedContentRepository;
 import org.jboss.as.server.deployment.ContentCleanerService;
 import org.jboss.as.server.deployment.DeploymentMountProvider;
+import org.jboss.as.server.deployment.annotation.AnnotationIndexCache;
 import org.jboss.as.server.logging.ServerLogger;
 import org.jboss.as.server.mgmt.domain.RemoteFileRepositoryService;
 import org.jboss.as.server.moduleservice.ExternalModuleService;
@@ -147,6 +149,7 @@ final class ApplicationServerService implements Service<AsyncFuture<ServiceConta
         }
         ContentCleanerService.addService(serviceTarget, ServerService.JBOSS_SERVER_SCHEDULED_EXECUTOR);
         DeploymentMountProvider.Factory.addService(serviceTarget);
+        AnnotationIndexCache.addService(serviceTarget, new File(serverEnvironment.getServerDataDir(), "annotation-index"));
         ServiceModuleLoader.addService(serviceTarget, configuration);
         ExternalModuleService.addService(serviceTarget);
         ModuleIndexService.addService(serviceTarget);
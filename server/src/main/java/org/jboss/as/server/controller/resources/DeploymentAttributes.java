@@ -42,6 +42,7 @@ import org.jboss.as.controller.ParameterCorrector;
 import org.jboss.as.controller.PrimitiveListAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleMapAttributeDefinition;
 import org.jboss.as.controller.SimpleOperationDefinition;
 import org.jboss.as.controller.SimpleOperationDefinitionBuilder;
 import org.jboss.as.controller.access.management.ApplicationTypeAccessConstraintDefinition;
@@ -132,6 +133,11 @@ public class DeploymentAttributes {
             .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
             .build();
 
+    public static final AttributeDefinition ANNOTATION_INDEXING_TIMES = new SimpleMapAttributeDefinition.Builder(ModelDescriptionConstants.ANNOTATION_INDEXING_TIMES, ModelType.LONG, true)
+            .setStorageRuntime()
+            .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+            .build();
+
     public static final SimpleAttributeDefinition DISABLED_TIMESTAMP = SimpleAttributeDefinitionBuilder.create(ModelDescriptionConstants.DISABLED_TIMESTAMP, ModelType.STRING, true)
             .setStorageRuntime()
             .build();
@@ -203,7 +209,7 @@ public class DeploymentAttributes {
 
 
     /** Attributes for server deployment resource */
-    public static final AttributeDefinition[] SERVER_RESOURCE_ATTRIBUTES = new AttributeDefinition[] {NAME, RUNTIME_NAME, CONTENT_RESOURCE, ENABLED, PERSISTENT, OWNER, STATUS, ENABLED_TIME, ENABLED_TIMESTAMP, DISABLED_TIME, DISABLED_TIMESTAMP};
+    public static final AttributeDefinition[] SERVER_RESOURCE_ATTRIBUTES = new AttributeDefinition[] {NAME, RUNTIME_NAME, CONTENT_RESOURCE, ENABLED, PERSISTENT, OWNER, STATUS, ENABLED_TIME, ENABLED_TIMESTAMP, DISABLED_TIME, DISABLED_TIMESTAMP, ANNOTATION_INDEXING_TIMES};
 
     /** Attributes for server deployment add */
     public static final AttributeDefinition[] SERVER_ADD_ATTRIBUTES = new AttributeDefinition[] { RUNTIME_NAME_NILLABLE, CONTENT_ALL, ENABLED};// 'hide' the persistent and owner attributes from users
@@ -34,6 +34,7 @@ import org.jboss.as.controller.access.management.AccessConstraintDefinition;
 import org.jboss.as.controller.access.management.ApplicationTypeAccessConstraintDefinition;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
+import org.jboss.as.server.deployment.AnnotationIndexingTimesHandler;
 import org.jboss.as.server.deployment.DeploymentStatusHandler;
 
 /**
@@ -59,6 +60,8 @@ public abstract class DeploymentResourceDefinition extends SimpleResourceDefinit
         for (AttributeDefinition attr : parent.getResourceAttributes()) {
             if (attr.getName().equals(DeploymentAttributes.STATUS.getName())) {
                 resourceRegistration.registerMetric(attr, DeploymentStatusHandler.INSTANCE);
+            } else if (attr.getName().equals(DeploymentAttributes.ANNOTATION_INDEXING_TIMES.getName())) {
+                resourceRegistration.registerMetric(attr, AnnotationIndexingTimesHandler.INSTANCE);
             } else if (attr.getName().equals(DeploymentAttributes.NAME.getName())) {
                 resourceRegistration.registerReadOnlyAttribute(DeploymentAttributes.NAME, ReadResourceNameOperationStepHandler.INSTANCE);
             } else {
@@ -25,12 +25,14 @@ package org.jboss.as.server.deployment;
 import java.security.PermissionCollection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.Manifest;
 
 import org.jboss.as.controller.ServiceVerificationHandler;
 import org.jboss.as.controller.capability.CapabilityServiceSupport;
 import org.jboss.as.controller.services.path.PathManager;
+import org.jboss.as.server.deployment.annotation.AnnotationIndexCache;
 import org.jboss.as.server.deployment.annotation.CompositeIndex;
 import org.jboss.as.server.deployment.module.AdditionalModuleSpecification;
 import org.jboss.as.server.deployment.module.ExtensionInfo;
@@ -92,6 +94,21 @@ public final class Attachments {
      */
     public static final AttachmentKey<VirtualFile> DEPLOYMENT_CONTENTS = AttachmentKey.create(VirtualFile.class);
 
+    /**
+     * The hash of the deployment contents in the content repository. Not present for unmanaged deployments.
+     */
+    public static final AttachmentKey<byte[]> DEPLOYMENT_CONTENT_HASH = AttachmentKey.create(byte[].class);
+
+    /**
+     * The cache of annotation indexes of managed deployments
+     */
+    public static final AttachmentKey<AnnotationIndexCache> ANNOTATION_INDEX_CACHE = AttachmentKey.create(AnnotationIndexCache.class);
+
+    /**
+     * The server executor, available for deployment processors that split their work over several threads
+     */
+    public static final AttachmentKey<ExecutorService> SERVER_EXECUTOR = AttachmentKey.create(ExecutorService.class);
+
     /**
      * <strong>Deprecated</strong>. The attached object does nothing; this key is only retained for
      * binary compatiblity. The management layer handles service verification internally, with no need
@@ -172,6 +189,12 @@ public final class Attachments {
      */
     public static final AttachmentKey<Index> ANNOTATION_INDEX = AttachmentKey.create(Index.class);
 
+    /**
+     * The time in milliseconds it took to index each resource root of a deployment unit, keyed by the path of the
+     * resource root within the deployment.
+     */
+    public static final AttachmentKey<Map<String, Long>> ANNOTATION_INDEXING_TIMES = AttachmentKey.create(Map.class);
+
     /**
      * The composite annotation index for this deployment.
      */
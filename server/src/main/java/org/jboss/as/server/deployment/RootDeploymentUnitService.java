@@ -22,12 +22,15 @@
 
 package org.jboss.as.server.deployment;
 
+import java.util.concurrent.ExecutorService;
+
 import org.jboss.as.controller.ServiceVerificationHandler;
 import org.jboss.as.controller.capability.CapabilityServiceSupport;
 import org.jboss.as.controller.registry.ImmutableManagementResourceRegistration;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.Resource;
 import org.jboss.as.controller.services.path.PathManager;
+import org.jboss.as.server.deployment.annotation.AnnotationIndexCache;
 import org.jboss.as.server.deploymentoverlay.DeploymentOverlayIndex;
 import org.jboss.as.server.services.security.AbstractVaultReader;
 import org.jboss.msc.inject.Injector;
@@ -46,6 +49,8 @@ final class RootDeploymentUnitService extends AbstractDeploymentUnitService {
     private final String name;
     private final String managementName;
     final InjectedValue<VirtualFile> contentsInjector = new InjectedValue<VirtualFile>();
+    final InjectedValue<AnnotationIndexCache> annotationIndexCacheInjector = new InjectedValue<AnnotationIndexCache>();
+    final InjectedValue<ExecutorService> serverExecutorInjector = new InjectedValue<ExecutorService>();
     private final DeploymentUnit parent;
     private final ImmutableManagementResourceRegistration registration;
     private final ManagementResourceRegistration mutableRegistration;
@@ -53,6 +58,7 @@ final class RootDeploymentUnitService extends AbstractDeploymentUnitService {
     private final CapabilityServiceSupport capabilityServiceSupport;
     private final AbstractVaultReader vaultReader;
     private final DeploymentOverlayIndex deploymentOverlays;
+    private final byte[] contentHash;
 
     /**
      * Construct a new instance.
@@ -65,11 +71,12 @@ final class RootDeploymentUnitService extends AbstractDeploymentUnitService {
      * @param capabilityServiceSupport support for capability integration
      * @param vaultReader the vault reader
      * @param deploymentOverlays the deployment overlays
+     * @param contentHash the hash of the content in the content repository, or {@code null} if unmanaged
      */
     public RootDeploymentUnitService(final String name, final String managementName, final DeploymentUnit parent,
                                      final ImmutableManagementResourceRegistration registration, final ManagementResourceRegistration mutableRegistration,
                                      final Resource resource, final CapabilityServiceSupport capabilityServiceSupport,
-                                     final AbstractVaultReader vaultReader, DeploymentOverlayIndex deploymentOverlays) {
+                                     final AbstractVaultReader vaultReader, DeploymentOverlayIndex deploymentOverlays, final byte[] contentHash) {
         assert name != null : "name is null";
         this.name = name;
         this.managementName = managementName;
@@ -80,6 +87,7 @@ final class RootDeploymentUnitService extends AbstractDeploymentUnitService {
         this.capabilityServiceSupport = capabilityServiceSupport;
         this.vaultReader = vaultReader;
         this.deploymentOverlays = deploymentOverlays;
+        this.contentHash = contentHash;
     }
 
     protected DeploymentUnit createAndInitializeDeploymentUnit(final ServiceRegistry registry) {
@@ -87,6 +95,14 @@ final class RootDeploymentUnitService extends AbstractDeploymentUnitService {
         deploymentUnit.putAttachment(Attachments.RUNTIME_NAME, name);
         deploymentUnit.putAttachment(Attachments.MANAGEMENT_NAME, managementName);
         deploymentUnit.putAttachment(Attachments.DEPLOYMENT_CONTENTS, contentsInjector.getValue());
+        if (contentHash != null) {
+            deploymentUnit.putAttachment(Attachments.DEPLOYMENT_CONTENT_HASH, contentHash);
+        }
+        deploymentUnit.putAttachment(Attachments.ANNOTATION_INDEX_CACHE, annotationIndexCacheInjector.getValue());
+        final ExecutorService serverExecutor = serverExecutorInjector.getOptionalValue();
+        if (serverExecutor != null) {
+            deploymentUnit.putAttachment(Attachments.SERVER_EXECUTOR, serverExecutor);
+        }
         deploymentUnit.putAttachment(DeploymentResourceSupport.REGISTRATION_ATTACHMENT, registration);
         deploymentUnit.putAttachment(DeploymentResourceSupport.MUTABLE_REGISTRATION_ATTACHMENT, mutableRegistration);
         deploymentUnit.putAttachment(DeploymentResourceSupport.DEPLOYMENT_RESOURCE, resource);
@@ -0,0 +1,356 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.annotation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.jboss.as.controller.HashUtil;
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.as.server.deploymentoverlay.DeploymentOverlayIndex;
+import org.jboss.as.server.logging.ServerLogger;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceTarget;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+import org.jboss.vfs.VFSUtils;
+import org.jboss.vfs.VirtualFile;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Keeps the annotation indexes of the resource roots of managed deployments in the server data directory, so that
+ * the classes of a deployment do not need to be indexed again when it is redeployed or the server restarts.
+ * <p/>
+ * Managed deployment content is immutable and addressed by its hash in the content repository, so an index is
+ * stored under a key made of that hash, the path of the resource root within the deployment, the paths excluded from
+ * indexing and the hashes of any deployment overlays. Unmanaged deployments are not cached, as their content can
+ * change without the server noticing.
+ * <p/>
+ * The total size of the stored indexes is bounded; the least recently used ones are removed first.
+ */
+public final class AnnotationIndexCache implements Service<AnnotationIndexCache> {
+
+    public static final ServiceName SERVICE_NAME = ServiceName.JBOSS.append("deployment", "annotation-index-cache");
+
+    /**
+     * System property that sets the max total size in bytes of the stored indexes. A value of {@code 0} disables the
+     * cache.
+     */
+    public static final String MAX_SIZE_PROPERTY = "org.jboss.as.server.deployment.annotation-index-cache.max-size";
+
+    private static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+    private static final String SUFFIX = ".idx";
+    private static final String TMP_SUFFIX = ".tmp";
+    /** Changing this invalidates all the stored indexes */
+    private static final String KEY_VERSION = "1";
+
+    private final File directory;
+    private final long maxSize;
+    /** The stored indexes and their sizes, least recently used first. Guarded by this */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Guarded by this */
+    private long size;
+    private volatile boolean started;
+
+    AnnotationIndexCache(final File directory, final long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public static void addService(final ServiceTarget serviceTarget, final File directory) {
+        long maxSize = DEFAULT_MAX_SIZE;
+        try {
+            maxSize = Long.parseLong(WildFlySecurityManager.getPropertyPrivileged(MAX_SIZE_PROPERTY, String.valueOf(DEFAULT_MAX_SIZE)));
+        } catch (NumberFormatException ignored) {
+            // use the default
+        }
+        serviceTarget.addService(SERVICE_NAME, new AnnotationIndexCache(directory, maxSize))
+                .install();
+    }
+
+    @Override
+    public synchronized void start(final StartContext context) throws StartException {
+        entries.clear();
+        size = 0;
+        if (maxSize <= 0) {
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            ServerLogger.DEPLOYMENT_LOGGER.debugf("Cannot create annotation index cache directory %s, indexes will not be cached", directory);
+            return;
+        }
+        final File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile();
+            }
+        });
+        if (files != null) {
+            // Rebuild the LRU order from the modification times, which are updated on each hit
+            Arrays.sort(files, new Comparator<File>() {
+                @Override
+                public int compare(File o1, File o2) {
+                    return Long.compare(o1.lastModified(), o2.lastModified());
+                }
+            });
+            for (File file : files) {
+                final String name = file.getName();
+                if (name.endsWith(SUFFIX)) {
+                    final long length = file.length();
+                    entries.put(name.substring(0, name.length() - SUFFIX.length()), length);
+                    size += length;
+                } else {
+                    // left behind by an interrupted write
+                    deleteFile(file);
+                }
+            }
+        }
+        evict();
+        started = true;
+    }
+
+    @Override
+    public synchronized void stop(final StopContext context) {
+        started = false;
+        entries.clear();
+        size = 0;
+    }
+
+    @Override
+    public AnnotationIndexCache getValue() {
+        return this;
+    }
+
+    /**
+     * Gets the key under which the index of a resource root is stored.
+     *
+     * @param deploymentUnit the deployment unit the resource root belongs to
+     * @param resourceRoot the resource root
+     * @param indexIgnorePaths the paths excluded from the index, or {@code null}
+     * @return the key, or {@code null} if the index of the resource root cannot be cached
+     */
+    static String getKey(final DeploymentUnit deploymentUnit, final ResourceRoot resourceRoot, final Collection<String> indexIgnorePaths) {
+        final DeploymentUnit top = deploymentUnit.getParent() == null ? deploymentUnit : deploymentUnit.getParent();
+        final byte[] contentHash = top.getAttachment(Attachments.DEPLOYMENT_CONTENT_HASH);
+        final ResourceRoot deploymentRoot = top.getAttachment(Attachments.DEPLOYMENT_ROOT);
+        if (contentHash == null || deploymentRoot == null) {
+            return null;
+        }
+        final String path = relativePath(resourceRoot.getRoot(), deploymentRoot.getRoot());
+        if (path == null) {
+            // e.g. a Class-Path entry pointing outside of the deployment
+            return null;
+        }
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, KEY_VERSION);
+        update(digest, HashUtil.bytesToHexString(contentHash));
+        update(digest, path);
+        if (indexIgnorePaths != null) {
+            for (String ignored : new TreeSet<>(indexIgnorePaths)) {
+                update(digest, ignored);
+            }
+        }
+        final DeploymentOverlayIndex overlayIndex = top.getAttachment(Attachments.DEPLOYMENT_OVERLAY_INDEX);
+        if (overlayIndex != null) {
+            for (Map.Entry<String, byte[]> overlay : new TreeMap<>(overlayIndex.getOverlays(top.getName())).entrySet()) {
+                update(digest, overlay.getKey());
+                update(digest, HashUtil.bytesToHexString(overlay.getValue()));
+            }
+        }
+        return HashUtil.bytesToHexString(digest.digest());
+    }
+
+    /**
+     * Gets a stored index.
+     *
+     * @param key the key of the index
+     * @return the index, or {@code null} if none is stored under the key
+     */
+    Index get(final String key) {
+        if (!started) {
+            return null;
+        }
+        final File file;
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return null;
+            }
+            file = new File(directory, key + SUFFIX);
+            file.setLastModified(System.currentTimeMillis());
+        }
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(file));
+            return new IndexReader(in).read();
+        } catch (Exception e) {
+            ServerLogger.DEPLOYMENT_LOGGER.debugf(e, "Cannot read cached annotation index %s", file);
+            remove(key);
+            return null;
+        } finally {
+            VFSUtils.safeClose(in);
+        }
+    }
+
+    /**
+     * Stores an index, removing the least recently used ones if the cache gets too large.
+     *
+     * @param key the key of the index
+     * @param index the index
+     */
+    void put(final String key, final Index index) {
+        if (!started) {
+            return;
+        }
+        final File tmp = new File(directory, key + '-' + Thread.currentThread().getId() + TMP_SUFFIX);
+        final File file = new File(directory, key + SUFFIX);
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(tmp));
+            new IndexWriter(out).write(index);
+            out.close();
+            out = null;
+            synchronized (this) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                final Long previous = entries.put(key, file.length());
+                size += file.length() - (previous == null ? 0 : previous);
+                evict();
+            }
+        } catch (IOException e) {
+            ServerLogger.DEPLOYMENT_LOGGER.debugf(e, "Cannot store annotation index %s", file);
+            deleteFile(tmp);
+        } finally {
+            VFSUtils.safeClose(out);
+        }
+    }
+
+    /**
+     * Removes all stored indexes.
+     *
+     * @return the number of indexes removed
+     */
+    public synchronized int clear() {
+        final List<String> keys = new ArrayList<>(entries.keySet());
+        for (String key : keys) {
+            deleteFile(new File(directory, key + SUFFIX));
+        }
+        entries.clear();
+        size = 0;
+        return keys.size();
+    }
+
+    /**
+     * @return the number of stored indexes
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return the total size in bytes of the stored indexes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private synchronized void remove(final String key) {
+        final Long length = entries.remove(key);
+        if (length != null) {
+            size -= length;
+            deleteFile(new File(directory, key + SUFFIX));
+        }
+    }
+
+    /** Must be called while holding the monitor. */
+    private void evict() {
+        final Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (size > maxSize && it.hasNext()) {
+            final Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            size -= eldest.getValue();
+            deleteFile(new File(directory, eldest.getKey() + SUFFIX));
+        }
+    }
+
+    static String relativePath(final VirtualFile file, final VirtualFile root) {
+        final List<String> names = new ArrayList<>();
+        VirtualFile current = file;
+        while (current != null && !current.equals(root)) {
+            names.add(current.getName());
+            current = current.getParent();
+        }
+        if (current == null) {
+            return null;
+        }
+        final StringBuilder path = new StringBuilder();
+        for (int i = names.size() - 1; i >= 0; --i) {
+            path.append('/').append(names.get(i));
+        }
+        return path.toString();
+    }
+
+    private static void update(final MessageDigest digest, final String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // separate values so that different splits of the same characters do not collide
+        digest.update((byte) 0);
+    }
+
+    private static void deleteFile(final File file) {
+        if (file.exists() && !file.delete()) {
+            ServerLogger.DEPLOYMENT_LOGGER.debugf("Cannot delete %s", file);
+        }
+    }
+}
@@ -22,6 +22,14 @@
 
 package org.jboss.as.server.deployment.annotation;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.server.deployment.Attachments;
 import org.jboss.as.server.deployment.DeploymentPhaseContext;
 import org.jboss.as.server.deployment.DeploymentUnit;
 import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
@@ -39,7 +47,8 @@ public class AnnotationIndexProcessor implements DeploymentUnitProcessor {
 
     /**
      * Process this deployment for annotations.  This will use an annotation indexer to create an index of all annotations
-     * found in this deployment and attach it to the deployment unit context.
+     * found in this deployment and attach it to the deployment unit context. If parallel indexing is enabled the
+     * resource roots are indexed concurrently on the server executor.
      *
      * @param phaseContext the deployment unit context
      * @throws DeploymentUnitProcessingException
@@ -47,11 +56,48 @@ public class AnnotationIndexProcessor implements DeploymentUnitProcessor {
      */
     public void deploy(DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
         final DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
-        for (ResourceRoot resourceRoot : DeploymentUtils.allResourceRoots(deploymentUnit)) {
-            ResourceRootIndexer.indexResourceRoot(resourceRoot);
+        final Map<String, Long> indexingTimes = new ConcurrentHashMap<>();
+        deploymentUnit.putAttachment(Attachments.ANNOTATION_INDEXING_TIMES, indexingTimes);
+        final Executor executor = ParallelIndexing.isEnabled() ? ResourceRootIndexer.getExecutor(deploymentUnit) : null;
+        final List<ResourceRoot> resourceRoots = DeploymentUtils.allResourceRoots(deploymentUnit);
+        if (executor == null || resourceRoots.size() < 2) {
+            for (ResourceRoot resourceRoot : resourceRoots) {
+                indexResourceRoot(resourceRoot, deploymentUnit, indexingTimes);
+            }
+        } else {
+            final List<ParallelIndexing.Task> tasks = new ArrayList<>(resourceRoots.size());
+            for (final ResourceRoot resourceRoot : resourceRoots) {
+                tasks.add(new ParallelIndexing.Task() {
+                    @Override
+                    public void run() throws DeploymentUnitProcessingException {
+                        indexResourceRoot(resourceRoot, deploymentUnit, indexingTimes);
+                    }
+                });
+            }
+            ParallelIndexing.runAll(tasks, executor);
         }
     }
 
     public void undeploy(final DeploymentUnit context) {
+        context.removeAttachment(Attachments.ANNOTATION_INDEXING_TIMES);
+    }
+
+    private static void indexResourceRoot(final ResourceRoot resourceRoot, final DeploymentUnit deploymentUnit, final Map<String, Long> indexingTimes) throws DeploymentUnitProcessingException {
+        if (resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX) != null) {
+            return;
+        }
+        final long start = System.nanoTime();
+        ResourceRootIndexer.indexResourceRoot(resourceRoot, deploymentUnit);
+        indexingTimes.put(getPath(resourceRoot, deploymentUnit), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static String getPath(final ResourceRoot resourceRoot, final DeploymentUnit deploymentUnit) {
+        final DeploymentUnit top = deploymentUnit.getParent() == null ? deploymentUnit : deploymentUnit.getParent();
+        final ResourceRoot deploymentRoot = top.getAttachment(Attachments.DEPLOYMENT_ROOT);
+        final String path = deploymentRoot == null ? null : AnnotationIndexCache.relativePath(resourceRoot.getRoot(), deploymentRoot.getRoot());
+        if (path == null) {
+            return resourceRoot.getRoot().getPathName();
+        }
+        return path.isEmpty() ? "/" : path;
     }
 }
@@ -0,0 +1,201 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.annotation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.jboss.as.server.logging.ServerLogger;
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Support for indexing resource roots, and the class files of large resource roots, on several threads.
+ * <p/>
+ * Tasks are handed out from a shared list; the calling thread works through the list as well instead of just waiting,
+ * so indexing completes even if the executor has no threads to spare, and tasks may start further tasks without risk
+ * of deadlock.
+ */
+final class ParallelIndexing {
+
+    /**
+     * System property that enables parallel indexing. Defaults to {@code false}.
+     */
+    static final String ENABLED_PROPERTY = "org.jboss.as.server.deployment.annotation.parallel-indexing";
+
+    /**
+     * System property that sets the number of class files above which the class files of a single resource root are
+     * split into shards that are indexed separately and merged.
+     */
+    static final String SHARD_SIZE_PROPERTY = "org.jboss.as.server.deployment.annotation.parallel-indexing.shard-size";
+
+    private static final int DEFAULT_SHARD_SIZE = 500;
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    interface Task {
+        void run() throws Exception;
+    }
+
+    private ParallelIndexing() {
+    }
+
+    static boolean isEnabled() {
+        return Boolean.parseBoolean(WildFlySecurityManager.getPropertyPrivileged(ENABLED_PROPERTY, "false"));
+    }
+
+    static int getShardSize() {
+        try {
+            final int shardSize = Integer.parseInt(WildFlySecurityManager.getPropertyPrivileged(SHARD_SIZE_PROPERTY, String.valueOf(DEFAULT_SHARD_SIZE)));
+            return shardSize > 0 ? shardSize : DEFAULT_SHARD_SIZE;
+        } catch (NumberFormatException ignored) {
+            return DEFAULT_SHARD_SIZE;
+        }
+    }
+
+    /**
+     * Runs tasks on the executor and the calling thread, and waits for all of them to complete. Once a task fails the
+     * ones that have not started yet are skipped.
+     *
+     * @param tasks the tasks
+     * @param executor the executor
+     * @throws DeploymentUnitProcessingException if a task failed
+     */
+    static void runAll(final List<? extends Task> tasks, final Executor executor) throws DeploymentUnitProcessingException {
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(tasks.size());
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                drain(tasks, next, done, failure);
+            }
+        };
+        final int helpers = Math.min(tasks.size(), PARALLELISM) - 1;
+        for (int i = 0; i < helpers; ++i) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        drain(tasks, next, done, failure);
+
+        // the remaining tasks are already running on other threads
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        final Throwable t = failure.get();
+        if (t instanceof DeploymentUnitProcessingException) {
+            throw (DeploymentUnitProcessingException) t;
+        } else if (t != null) {
+            throw ServerLogger.ROOT_LOGGER.deploymentIndexingFailed(t);
+        }
+    }
+
+    private static void drain(final List<? extends Task> tasks, final AtomicInteger next, final CountDownLatch done, final AtomicReference<Throwable> failure) {
+        int i;
+        while ((i = next.getAndIncrement()) < tasks.size()) {
+            try {
+                if (failure.get() == null) {
+                    tasks.get(i).run();
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Splits a list into consecutive sublists of at most the given size.
+     */
+    static <T> List<List<T>> shards(final List<T> list, final int shardSize) {
+        final List<List<T>> shards = new ArrayList<>((list.size() + shardSize - 1) / shardSize);
+        for (int i = 0; i < list.size(); i += shardSize) {
+            shards.add(list.subList(i, Math.min(list.size(), i + shardSize)));
+        }
+        return shards;
+    }
+
+    /**
+     * Merges the indexes of disjoint sets of classes into a single index, as if all the classes had been indexed by
+     * the same {@link org.jboss.jandex.Indexer}.
+     */
+    static Index merge(final List<Index> indexes) {
+        if (indexes.size() == 1) {
+            return indexes.get(0);
+        }
+        final Map<DotName, List<AnnotationInstance>> annotations = new HashMap<>();
+        final Map<DotName, List<ClassInfo>> subclasses = new HashMap<>();
+        final Map<DotName, List<ClassInfo>> implementors = new HashMap<>();
+        final Map<DotName, ClassInfo> classes = new HashMap<>();
+        for (Index index : indexes) {
+            for (ClassInfo clazz : index.getKnownClasses()) {
+                classes.put(clazz.name(), clazz);
+                for (Map.Entry<DotName, List<AnnotationInstance>> entry : clazz.annotations().entrySet()) {
+                    get(annotations, entry.getKey()).addAll(entry.getValue());
+                }
+                if (clazz.superName() != null) {
+                    get(subclasses, clazz.superName()).add(clazz);
+                }
+                for (DotName interfaceName : clazz.interfaceNames()) {
+                    get(implementors, interfaceName).add(clazz);
+                }
+            }
+        }
+        return Index.create(annotations, subclasses, implementors, classes);
+    }
+
+    private static <T> List<T> get(final Map<DotName, List<T>> map, final DotName name) {
+        List<T> list = map.get(name);
+        if (list == null) {
+            list = new ArrayList<>();
+            map.put(name, list);
+        }
+        return list;
+    }
+}
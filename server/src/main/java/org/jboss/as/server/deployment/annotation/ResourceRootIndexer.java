@@ -23,12 +23,16 @@
 package org.jboss.as.server.deployment.annotation;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.jboss.as.server.logging.ServerLogger;
 import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentUnit;
 import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
 import org.jboss.as.server.deployment.module.ResourceRoot;
 import org.jboss.as.server.moduleservice.ModuleIndexBuilder;
@@ -50,6 +54,19 @@ public class ResourceRootIndexer {
      * Creates and attaches the annotation index to a resource root, if it has not already been attached
      */
     public static void indexResourceRoot(final ResourceRoot resourceRoot) throws DeploymentUnitProcessingException {
+        indexResourceRoot(resourceRoot, null);
+    }
+
+    /**
+     * Creates and attaches the annotation index to a resource root, if it has not already been attached. If the
+     * resource root belongs to a managed deployment the index is taken from, or stored in, the
+     * {@link AnnotationIndexCache}. If parallel indexing is enabled, the class files of large resource roots are
+     * indexed in shards on the server executor.
+     *
+     * @param resourceRoot the resource root
+     * @param deploymentUnit the deployment unit the resource root belongs to, or {@code null} to not use the cache
+     */
+    public static void indexResourceRoot(final ResourceRoot resourceRoot, final DeploymentUnit deploymentUnit) throws DeploymentUnitProcessingException {
         if (resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX) != null) {
             return;
         }
@@ -80,8 +97,18 @@ public class ResourceRootIndexer {
             indexIgnorePaths = null;
         }
 
+        final AnnotationIndexCache cache = deploymentUnit == null ? null : getCache(deploymentUnit);
+        final String cacheKey = cache == null ? null : AnnotationIndexCache.getKey(deploymentUnit, resourceRoot, indexIgnorePaths);
+        if (cacheKey != null) {
+            final Index index = cache.get(cacheKey);
+            if (index != null) {
+                resourceRoot.putAttachment(Attachments.ANNOTATION_INDEX, index);
+                ServerLogger.DEPLOYMENT_LOGGER.tracef("Found cached index for archive %s", resourceRoot.getRoot());
+                return;
+            }
+        }
+
         final VirtualFile virtualFile = resourceRoot.getRoot();
-        final Indexer indexer = new Indexer();
         try {
             final VisitorAttributes visitorAttributes = new VisitorAttributes();
             visitorAttributes.setLeavesOnly(true);
@@ -92,22 +119,61 @@ public class ResourceRootIndexer {
             });
 
             final List<VirtualFile> classChildren = virtualFile.getChildren(new SuffixMatchFilter(".class", visitorAttributes));
-            for (VirtualFile classFile : classChildren) {
-                InputStream inputStream = null;
-                try {
-                    inputStream = classFile.openStream();
-                    indexer.index(inputStream);
-                } catch (Exception e) {
-                    ServerLogger.DEPLOYMENT_LOGGER.cannotIndexClass(classFile.getPathNameRelativeTo(virtualFile), virtualFile.getPathName(), e);
-                } finally {
-                    VFSUtils.safeClose(inputStream);
+            final Executor executor = deploymentUnit == null || !ParallelIndexing.isEnabled() ? null : getExecutor(deploymentUnit);
+            final int shardSize = ParallelIndexing.getShardSize();
+            final Index index;
+            if (executor != null && classChildren.size() > shardSize) {
+                // index shards of the class files concurrently and merge the results
+                final List<List<VirtualFile>> shards = ParallelIndexing.shards(classChildren, shardSize);
+                final Index[] shardIndexes = new Index[shards.size()];
+                final List<ParallelIndexing.Task> tasks = new ArrayList<>(shards.size());
+                for (int i = 0; i < shards.size(); ++i) {
+                    final int shard = i;
+                    tasks.add(new ParallelIndexing.Task() {
+                        @Override
+                        public void run() {
+                            shardIndexes[shard] = index(virtualFile, shards.get(shard));
+                        }
+                    });
                 }
+                ParallelIndexing.runAll(tasks, executor);
+                index = ParallelIndexing.merge(Arrays.asList(shardIndexes));
+            } else {
+                index = index(virtualFile, classChildren);
             }
-            final Index index = indexer.complete();
             resourceRoot.putAttachment(Attachments.ANNOTATION_INDEX, index);
             ServerLogger.DEPLOYMENT_LOGGER.tracef("Generated index for archive %s", virtualFile);
+            if (cacheKey != null) {
+                cache.put(cacheKey, index);
+            }
         } catch (Throwable t) {
             throw ServerLogger.ROOT_LOGGER.deploymentIndexingFailed(t);
         }
     }
+
+    private static Index index(final VirtualFile virtualFile, final List<VirtualFile> classFiles) {
+        final Indexer indexer = new Indexer();
+        for (VirtualFile classFile : classFiles) {
+            InputStream inputStream = null;
+            try {
+                inputStream = classFile.openStream();
+                indexer.index(inputStream);
+            } catch (Exception e) {
+                ServerLogger.DEPLOYMENT_LOGGER.cannotIndexClass(classFile.getPathNameRelativeTo(virtualFile), virtualFile.getPathName(), e);
+            } finally {
+                VFSUtils.safeClose(inputStream);
+            }
+        }
+        return indexer.complete();
+    }
+
+    static Executor getExecutor(final DeploymentUnit deploymentUnit) {
+        final DeploymentUnit top = deploymentUnit.getParent() == null ? deploymentUnit : deploymentUnit.getParent();
+        return top.getAttachment(Attachments.SERVER_EXECUTOR);
+    }
+
+    private static AnnotationIndexCache getCache(final DeploymentUnit deploymentUnit) {
+        final DeploymentUnit top = deploymentUnit.getParent() == null ? deploymentUnit : deploymentUnit.getParent();
+        return top.getAttachment(Attachments.ANNOTATION_INDEX_CACHE);
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.operations;
+
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.OperationStepHandler;
+import org.jboss.as.controller.SimpleOperationDefinition;
+import org.jboss.as.controller.SimpleOperationDefinitionBuilder;
+import org.jboss.as.server.controller.descriptions.ServerDescriptions;
+import org.jboss.as.server.deployment.annotation.AnnotationIndexCache;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.msc.service.ServiceController;
+
+/**
+ * Handler that removes all the annotation indexes kept by the {@link AnnotationIndexCache}, so that the resource roots
+ * of deployments are indexed again the next time they are deployed.
+ */
+public class ClearAnnotationIndexCacheHandler implements OperationStepHandler {
+
+    public static final String OPERATION_NAME = "clear-annotation-index-cache";
+
+    public static final SimpleOperationDefinition DEFINITION = new SimpleOperationDefinitionBuilder(OPERATION_NAME, ServerDescriptions.getResourceDescriptionResolver())
+            .setRuntimeOnly()
+            .setReplyType(ModelType.INT)
+            .build();
+
+    public static final ClearAnnotationIndexCacheHandler INSTANCE = new ClearAnnotationIndexCacheHandler();
+
+    private ClearAnnotationIndexCacheHandler() {
+    }
+
+    @Override
+    public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+        context.addStep(new OperationStepHandler() {
+            @Override
+            public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+                final ServiceController<?> controller = context.getServiceRegistry(false).getService(AnnotationIndexCache.SERVICE_NAME);
+                int removed = 0;
+                if (controller != null && controller.getState() == ServiceController.State.UP) {
+                    removed = ((AnnotationIndexCache) controller.getValue()).clear();
+                }
+                context.getResult().set(removed);
+            }
+        }, OperationContext.Stage.RUNTIME);
+    }
+}
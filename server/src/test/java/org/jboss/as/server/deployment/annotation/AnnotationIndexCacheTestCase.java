@@ -0,0 +1,136 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.annotation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link AnnotationIndexCache}.
+ */
+public class AnnotationIndexCacheTestCase {
+
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("annotation-index").toFile();
+    }
+
+    @After
+    public void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testStoredIndexSurvivesRestart() throws Exception {
+        AnnotationIndexCache cache = new AnnotationIndexCache(directory, Long.MAX_VALUE);
+        cache.start(null);
+        Assert.assertNull(cache.get("a"));
+        cache.put("a", index(AnnotationIndexCacheTestCase.class));
+        assertIndexes(cache.get("a"), AnnotationIndexCacheTestCase.class);
+        cache.stop(null);
+
+        cache = new AnnotationIndexCache(directory, Long.MAX_VALUE);
+        cache.start(null);
+        Assert.assertEquals(1, cache.getEntryCount());
+        assertIndexes(cache.get("a"), AnnotationIndexCacheTestCase.class);
+
+        Assert.assertEquals(1, cache.clear());
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        AnnotationIndexCache probe = new AnnotationIndexCache(directory, Long.MAX_VALUE);
+        probe.start(null);
+        probe.put("probe", index(AnnotationIndexCacheTestCase.class));
+        long size = probe.getSize();
+        probe.clear();
+        probe.stop(null);
+
+        //room for two indexes of about the same size
+        AnnotationIndexCache cache = new AnnotationIndexCache(directory, size * 2 + size / 2);
+        cache.start(null);
+        cache.put("a", index(AnnotationIndexCacheTestCase.class));
+        cache.put("b", index(AnnotationIndexCacheTestCase.class));
+        Assert.assertNotNull(cache.get("a"));
+        cache.put("c", index(AnnotationIndexCacheTestCase.class));
+
+        Assert.assertEquals(2, cache.getEntryCount());
+        Assert.assertNotNull(cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+        Assert.assertNotNull(cache.get("c"));
+        Assert.assertFalse(new File(directory, "b.idx").exists());
+    }
+
+    @Test
+    public void testCorruptEntryIsDropped() throws Exception {
+        AnnotationIndexCache cache = new AnnotationIndexCache(directory, Long.MAX_VALUE);
+        cache.start(null);
+        cache.put("a", index(AnnotationIndexCacheTestCase.class));
+        Files.write(new File(directory, "a.idx").toPath(), new byte[] {1, 2, 3});
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, cache.getEntryCount());
+        Assert.assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        AnnotationIndexCache cache = new AnnotationIndexCache(directory, 0);
+        cache.start(null);
+        cache.put("a", index(AnnotationIndexCacheTestCase.class));
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, directory.listFiles().length);
+    }
+
+    private static Index index(Class<?> clazz) throws IOException {
+        Indexer indexer = new Indexer();
+        try (InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+            indexer.index(in);
+        }
+        return indexer.complete();
+    }
+
+    private static void assertIndexes(Index index, Class<?> clazz) {
+        Assert.assertNotNull(index);
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(clazz.getName())));
+    }
+}
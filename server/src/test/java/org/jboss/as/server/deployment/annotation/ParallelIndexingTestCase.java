@@ -0,0 +1,157 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link ParallelIndexing}.
+ */
+public class ParallelIndexingTestCase {
+
+    private static final DotName TEST = DotName.createSimple(Test.class.getName());
+    private static final DotName RUNNABLE = DotName.createSimple(Runnable.class.getName());
+    private static final DotName BASE = DotName.createSimple(Base.class.getName());
+
+    @Test
+    public void testMergedIndexMatchesSingleIndex() throws Exception {
+        Index single = index(ParallelIndexingTestCase.class, Base.class, First.class, Second.class);
+        Index merged = ParallelIndexing.merge(Arrays.asList(
+                index(ParallelIndexingTestCase.class, Base.class),
+                index(First.class),
+                index(Second.class)));
+
+        Assert.assertEquals(single.getKnownClasses().size(), merged.getKnownClasses().size());
+        Assert.assertEquals(single.getAnnotations(TEST).size(), merged.getAnnotations(TEST).size());
+        Assert.assertEquals(2, merged.getKnownDirectSubclasses(BASE).size());
+        Assert.assertEquals(2, merged.getKnownDirectImplementors(RUNNABLE).size());
+    }
+
+    @Test
+    public void testShards() {
+        List<Integer> list = Arrays.asList(1, 2, 3, 4, 5);
+        List<List<Integer>> shards = ParallelIndexing.shards(list, 2);
+        Assert.assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4), Collections.singletonList(5)), shards);
+    }
+
+    @Test
+    public void testTasksRunOnCallerWhenExecutorRejects() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        ParallelIndexing.runAll(counters(10, count), new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+        Assert.assertEquals(10, count.get());
+    }
+
+    @Test
+    public void testTasksRunOnExecutor() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            ParallelIndexing.runAll(counters(100, count), executor);
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(100, count.get());
+    }
+
+    @Test
+    public void testFailureIsPropagated() throws Exception {
+        final List<ParallelIndexing.Task> tasks = new ArrayList<>(counters(5, new AtomicInteger()));
+        final DeploymentUnitProcessingException failure = new DeploymentUnitProcessingException("failed");
+        tasks.add(2, new ParallelIndexing.Task() {
+            @Override
+            public void run() throws Exception {
+                throw failure;
+            }
+        });
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            ParallelIndexing.runAll(tasks, executor);
+            Assert.fail("the failure was not propagated");
+        } catch (DeploymentUnitProcessingException e) {
+            Assert.assertSame(failure, e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static List<ParallelIndexing.Task> counters(int n, final AtomicInteger count) {
+        List<ParallelIndexing.Task> tasks = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            tasks.add(new ParallelIndexing.Task() {
+                @Override
+                public void run() {
+                    count.incrementAndGet();
+                }
+            });
+        }
+        return tasks;
+    }
+
+    private static Index index(Class<?>... classes) throws IOException {
+        Indexer indexer = new Indexer();
+        for (Class<?> clazz : classes) {
+            String name = clazz.getName();
+            try (InputStream in = clazz.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+                indexer.index(in);
+            }
+        }
+        return indexer.complete();
+    }
+
+    abstract static class Base {
+    }
+
+    static class First extends Base implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+
+    static class Second extends Base implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+}